@@ -0,0 +1,163 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.admission;
+
+import com.crio.qeats.exceptions.ServiceOverloadedException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+/**
+ * Bounds how many restaurant requests query Mongo at once. Requests over the limit are refused
+ * straight away with a {@link ServiceOverloadedException} instead of queueing for a servlet
+ * thread, so the ones admitted keep their normal latency. Only the Mongo work takes a permit:
+ * cache hits are cheap and are always served, however busy Mongo is.
+ * The limit adapts to the latency of the admitted requests, like a gradient limiter: while it
+ * stays within rtt-tolerance times its long-term average the limit grows, and once it rises
+ * above it the limit shrinks in proportion.
+ */
+@Component
+@Log4j2
+@ManagedResource(objectName = "qeats:name=adaptiveConcurrencyLimiter")
+public class AdaptiveConcurrencyLimiter {
+
+  // Weight of one sample in the long-term latency average, about a 500 sample window.
+  private static final double LONG_RTT_WEIGHT = 2.0 / 501;
+  // Weight of a new estimate in the limit, so one slow sample doesn't halve it.
+  private static final double LIMIT_SMOOTHING = 0.2;
+  private static final double MIN_GRADIENT = 0.5;
+
+  private final boolean enabled;
+  private final int minLimit;
+  private final int maxLimit;
+  private final double rttTolerance;
+  private final LongSupplier nanoClock;
+
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private final AtomicLong rejected = new AtomicLong();
+  private volatile double limit;
+  private double longRttNanos;
+
+  public AdaptiveConcurrencyLimiter() {
+    this(true, 20, 4, 200, 2.0);
+  }
+
+  /**
+   * Starts at the initial limit and keeps the limit within min-limit and max-limit.
+   */
+  @Autowired
+  public AdaptiveConcurrencyLimiter(
+      @Value("${qeats.admission.enabled:true}") boolean enabled,
+      @Value("${qeats.admission.initial-limit:20}") int initialLimit,
+      @Value("${qeats.admission.min-limit:4}") int minLimit,
+      @Value("${qeats.admission.max-limit:200}") int maxLimit,
+      @Value("${qeats.admission.rtt-tolerance:2.0}") double rttTolerance) {
+    this(enabled, initialLimit, minLimit, maxLimit, rttTolerance, System::nanoTime);
+  }
+
+  AdaptiveConcurrencyLimiter(boolean enabled, int initialLimit, int minLimit, int maxLimit,
+      double rttTolerance, LongSupplier nanoClock) {
+    if (minLimit < 1 || minLimit > initialLimit || initialLimit > maxLimit) {
+      throw new IllegalArgumentException("Need 1 <= min-limit <= initial-limit <= max-limit, got "
+          + minLimit + ", " + initialLimit + ", " + maxLimit);
+    }
+    this.enabled = enabled;
+    this.limit = initialLimit;
+    this.minLimit = minLimit;
+    this.maxLimit = maxLimit;
+    this.rttTolerance = rttTolerance;
+    this.nanoClock = nanoClock;
+  }
+
+  /**
+   * Take a permit for an expensive request.
+   * @return the start, to hand to {@link #release(long)} once the request is done
+   * @throws ServiceOverloadedException when the limit is reached
+   */
+  public long acquire() {
+    if (!enabled) {
+      return nanoClock.getAsLong();
+    }
+    while (true) {
+      int current = inFlight.get();
+      if (current >= (int) limit) {
+        rejected.incrementAndGet();
+        throw new ServiceOverloadedException("Over the limit of " + (int) limit
+            + " concurrent restaurant queries");
+      }
+      if (inFlight.compareAndSet(current, current + 1)) {
+        return nanoClock.getAsLong();
+      }
+    }
+  }
+
+  /**
+   * Return the permit, whether the request succeeded or not, and learn from its latency.
+   */
+  public void release(long startNanos) {
+    if (!enabled) {
+      return;
+    }
+    long rttNanos = Math.max(1, nanoClock.getAsLong() - startNanos);
+    int inFlightBefore = inFlight.getAndDecrement();
+    onSample(rttNanos, inFlightBefore);
+  }
+
+  @ManagedAttribute(description = "Concurrent restaurant queries admitted")
+  public int getLimit() {
+    return (int) limit;
+  }
+
+  @ManagedAttribute(description = "Restaurant queries running now")
+  public int getInFlight() {
+    return inFlight.get();
+  }
+
+  @ManagedAttribute(description = "Restaurant queries refused since start")
+  public long getRejected() {
+    return rejected.get();
+  }
+
+  private synchronized void onSample(long rttNanos, int inFlightBefore) {
+    if (longRttNanos == 0) {
+      longRttNanos = rttNanos;
+    } else if (rttNanos > rttTolerance * longRttNanos) {
+      // Overload samples barely move the average, else it would soon call the overload normal
+      // and let the limit grow back. A slowdown that persists at a low limit still gets there.
+      longRttNanos += (rttNanos - longRttNanos) * LONG_RTT_WEIGHT / 10;
+    } else if (rttNanos < longRttNanos) {
+      // Faster samples pull it down quickly, so a baseline measured while requests were
+      // already queueing, or during a past spike, doesn't linger.
+      longRttNanos += (rttNanos - longRttNanos) * LONG_RTT_WEIGHT * 10;
+    } else {
+      longRttNanos += (rttNanos - longRttNanos) * LONG_RTT_WEIGHT;
+    }
+    // With most permits unused the latency says nothing about what the limit should be.
+    if (inFlightBefore < limit / 2) {
+      return;
+    }
+
+    double gradient = Math.max(MIN_GRADIENT,
+        Math.min(1.0, rttTolerance * longRttNanos / rttNanos));
+    // Room for a few queued requests, so the limit can grow while latency stays flat.
+    double estimate = limit * gradient + Math.sqrt(limit);
+    double newLimit = limit * (1 - LIMIT_SMOOTHING) + estimate * LIMIT_SMOOTHING;
+    newLimit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+    if ((int) newLimit != (int) limit) {
+      log.debug("Concurrency limit {} -> {}, rtt {}us, long rtt {}us", (int) limit,
+          (int) newLimit, rttNanos / 1000, (long) longRttNanos / 1000);
+    }
+    limit = newLimit;
+  }
+
+}
@@ -0,0 +1,16 @@
+
+package com.crio.qeats.configs;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.config.EnableMongoAuditing;
+
+/**
+ * Turns on {@code @LastModifiedDate} stamping for the mongo entities, which the
+ * {@link com.crio.qeats.repositoryservices.RestaurantChangeFeed} relies on when it has to
+ * fall back to polling.
+ */
+@Configuration
+@EnableMongoAuditing
+public class MongoAuditingConfiguration {
+
+}
@@ -0,0 +1,29 @@
+package com.crio.qeats.configs;
+
+import com.crio.qeats.repositories.ReactiveRestaurantRepository;
+import com.crio.qeats.repositories.RestaurantRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.data.mongo.MongoReactiveDataAutoConfiguration;
+import org.springframework.boot.autoconfigure.data.redis.RedisAutoConfiguration;
+import org.springframework.boot.autoconfigure.data.redis.RedisReactiveAutoConfiguration;
+import org.springframework.boot.autoconfigure.mongo.MongoReactiveAutoConfiguration;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.repository.config.EnableMongoRepositories;
+import org.springframework.data.mongodb.repository.config.EnableReactiveMongoRepositories;
+
+/**
+ * The reactive mongo driver and lettuce, only for the reactive close by path. Their
+ * auto-configuration is excluded in QEatsApplication, so by default neither connects nor
+ * starts its event loop threads. It is imported plainly here, since an exclusion also applies
+ * to {@code @ImportAutoConfiguration}. The reactive repositories are enabled explicitly, and
+ * then the blocking ones too, as their auto-configuration backs off.
+ */
+@Configuration
+@ConditionalOnProperty(name = "qeats.restaurants.reactive", havingValue = "true")
+@Import({MongoReactiveAutoConfiguration.class, MongoReactiveDataAutoConfiguration.class,
+    RedisAutoConfiguration.class, RedisReactiveAutoConfiguration.class})
+@EnableReactiveMongoRepositories(basePackageClasses = ReactiveRestaurantRepository.class)
+@EnableMongoRepositories(basePackageClasses = RestaurantRepository.class)
+public class ReactiveConfiguration {
+}
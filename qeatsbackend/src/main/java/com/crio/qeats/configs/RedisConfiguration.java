@@ -6,6 +6,7 @@ import javax.annotation.PostConstruct;
 
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.extern.log4j.Log4j2;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
@@ -19,6 +20,7 @@ import redis.clients.jedis.JedisPoolConfig;
 //added
 @Data
 @AllArgsConstructor
+@Log4j2
 public class RedisConfiguration {
 
   // TODO: CRIO_TASK_MODULE_REDIS
@@ -46,7 +48,7 @@ public class RedisConfiguration {
 
   @Value("${spring.redis.port}")
   public void setRedisPort(int port) {
-    System.out.println("setting up redis port to " + port);
+    log.info("Setting up redis port to {}", port);
     redisPort = port;
   }
 
@@ -60,7 +62,7 @@ public class RedisConfiguration {
     try {
       jedisPool = new JedisPool(poolConfig, redisHost, redisPort);
     } catch (Exception e) {
-      e.printStackTrace();
+      log.error("Could not create the redis pool", e);
     }
   }
 
@@ -102,13 +104,13 @@ public class RedisConfiguration {
       JedisPoolConfig poolConfig = buildPoolConfig();
       jedisPool = new JedisPool(poolConfig, redisHost, redisPort);
     } catch (Exception e) {
-      e.printStackTrace();
+      log.error("Could not create the redis pool", e);
     }
     return jedisPool;
   }
 
 
-  private static JedisPoolConfig buildPoolConfig() {
+  static JedisPoolConfig buildPoolConfig() {
     final JedisPoolConfig poolConfig = new JedisPoolConfig();
     poolConfig.setMaxTotal(128);
     poolConfig.setMaxIdle(128);
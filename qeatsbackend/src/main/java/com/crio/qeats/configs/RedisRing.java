@@ -0,0 +1,307 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.configs;
+
+import com.crio.qeats.globals.GlobalConstants;
+import com.crio.qeats.utils.ConsistentHashRing;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.ScanParams;
+import redis.clients.jedis.ScanResult;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+import redis.clients.jedis.exceptions.JedisException;
+
+/**
+ * Spreads the close by cache cells, keyed on GeoHash, over the redis nodes listed in
+ * qeats.redis.nodes with a {@link ConsistentHashRing}. A cell is placed by the first
+ * routing-precision characters of its GeoHash only, so neighbouring cells, which share them,
+ * are on the same node and evicting all the cells around a restaurant touches one or two.
+ * A node that cannot be reached is skipped, its cells going to the next nodes clockwise, and
+ * is pinged in the background until it answers. It then loses the cells it held, which missed
+ * the evictions made while it was away, and the other nodes lose their copies of its cells,
+ * which are also written with a shorter expiry in case that fails.
+ * With no nodes listed every cell is on the redis of {@link RedisConfiguration}, as before.
+ */
+@Component
+@Log4j2
+public class RedisRing {
+
+  // Matches the cell keys, and not the menu and cart keys that share the default redis.
+  private static final String CELL_KEY_PATTERN = String.join("",
+      Collections.nCopies(GlobalConstants.GEOHASH_PRECISION, "[0-9b-hjkmnp-z]"));
+  private static final int KEYS_PER_SCAN = 1000;
+
+  @Autowired
+  private RedisConfiguration redisConfiguration;
+
+  // host:port,host:port
+  @Value("${qeats.redis.nodes:}")
+  private String nodeAddresses = "";
+
+  @Value("${qeats.redis.virtual-nodes:160}")
+  private int virtualNodes = 160;
+
+  @Value("${qeats.redis.routing-precision:5}")
+  private int routingPrecision = 5;
+
+  @Value("${qeats.redis.retry-interval-ms:5000}")
+  private long retryIntervalMs = 5000;
+
+  @Value("${qeats.restaurants.reactive:false}")
+  private boolean reactive;
+
+  private ConsistentHashRing<Node> ring;
+  private ScheduledExecutorService executor;
+
+  @PostConstruct
+  public void start() {
+    // The reactive path caches cells through lettuce on spring.redis, where evictions made on
+    // the ring would never reach them.
+    if (reactive && !nodeAddresses.trim().isEmpty()) {
+      throw new IllegalStateException(
+          "qeats.restaurants.reactive cannot be combined with qeats.redis.nodes");
+    }
+    List<Node> nodes = new ArrayList<>();
+    for (String address : nodeAddresses.split(",")) {
+      address = address.trim();
+      if (address.isEmpty()) {
+        continue;
+      }
+      int colon = address.lastIndexOf(':');
+      JedisPool pool = new JedisPool(RedisConfiguration.buildPoolConfig(),
+          address.substring(0, colon), Integer.parseInt(address.substring(colon + 1)));
+      nodes.add(new Node(address, () -> pool, pool));
+    }
+    if (nodes.isEmpty()) {
+      ring = ConsistentHashRing.of(Collections.singletonList(
+          new Node("default", redisConfiguration::getJedisPool, null)), node -> node.address, 1);
+      return;
+    }
+
+    ring = ConsistentHashRing.of(nodes, node -> node.address, virtualNodes);
+    log.info("Close by cache cells spread over redis nodes {}", nodeAddresses);
+    executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "redis-ring");
+      thread.setDaemon(true);
+      return thread;
+    });
+    executor.scheduleWithFixedDelay(this::recoverNodes, retryIntervalMs, retryIntervalMs,
+        TimeUnit.MILLISECONDS);
+  }
+
+  @PreDestroy
+  public void stop() {
+    if (executor != null) {
+      executor.shutdownNow();
+    }
+    for (Node node : ring.getNodes()) {
+      if (node.ownPool != null) {
+        node.ownPool.destroy();
+      }
+    }
+  }
+
+  /**
+   * Whether any node may take cells.
+   */
+  public boolean isAvailable() {
+    if (isDefaultOnly()) {
+      return redisConfiguration.isCacheAvailable();
+    }
+    for (Node node : ring.getNodes()) {
+      if (!node.down) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * A connection to the node of the cell, or to the next nodes if it cannot be reached.
+   * @throws JedisConnectionException when no node can be reached
+   */
+  public Jedis getResource(String geoHashKey) {
+    for (int attempt = 0; attempt < ring.getNodes().size(); attempt++) {
+      Node node = route(geoHashKey);
+      if (node == null) {
+        break;
+      }
+      try {
+        return node.pool.get().getResource();
+      } catch (JedisConnectionException e) {
+        if (isDefaultOnly()) {
+          throw e;
+        }
+        markDown(node, e);
+      }
+    }
+    throw new JedisConnectionException("No redis node can take " + geoHashKey);
+  }
+
+  /**
+   * Runs the action once per node with the cells it holds, e.g. to delete them in a
+   * pipeline. Cells of a node failing on the way are given to the next nodes.
+   */
+  public void forEachNode(Collection<String> geoHashKeys,
+      BiConsumer<Jedis, List<String>> action) {
+    Collection<String> pending = geoHashKeys;
+    for (int attempt = 0; attempt < ring.getNodes().size() && !pending.isEmpty(); attempt++) {
+      Map<Node, List<String>> keysByNode = new LinkedHashMap<>();
+      for (String geoHashKey : pending) {
+        Node node = route(geoHashKey);
+        if (node != null) {
+          keysByNode.computeIfAbsent(node, n -> new ArrayList<>()).add(geoHashKey);
+        }
+      }
+
+      List<String> failed = new ArrayList<>();
+      for (Map.Entry<Node, List<String>> entry : keysByNode.entrySet()) {
+        try (Jedis jedis = entry.getKey().pool.get().getResource()) {
+          action.accept(jedis, entry.getValue());
+        } catch (JedisConnectionException e) {
+          if (isDefaultOnly()) {
+            throw e;
+          }
+          markDown(entry.getKey(), e);
+          failed.addAll(entry.getValue());
+        }
+      }
+      pending = failed;
+    }
+  }
+
+  /**
+   * Takes the node of the cell out of the ring after a command on a connection from
+   * {@link #getResource} failed.
+   */
+  public void reportFailure(String geoHashKey, JedisConnectionException e) {
+    if (isDefaultOnly()) {
+      return;
+    }
+    Node node = route(geoHashKey);
+    if (node != null) {
+      markDown(node, e);
+    }
+  }
+
+  /**
+   * Whether the cell is on the node the ring places it on, and not on one standing in for it.
+   */
+  public boolean isOnOwnNode(String geoHashKey) {
+    return route(geoHashKey) == ring.nodeFor(routingKeyOf(geoHashKey), node -> true);
+  }
+
+  /**
+   * The address of the node the cell is on now, "default" with no nodes listed.
+   */
+  public String nodeOf(String geoHashKey) {
+    Node node = route(geoHashKey);
+    return node == null ? null : node.address;
+  }
+
+  void recoverNodes() {
+    for (Node node : ring.getNodes()) {
+      if (!node.down) {
+        continue;
+      }
+      try (Jedis jedis = node.pool.get().getResource()) {
+        int purged = purgeCells(jedis, null);
+        node.down = false;
+        log.info("Redis node {} is back, {} of its cells dropped", node.address, purged);
+      } catch (JedisException e) {
+        log.debug("Redis node {} still unavailable: {}", node.address, e.getMessage());
+        continue;
+      }
+      for (Node other : ring.getNodes()) {
+        if (other == node || other.down) {
+          continue;
+        }
+        try (Jedis jedis = other.pool.get().getResource()) {
+          purgeCells(jedis, other);
+        } catch (JedisException e) {
+          log.warn("Could not drop the cells redis node {} held for {}", other.address,
+              node.address, e);
+        }
+      }
+    }
+  }
+
+  // Deletes the cells of the node, only those no longer routed to owner when it is given.
+  private int purgeCells(Jedis jedis, Node owner) {
+    ScanParams params = new ScanParams().match(CELL_KEY_PATTERN).count(KEYS_PER_SCAN);
+    String cursor = ScanParams.SCAN_POINTER_START;
+    int purged = 0;
+    do {
+      ScanResult<String> scan = jedis.scan(cursor, params);
+      List<String> keys = new ArrayList<>();
+      for (String key : scan.getResult()) {
+        if (owner == null || route(key) != owner) {
+          keys.add(key);
+        }
+      }
+      if (!keys.isEmpty()) {
+        jedis.del(keys.toArray(new String[0]));
+        purged += keys.size();
+      }
+      cursor = scan.getStringCursor();
+    } while (!ScanParams.SCAN_POINTER_START.equals(cursor));
+    return purged;
+  }
+
+  private Node route(String geoHashKey) {
+    return ring.nodeFor(routingKeyOf(geoHashKey), node -> !node.down);
+  }
+
+  private String routingKeyOf(String geoHashKey) {
+    return geoHashKey.length() > routingPrecision
+        ? geoHashKey.substring(0, routingPrecision) : geoHashKey;
+  }
+
+  private void markDown(Node node, JedisException e) {
+    if (!node.down) {
+      node.down = true;
+      log.warn("Redis node {} failed, its cells go to the next nodes until it answers again:"
+          + " {}", node.address, e.getMessage());
+    }
+  }
+
+  private boolean isDefaultOnly() {
+    return ring.getNodes().get(0).ownPool == null;
+  }
+
+  private static final class Node {
+    private final String address;
+    private final Supplier<JedisPool> pool;
+    // Null for the default redis, whose pool belongs to RedisConfiguration.
+    private final JedisPool ownPool;
+    private volatile boolean down;
+
+    private Node(String address, Supplier<JedisPool> pool, JedisPool ownPool) {
+      this.address = address;
+      this.pool = pool;
+      this.ownPool = ownPool;
+    }
+  }
+
+}
@@ -0,0 +1,83 @@
+package com.crio.qeats.configs;
+
+import com.crio.qeats.utils.VirtualThreads;
+import com.mongodb.MongoClientOptions;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Threads for request handling and the search fan-out. With qeats.threads.virtual=true, on a
+ * JDK that has them, both run on virtual threads: a request blocked on Jedis or Mongo then
+ * parks a virtual thread instead of holding one of Tomcat's 200 workers. On an older JDK the
+ * setting is ignored with a warning.
+ * Tomcat must be 9.0.69 or later for this, older versions hold a monitor around each request,
+ * pinning it to its carrier thread.
+ */
+@Configuration
+@Log4j2
+public class ThreadingConfiguration {
+
+  @Value("${qeats.threads.virtual:false}")
+  private boolean virtualThreads;
+
+  @Value("${qeats.search.threads:64}")
+  private int searchThreads;
+
+  /**
+   * Runs the four searches of RestaurantServiceImpl.findRestaurantsBySearchQueryMt.
+   */
+  @Bean(destroyMethod = "shutdownNow")
+  public ExecutorService restaurantSearchExecutor() {
+    if (useVirtualThreads()) {
+      return VirtualThreads.newVirtualThreadPerTaskExecutor();
+    }
+    AtomicInteger threadCount = new AtomicInteger();
+    return Executors.newFixedThreadPool(searchThreads, runnable -> {
+      Thread thread = new Thread(runnable, "restaurant-search-" + threadCount.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  @Bean
+  public WebServerFactoryCustomizer<TomcatServletWebServerFactory> virtualThreadsForTomcat() {
+    return factory -> {
+      if (useVirtualThreads()) {
+        factory.addConnectorCustomizers(connector -> connector.getProtocolHandler()
+            .setExecutor(VirtualThreads.newVirtualThreadPerTaskExecutor()));
+      }
+    };
+  }
+
+  /**
+   * Without the 200 worker cap far more searches reach Mongo at once, each waiting for one of
+   * the pool's connections. The driver fails a wait once more than multiplier * pool size
+   * threads are waiting, so allow a longer queue.
+   */
+  @Bean
+  @ConditionalOnProperty(name = "qeats.threads.virtual", havingValue = "true")
+  public MongoClientOptions mongoClientOptions(
+      @Value("${qeats.threads.mongo-wait-queue-multiple:100}") int waitQueueMultiple) {
+    return MongoClientOptions.builder()
+        .threadsAllowedToBlockForConnectionMultiplier(waitQueueMultiple)
+        .build();
+  }
+
+  private boolean useVirtualThreads() {
+    if (virtualThreads && !VirtualThreads.isSupported()) {
+      log.warn("qeats.threads.virtual is set but JDK {} has no virtual threads,"
+          + " using platform threads", System.getProperty("java.version"));
+      return false;
+    }
+    return virtualThreads;
+  }
+
+}
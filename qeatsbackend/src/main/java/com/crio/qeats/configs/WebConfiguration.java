@@ -0,0 +1,39 @@
+package com.crio.qeats.configs;
+
+import com.crio.qeats.controller.GetRestaurantsResponseWriter;
+import java.util.List;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+
+@Configuration
+public class WebConfiguration {
+
+  /**
+   * Spring Data web support puts a Jackson converter in front of every other one, which would
+   * keep {@link GetRestaurantsResponseWriter} from ever being asked; move it back to the front.
+   */
+  @Bean
+  public static BeanPostProcessor getRestaurantsResponseWriterFirst() {
+    return new BeanPostProcessor() {
+      @Override
+      public Object postProcessBeforeInitialization(Object bean, String beanName) {
+        if (bean instanceof RequestMappingHandlerAdapter) {
+          List<HttpMessageConverter<?>> converters =
+              ((RequestMappingHandlerAdapter) bean).getMessageConverters();
+          converters.stream()
+              .filter(GetRestaurantsResponseWriter.class::isInstance)
+              .findFirst()
+              .ifPresent(writer -> {
+                converters.remove(writer);
+                converters.add(0, writer);
+              });
+        }
+        return bean;
+      }
+    };
+  }
+
+}
@@ -0,0 +1,92 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.controller;
+
+import com.crio.qeats.dto.Restaurant;
+import com.crio.qeats.exchanges.GetRestaurantsResponse;
+import com.crio.qeats.metrics.RestaurantMetrics;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.stereotype.Component;
+
+/**
+ * Writes {@code {"restaurants":[...]}} by concatenating the cached JSON of each restaurant,
+ * byte for byte what Jackson writes for a GetRestaurantsResponse. As a converter bean it is
+ * tried before the Jackson one; everything else is still written by Jackson.
+ */
+@Component
+public class GetRestaurantsResponseWriter
+    extends AbstractHttpMessageConverter<GetRestaurantsResponse> {
+
+  private static final byte[] PREFIX = bytes("{\"restaurants\":[");
+  private static final byte[] SEPARATOR = bytes(",");
+  private static final byte[] SUFFIX = bytes("]}");
+  private static final byte[] NO_RESTAURANTS = bytes("{\"restaurants\":null}");
+
+  private final RestaurantJsonFragments restaurantJsonFragments;
+  private final RestaurantMetrics restaurantMetrics;
+
+  @Autowired
+  public GetRestaurantsResponseWriter(RestaurantJsonFragments restaurantJsonFragments,
+      RestaurantMetrics restaurantMetrics) {
+    super(StandardCharsets.UTF_8, MediaType.APPLICATION_JSON,
+        new MediaType("application", "*+json"));
+    this.restaurantJsonFragments = restaurantJsonFragments;
+    this.restaurantMetrics = restaurantMetrics;
+  }
+
+  @Override
+  protected boolean supports(Class<?> clazz) {
+    return GetRestaurantsResponse.class == clazz;
+  }
+
+  @Override
+  protected boolean canRead(MediaType mediaType) {
+    return false;
+  }
+
+  @Override
+  protected GetRestaurantsResponse readInternal(Class<? extends GetRestaurantsResponse> clazz,
+      HttpInputMessage inputMessage) {
+    throw new HttpMessageNotReadableException("GetRestaurantsResponse is only written",
+        inputMessage);
+  }
+
+  @Override
+  protected void writeInternal(GetRestaurantsResponse getRestaurantsResponse,
+      HttpOutputMessage outputMessage) throws IOException {
+    long start = restaurantMetrics.start();
+    OutputStream body = outputMessage.getBody();
+    List<Restaurant> restaurants = getRestaurantsResponse.getRestaurants();
+    if (restaurants == null) {
+      body.write(NO_RESTAURANTS);
+    } else {
+      body.write(PREFIX);
+      for (int i = 0; i < restaurants.size(); i++) {
+        if (i > 0) {
+          body.write(SEPARATOR);
+        }
+        body.write(restaurantJsonFragments.toJson(restaurants.get(i)));
+      }
+      body.write(SUFFIX);
+    }
+    restaurantMetrics.record(RestaurantMetrics.SERIALIZATION, start);
+  }
+
+  private static byte[] bytes(String json) {
+    return json.getBytes(StandardCharsets.UTF_8);
+  }
+
+}
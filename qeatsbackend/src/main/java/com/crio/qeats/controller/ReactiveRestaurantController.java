@@ -0,0 +1,68 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.controller;
+
+import com.crio.qeats.exchanges.GetRestaurantsRequest;
+import com.crio.qeats.exchanges.GetRestaurantsResponse;
+import com.crio.qeats.services.ReactiveRestaurantService;
+import com.crio.qeats.services.SuggestionService;
+import java.time.LocalTime;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+/**
+ * GET /qeats/v1/restaurants served by the {@link ReactiveRestaurantService}, present only when
+ * qeats.restaurants.reactive=true. The request is handled as servlet async: the Tomcat thread
+ * is returned to the pool as soon as the queries are sent, and the response is written when
+ * the drivers answer.
+ */
+@RestController
+@ConditionalOnProperty(name = "qeats.restaurants.reactive", havingValue = "true")
+@RequestMapping(RestaurantController.RESTAURANT_API_ENDPOINT)
+public class ReactiveRestaurantController {
+
+  @Autowired
+  private ReactiveRestaurantService reactiveRestaurantService;
+
+  @Autowired
+  private SuggestionService suggestionService;
+
+  // Same contract as RestaurantController.getRestaurants. Requiring the location params makes
+  // this mapping more specific than that one, so it gets every request that has them while
+  // this controller exists; requests without them get the same 400 from either.
+  @GetMapping(value = RestaurantController.RESTAURANTS_API,
+      params = {"latitude", "longitude"})
+  public Mono<ResponseEntity<GetRestaurantsResponse>> getRestaurants(
+      GetRestaurantsRequest getRestaurantsRequest) {
+    Double latitude = getRestaurantsRequest.getLatitude();
+    Double longitude = getRestaurantsRequest.getLongitude();
+    if (latitude == null || longitude == null || latitude < -90 || latitude > 90
+        || longitude < -180 || longitude > 180) {
+      return Mono.just(ResponseEntity.badRequest().body(null));
+    }
+
+    return (getRestaurantsRequest.getSearchFor() != null
+        ? reactiveRestaurantService.findRestaurantsBySearchQuery(
+            getRestaurantsRequest, LocalTime.now())
+        : reactiveRestaurantService.findAllRestaurantsCloseBy(
+            getRestaurantsRequest, LocalTime.now()))
+        .collectList()
+        .doOnNext(restaurants -> {
+          if (getRestaurantsRequest.getSearchFor() != null && !restaurants.isEmpty()) {
+            suggestionService.recordSearch(latitude, longitude,
+                getRestaurantsRequest.getSearchFor());
+          }
+        })
+        .map(restaurants -> ResponseEntity.ok().body(new GetRestaurantsResponse(restaurants)));
+  }
+
+}
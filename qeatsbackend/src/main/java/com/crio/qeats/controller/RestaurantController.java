@@ -6,14 +6,35 @@
 
 package com.crio.qeats.controller;
 
-import com.crio.qeats.dto.Restaurant;
+import com.crio.qeats.dto.Cart;
+import com.crio.qeats.dto.Order;
+import com.crio.qeats.exceptions.OrderNotAcceptedException;
+import com.crio.qeats.exceptions.QEatsException;
+import com.crio.qeats.exceptions.ServiceOverloadedException;
+import com.crio.qeats.exceptions.ServiceUnavailableException;
+import com.crio.qeats.exchanges.CartItemRequest;
+import com.crio.qeats.exchanges.CartModifiedResponse;
+import com.crio.qeats.exchanges.ClearCartRequest;
+import com.crio.qeats.exchanges.GetCartRequest;
+import com.crio.qeats.exchanges.GetMenuResponse;
+import com.crio.qeats.exchanges.GetMenusRequest;
+import com.crio.qeats.exchanges.GetMenusResponse;
+import com.crio.qeats.exchanges.GetOrdersRequest;
+import com.crio.qeats.exchanges.GetOrdersResponse;
 import com.crio.qeats.exchanges.GetRestaurantsRequest;
+import com.crio.qeats.exchanges.PostOrderRequest;
 import com.crio.qeats.exchanges.GetRestaurantsResponse;
+import com.crio.qeats.exchanges.GetSuggestionsRequest;
+import com.crio.qeats.exchanges.GetSuggestionsResponse;
+import com.crio.qeats.services.CartAndOrderService;
+import com.crio.qeats.services.MenuService;
 import com.crio.qeats.services.RestaurantService;
+import com.crio.qeats.services.SuggestionService;
+import com.crio.qeats.utils.StaleList;
 
 import java.nio.charset.Charset;
 import java.time.LocalTime;
-import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
 
 import javax.validation.Valid;
 
@@ -22,18 +43,23 @@ import lombok.extern.log4j.Log4j2;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.stereotype.Service;
 import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 @RestController
 @Log4j2
@@ -43,15 +69,32 @@ public class RestaurantController {
   public static final String RESTAURANT_API_ENDPOINT = "/qeats/v1";
   public static final String RESTAURANTS_API = "/restaurants";
   public static final String MENU_API = "/menu";
+  public static final String MENUS_API = "/menus";
   public static final String CART_API = "/cart";
   public static final String CART_ITEM_API = "/cart/item";
   public static final String CART_CLEAR_API = "/cart/clear";
   public static final String POST_ORDER_API = "/order";
   public static final String GET_ORDERS_API = "/orders";
+  public static final String SUGGESTIONS_API = "/suggestions";
+  // Marks restaurants served from a cache entry past its soft TTL, see StaleList.
+  public static final String STALE_RESPONSE_WARNING = "110 - \"Response is Stale\"";
 
   @Autowired
   private RestaurantService restaurantService;
 
+  @Autowired
+  private MenuService menuService;
+
+  @Autowired
+  private CartAndOrderService cartAndOrderService;
+
+  @Autowired
+  private SuggestionService suggestionService;
+
+  // Only one in this many restaurant searches is logged, every one of them at 1 or less.
+  @Value("${qeats.logging.request-sample-rate:100}")
+  private int requestLogSampleRate = 100;
+
 
   // TODO: CRIO_TASK_MODULE_MULTITHREADING
   //  Improve the performance of this GetRestaurants API
@@ -81,6 +124,8 @@ public class RestaurantController {
   //          - partial matches second
   //      4) Item attributes
   //          - partial and full matches in any order
+  //      5) Matches with typos, only when the above find too few
+  //      Inside each of these, the nearest, longest open and most ordered from come first.
   //      Eg: For example, when user searches for "Udupi", "Udupi Bhavan" restaurant should
   //      come ahead of restaurants having "Udupi" in attribute.
   // 2). If searchFor param is absent,
@@ -113,10 +158,14 @@ public class RestaurantController {
   //    }
   //  ]
   // }
+  // The restaurants may come from a cache entry a few minutes old, being refreshed or, if
+  // Mongo is failing, not. The response then carries: Warning: 110 - "Response is Stale"
   //
   // Error Response:
   // HTTP Code: 4xx, if client side error.
   //          : 5xx, if server side error.
+  //          : 503 with Retry-After, if too many requests are querying Mongo already.
+  //          : 503, if Mongo failed and there is no stale result to serve instead.
   // Eg:
   // curl -X GET "http://localhost:8081/qeats/v1/restaurants?latitude=28.4900591&longitude=77.536386&searchFor=tamil"
 
@@ -124,7 +173,10 @@ public class RestaurantController {
   public ResponseEntity<GetRestaurantsResponse> getRestaurants(
        GetRestaurantsRequest getRestaurantsRequest) {
 
-    log.info("getRestaurants called with {}", getRestaurantsRequest);
+    if (log.isInfoEnabled() && (requestLogSampleRate <= 1
+        || ThreadLocalRandom.current().nextInt(requestLogSampleRate) == 0)) {
+      log.info("getRestaurants called with {}", getRestaurantsRequest);
+    }
     GetRestaurantsResponse getRestaurantsResponse;
 
     //CHECKSTYLE:OFF
@@ -138,27 +190,59 @@ public class RestaurantController {
       if (getRestaurantsRequest.getSearchFor() != null) {
         getRestaurantsResponse = restaurantService
             .findRestaurantsBySearchQuery(getRestaurantsRequest, LocalTime.now());
+        if (getRestaurantsResponse != null && getRestaurantsResponse.getRestaurants() != null
+            && !getRestaurantsResponse.getRestaurants().isEmpty()) {
+          suggestionService.recordSearch(getRestaurantsRequest.getLatitude(),
+              getRestaurantsRequest.getLongitude(), getRestaurantsRequest.getSearchFor());
+        }
       } else {
         getRestaurantsResponse = restaurantService
           .findAllRestaurantsCloseBy(getRestaurantsRequest, LocalTime.now());
       }
-      if (getRestaurantsResponse != null) {
-        List<Restaurant> restaurantList = getRestaurantsResponse.getRestaurants();
-
-        for (Restaurant restaurant : restaurantList) {
-          String name = restaurant.getName();
-          // changes to ASCII characters
-          String resultName = name.replaceAll("[^\\x00-\\x7F]", "?");
-          restaurant.setName(resultName);
-        }
+      // Names are already ASCII, see RestaurantRepositoryServiceImpl.
+      if (getRestaurantsResponse != null
+          && StaleList.isStale(getRestaurantsResponse.getRestaurants())) {
+        return ResponseEntity.ok().header(HttpHeaders.WARNING, STALE_RESPONSE_WARNING)
+            .body(getRestaurantsResponse);
       }
-
       return ResponseEntity.ok().body(getRestaurantsResponse);
     } else {
       return ResponseEntity.badRequest().body(null);
     }
   }
 
+  // Get completions of what the user has typed into the search box so far, from the
+  // restaurant names, attributes and dish names near them.
+  // API URI: /qeats/v1/suggestions?latitude=28.49&longitude=77.53&prefix=bir&limit=10
+  // Method: GET
+  // Query Params: latitude, longitude, prefix, limit(optional, 10 by default, at most 20)
+  // Success Output:
+  // 1). Suggestions whose text, or one of its words, starts with prefix, ignoring case.
+  // 2). Ranked by how many restaurants nearby offer them and how often they are searched for
+  //     nearby.
+  //
+  // HTTP Code: 200
+  // {
+  //  "suggestions": ["Biryani", "Paradise Biryani", "Chicken Biryani"]
+  // }
+  // Error Response:
+  // HTTP Code: 400, if the location is missing or out of range, or prefix is empty.
+  // Eg:
+  // curl -X GET "http://localhost:8081/qeats/v1/suggestions?latitude=28.49&longitude=77.53&prefix=bir"
+
+  @GetMapping(SUGGESTIONS_API)
+  public ResponseEntity<GetSuggestionsResponse> getSuggestions(
+      GetSuggestionsRequest getSuggestionsRequest) {
+    Double latitude = getSuggestionsRequest.getLatitude();
+    Double longitude = getSuggestionsRequest.getLongitude();
+    String prefix = getSuggestionsRequest.getPrefix();
+    if (latitude == null || longitude == null || latitude < -90 || latitude > 90
+        || longitude < -180 || longitude > 180 || prefix == null || prefix.trim().isEmpty()) {
+      return ResponseEntity.badRequest().body(null);
+    }
+    return ResponseEntity.ok().body(suggestionService.getSuggestions(getSuggestionsRequest));
+  }
+
   // TIP(MODULE_MENUAPI): Model Implementation for getting menu given a restaurantId.
   // Get the Menu for the given restaurantId
   // API URI: /qeats/v1/menu?restaurantId=11
@@ -166,7 +250,8 @@ public class RestaurantController {
   // Query Params: restaurantId
   // Success Output:
   // 1). If restaurantId is present return Menu
-  // 2). Otherwise respond with BadHttpRequest.
+  // 2). If restaurantId is missing respond with BadHttpRequest.
+  // 3). If the restaurant has no menu respond with NotFound.
   //
   // HTTP Code: 200
   // {
@@ -187,20 +272,202 @@ public class RestaurantController {
   //  }
   // }
   // Error Response:
-  // HTTP Code: 4xx, if client side error.
+  // HTTP Code: 400, if restaurantId is missing.
+  //          : 404, if the restaurant is unknown or has no menu.
   //          : 5xx, if server side error.
   // Eg:
   // curl -X GET "http://localhost:8081/qeats/v1/menu?restaurantId=11"
+  //
+  // The response carries the menu version as ETag. A client that sends it back in
+  // If-None-Match gets 304 without a body while the menu is unchanged.
+
+  @GetMapping(MENU_API)
+  public ResponseEntity<GetMenuResponse> getMenu(
+      @RequestParam(required = false) String restaurantId, WebRequest webRequest) {
+
+    if (restaurantId == null || restaurantId.isEmpty()) {
+      return ResponseEntity.badRequest().body(null);
+    }
+
+    GetMenuResponse getMenuResponse = menuService.findMenu(restaurantId);
+    if (getMenuResponse == null || getMenuResponse.getMenu() == null) {
+      return ResponseEntity.notFound().build();
+    }
+
+    String version = getMenuResponse.getMenu().getVersion();
+    if (version != null && webRequest.checkNotModified(version)) {
+      return null;
+    }
+    return ResponseEntity.ok().eTag(version).body(getMenuResponse);
+  }
+
+  // Get the menus of many restaurants in one call, e.g. for the menu previews of a
+  // restaurant list.
+  // API URI: /qeats/v1/menus
+  // Method: POST
+  // Body: {"restaurantIds": ["11", "12"]}, at most MAX_MENUS_PER_REQUEST ids
+  // Success Output:
+  // 1). Menus keyed on restaurantId; restaurants without a menu are left out.
+  // 2). BadHttpRequest if restaurantIds is missing, empty or too long.
+  //
+  // HTTP Code: 200
+  // {
+  //  "menus": {
+  //    "11": {
+  //      "restaurantId": "11",
+  //      "items": [ ... ]
+  //    }
+  //  }
+  // }
+  // Eg:
+  // curl -X POST -H "Content-Type: application/json" -d '{"restaurantIds": ["11", "12"]}' \
+  //   "http://localhost:8081/qeats/v1/menus"
+
+  @PostMapping(MENUS_API)
+  public ResponseEntity<GetMenusResponse> getMenus(
+      @Valid @RequestBody GetMenusRequest getMenusRequest) {
+    return ResponseEntity.ok().body(menuService.findMenus(getMenusRequest));
+  }
+
+  // Get the cart of a user, creating an empty one if the user has none.
+  // API URI: /qeats/v1/cart?userId=Bunny
+  // Method: GET
+  // Query Params: userId
+  //
+  // HTTP Code: 200
+  // {
+  //  "id": "1",
+  //  "restaurantId": "10",
+  //  "userId": "Bunny",
+  //  "items": [ ... ],
+  //  "total": 225
+  // }
+  // Eg:
+  // curl -X GET "http://localhost:8081/qeats/v1/cart?userId=Bunny"
 
+  @GetMapping(CART_API)
+  public ResponseEntity<Cart> getCart(GetCartRequest getCartRequest) {
+    if (getCartRequest.getUserId() == null || getCartRequest.getUserId().isEmpty()) {
+      return ResponseEntity.badRequest().body(null);
+    }
+    return ResponseEntity.ok().body(cartAndOrderService.findOrCreateCart(getCartRequest
+        .getUserId()));
+  }
+
+  // Add one of an item to, or remove it from, a cart. The cart total is computed from the
+  // menu price of the item.
+  // API URI: /qeats/v1/cart/item
+  // Method: POST to add, DELETE to remove
+  // Body: {"cartId": "1", "itemId": "1", "restaurantId": "10"}
+  // Success Output: CartModifiedResponse with the updated cart.
+  // Error Response:
+  // HTTP Code: 400 with cartResponseType set to the error type, e.g. when the cart holds
+  // items of another restaurant.
+  // Eg:
+  // curl -X POST -H "Content-Type: application/json" \
+  //   -d '{"cartId": "1", "itemId": "1", "restaurantId": "10"}' \
+  //   "http://localhost:8081/qeats/v1/cart/item"
+
+  @PostMapping(CART_ITEM_API)
+  public ResponseEntity<CartModifiedResponse> addItem(
+      @Valid @RequestBody CartItemRequest cartItemRequest) {
+    return ResponseEntity.ok().body(cartAndOrderService.addItemToCart(
+        cartItemRequest.getItemId(), cartItemRequest.getCartId(),
+        cartItemRequest.getRestaurantId()));
+  }
+
+  @DeleteMapping(CART_ITEM_API)
+  public ResponseEntity<CartModifiedResponse> removeItem(
+      @Valid @RequestBody CartItemRequest cartItemRequest) {
+    return ResponseEntity.ok().body(cartAndOrderService.removeItemFromCart(
+        cartItemRequest.getItemId(), cartItemRequest.getCartId(),
+        cartItemRequest.getRestaurantId()));
+  }
 
+  // Remove all items from a cart.
+  // API URI: /qeats/v1/cart/clear
+  // Method: PUT
+  // Body: {"cartId": "1"}
 
+  @PutMapping(CART_CLEAR_API)
+  public ResponseEntity<CartModifiedResponse> clearCart(
+      @Valid @RequestBody ClearCartRequest clearCartRequest) {
+    return ResponseEntity.ok().body(cartAndOrderService.clearCart(clearCartRequest
+        .getCartId()));
+  }
 
+  // Place an order for the items in a cart and empty the cart. The order is persisted in the
+  // background, so the response is 202 and doesn't wait on mongo.
+  // API URI: /qeats/v1/order
+  // Method: POST
+  // Body: {"cartId": "1"}
+  //
+  // HTTP Code: 202
+  // {
+  //  "id": "5c9e2d...",
+  //  "restaurantId": "10",
+  //  "userId": "Bunny",
+  //  "items": [ ... ],
+  //  "total": 225,
+  //  "createdAt": 1553870000000
+  // }
+  // Error Response:
+  // HTTP Code: 400 with cartResponseType 100 if the cart is empty, 103 if it doesn't exist.
+  //          : 503 if the order could not be queued.
 
+  @PostMapping(POST_ORDER_API)
+  public ResponseEntity<Order> postOrder(@Valid @RequestBody PostOrderRequest postOrderRequest) {
+    return ResponseEntity.status(HttpStatus.ACCEPTED)
+        .body(cartAndOrderService.postOrder(postOrderRequest.getCartId()));
+  }
 
+  // Get the orders of a user, newest first, a page at a time.
+  // API URI: /qeats/v1/orders?userId=Bunny&limit=20&before=<nextCursor of the previous page>
+  // Method: GET
+  // Query Params: userId, limit(optional, at most 50), before(optional)
+  //
+  // HTTP Code: 200
+  // {
+  //  "orders": [ ... ],
+  //  "nextCursor": "1553870000000:5c9e2d..."
+  // }
+  // Error Response:
+  // HTTP Code: 400 if userId is missing or the cursor is malformed.
 
+  @GetMapping(GET_ORDERS_API)
+  public ResponseEntity<GetOrdersResponse> getOrders(GetOrdersRequest getOrdersRequest) {
+    if (getOrdersRequest.getUserId() == null || getOrdersRequest.getUserId().isEmpty()) {
+      return ResponseEntity.badRequest().body(null);
+    }
+    try {
+      return ResponseEntity.ok().body(cartAndOrderService.getOrders(getOrdersRequest));
+    } catch (IllegalArgumentException e) {
+      return ResponseEntity.badRequest().body(null);
+    }
+  }
 
+  @ExceptionHandler(OrderNotAcceptedException.class)
+  public ResponseEntity<Void> handleOrderNotAccepted(OrderNotAcceptedException e) {
+    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+  }
 
+  // Refused searches are cheap, so the client may as well try again soon.
+  @ExceptionHandler(ServiceOverloadedException.class)
+  public ResponseEntity<Void> handleServiceOverloaded(ServiceOverloadedException e) {
+    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+        .header(HttpHeaders.RETRY_AFTER, "1").build();
+  }
 
+  // Mongo failed and no stale result could stand in, see RestaurantServiceImpl.
+  @ExceptionHandler(ServiceUnavailableException.class)
+  public ResponseEntity<Void> handleServiceUnavailable(ServiceUnavailableException e) {
+    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+  }
 
+  @ExceptionHandler(QEatsException.class)
+  public ResponseEntity<CartModifiedResponse> handleQEatsException(QEatsException e) {
+    log.info("Request refused: {}", e.getMessage());
+    return ResponseEntity.badRequest().body(new CartModifiedResponse(null, e.getErrorType()));
+  }
 
 }
@@ -0,0 +1,82 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.controller;
+
+import com.crio.qeats.dto.Restaurant;
+import com.crio.qeats.dto.RestaurantView;
+import com.crio.qeats.models.RestaurantEntity;
+import com.crio.qeats.repositoryservices.RestaurantChangeListener;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * The UTF-8 JSON of each restaurant, serialized once and reused by every response that
+ * includes it. A fragment is only reused for a restaurant equal to the one it was made
+ * from, so a missed change event can't serve stale JSON; the change feed evicts them to keep
+ * the cache from holding dead versions.
+ */
+@Component
+public class RestaurantJsonFragments implements RestaurantChangeListener {
+
+  private static final int MAX_FRAGMENTS = 50000;
+
+  private final ObjectMapper objectMapper;
+  private final Cache<String, Fragment> fragments =
+      CacheBuilder.newBuilder().maximumSize(MAX_FRAGMENTS).build();
+
+  @Autowired
+  public RestaurantJsonFragments(ObjectMapper objectMapper) {
+    this.objectMapper = objectMapper;
+  }
+
+  /**
+   * Get the JSON of the restaurant, the same bytes objectMapper.writeValueAsBytes would give.
+   * The returned array is shared and must not be changed.
+   */
+  public byte[] toJson(Restaurant restaurant) throws JsonProcessingException {
+    String restaurantId = restaurant.getRestaurantId();
+    if (restaurantId == null) {
+      return objectMapper.writeValueAsBytes(restaurant);
+    }
+    Fragment fragment = fragments.getIfPresent(restaurantId);
+    if (fragment != null
+        && (fragment.restaurant == restaurant || fragment.restaurant.equals(restaurant))) {
+      return fragment.json;
+    }
+    // Keep a read-only copy to compare against, the caller's instance may be changed later.
+    RestaurantView snapshot = RestaurantView.of(restaurant);
+    byte[] json = objectMapper.writeValueAsBytes(snapshot);
+    fragments.put(restaurantId, new Fragment(snapshot, json));
+    return json;
+  }
+
+  @Override
+  public void onRestaurantChanged(RestaurantEntity previous, RestaurantEntity current) {
+    fragments.invalidate(current.getRestaurantId());
+  }
+
+  @Override
+  public void onRestaurantRemoved(RestaurantEntity previous) {
+    fragments.invalidate(previous.getRestaurantId());
+  }
+
+  private static final class Fragment {
+
+    private final RestaurantView restaurant;
+    private final byte[] json;
+
+    private Fragment(RestaurantView restaurant, byte[] json) {
+      this.restaurant = restaurant;
+      this.json = json;
+    }
+  }
+
+}
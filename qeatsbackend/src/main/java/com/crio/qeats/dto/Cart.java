@@ -0,0 +1,38 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+import javax.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Cart {
+
+  @NotNull
+  private String id;
+
+  // Empty while the cart has no items; a cart only ever holds items of one restaurant.
+  @NotNull
+  private String restaurantId = "";
+
+  @NotNull
+  private String userId;
+
+  // An item added twice is listed twice.
+  @NotNull
+  private List<Item> items = new ArrayList<>();
+
+  @NotNull
+  private int total;
+
+}
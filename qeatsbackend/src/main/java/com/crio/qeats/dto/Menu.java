@@ -0,0 +1,34 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import java.util.ArrayList;
+import java.util.List;
+import javax.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class Menu {
+
+  @NotNull
+  private String restaurantId;
+
+  @NotNull
+  private List<Item> items = new ArrayList<>();
+
+  // Digest of the serialized menu, used as its ETag. Not part of the JSON.
+  @JsonIgnore
+  private String version;
+
+}
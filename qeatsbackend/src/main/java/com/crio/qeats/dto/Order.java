@@ -0,0 +1,40 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.dto;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import javax.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Order {
+
+  @NotNull
+  private String id;
+
+  @NotNull
+  private String restaurantId;
+
+  @NotNull
+  private String userId;
+
+  @NotNull
+  private List<Item> items = new ArrayList<>();
+
+  @NotNull
+  private int total;
+
+  @NotNull
+  private Date createdAt;
+
+}
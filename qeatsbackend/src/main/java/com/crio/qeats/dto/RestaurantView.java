@@ -0,0 +1,121 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.dto;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A Restaurant that can't be changed, so caches and indexes can hand the same instance to
+ * any number of requests without copying it. It serializes exactly like a Restaurant.
+ * The hash is computed once, and equal attribute lists are shared between instances since
+ * most restaurants repeat a handful of cuisines.
+ */
+public final class RestaurantView extends Restaurant {
+
+  private static final Interner<List<String>> ATTRIBUTES = Interners.newWeakInterner();
+
+  private final int hash;
+
+  private RestaurantView(Restaurant restaurant) {
+    super(restaurant.getRestaurantId(), restaurant.getName(), restaurant.getCity(),
+        restaurant.getImageUrl(), restaurant.getLatitude(), restaurant.getLongitude(),
+        restaurant.getOpensAt(), restaurant.getClosesAt(),
+        restaurant.getAttributes() == null
+            ? null : ATTRIBUTES.intern(ImmutableList.copyOf(restaurant.getAttributes())));
+    hash = super.hashCode();
+  }
+
+  /**
+   * @return restaurant itself if it is already a view, a read-only copy otherwise
+   */
+  public static RestaurantView of(Restaurant restaurant) {
+    if (restaurant instanceof RestaurantView) {
+      return (RestaurantView) restaurant;
+    }
+    return new RestaurantView(restaurant);
+  }
+
+  /**
+   * A mutable copy, for the rare caller that needs to change it.
+   */
+  public Restaurant toRestaurant() {
+    return new Restaurant(getRestaurantId(), getName(), getCity(), getImageUrl(),
+        getLatitude(), getLongitude(), getOpensAt(), getClosesAt(),
+        getAttributes() == null ? null : new ArrayList<>(getAttributes()));
+  }
+
+  @Override
+  public int hashCode() {
+    return hash;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o instanceof RestaurantView && ((RestaurantView) o).hash != hash) {
+      return false;
+    }
+    return super.equals(o);
+  }
+
+  @Override
+  public void setRestaurantId(String restaurantId) {
+    throw readOnly();
+  }
+
+  @Override
+  public void setName(String name) {
+    throw readOnly();
+  }
+
+  @Override
+  public void setCity(String city) {
+    throw readOnly();
+  }
+
+  @Override
+  public void setImageUrl(String imageUrl) {
+    throw readOnly();
+  }
+
+  @Override
+  public void setLatitude(double latitude) {
+    throw readOnly();
+  }
+
+  @Override
+  public void setLongitude(double longitude) {
+    throw readOnly();
+  }
+
+  @Override
+  public void setOpensAt(String opensAt) {
+    throw readOnly();
+  }
+
+  @Override
+  public void setClosesAt(String closesAt) {
+    throw readOnly();
+  }
+
+  @Override
+  public void setAttributes(List<String> attributes) {
+    throw readOnly();
+  }
+
+  private UnsupportedOperationException readOnly() {
+    return new UnsupportedOperationException("Restaurant " + getRestaurantId()
+        + " is shared and read-only, use toRestaurant() for a copy");
+  }
+
+}
@@ -0,0 +1,20 @@
+package com.crio.qeats.exceptions;
+
+public class CartNotFoundException extends QEatsException {
+
+  private static final long serialVersionUID = 1L;
+
+  public CartNotFoundException() {
+    super("Cart not found");
+  }
+
+  public CartNotFoundException(String message) {
+    super(message);
+  }
+
+  @Override
+  public int getErrorType() {
+    return CART_NOT_FOUND;
+  }
+
+}
@@ -0,0 +1,20 @@
+package com.crio.qeats.exceptions;
+
+public class ItemNotFoundInRestaurantMenuException extends QEatsException {
+
+  private static final long serialVersionUID = 1L;
+
+  public ItemNotFoundInRestaurantMenuException() {
+    super("Item not found in restaurant menu");
+  }
+
+  public ItemNotFoundInRestaurantMenuException(String message) {
+    super(message);
+  }
+
+  @Override
+  public int getErrorType() {
+    return ITEM_NOT_FOUND_IN_RESTAURANT_MENU;
+  }
+
+}
@@ -0,0 +1,20 @@
+package com.crio.qeats.exceptions;
+
+public class ItemNotFromSameRestaurantException extends QEatsException {
+
+  private static final long serialVersionUID = 1L;
+
+  public ItemNotFromSameRestaurantException() {
+    super("Item not from the restaurant of the cart");
+  }
+
+  public ItemNotFromSameRestaurantException(String message) {
+    super(message);
+  }
+
+  @Override
+  public int getErrorType() {
+    return ITEM_NOT_FROM_SAME_RESTAURANT;
+  }
+
+}
@@ -0,0 +1,13 @@
+package com.crio.qeats.exceptions;
+
+// The order could not be queued, e.g. because the order queue is full. Not a client error, so
+// it has no error type and is answered with 503.
+public class OrderNotAcceptedException extends RuntimeException {
+
+  private static final long serialVersionUID = 1L;
+
+  public OrderNotAcceptedException(String message) {
+    super(message);
+  }
+
+}
@@ -1,7 +1,7 @@
 
 package com.crio.qeats.exceptions;
 
-abstract class QEatsException extends RuntimeException {
+public abstract class QEatsException extends RuntimeException {
 
   /**
    * Exception handling.
@@ -0,0 +1,13 @@
+package com.crio.qeats.exceptions;
+
+// The request was refused before doing any work because too many requests are already running,
+// see AdaptiveConcurrencyLimiter. Answered with 503 and a Retry-After.
+public class ServiceOverloadedException extends RuntimeException {
+
+  private static final long serialVersionUID = 1L;
+
+  public ServiceOverloadedException(String message) {
+    super(message);
+  }
+
+}
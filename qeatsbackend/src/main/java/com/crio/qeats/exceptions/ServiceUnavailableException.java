@@ -0,0 +1,13 @@
+package com.crio.qeats.exceptions;
+
+// A store the request needs, e.g. mongo, failed while answering it. Answered with 503 unless a
+// stale result can be served instead.
+public class ServiceUnavailableException extends RuntimeException {
+
+  private static final long serialVersionUID = 1L;
+
+  public ServiceUnavailableException(String message, Throwable cause) {
+    super(message, cause);
+  }
+
+}
@@ -0,0 +1,34 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.exchanges;
+
+import javax.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Body of the requests adding an item to, or removing it from, a cart.
+// {
+//  "cartId": "1",
+//  "itemId": "1",
+//  "restaurantId": "10"
+// }
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartItemRequest {
+
+  @NotEmpty
+  private String cartId;
+
+  @NotEmpty
+  private String itemId;
+
+  @NotEmpty
+  private String restaurantId;
+
+}
@@ -0,0 +1,37 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.exchanges;
+
+import com.crio.qeats.dto.Cart;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// {
+//  "cart": {
+//    "id": "1",
+//    "restaurantId": "10",
+//    "userId": "Bunny",
+//    "items": [ ... ],
+//    "total": 225
+//  },
+//  "cartResponseType": 0
+// }
+// cartResponseType is 0 on success, else the error type of the QEatsException that failed
+// the request, and the cart is then left out.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartModifiedResponse {
+
+  public static final int SUCCESS = 0;
+
+  private Cart cart;
+
+  private int cartResponseType;
+
+}
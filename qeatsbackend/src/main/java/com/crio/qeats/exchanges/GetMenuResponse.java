@@ -0,0 +1,38 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.exchanges;
+
+import com.crio.qeats.dto.Menu;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// {
+//  "menu": {
+//    "restaurantId": "11",
+//    "items": [
+//      {
+//        "id": "1",
+//        "itemId": "1",
+//        "name": "Chicken Briyani",
+//        "imageUrl": "www.google.com",
+//        "attributes": [
+//          "Mughal"
+//        ],
+//        "price": 225
+//      }
+//    ]
+//  }
+// }
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class GetMenuResponse {
+
+  private Menu menu;
+
+}
@@ -0,0 +1,29 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.exchanges;
+
+import com.crio.qeats.globals.GlobalConstants;
+import java.util.List;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// {
+//  "restaurantIds": ["11", "12"]
+// }
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GetMenusRequest {
+
+  @NotEmpty
+  @Size(max = GlobalConstants.MAX_MENUS_PER_REQUEST)
+  private List<String> restaurantIds;
+
+}
@@ -0,0 +1,41 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.exchanges;
+
+import com.crio.qeats.dto.Menu;
+import java.util.Map;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// {
+//  "menus": {
+//    "11": {
+//      "restaurantId": "11",
+//      "items": [
+//        {
+//          "id": "1",
+//          "itemId": "1",
+//          "name": "Chicken Briyani",
+//          "imageUrl": "www.google.com",
+//          "attributes": [
+//            "Mughal"
+//          ],
+//          "price": 225
+//        }
+//      ]
+//    }
+//  }
+// }
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class GetMenusResponse {
+
+  private Map<String, Menu> menus;
+
+}
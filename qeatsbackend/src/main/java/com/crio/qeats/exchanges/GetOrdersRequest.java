@@ -0,0 +1,28 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.exchanges;
+
+import javax.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Query params of /qeats/v1/orders?userId=Bunny&limit=20&before=1553870000000:5c9e2d...
+// before is the nextCursor of the previous page; absent for the newest orders.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GetOrdersRequest {
+
+  @NotEmpty
+  private String userId;
+
+  private Integer limit;
+
+  private String before;
+
+}
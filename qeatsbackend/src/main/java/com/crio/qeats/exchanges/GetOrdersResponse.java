@@ -0,0 +1,38 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.exchanges;
+
+import com.crio.qeats.dto.Order;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// {
+//  "orders": [
+//    {
+//      "id": "5c9e2d...",
+//      "restaurantId": "10",
+//      "userId": "Bunny",
+//      "items": [ ... ],
+//      "total": 225,
+//      "createdAt": 1553870000000
+//    }
+//  ],
+//  "nextCursor": "1553870000000:5c9e2d..."
+// }
+// nextCursor is null on the last page.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GetOrdersResponse {
+
+  private List<Order> orders;
+
+  private String nextCursor;
+
+}
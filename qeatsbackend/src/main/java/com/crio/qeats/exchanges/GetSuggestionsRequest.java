@@ -0,0 +1,39 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.exchanges;
+
+import javax.validation.constraints.DecimalMax;
+import javax.validation.constraints.DecimalMin;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Query params of /qeats/v1/suggestions?latitude=28.49&longitude=77.53&prefix=bir&limit=10
+// limit is optional.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GetSuggestionsRequest {
+
+  @NotNull
+  @DecimalMin(value = "-90.00")
+  @DecimalMax(value = "90.00")
+  private Double latitude;
+
+  @NotNull
+  @DecimalMin("-180.00")
+  @DecimalMax("180.00")
+  private Double longitude;
+
+  @NotEmpty
+  private String prefix;
+
+  private Integer limit;
+
+}
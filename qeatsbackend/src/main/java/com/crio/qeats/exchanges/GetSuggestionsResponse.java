@@ -0,0 +1,24 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.exchanges;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// {
+//  "suggestions": ["Biryani", "Paradise Biryani", "Chicken Biryani"]
+// }
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class GetSuggestionsResponse {
+
+  private List<String> suggestions;
+
+}
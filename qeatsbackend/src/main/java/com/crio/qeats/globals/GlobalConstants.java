@@ -6,6 +6,23 @@ public class GlobalConstants {
   // Amount of time after which the redis entries should expire.
   public static final int REDIS_ENTRY_EXPIRY_IN_SECONDS = 3600;
 
+  // Character precision of the GeoHash used as the key for close by restaurants in redis.
+  public static final int GEOHASH_PRECISION = 7;
+
+  // Largest serving radius handed out by the service; bounds the cells a restaurant can be
+  // cached under.
+  public static final double MAX_SERVING_RADIUS_IN_KMS = 5.0;
+
+  // Most restaurants whose menus can be asked for in one batch menu request.
+  public static final int MAX_MENUS_PER_REQUEST = 200;
+
+  // Carts are dropped from redis after this long without being touched.
+  public static final int CART_EXPIRY_IN_SECONDS = 7 * 24 * 3600;
+
+  // Page size of the order history when the client asks for none, and the most it can ask for.
+  public static final int DEFAULT_ORDERS_PER_PAGE = 20;
+  public static final int MAX_ORDERS_PER_PAGE = 50;
+
   // TIP(MODULE_RABBITMQ): RabbitMQ related configs.
   public static final String EXCHANGE_NAME = "rabbitmq-exchange";
   public static final String QUEUE_NAME = "rabbitmq-queue";
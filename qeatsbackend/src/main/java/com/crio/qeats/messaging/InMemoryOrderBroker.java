@@ -0,0 +1,63 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.messaging;
+
+import com.crio.qeats.dto.Order;
+import com.crio.qeats.globals.GlobalConstants;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-process stand-in for the message broker: one bounded queue, QUEUE_NAME, bound to
+ * ROUTING_KEY. Orders still queued are lost if the process dies, so it suits tests and single
+ * node setups; a real broker implements {@link OrderBroker} the same way.
+ */
+@Component
+@Log4j2
+@ConditionalOnProperty(name = "qeats.orders.broker", havingValue = "in-memory",
+    matchIfMissing = true)
+public class InMemoryOrderBroker implements OrderBroker {
+
+  private final BlockingQueue<Order> orderQueue;
+
+  public InMemoryOrderBroker(@Value("${qeats.orders.queue-capacity:100000}") int capacity) {
+    orderQueue = new LinkedBlockingQueue<>(capacity);
+  }
+
+  @Override
+  public boolean publish(String routingKey, Order order) {
+    if (!GlobalConstants.ROUTING_KEY.equals(routingKey)) {
+      log.warn("No queue bound to {} on {}, dropping order {}", routingKey,
+          GlobalConstants.EXCHANGE_NAME, order.getId());
+      return false;
+    }
+    return orderQueue.offer(order);
+  }
+
+  @Override
+  public List<Order> poll(String queueName, int maxOrders, long timeout, TimeUnit unit)
+      throws InterruptedException {
+    if (!GlobalConstants.QUEUE_NAME.equals(queueName)) {
+      throw new IllegalArgumentException("Unknown queue " + queueName);
+    }
+    List<Order> orders = new ArrayList<>();
+    Order first = orderQueue.poll(timeout, unit);
+    if (first != null) {
+      orders.add(first);
+      orderQueue.drainTo(orders, maxOrders - 1);
+    }
+    return orders;
+  }
+
+}
@@ -0,0 +1,168 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.messaging;
+
+import com.crio.qeats.dto.Order;
+import com.crio.qeats.globals.GlobalConstants;
+import com.crio.qeats.models.OrderEntity;
+import com.crio.qeats.repositoryservices.OrderRepositoryService;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Persists placed orders in batches: whatever is queued, up to batch-size orders, goes to mongo
+ * in one insert. A batch that fails is retried order by order with upserts, so orders the
+ * failed insert did write are not duplicated. An order is retried only on transient errors, a
+ * few times, and is then moved to the dead letter collection.
+ */
+@Component
+@Log4j2
+public class OrderBatchConsumer {
+
+  static final String DEAD_LETTER_COLLECTION = "orders_dead_letter";
+  private static final long RETRY_BACKOFF_MS = 1000;
+
+  @Autowired
+  private OrderBroker orderBroker;
+
+  @Autowired
+  private MongoTemplate mongoTemplate;
+
+  @Autowired
+  private OrderRepositoryService orderRepositoryService;
+
+  @Value("${qeats.orders.batch-size:100}")
+  private int batchSize = 100;
+
+  @Value("${qeats.orders.max-batch-delay-ms:200}")
+  private long maxBatchDelayMs = 200;
+
+  @Value("${qeats.orders.max-save-attempts:5}")
+  private int maxSaveAttempts = 5;
+
+  private Thread consumerThread;
+  private volatile boolean running;
+
+  @PostConstruct
+  public void start() {
+    running = true;
+    consumerThread = new Thread(this::run, "order-batch-consumer");
+    consumerThread.setDaemon(true);
+    consumerThread.start();
+  }
+
+  @PreDestroy
+  public void stop() throws InterruptedException {
+    running = false;
+    if (consumerThread != null) {
+      consumerThread.join(TimeUnit.SECONDS.toMillis(5));
+    }
+  }
+
+  private void run() {
+    // Keep going after stop() until the queue is drained.
+    while (true) {
+      List<Order> orders;
+      try {
+        orders = orderBroker.poll(GlobalConstants.QUEUE_NAME, batchSize, maxBatchDelayMs,
+            TimeUnit.MILLISECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+      if (orders.isEmpty()) {
+        if (!running) {
+          return;
+        }
+        continue;
+      }
+      persist(orders);
+    }
+  }
+
+  void persist(List<Order> orders) {
+    List<OrderEntity> orderEntities = new ArrayList<>(orders.size());
+    for (Order order : orders) {
+      orderEntities.add(new OrderEntity(order.getId(), order.getRestaurantId(),
+          order.getUserId(), order.getItems(), order.getTotal(), order.getCreatedAt()));
+    }
+
+    try {
+      mongoTemplate.insert(orderEntities, OrderEntity.class);
+    } catch (DataAccessException e) {
+      log.warn("Inserting {} orders failed, retrying one by one", orderEntities.size(), e);
+      if (!saveOneByOne(orderEntities)) {
+        return;
+      }
+    }
+
+    // The cached history may have been read between placement and now.
+    for (Order order : orders) {
+      orderRepositoryService.evictRecentOrders(order.getUserId());
+    }
+  }
+
+  private boolean saveOneByOne(List<OrderEntity> orderEntities) {
+    for (OrderEntity orderEntity : orderEntities) {
+      for (int attempt = 1; !save(orderEntity, attempt); attempt++) {
+        try {
+          Thread.sleep(RETRY_BACKOFF_MS);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          log.error("Stopped before order {} was persisted", orderEntity.getId());
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Saves the order, or sets it aside if it cannot be, so one bad order never holds up the
+   * ones queued behind it.
+   * @return false if the save failed on a transient error and should be retried
+   */
+  private boolean save(OrderEntity orderEntity, int attempt) {
+    try {
+      mongoTemplate.save(orderEntity);
+      return true;
+    } catch (TransientDataAccessException | DataAccessResourceFailureException e) {
+      if (attempt < maxSaveAttempts) {
+        log.warn("Persisting order {} failed, will retry", orderEntity.getId(), e);
+        return false;
+      }
+      deadLetter(orderEntity, e);
+      return true;
+    } catch (DataAccessException e) {
+      deadLetter(orderEntity, e);
+      return true;
+    }
+  }
+
+  private void deadLetter(OrderEntity orderEntity, DataAccessException cause) {
+    try {
+      mongoTemplate.save(orderEntity, DEAD_LETTER_COLLECTION);
+      log.error("Order {} could not be persisted, moved to {}", orderEntity.getId(),
+          DEAD_LETTER_COLLECTION, cause);
+    } catch (DataAccessException e) {
+      log.error("Order {} could not be persisted or moved to {}, dropping {}",
+          orderEntity.getId(), DEAD_LETTER_COLLECTION, orderEntity, cause);
+    }
+  }
+
+}
@@ -0,0 +1,36 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.messaging;
+
+import com.crio.qeats.dto.Order;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Carries placed orders from the request threads to the consumers that persist them, using
+ * the exchange/queue/routing key layout of {@link com.crio.qeats.globals.GlobalConstants}.
+ */
+public interface OrderBroker {
+
+  /**
+   * Publish an order on {@code GlobalConstants.EXCHANGE_NAME}. Must not block on the consumers.
+   * @param routingKey routing key of the order, e.g. {@code GlobalConstants.ROUTING_KEY}
+   * @param order the order
+   * @return false if the broker could not take the order
+   */
+  boolean publish(String routingKey, Order order);
+
+  /**
+   * Take up to maxOrders orders from a queue, waiting at most the given time for the first.
+   * @param queueName queue to read, e.g. {@code GlobalConstants.QUEUE_NAME}
+   * @param maxOrders most orders to return
+   * @return the orders taken, empty if none arrived in time
+   */
+  List<Order> poll(String queueName, int maxOrders, long timeout, TimeUnit unit)
+      throws InterruptedException;
+
+}
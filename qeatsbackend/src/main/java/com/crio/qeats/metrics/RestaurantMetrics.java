@@ -0,0 +1,95 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import org.springframework.stereotype.Component;
+
+/**
+ * Per-stage latency of the restaurants API, plus the number of candidates and results per
+ * request, published through actuator at /actuator/metrics/qeats.restaurants.stage (tag
+ * {@code stage}) with p50/p95/p99 and percentile histograms.
+ * Timing a stage costs two System.nanoTime() calls and a lookup of an already built timer.
+ */
+@Component
+public class RestaurantMetrics {
+
+  public static final String STAGE_TIMER = "qeats.restaurants.stage";
+  public static final String CANDIDATES_SUMMARY = "qeats.restaurants.candidates";
+  public static final String RESULTS_SUMMARY = "qeats.restaurants.results";
+
+  public static final String CACHE_PROBE = "cache_probe";
+  public static final String REDIS_GET = "redis_get";
+  public static final String JSON_DECODE = "json_decode";
+  public static final String MONGO_QUERY = "mongo_query";
+  public static final String FUZZY_MATCH = "fuzzy_match";
+  public static final String CATALOG_LOOKUP = "catalog_lookup";
+  public static final String GEO_FILTER = "geo_filter";
+  public static final String MONGO_FETCH = "mongo_fetch";
+  public static final String MAPPING = "mapping";
+  public static final String SERIALIZATION = "serialization";
+
+  private static final double[] PERCENTILES = {0.5, 0.95, 0.99};
+
+  private final MeterRegistry meterRegistry;
+  private final ConcurrentMap<String, Timer> stageTimers = new ConcurrentHashMap<>();
+  private final DistributionSummary candidates;
+  private final DistributionSummary results;
+
+  public RestaurantMetrics(MeterRegistry meterRegistry) {
+    this.meterRegistry = meterRegistry;
+    candidates = DistributionSummary.builder(CANDIDATES_SUMMARY)
+        .description("Restaurants considered by the geo filter per request")
+        .publishPercentiles(PERCENTILES)
+        .publishPercentileHistogram()
+        .register(meterRegistry);
+    results = DistributionSummary.builder(RESULTS_SUMMARY)
+        .description("Restaurants returned per request")
+        .publishPercentiles(PERCENTILES)
+        .publishPercentileHistogram()
+        .register(meterRegistry);
+  }
+
+  /**
+   * Start timing a stage.
+   * @return the start, to hand to {@link #record(String, long)}
+   */
+  public long start() {
+    return System.nanoTime();
+  }
+
+  public void record(String stage, long startNanos) {
+    Timer timer = stageTimers.get(stage);
+    if (timer == null) {
+      timer = stageTimers.computeIfAbsent(stage, this::buildStageTimer);
+    }
+    timer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+  }
+
+  public void recordCandidates(int count) {
+    candidates.record(count);
+  }
+
+  public void recordResults(int count) {
+    results.record(count);
+  }
+
+  private Timer buildStageTimer(String stage) {
+    return Timer.builder(STAGE_TIMER)
+        .description("Time spent in one stage of the restaurants API")
+        .tag("stage", stage)
+        .publishPercentiles(PERCENTILES)
+        .publishPercentileHistogram()
+        .register(meterRegistry);
+  }
+
+}
@@ -0,0 +1,51 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.models;
+
+import com.crio.qeats.dto.Item;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import javax.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+// Live carts are kept in redis; this is the copy written to mongo when a cart is checked out.
+@Data
+@Document(collection = "carts")
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartEntity {
+
+  public static final String STATUS_CHECKED_OUT = "CHECKED_OUT";
+
+  @Id
+  private String id;
+
+  @NotNull
+  private String restaurantId;
+
+  @NotNull
+  private String userId;
+
+  @NotNull
+  private String status;
+
+  @NotNull
+  private List<Item> items = new ArrayList<>();
+
+  @NotNull
+  private int total;
+
+  @LastModifiedDate
+  private Date updatedAt;
+
+}
@@ -9,16 +9,23 @@ package com.crio.qeats.models;
 
 import com.crio.qeats.dto.Item;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 import javax.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
+// restaurantId serves the menu lookups by restaurant, and items.itemId finding the
+// restaurants that serve the items a search matched.
 @Data
 @Document(collection = "menus")
+@CompoundIndex(name = "items_itemId", def = "{'items.itemId': 1}")
 @NoArgsConstructor
 @AllArgsConstructor
 public class MenuEntity {
@@ -27,11 +34,16 @@ public class MenuEntity {
   private String id;
 
   @NotNull
+  @Indexed
   private String restaurantId;
 
   @NotNull
   private List<Item> items = new ArrayList<>();
 
+  @LastModifiedDate
+  @Indexed
+  private Date updatedAt;
+
   // Given before 
   // @NotNull
   // private List<Item> items = new ArrayList();
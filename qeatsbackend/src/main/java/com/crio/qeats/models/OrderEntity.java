@@ -0,0 +1,55 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.models;
+
+import com.crio.qeats.dto.Item;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import javax.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+// The first index serves "orders of a user, newest first" and the (createdAt, _id) keyset that
+// pages through them, so reads never scan other users' orders. The second covers counting the
+// recent orders of each restaurant for ranking, which then reads no documents.
+@Data
+@Document(collection = "orders")
+@CompoundIndexes({
+    @CompoundIndex(name = "userId_createdAt_id",
+        def = "{'userId': 1, 'createdAt': -1, '_id': -1}"),
+    @CompoundIndex(name = "createdAt_restaurantId", def = "{'createdAt': -1, 'restaurantId': 1}")
+})
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderEntity {
+
+  @Id
+  private String id;
+
+  @NotNull
+  private String restaurantId;
+
+  @NotNull
+  private String userId;
+
+  @NotNull
+  private List<Item> items = new ArrayList<>();
+
+  @NotNull
+  private int total;
+
+  // Time the order was placed, not when it reached mongo.
+  @NotNull
+  private Date createdAt;
+
+}
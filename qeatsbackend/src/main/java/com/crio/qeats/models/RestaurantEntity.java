@@ -7,17 +7,24 @@
 package com.crio.qeats.models;
 
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 import javax.validation.constraints.NotNull;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 // Java class that maps to Mongo collection.
+// restaurantId serves the chunked $in lookups by id, and (latitude, longitude) the bounding box
+// queries that rebuild a region of the catalog.
 @Data
 @Document(collection = "restaurants")
+@CompoundIndex(name = "latitude_longitude", def = "{'latitude': 1, 'longitude': 1}")
 @NoArgsConstructor
 public class RestaurantEntity {
 
@@ -25,6 +32,7 @@ public class RestaurantEntity {
   private String id;
 
   @NotNull
+  @Indexed
   private String restaurantId;
 
   @NotNull
@@ -51,6 +59,12 @@ public class RestaurantEntity {
   @NotNull
   private List<String> attributes = new ArrayList<>();
 
+  // Stamped on every save; lets the change feed poll for writes when change streams are
+  // not available (standalone or embedded mongo).
+  @LastModifiedDate
+  @Indexed
+  private Date updatedAt;
+
   public String getOpensAt() {
     return opensAt;
   }
@@ -0,0 +1,14 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.repositories;
+
+import com.crio.qeats.models.CartEntity;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface CartRepository extends MongoRepository<CartEntity, String> {
+
+}
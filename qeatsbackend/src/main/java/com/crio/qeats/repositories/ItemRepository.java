@@ -9,4 +9,13 @@ import org.springframework.data.mongodb.repository.Query;
 
 public interface ItemRepository extends MongoRepository<ItemEntity, String> {
 
+  @Query(value = "{name: ?0}", fields = "{_id: 0, itemId: 1}")
+  List<ItemEntity> findItemsByNameExact(String searchString);
+
+  @Query(value = "{name: {$regex: ?0, $options: 'i'}}", fields = "{_id: 0, itemId: 1}")
+  List<ItemEntity> findItemsByNameInexact(String searchString);
+
+  @Query(value = "{attributes: {$regex: ?0, $options: 'i'}}", fields = "{_id: 0, itemId: 1}")
+  List<ItemEntity> findItemsByAttributes(String searchString);
+
 }
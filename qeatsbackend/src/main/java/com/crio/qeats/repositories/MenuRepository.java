@@ -8,14 +8,22 @@
 package com.crio.qeats.repositories;
 
 import com.crio.qeats.models.MenuEntity;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional; 
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 
 public interface MenuRepository extends MongoRepository<MenuEntity, String> {
 
   Optional<MenuEntity> findMenuByRestaurantId(String restaurantId);
 
+  List<MenuEntity> findMenusByRestaurantIdIn(Collection<String> restaurantIds);
+
   Optional<List<MenuEntity>> findMenusByItemsItemIdIn(List<String> itemIdList);
 
+  // Same match as findMenusByItemsItemIdIn, but reads back only the restaurantId.
+  @Query(value = "{'items.itemId': {$in: ?0}}", fields = "{_id: 0, restaurantId: 1}")
+  List<MenuEntity> findRestaurantIdsByItemsItemIdIn(Collection<String> itemIdList);
+
 }
\ No newline at end of file
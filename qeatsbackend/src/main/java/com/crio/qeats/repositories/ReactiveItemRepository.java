@@ -0,0 +1,25 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.repositories;
+
+import com.crio.qeats.models.ItemEntity;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import reactor.core.publisher.Flux;
+
+public interface ReactiveItemRepository extends ReactiveMongoRepository<ItemEntity, String> {
+
+  @Query(value = "{name: ?0}", fields = "{_id: 0, itemId: 1}")
+  Flux<ItemEntity> findItemsByNameExact(String searchString);
+
+  @Query(value = "{name: {$regex: ?0, $options: 'i'}}", fields = "{_id: 0, itemId: 1}")
+  Flux<ItemEntity> findItemsByNameInexact(String searchString);
+
+  @Query(value = "{attributes: {$regex: ?0, $options: 'i'}}", fields = "{_id: 0, itemId: 1}")
+  Flux<ItemEntity> findItemsByAttributes(String searchString);
+
+}
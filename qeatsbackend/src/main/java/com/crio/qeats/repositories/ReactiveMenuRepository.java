@@ -0,0 +1,20 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.repositories;
+
+import com.crio.qeats.models.MenuEntity;
+import java.util.Collection;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import reactor.core.publisher.Flux;
+
+public interface ReactiveMenuRepository extends ReactiveMongoRepository<MenuEntity, String> {
+
+  @Query(value = "{'items.itemId': {$in: ?0}}", fields = "{_id: 0, restaurantId: 1}")
+  Flux<MenuEntity> findRestaurantIdsByItemsItemIdIn(Collection<String> itemIdList);
+
+}
@@ -0,0 +1,34 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.repositories;
+
+import com.crio.qeats.models.RestaurantEntity;
+import java.util.Collection;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import reactor.core.publisher.Flux;
+
+// The queries of RestaurantRepository, for the reactive mode.
+public interface ReactiveRestaurantRepository
+    extends ReactiveMongoRepository<RestaurantEntity, String> {
+
+  @Query(value = "{}", fields = RestaurantRepository.CANDIDATE_FIELDS)
+  Flux<RestaurantEntity> findAllRestaurantCandidates();
+
+  @Query(value = "{name: ?0}", fields = RestaurantRepository.CANDIDATE_FIELDS)
+  Flux<RestaurantEntity> findRestaurantsByNameExact(String searchString);
+
+  @Query(value = "{name: {$regex: ?0}}", fields = RestaurantRepository.CANDIDATE_FIELDS)
+  Flux<RestaurantEntity> findRestaurantsByNamePartial(String searchString);
+
+  @Query(value = "{attributes: {$regex: ?0}}", fields = RestaurantRepository.CANDIDATE_FIELDS)
+  Flux<RestaurantEntity> findRestaurantsByAttributes(String searchString);
+
+  @Query(value = "{restaurantId: {$in: ?0}}", fields = RestaurantRepository.RESTAURANT_FIELDS)
+  Flux<RestaurantEntity> findRestaurantsByRestaurantIdIn(Collection<String> restaurantIds);
+
+}
@@ -7,6 +7,7 @@
 package com.crio.qeats.repositories;
 
 import com.crio.qeats.models.RestaurantEntity;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import org.springframework.data.mongodb.repository.MongoRepository;
@@ -14,13 +15,34 @@ import org.springframework.data.mongodb.repository.Query;
 
 public interface RestaurantRepository extends MongoRepository<RestaurantEntity, String> {
 
-  @Query("{name: ?0}")
+  // Just enough of a restaurant to decide whether it is open and within the serving radius.
+  // The full document is fetched with findRestaurantsByRestaurantIdIn for those that are.
+  String CANDIDATE_FIELDS =
+      "{_id: 0, restaurantId: 1, latitude: 1, longitude: 1, opensAt: 1, closesAt: 1}";
+
+  @Query(value = "{}", fields = CANDIDATE_FIELDS)
+  List<RestaurantEntity> findAllRestaurantCandidates();
+
+  @Query(value = "{name: ?0}", fields = CANDIDATE_FIELDS)
   Optional<List<RestaurantEntity>> findRestaurantsByNameExact(String searchString);
 
-  @Query("{name: {$regex: ?0}}")
+  @Query(value = "{name: {$regex: ?0}}", fields = CANDIDATE_FIELDS)
   List<RestaurantEntity> findRestaurantsByNamePartial(String searchString);
 
-  @Query("{attributes: {$regex: ?0}}")
+  @Query(value = "{attributes: {$regex: ?0}}", fields = CANDIDATE_FIELDS)
   List<RestaurantEntity> findRestaurantsByAttributes(String searchString);
 
+  // Every field of the restaurants in a box, edges included, e.g. a GeoHash cell whose
+  // neighbours' restaurants on the shared edge the caller drops.
+  @Query("{latitude: {$gte: ?0, $lte: ?1}, longitude: {$gte: ?2, $lte: ?3}}")
+  List<RestaurantEntity> findRestaurantsByLocationWithin(double southLatitude,
+      double northLatitude, double westLongitude, double eastLongitude);
+
+  // Only the fields that make up a Restaurant are read back.
+  String RESTAURANT_FIELDS = "{_id: 0, restaurantId: 1, name: 1, city: 1, imageUrl: 1,"
+      + " latitude: 1, longitude: 1, opensAt: 1, closesAt: 1, attributes: 1}";
+
+  @Query(value = "{restaurantId: {$in: ?0}}", fields = RESTAURANT_FIELDS)
+  List<RestaurantEntity> findRestaurantsByRestaurantIdIn(Collection<String> restaurantIds);
+
 }
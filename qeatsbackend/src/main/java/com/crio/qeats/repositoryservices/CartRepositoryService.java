@@ -0,0 +1,68 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.repositoryservices;
+
+import com.crio.qeats.dto.Cart;
+import com.crio.qeats.dto.Item;
+import com.crio.qeats.exceptions.CartNotFoundException;
+import com.crio.qeats.exceptions.EmptyCartException;
+import com.crio.qeats.exceptions.ItemNotFromSameRestaurantException;
+
+public interface CartRepositoryService {
+
+  /**
+   * Get the cart of a user, creating an empty one if the user has none.
+   * @param userId id of the user
+   * @return the cart of the user
+   */
+  Cart findOrCreateCart(String userId);
+
+  /**
+   * Add one of the item to the cart, atomically and in one round trip.
+   * @param cartId id of the cart
+   * @param restaurantId restaurant the item is from
+   * @param item item of the restaurant's menu, whose price is added to the cart total
+   * @return the cart after adding the item
+   * @throws CartNotFoundException if there is no such cart
+   * @throws ItemNotFromSameRestaurantException if the cart holds items of another restaurant
+   */
+  Cart addItem(String cartId, String restaurantId, Item item);
+
+  /**
+   * Remove one of the item from the cart. Removing an item the cart doesn't hold is a no-op.
+   * @param cartId id of the cart
+   * @param itemId id of the item
+   * @return the cart after removing the item
+   * @throws CartNotFoundException if there is no such cart
+   */
+  Cart removeItem(String cartId, String itemId);
+
+  /**
+   * Remove all items from the cart.
+   * @param cartId id of the cart
+   * @return the emptied cart
+   * @throws CartNotFoundException if there is no such cart
+   */
+  Cart clearCart(String cartId);
+
+  /**
+   * Empty the cart for an order and write a copy of it to mongo in the background.
+   * @param cartId id of the cart
+   * @return the cart as it was when checked out
+   * @throws CartNotFoundException if there is no such cart
+   * @throws EmptyCartException if the cart has no items
+   */
+  Cart checkoutCart(String cartId);
+
+  /**
+   * Put the items of a checked out cart back, e.g. when its order could not be queued.
+   * @param cart the cart as returned by checkoutCart
+   * @return false if the cart is gone or items were added to it since, and it was left alone
+   */
+  boolean restoreCart(Cart cart);
+
+}
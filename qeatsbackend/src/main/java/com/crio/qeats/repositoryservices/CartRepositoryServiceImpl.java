@@ -0,0 +1,294 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.repositoryservices;
+
+import com.crio.qeats.configs.RedisConfiguration;
+import com.crio.qeats.dto.Cart;
+import com.crio.qeats.dto.Item;
+import com.crio.qeats.exceptions.CartNotFoundException;
+import com.crio.qeats.exceptions.EmptyCartException;
+import com.crio.qeats.exceptions.ItemNotFromSameRestaurantException;
+import com.crio.qeats.globals.GlobalConstants;
+import com.crio.qeats.models.CartEntity;
+import com.crio.qeats.repositories.CartRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StreamUtils;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.exceptions.JedisNoScriptException;
+
+/**
+ * Live carts are redis hashes, {@code cart:<cartId>}, holding the owner, the restaurant, the
+ * running total and item count, and per item its JSON, price and quantity. Every mutation is a
+ * lua script, so it is atomic and costs one round trip. Mongo only sees a cart at checkout.
+ */
+@Service
+@Log4j2
+public class CartRepositoryServiceImpl implements CartRepositoryService {
+
+  static final String CART_KEY_PREFIX = "cart:";
+  static final String USER_CART_KEY_PREFIX = "cart:user:";
+
+  private static final String USER_ID_FIELD = "userId";
+  private static final String RESTAURANT_ID_FIELD = "restaurantId";
+  private static final String TOTAL_FIELD = "total";
+  private static final String ITEM_FIELD_PREFIX = "item:";
+  private static final String QUANTITY_FIELD_PREFIX = "qty:";
+  private static final String PRICE_FIELD_PREFIX = "price:";
+  private static final String COUNT_FIELD = "count";
+
+  private static final long CART_NOT_FOUND = -1;
+  private static final long ITEM_NOT_FROM_SAME_RESTAURANT = -2;
+  private static final long EMPTY_CART = -3;
+
+  @Autowired
+  private RedisConfiguration redisConfiguration;
+
+  @Autowired
+  private CartRepository cartRepository;
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  private LuaScript getOrCreateScript;
+  private LuaScript addItemScript;
+  private LuaScript removeItemScript;
+  private LuaScript clearScript;
+  private LuaScript restoreScript;
+
+  // Writes checked out carts to mongo off the request thread.
+  private final ExecutorService checkoutWriter = Executors.newSingleThreadExecutor(runnable -> {
+    Thread thread = new Thread(runnable, "cart-checkout-writer");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  @PostConstruct
+  public void loadScripts() throws IOException {
+    getOrCreateScript = LuaScript.load("redis/cart_get_or_create.lua");
+    addItemScript = LuaScript.load("redis/cart_add_item.lua");
+    removeItemScript = LuaScript.load("redis/cart_remove_item.lua");
+    clearScript = LuaScript.load("redis/cart_clear.lua");
+    restoreScript = LuaScript.load("redis/cart_restore.lua");
+  }
+
+  @PreDestroy
+  public void shutdownExecutor() {
+    checkoutWriter.shutdown();
+  }
+
+  @Override
+  public Cart findOrCreateCart(String userId) {
+    String newCartId = new ObjectId().toHexString();
+    List<Object> result = eval(getOrCreateScript,
+        Arrays.asList(USER_CART_KEY_PREFIX + userId, CART_KEY_PREFIX + newCartId),
+        Arrays.asList(newCartId, userId, expiry(), CART_KEY_PREFIX));
+    return toCart((String) result.get(0), fieldsOf(result.get(1)));
+  }
+
+  @Override
+  public Cart addItem(String cartId, String restaurantId, Item item) {
+    String itemJson;
+    try {
+      itemJson = objectMapper.writeValueAsString(item);
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException("Could not serialize item " + item.getItemId(), e);
+    }
+    List<Object> result = eval(addItemScript, Collections.singletonList(CART_KEY_PREFIX + cartId),
+        Arrays.asList(restaurantId, item.getItemId(), itemJson,
+            String.valueOf(item.getPrice()), expiry()));
+    return cartOf(cartId, result);
+  }
+
+  @Override
+  public Cart removeItem(String cartId, String itemId) {
+    List<Object> result = eval(removeItemScript,
+        Collections.singletonList(CART_KEY_PREFIX + cartId), Arrays.asList(itemId, expiry()));
+    return cartOf(cartId, result);
+  }
+
+  @Override
+  public Cart clearCart(String cartId) {
+    List<Object> result = eval(clearScript, Collections.singletonList(CART_KEY_PREFIX + cartId),
+        Arrays.asList(expiry(), "clear"));
+    return cartOf(cartId, result);
+  }
+
+  @Override
+  public Cart checkoutCart(String cartId) {
+    List<Object> result = eval(clearScript, Collections.singletonList(CART_KEY_PREFIX + cartId),
+        Arrays.asList(expiry(), "checkout"));
+    Cart cart = cartOf(cartId, result);
+
+    CartEntity cartEntity = new CartEntity(cart.getId(), cart.getRestaurantId(),
+        cart.getUserId(), CartEntity.STATUS_CHECKED_OUT, cart.getItems(), cart.getTotal(), null);
+    checkoutWriter.execute(() -> {
+      try {
+        cartRepository.save(cartEntity);
+      } catch (RuntimeException e) {
+        log.error("Could not write checked out cart {} to mongo", cartId, e);
+      }
+    });
+    return cart;
+  }
+
+  @Override
+  public boolean restoreCart(Cart cart) {
+    Map<String, Integer> quantities = new TreeMap<>();
+    Map<String, Item> items = new TreeMap<>();
+    for (Item item : cart.getItems()) {
+      quantities.merge(item.getItemId(), 1, Integer::sum);
+      items.put(item.getItemId(), item);
+    }
+
+    List<String> args = new ArrayList<>(Arrays.asList(expiry(),
+        USER_ID_FIELD, cart.getUserId(), RESTAURANT_ID_FIELD, cart.getRestaurantId(),
+        TOTAL_FIELD, String.valueOf(cart.getTotal()),
+        COUNT_FIELD, String.valueOf(cart.getItems().size())));
+    for (Item item : items.values()) {
+      try {
+        args.addAll(Arrays.asList(ITEM_FIELD_PREFIX + item.getItemId(),
+            objectMapper.writeValueAsString(item)));
+      } catch (JsonProcessingException e) {
+        throw new IllegalStateException("Could not serialize item " + item.getItemId(), e);
+      }
+      args.addAll(Arrays.asList(PRICE_FIELD_PREFIX + item.getItemId(),
+          String.valueOf(item.getPrice()),
+          QUANTITY_FIELD_PREFIX + item.getItemId(),
+          String.valueOf(quantities.get(item.getItemId()))));
+    }
+    List<Object> result = eval(restoreScript,
+        Collections.singletonList(CART_KEY_PREFIX + cart.getId()), args);
+    return (Long) result.get(0) == 0;
+  }
+
+  private Cart cartOf(String cartId, List<Object> result) {
+    long status = (Long) result.get(0);
+    if (status == CART_NOT_FOUND) {
+      throw new CartNotFoundException("Cart " + cartId + " not found");
+    }
+    if (status == ITEM_NOT_FROM_SAME_RESTAURANT) {
+      throw new ItemNotFromSameRestaurantException(
+          "Cart " + cartId + " holds items of another restaurant");
+    }
+    if (status == EMPTY_CART) {
+      throw new EmptyCartException("Cart " + cartId + " is empty");
+    }
+    return toCart(cartId, fieldsOf(result.get(1)));
+  }
+
+  @SuppressWarnings("unchecked")
+  private static List<String> fieldsOf(Object hgetallResult) {
+    return (List<String>) hgetallResult;
+  }
+
+  // Builds the cart from the flattened field/value list of HGETALL.
+  private Cart toCart(String cartId, List<String> fields) {
+    Cart cart = new Cart();
+    cart.setId(cartId);
+    Map<String, String> itemJsons = new TreeMap<>();
+    Map<String, Integer> quantities = new TreeMap<>();
+    for (int i = 0; i + 1 < fields.size(); i += 2) {
+      String field = fields.get(i);
+      String value = fields.get(i + 1);
+      if (field.equals(USER_ID_FIELD)) {
+        cart.setUserId(value);
+      } else if (field.equals(RESTAURANT_ID_FIELD)) {
+        cart.setRestaurantId(value);
+      } else if (field.equals(TOTAL_FIELD)) {
+        cart.setTotal(Integer.parseInt(value));
+      } else if (field.startsWith(ITEM_FIELD_PREFIX)) {
+        itemJsons.put(field.substring(ITEM_FIELD_PREFIX.length()), value);
+      } else if (field.startsWith(QUANTITY_FIELD_PREFIX)) {
+        quantities.put(field.substring(QUANTITY_FIELD_PREFIX.length()),
+            Integer.parseInt(value));
+      }
+    }
+
+    List<Item> items = new ArrayList<>();
+    for (Map.Entry<String, String> itemJson : itemJsons.entrySet()) {
+      Item item;
+      try {
+        item = objectMapper.readValue(itemJson.getValue(), Item.class);
+      } catch (IOException e) {
+        throw new IllegalStateException("Could not read item " + itemJson.getKey()
+            + " of cart " + cartId, e);
+      }
+      for (int i = quantities.getOrDefault(itemJson.getKey(), 0); i > 0; i--) {
+        items.add(item);
+      }
+    }
+    cart.setItems(items);
+    return cart;
+  }
+
+  @SuppressWarnings("unchecked")
+  private List<Object> eval(LuaScript script, List<String> keys, List<String> args) {
+    try (Jedis jedis = redisConfiguration.getJedisPool().getResource()) {
+      try {
+        return (List<Object>) jedis.evalsha(script.sha1, keys, args);
+      } catch (JedisNoScriptException e) {
+        // First use on this redis, or its script cache was flushed; EVAL caches it again.
+        return (List<Object>) jedis.eval(script.source, keys, args);
+      }
+    }
+  }
+
+  private static String expiry() {
+    return String.valueOf(GlobalConstants.CART_EXPIRY_IN_SECONDS);
+  }
+
+  private static final class LuaScript {
+
+    private final String source;
+    private final String sha1;
+
+    private LuaScript(String source, String sha1) {
+      this.source = source;
+      this.sha1 = sha1;
+    }
+
+    static LuaScript load(String path) throws IOException {
+      String source;
+      try (InputStream inputStream = new ClassPathResource(path).getInputStream()) {
+        source = StreamUtils.copyToString(inputStream, StandardCharsets.UTF_8);
+      }
+      try {
+        byte[] digest = MessageDigest.getInstance("SHA-1")
+            .digest(source.getBytes(StandardCharsets.UTF_8));
+        StringBuilder sha1 = new StringBuilder();
+        for (byte b : digest) {
+          sha1.append(String.format("%02x", b));
+        }
+        return new LuaScript(source, sha1.toString());
+      } catch (NoSuchAlgorithmException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+
+  }
+
+}
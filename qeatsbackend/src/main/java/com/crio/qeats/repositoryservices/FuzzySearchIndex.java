@@ -0,0 +1,410 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.repositoryservices;
+
+import ch.hsr.geohash.BoundingBox;
+import ch.hsr.geohash.GeoHash;
+import com.crio.qeats.dto.Item;
+import com.crio.qeats.models.MenuEntity;
+import com.crio.qeats.models.RestaurantEntity;
+import com.crio.qeats.repositories.MenuRepository;
+import com.crio.qeats.repositories.RestaurantRepository;
+import com.crio.qeats.utils.TrigramIndex;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-memory index of the words in restaurant names, attributes, item names and item
+ * attributes, for searches with typos ("biriyani") that the regex searches miss.
+ * Every search word must be found, within an edit budget that grows with its length, in one
+ * of those fields of a restaurant. Restaurants come back with the fewest edits first and, among
+ * those, the ones matching by name before attributes, item names and item attributes, the
+ * precedence of the exact searches.
+ * The index is split in the shards of the {@link RestaurantCatalog}, and a search only looks
+ * in the shards its serving radius overlaps. A shard is rebuilt in the background from mongo,
+ * once a rebuild interval has passed with its restaurants or menus changed, and swapped in
+ * whole; the other shards are left as they are.
+ */
+@Component
+@Log4j2
+public class FuzzySearchIndex implements RestaurantChangeListener {
+
+  private static final Pattern WORD_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+  // Fields in order of precedence, kept in the low bits of a posting.
+  private static final int NAME = 0;
+  private static final int ATTRIBUTE = 1;
+  private static final int ITEM_NAME = 2;
+  private static final int ITEM_ATTRIBUTE = 3;
+  private static final int FIELD_BITS = 2;
+  private static final int FIELD_MASK = (1 << FIELD_BITS) - 1;
+
+  @Autowired
+  private RestaurantRepository restaurantRepository;
+
+  @Autowired
+  private MenuRepository menuRepository;
+
+  @Value("${qeats.search.fuzzy.enabled:true}")
+  private boolean enabled = true;
+
+  @Value("${qeats.search.fuzzy.rebuild-interval-seconds:60}")
+  private long rebuildIntervalSeconds = 60;
+
+  private final Map<String, Snapshot> snapshotsByShard = new ConcurrentHashMap<>();
+  // Tells which shard to rebuild when a menu changes.
+  private final Map<String, String> shardByRestaurantId = new ConcurrentHashMap<>();
+  private final Set<String> dirtyShards = ConcurrentHashMap.newKeySet();
+  private volatile boolean built;
+  private ScheduledExecutorService executor;
+
+  @PostConstruct
+  public void start() {
+    if (!enabled) {
+      return;
+    }
+    executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "fuzzy-search-index");
+      thread.setDaemon(true);
+      return thread;
+    });
+    executor.scheduleWithFixedDelay(this::rebuildIfDirty, 0, rebuildIntervalSeconds,
+        TimeUnit.SECONDS);
+  }
+
+  @PreDestroy
+  public void stop() {
+    if (executor != null) {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Edits allowed for a search word of this length: none up to 3 letters, so "dal" does not
+   * find "dam", one up to 7 and two beyond.
+   */
+  static int maxEdits(int length) {
+    return length <= 3 ? 0 : length <= 7 ? 1 : 2;
+  }
+
+  /**
+   * Restaurants of the shards within radiusInKms of the location matching every word of the
+   * search string within its edit budget, best match first, with only the fields needed to
+   * decide whether they are open and close by.
+   * Empty until the index is first built.
+   */
+  public List<RestaurantEntity> findCandidates(String searchString, double latitude,
+      double longitude, double radiusInKms) {
+    List<String> words = wordsOf(searchString);
+    List<Candidate> candidates = new ArrayList<>();
+    for (String shard : RestaurantCatalog.shardsWithin(latitude, longitude, radiusInKms)) {
+      Snapshot snapshot = snapshotsByShard.get(shard);
+      if (snapshot != null && !words.isEmpty()) {
+        findCandidates(snapshot, words, candidates);
+      }
+    }
+
+    candidates.sort((a, b) -> {
+      int byEdits = Integer.compare(a.edits, b.edits);
+      if (byEdits != 0) {
+        return byEdits;
+      }
+      int byField = Integer.compare(a.fields, b.fields);
+      return byField != 0 ? byField : Integer.compare(a.position, b.position);
+    });
+    List<RestaurantEntity> restaurants = new ArrayList<>(candidates.size());
+    for (Candidate candidate : candidates) {
+      restaurants.add(candidate.restaurant);
+    }
+    return restaurants;
+  }
+
+  // Adds the restaurants of the shard matching every word, with their total edits and fields.
+  private static void findCandidates(Snapshot snapshot, List<String> words,
+      List<Candidate> candidates) {
+    Map<Integer, int[]> costsByOrdinal = null;
+    for (String word : words) {
+      // Best posting of each restaurant for this word, as edits and field.
+      Map<Integer, Integer> bestByOrdinal = new HashMap<>();
+      for (TrigramIndex.Match match : snapshot.words.find(word, maxEdits(word.length()))) {
+        for (int posting : snapshot.postingsByWord.get(match.getWord())) {
+          int cost = (match.getEdits() << FIELD_BITS) | (posting & FIELD_MASK);
+          bestByOrdinal.merge(posting >>> FIELD_BITS, cost, Math::min);
+        }
+      }
+
+      if (costsByOrdinal == null) {
+        costsByOrdinal = new HashMap<>();
+        for (Map.Entry<Integer, Integer> entry : bestByOrdinal.entrySet()) {
+          costsByOrdinal.put(entry.getKey(), new int[2]);
+        }
+      }
+      costsByOrdinal.keySet().retainAll(bestByOrdinal.keySet());
+      for (Map.Entry<Integer, int[]> entry : costsByOrdinal.entrySet()) {
+        int cost = bestByOrdinal.get(entry.getKey());
+        entry.getValue()[0] += cost >>> FIELD_BITS;
+        entry.getValue()[1] += cost & FIELD_MASK;
+      }
+      if (costsByOrdinal.isEmpty()) {
+        return;
+      }
+    }
+
+    int offset = candidates.size();
+    for (Map.Entry<Integer, int[]> entry : costsByOrdinal.entrySet()) {
+      candidates.add(new Candidate(snapshot.restaurants[entry.getKey()], entry.getValue()[0],
+          entry.getValue()[1], offset + entry.getKey()));
+    }
+  }
+
+  @Override
+  public void onRestaurantChanged(RestaurantEntity previous, RestaurantEntity current) {
+    markDirty(previous);
+    markDirty(current);
+  }
+
+  @Override
+  public void onRestaurantRemoved(RestaurantEntity previous) {
+    markDirty(previous);
+  }
+
+  @Override
+  public void onMenuChanged(MenuEntity current, RestaurantEntity restaurant) {
+    markDirty(current.getRestaurantId());
+  }
+
+  @Override
+  public void onMenuRemoved(String restaurantId, RestaurantEntity restaurant) {
+    markDirty(restaurantId);
+  }
+
+  private void markDirty(RestaurantEntity restaurantEntity) {
+    if (restaurantEntity != null && restaurantEntity.getLatitude() != null
+        && restaurantEntity.getLongitude() != null) {
+      dirtyShards.add(RestaurantCatalog.shardOf(restaurantEntity.getLatitude(),
+          restaurantEntity.getLongitude()));
+    }
+  }
+
+  // A menu of a restaurant not indexed yet gets in with the restaurant itself.
+  private void markDirty(String restaurantId) {
+    String shard = restaurantId == null ? null : shardByRestaurantId.get(restaurantId);
+    if (shard != null) {
+      dirtyShards.add(shard);
+    }
+  }
+
+  private void rebuildIfDirty() {
+    if (!built) {
+      try {
+        rebuild();
+      } catch (RuntimeException e) {
+        log.warn("Could not build the fuzzy search index, will retry", e);
+      }
+      return;
+    }
+    for (String shard : new ArrayList<>(dirtyShards)) {
+      dirtyShards.remove(shard);
+      try {
+        rebuild(shard);
+      } catch (RuntimeException e) {
+        dirtyShards.add(shard);
+        log.warn("Could not rebuild shard {} of the fuzzy search index, keeping the previous"
+            + " one", shard, e);
+      }
+    }
+  }
+
+  /**
+   * Builds every shard, from all the restaurants and menus.
+   */
+  void rebuild() {
+    long start = System.currentTimeMillis();
+    // Changes seen from now on are read by this build or rebuilt again after it.
+    dirtyShards.clear();
+    Map<String, List<RestaurantEntity>> restaurantsByShard = new HashMap<>();
+    for (RestaurantEntity restaurantEntity : restaurantRepository.findAll()) {
+      if (isIndexed(restaurantEntity)) {
+        restaurantsByShard.computeIfAbsent(RestaurantCatalog.shardOf(
+            restaurantEntity.getLatitude(), restaurantEntity.getLongitude()),
+            shard -> new ArrayList<>()).add(restaurantEntity);
+      }
+    }
+    Map<String, MenuEntity> menusByRestaurantId = new HashMap<>();
+    for (MenuEntity menuEntity : menuRepository.findAll()) {
+      menusByRestaurantId.put(menuEntity.getRestaurantId(), menuEntity);
+    }
+
+    int words = 0;
+    for (Map.Entry<String, List<RestaurantEntity>> entry : restaurantsByShard.entrySet()) {
+      words += swapIn(entry.getKey(), entry.getValue(), menusByRestaurantId).words.size();
+    }
+    for (String shard : new ArrayList<>(snapshotsByShard.keySet())) {
+      if (!restaurantsByShard.containsKey(shard)) {
+        swapIn(shard, Collections.emptyList(), menusByRestaurantId);
+      }
+    }
+    built = true;
+    log.info("Fuzzy search index rebuilt with {} words of {} restaurants in {} shards in {} ms",
+        words, shardByRestaurantId.size(), snapshotsByShard.size(),
+        System.currentTimeMillis() - start);
+  }
+
+  /**
+   * Builds one shard, from its own restaurants and their menus.
+   */
+  void rebuild(String shard) {
+    long start = System.currentTimeMillis();
+    BoundingBox box = GeoHash.fromGeohashString(shard).getBoundingBox();
+    List<RestaurantEntity> restaurants = new ArrayList<>();
+    List<String> restaurantIds = new ArrayList<>();
+    for (RestaurantEntity restaurantEntity : restaurantRepository.findRestaurantsByLocationWithin(
+        box.getSouthLatitude(), box.getNorthLatitude(), box.getWestLongitude(),
+        box.getEastLongitude())) {
+      // The box includes its edges, which the neighbouring shards share.
+      if (isIndexed(restaurantEntity) && shard.equals(RestaurantCatalog.shardOf(
+          restaurantEntity.getLatitude(), restaurantEntity.getLongitude()))) {
+        restaurants.add(restaurantEntity);
+        restaurantIds.add(restaurantEntity.getRestaurantId());
+      }
+    }
+    Map<String, MenuEntity> menusByRestaurantId = new HashMap<>();
+    if (!restaurantIds.isEmpty()) {
+      for (MenuEntity menuEntity : menuRepository.findMenusByRestaurantIdIn(restaurantIds)) {
+        menusByRestaurantId.put(menuEntity.getRestaurantId(), menuEntity);
+      }
+    }
+
+    Snapshot snapshot = swapIn(shard, restaurants, menusByRestaurantId);
+    log.info("Fuzzy search index shard {} rebuilt with {} words of {} restaurants in {} ms",
+        shard, snapshot.words.size(), restaurants.size(), System.currentTimeMillis() - start);
+  }
+
+  // Builds the snapshot of the shard and replaces the previous one, or drops it when empty.
+  private Snapshot swapIn(String shard, List<RestaurantEntity> restaurantEntities,
+      Map<String, MenuEntity> menusByRestaurantId) {
+    List<RestaurantEntity> restaurants = new ArrayList<>();
+    Map<String, List<Integer>> postingLists = new HashMap<>();
+    for (RestaurantEntity restaurantEntity : restaurantEntities) {
+      int ordinal = restaurants.size();
+      restaurants.add(RestaurantCatalog.candidateOf(restaurantEntity));
+
+      // Each word once per restaurant, with the field of highest precedence it appears in.
+      Map<String, Integer> fieldsByWord = new LinkedHashMap<>();
+      addWords(fieldsByWord, restaurantEntity.getName(), NAME);
+      addWords(fieldsByWord, restaurantEntity.getAttributes(), ATTRIBUTE);
+      MenuEntity menuEntity = menusByRestaurantId.get(restaurantEntity.getRestaurantId());
+      if (menuEntity != null && menuEntity.getItems() != null) {
+        for (Item item : menuEntity.getItems()) {
+          addWords(fieldsByWord, item.getName(), ITEM_NAME);
+          addWords(fieldsByWord, item.getAttributes(), ITEM_ATTRIBUTE);
+        }
+      }
+      fieldsByWord.forEach((word, field) -> postingLists
+          .computeIfAbsent(word, w -> new ArrayList<>())
+          .add((ordinal << FIELD_BITS) | field));
+    }
+
+    Map<String, int[]> postingsByWord = new HashMap<>();
+    postingLists.forEach((word, postings) ->
+        postingsByWord.put(word, postings.stream().mapToInt(Integer::intValue).toArray()));
+    Snapshot snapshot = new Snapshot(TrigramIndex.of(postingsByWord.keySet()), postingsByWord,
+        restaurants.toArray(new RestaurantEntity[0]));
+
+    Snapshot previous = restaurants.isEmpty()
+        ? snapshotsByShard.remove(shard) : snapshotsByShard.put(shard, snapshot);
+    if (previous != null) {
+      for (RestaurantEntity restaurantEntity : previous.restaurants) {
+        shardByRestaurantId.remove(restaurantEntity.getRestaurantId(), shard);
+      }
+    }
+    for (RestaurantEntity restaurantEntity : restaurants) {
+      shardByRestaurantId.put(restaurantEntity.getRestaurantId(), shard);
+    }
+    return snapshot;
+  }
+
+  private static boolean isIndexed(RestaurantEntity restaurantEntity) {
+    return restaurantEntity.getLatitude() != null && restaurantEntity.getLongitude() != null
+        && restaurantEntity.getOpensAt() != null && restaurantEntity.getClosesAt() != null;
+  }
+
+  private static void addWords(Map<String, Integer> fieldsByWord, Collection<String> texts,
+      int field) {
+    if (texts != null) {
+      for (String text : texts) {
+        addWords(fieldsByWord, text, field);
+      }
+    }
+  }
+
+  private static void addWords(Map<String, Integer> fieldsByWord, String text, int field) {
+    for (String word : wordsOf(text)) {
+      fieldsByWord.merge(word, field, Math::min);
+    }
+  }
+
+  private static List<String> wordsOf(String text) {
+    List<String> words = new ArrayList<>();
+    if (text == null) {
+      return words;
+    }
+    for (String word : WORD_SEPARATOR.split(text.toLowerCase(Locale.ROOT))) {
+      if (!word.isEmpty()) {
+        words.add(word);
+      }
+    }
+    return words;
+  }
+
+  private static final class Candidate {
+    private final RestaurantEntity restaurant;
+    private final int edits;
+    private final int fields;
+    // Breaks ties in a stable order.
+    private final int position;
+
+    private Candidate(RestaurantEntity restaurant, int edits, int fields, int position) {
+      this.restaurant = restaurant;
+      this.edits = edits;
+      this.fields = fields;
+      this.position = position;
+    }
+  }
+
+  private static final class Snapshot {
+    private final TrigramIndex words;
+    // Per word, the restaurants having it: ordinal << FIELD_BITS | field.
+    private final Map<String, int[]> postingsByWord;
+    private final RestaurantEntity[] restaurants;
+
+    private Snapshot(TrigramIndex words, Map<String, int[]> postingsByWord,
+        RestaurantEntity[] restaurants) {
+      this.words = words;
+      this.postingsByWord = postingsByWord;
+      this.restaurants = restaurants;
+    }
+  }
+
+}
@@ -0,0 +1,34 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.repositoryservices;
+
+import com.crio.qeats.dto.Menu;
+import java.util.Collection;
+import java.util.Map;
+
+public interface MenuRepositoryService {
+
+  /**
+   * Get the menu of a restaurant.
+   *   - Served from the in-process cache, then redis, and only then mongo.
+   *   - The returned menu carries a version that changes whenever its content does.
+   * @param restaurantId id of the restaurant
+   * @return the menu, or null if the restaurant has none
+   */
+  Menu findMenu(String restaurantId);
+
+  /**
+   * Get the menus of many restaurants at once.
+   *   - Whatever is missing in the in-process cache is read from redis in one MGET.
+   *   - Whatever is missing in redis is read from mongo in one $in query.
+   * @param restaurantIds ids of the restaurants
+   * @return menus keyed on restaurantId, in the order asked for; restaurants without a menu
+   *     are left out
+   */
+  Map<String, Menu> findMenus(Collection<String> restaurantIds);
+
+}
@@ -0,0 +1,289 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.repositoryservices;
+
+import com.crio.qeats.configs.RedisConfiguration;
+import com.crio.qeats.dto.Menu;
+import com.crio.qeats.globals.GlobalConstants;
+import com.crio.qeats.models.MenuEntity;
+import com.crio.qeats.models.RestaurantEntity;
+import com.crio.qeats.repositories.MenuRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.inject.Provider;
+import lombok.extern.log4j.Log4j2;
+import org.modelmapper.ModelMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.exceptions.JedisException;
+
+/**
+ * Menus change rarely and are read on every restaurant page, so they are kept in an
+ * in-process cache in front of redis in front of mongo. Both cache levels are dropped by the
+ * {@link RestaurantChangeFeed} when a menu is written. A load that overlapped such an
+ * eviction drops what it cached, as it may have read the menu before the write.
+ */
+@Service
+@Log4j2
+public class MenuRepositoryServiceImpl implements MenuRepositoryService,
+    RestaurantChangeListener {
+
+  static final String MENU_KEY_PREFIX = "menu:";
+  private static final int MAX_CACHED_MENUS = 10000;
+
+  @Autowired
+  private MenuRepository menuRepository;
+
+  @Autowired
+  private RedisConfiguration redisConfiguration;
+
+  @Autowired
+  private Provider<ModelMapper> modelMapperProvider;
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  // Counts menu evictions, a load compares it before and after.
+  private final AtomicLong evictions = new AtomicLong();
+
+  // Restaurants without a menu are cached as empty, concurrent misses load once.
+  private final LoadingCache<String, Optional<Menu>> menuCache = CacheBuilder.newBuilder()
+      .maximumSize(MAX_CACHED_MENUS)
+      .expireAfterWrite(GlobalConstants.REDIS_ENTRY_EXPIRY_IN_SECONDS, TimeUnit.SECONDS)
+      .build(new CacheLoader<String, Optional<Menu>>() {
+        @Override
+        public Optional<Menu> load(String restaurantId) {
+          return Optional.ofNullable(loadMenu(restaurantId));
+        }
+      });
+
+  @Override
+  public Menu findMenu(String restaurantId) {
+    long generation = evictions.get();
+    Optional<Menu> menu = menuCache.getUnchecked(restaurantId);
+    if (evictions.get() != generation) {
+      menuCache.invalidate(restaurantId);
+    }
+    return menu.orElse(null);
+  }
+
+  @Override
+  public void onMenuChanged(MenuEntity current, RestaurantEntity restaurant) {
+    evictMenu(current.getRestaurantId());
+  }
+
+  @Override
+  public void onMenuRemoved(String restaurantId, RestaurantEntity restaurant) {
+    evictMenu(restaurantId);
+  }
+
+  private void evictMenu(String restaurantId) {
+    evictions.incrementAndGet();
+    menuCache.invalidate(restaurantId);
+    try (Jedis jedis = redisConfiguration.getJedisPool().getResource()) {
+      jedis.del(MENU_KEY_PREFIX + restaurantId);
+    } catch (JedisException e) {
+      log.warn("Could not evict menu of restaurant {} from redis", restaurantId, e);
+    }
+  }
+
+  @Override
+  public Map<String, Menu> findMenus(Collection<String> restaurantIds) {
+    Set<String> requestedIds = new LinkedHashSet<>(restaurantIds);
+    Map<String, Optional<Menu>> cachedMenus = menuCache.getAllPresent(requestedIds);
+
+    List<String> uncachedIds = new ArrayList<>();
+    for (String restaurantId : requestedIds) {
+      if (!cachedMenus.containsKey(restaurantId)) {
+        uncachedIds.add(restaurantId);
+      }
+    }
+    long generation = evictions.get();
+    Map<String, Optional<Menu>> loadedMenus = loadMenus(uncachedIds, generation);
+    menuCache.putAll(loadedMenus);
+    if (evictions.get() != generation) {
+      menuCache.invalidateAll(loadedMenus.keySet());
+    }
+
+    Map<String, Menu> menus = new LinkedHashMap<>();
+    for (String restaurantId : requestedIds) {
+      Optional<Menu> menu = cachedMenus.containsKey(restaurantId)
+          ? cachedMenus.get(restaurantId) : loadedMenus.get(restaurantId);
+      if (menu != null && menu.isPresent()) {
+        menus.put(restaurantId, menu.get());
+      }
+    }
+    return menus;
+  }
+
+  private Menu loadMenu(String restaurantId) {
+    long generation = evictions.get();
+    String menuJson = findMenuJsonInCache(restaurantId);
+    if (menuJson != null) {
+      return readMenu(restaurantId, menuJson);
+    }
+
+    Optional<MenuEntity> menuEntity = menuRepository.findMenuByRestaurantId(restaurantId);
+    if (!menuEntity.isPresent()) {
+      return null;
+    }
+    Menu menu = modelMapperProvider.get().map(menuEntity.get(), Menu.class);
+    menuJson = writeMenu(menu);
+    storeMenuJsonInCache(restaurantId, menuJson);
+    if (evictions.get() != generation) {
+      deleteMenuJsonsInCache(Collections.singletonList(restaurantId));
+    }
+    menu.setVersion(versionOf(menuJson));
+    return menu;
+  }
+
+  // Same as loadMenu for many restaurants, with one round trip to redis and at most one to
+  // mongo.
+  private Map<String, Optional<Menu>> loadMenus(List<String> restaurantIds, long generation) {
+    Map<String, Optional<Menu>> menus = new HashMap<>();
+    if (restaurantIds.isEmpty()) {
+      return menus;
+    }
+
+    List<String> menuJsons = findMenuJsonsInCache(restaurantIds);
+    List<String> missingIds = new ArrayList<>();
+    for (int i = 0; i < restaurantIds.size(); i++) {
+      String menuJson = menuJsons.get(i);
+      if (menuJson == null) {
+        missingIds.add(restaurantIds.get(i));
+      } else {
+        menus.put(restaurantIds.get(i), Optional.of(readMenu(restaurantIds.get(i), menuJson)));
+      }
+    }
+    if (missingIds.isEmpty()) {
+      return menus;
+    }
+
+    ModelMapper modelMapper = modelMapperProvider.get();
+    Map<String, String> menuJsonsToCache = new HashMap<>();
+    for (MenuEntity menuEntity : menuRepository.findMenusByRestaurantIdIn(missingIds)) {
+      Menu menu = modelMapper.map(menuEntity, Menu.class);
+      String menuJson = writeMenu(menu);
+      menu.setVersion(versionOf(menuJson));
+      menus.put(menuEntity.getRestaurantId(), Optional.of(menu));
+      menuJsonsToCache.put(menuEntity.getRestaurantId(), menuJson);
+    }
+    for (String restaurantId : missingIds) {
+      menus.putIfAbsent(restaurantId, Optional.empty());
+    }
+    storeMenuJsonsInCache(menuJsonsToCache);
+    if (evictions.get() != generation) {
+      deleteMenuJsonsInCache(menuJsonsToCache.keySet());
+    }
+    return menus;
+  }
+
+  private Menu readMenu(String restaurantId, String menuJson) {
+    try {
+      Menu menu = objectMapper.readValue(menuJson, Menu.class);
+      menu.setVersion(versionOf(menuJson));
+      return menu;
+    } catch (IOException e) {
+      throw new IllegalStateException("Could not read cached menu of " + restaurantId, e);
+    }
+  }
+
+  private String writeMenu(Menu menu) {
+    try {
+      return objectMapper.writeValueAsString(menu);
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException("Could not serialize menu of " + menu.getRestaurantId(),
+          e);
+    }
+  }
+
+  private String findMenuJsonInCache(String restaurantId) {
+    try (Jedis jedis = redisConfiguration.getJedisPool().getResource()) {
+      return jedis.get(MENU_KEY_PREFIX + restaurantId);
+    } catch (JedisException e) {
+      log.warn("Redis unavailable, reading menu of restaurant {} from mongo", restaurantId);
+      return null;
+    }
+  }
+
+  private void storeMenuJsonInCache(String restaurantId, String menuJson) {
+    try (Jedis jedis = redisConfiguration.getJedisPool().getResource()) {
+      jedis.setex(MENU_KEY_PREFIX + restaurantId,
+          GlobalConstants.REDIS_ENTRY_EXPIRY_IN_SECONDS, menuJson);
+    } catch (JedisException e) {
+      log.warn("Could not cache menu of restaurant {} in redis", restaurantId);
+    }
+  }
+
+  private List<String> findMenuJsonsInCache(List<String> restaurantIds) {
+    String[] keys = new String[restaurantIds.size()];
+    for (int i = 0; i < keys.length; i++) {
+      keys[i] = MENU_KEY_PREFIX + restaurantIds.get(i);
+    }
+    try (Jedis jedis = redisConfiguration.getJedisPool().getResource()) {
+      return jedis.mget(keys);
+    } catch (JedisException e) {
+      log.warn("Redis unavailable, reading {} menus from mongo", keys.length);
+      return Arrays.asList(new String[keys.length]);
+    }
+  }
+
+  private void storeMenuJsonsInCache(Map<String, String> menuJsons) {
+    if (menuJsons.isEmpty()) {
+      return;
+    }
+    try (Jedis jedis = redisConfiguration.getJedisPool().getResource()) {
+      Pipeline pipeline = jedis.pipelined();
+      for (Map.Entry<String, String> menuJson : menuJsons.entrySet()) {
+        pipeline.setex(MENU_KEY_PREFIX + menuJson.getKey(),
+            GlobalConstants.REDIS_ENTRY_EXPIRY_IN_SECONDS, menuJson.getValue());
+      }
+      pipeline.sync();
+    } catch (JedisException e) {
+      log.warn("Could not cache {} menus in redis", menuJsons.size());
+    }
+  }
+
+  private void deleteMenuJsonsInCache(Collection<String> restaurantIds) {
+    if (restaurantIds.isEmpty()) {
+      return;
+    }
+    try (Jedis jedis = redisConfiguration.getJedisPool().getResource()) {
+      jedis.del(restaurantIds.stream().map(restaurantId -> MENU_KEY_PREFIX + restaurantId)
+          .toArray(String[]::new));
+    } catch (JedisException e) {
+      log.warn("Could not drop {} menus read during an eviction from redis",
+          restaurantIds.size());
+    }
+  }
+
+  // A digest of the cached JSON, so every node hands out the same version for the same menu.
+  private static String versionOf(String menuJson) {
+    return DigestUtils.md5DigestAsHex(menuJson.getBytes(StandardCharsets.UTF_8));
+  }
+
+}
@@ -0,0 +1,43 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.repositoryservices;
+
+import com.crio.qeats.dto.Order;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+public interface OrderRepositoryService {
+
+  /**
+   * Get the orders of a user, newest first, starting after the given position.
+   *   - Reads at most limit orders through the (userId, createdAt, _id) index, however long the
+   *     user's history is.
+   *   - The newest orders of a user are served from a small cache.
+   * @param userId id of the user
+   * @param beforeCreatedAt createdAt of the last order already returned, null for the newest
+   * @param beforeId id of the last order already returned, null for the newest
+   * @param limit most orders to return
+   * @return the orders, newest first
+   */
+  List<Order> findOrders(String userId, Date beforeCreatedAt, String beforeId, int limit);
+
+  /**
+   * Drop the cached newest orders of a user; called when the user places an order and again
+   * when it is persisted.
+   * @param userId id of the user
+   */
+  void evictRecentOrders(String userId);
+
+  /**
+   * Count the orders placed at each restaurant since the given time, with one aggregation.
+   * @param since earliest createdAt counted
+   * @return number of orders keyed on restaurantId, restaurants without orders left out
+   */
+  Map<String, Long> countOrdersByRestaurant(Date since);
+
+}
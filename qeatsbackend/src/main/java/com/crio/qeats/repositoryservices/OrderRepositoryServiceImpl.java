@@ -0,0 +1,116 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.repositoryservices;
+
+import com.crio.qeats.dto.Order;
+import com.crio.qeats.globals.GlobalConstants;
+import com.crio.qeats.models.OrderEntity;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import javax.inject.Provider;
+import org.bson.Document;
+import org.modelmapper.ModelMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+@Service
+public class OrderRepositoryServiceImpl implements OrderRepositoryService {
+
+  private static final String USER_ID_FIELD = "userId";
+  private static final String CREATED_AT_FIELD = "createdAt";
+  private static final String ID_FIELD = "_id";
+  private static final String RESTAURANT_ID_FIELD = "restaurantId";
+  private static final String ORDERS_FIELD = "orders";
+
+  // Users whose newest orders are kept, and for how long.
+  private static final int MAX_CACHED_USERS = 10000;
+  private static final int RECENT_ORDERS_EXPIRY_IN_MINUTES = 10;
+
+  @Autowired
+  private MongoTemplate mongoTemplate;
+
+  @Autowired
+  private Provider<ModelMapper> modelMapperProvider;
+
+  // The newest MAX_ORDERS_PER_PAGE orders of a user, so any first page is a cache hit.
+  private final Cache<String, List<Order>> recentOrders = CacheBuilder.newBuilder()
+      .maximumSize(MAX_CACHED_USERS)
+      .expireAfterWrite(RECENT_ORDERS_EXPIRY_IN_MINUTES, TimeUnit.MINUTES)
+      .build();
+
+  @Override
+  public List<Order> findOrders(String userId, Date beforeCreatedAt, String beforeId,
+      int limit) {
+    if (beforeCreatedAt != null || limit > GlobalConstants.MAX_ORDERS_PER_PAGE) {
+      return findOrdersInDb(userId, beforeCreatedAt, beforeId, limit);
+    }
+
+    List<Order> orders = recentOrders.getIfPresent(userId);
+    if (orders == null) {
+      orders = findOrdersInDb(userId, null, null, GlobalConstants.MAX_ORDERS_PER_PAGE);
+      recentOrders.put(userId, orders);
+    }
+    return new ArrayList<>(orders.subList(0, Math.min(limit, orders.size())));
+  }
+
+  @Override
+  public void evictRecentOrders(String userId) {
+    recentOrders.invalidate(userId);
+  }
+
+  @Override
+  public Map<String, Long> countOrdersByRestaurant(Date since) {
+    Aggregation aggregation = Aggregation.newAggregation(
+        Aggregation.match(Criteria.where(CREATED_AT_FIELD).gte(since)),
+        Aggregation.group(RESTAURANT_ID_FIELD).count().as(ORDERS_FIELD));
+
+    Map<String, Long> ordersByRestaurantId = new HashMap<>();
+    for (Document document
+        : mongoTemplate.aggregate(aggregation, OrderEntity.class, Document.class)) {
+      Object restaurantId = document.get(ID_FIELD);
+      if (restaurantId != null) {
+        ordersByRestaurantId.put(restaurantId.toString(),
+            ((Number) document.get(ORDERS_FIELD)).longValue());
+      }
+    }
+    return ordersByRestaurantId;
+  }
+
+  private List<Order> findOrdersInDb(String userId, Date beforeCreatedAt, String beforeId,
+      int limit) {
+    Criteria criteria = Criteria.where(USER_ID_FIELD).is(userId);
+    if (beforeCreatedAt != null) {
+      // Keyset: strictly older, or as old with a smaller id. Stays on the index however deep
+      // the page, unlike skip().
+      criteria = criteria.orOperator(
+          Criteria.where(CREATED_AT_FIELD).lt(beforeCreatedAt),
+          Criteria.where(CREATED_AT_FIELD).is(beforeCreatedAt).and(ID_FIELD).lt(beforeId));
+    }
+    Query query = new Query(criteria)
+        .with(Sort.by(Sort.Direction.DESC, CREATED_AT_FIELD, ID_FIELD))
+        .limit(limit);
+
+    ModelMapper modelMapper = modelMapperProvider.get();
+    List<Order> orders = new ArrayList<>();
+    for (OrderEntity orderEntity : mongoTemplate.find(query, OrderEntity.class)) {
+      orders.add(modelMapper.map(orderEntity, Order.class));
+    }
+    return orders;
+  }
+
+}
@@ -0,0 +1,45 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.repositoryservices;
+
+import com.crio.qeats.dto.Restaurant;
+import java.time.LocalTime;
+import reactor.core.publisher.Flux;
+
+/**
+ * Non-blocking counterpart of {@link RestaurantRepositoryService}: the same lookups, in the
+ * same order, emitted as the reactive Mongo and Redis drivers answer.
+ */
+public interface ReactiveRestaurantRepositoryService {
+
+  /**
+   * Open restaurants within the serving radius, read through the same GeoHash cache entries
+   * as {@link RestaurantRepositoryService#findAllRestaurantsCloseBy}.
+   */
+  Flux<Restaurant> findAllRestaurantsCloseBy(Double latitude, Double longitude,
+      LocalTime currentTime, Double servingRadiusInKms);
+
+  /**
+   * Open restaurants within the serving radius whose name matches, exact matches first.
+   */
+  Flux<Restaurant> findRestaurantsByName(Double latitude, Double longitude,
+      String searchString, LocalTime currentTime, Double servingRadiusInKms);
+
+  Flux<Restaurant> findRestaurantsByAttributes(Double latitude, Double longitude,
+      String searchString, LocalTime currentTime, Double servingRadiusInKms);
+
+  /**
+   * Open restaurants within the serving radius serving a matching item, exact item name
+   * matches first.
+   */
+  Flux<Restaurant> findRestaurantsByItemName(Double latitude, Double longitude,
+      String searchString, LocalTime currentTime, Double servingRadiusInKms);
+
+  Flux<Restaurant> findRestaurantsByItemAttributes(Double latitude, Double longitude,
+      String searchString, LocalTime currentTime, Double servingRadiusInKms);
+
+}
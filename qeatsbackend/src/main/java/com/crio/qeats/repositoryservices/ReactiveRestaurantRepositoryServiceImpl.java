@@ -0,0 +1,248 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.repositoryservices;
+
+import ch.hsr.geohash.GeoHash;
+import com.crio.qeats.dto.Restaurant;
+import com.crio.qeats.globals.GlobalConstants;
+import com.crio.qeats.models.ItemEntity;
+import com.crio.qeats.models.MenuEntity;
+import com.crio.qeats.models.RestaurantEntity;
+import com.crio.qeats.repositories.ReactiveItemRepository;
+import com.crio.qeats.repositories.ReactiveMenuRepository;
+import com.crio.qeats.repositories.ReactiveRestaurantRepository;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.Lists;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import javax.inject.Provider;
+import lombok.extern.log4j.Log4j2;
+import org.modelmapper.ModelMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Service
+@Log4j2
+@ConditionalOnProperty(name = "qeats.restaurants.reactive", havingValue = "true")
+public class ReactiveRestaurantRepositoryServiceImpl
+    implements ReactiveRestaurantRepositoryService {
+
+  private static final int RESTAURANT_IDS_PER_QUERY = 500;
+
+  private static final TypeReference<List<Restaurant>> RESTAURANT_LIST =
+      new TypeReference<List<Restaurant>>() {
+      };
+
+  @Autowired
+  private ReactiveRestaurantRepository restaurantRepository;
+
+  @Autowired
+  private ReactiveMenuRepository menuRepository;
+
+  @Autowired
+  private ReactiveItemRepository itemRepository;
+
+  @Autowired
+  private Provider<ModelMapper> modelMapperProvider;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  @Autowired
+  private RestaurantCatalog restaurantCatalog;
+
+  // Expires cells like the blocking path does, the change feed evicting them in between.
+  @Value("${qeats.close-by-cache.hard-ttl-seconds:"
+      + GlobalConstants.REDIS_ENTRY_EXPIRY_IN_SECONDS + "}")
+  private int hardTtlSeconds = GlobalConstants.REDIS_ENTRY_EXPIRY_IN_SECONDS;
+
+  private final ReactiveRedisTemplate<String, String> redisTemplate;
+
+  @Autowired
+  public ReactiveRestaurantRepositoryServiceImpl(
+      ReactiveRedisConnectionFactory redisConnectionFactory) {
+    redisTemplate = new ReactiveRedisTemplate<>(redisConnectionFactory,
+        RedisSerializationContext.string());
+  }
+
+  @Override
+  public Flux<Restaurant> findAllRestaurantsCloseBy(Double latitude, Double longitude,
+      LocalTime currentTime, Double servingRadiusInKms) {
+    String geoHashKey = GeoHash.withCharacterPrecision(latitude, longitude,
+        GlobalConstants.GEOHASH_PRECISION).toBase32();
+
+    // A redis failure or an unreadable entry falls back to mongo, like a miss.
+    return redisTemplate.opsForValue().get(geoHashKey)
+        .map(this::readRestaurants)
+        .onErrorResume(e -> {
+          log.warn("Cached restaurants near {} unavailable: {}", geoHashKey, e.getMessage());
+          return Mono.empty();
+        })
+        .switchIfEmpty(Mono.defer(() -> findAllRestaurantsCloseFromDb(latitude, longitude,
+            currentTime, servingRadiusInKms)
+            .collectList()
+            .flatMap(restaurants -> storeRestaurants(geoHashKey, restaurants))))
+        .flatMapIterable(restaurants -> restaurants);
+  }
+
+  @Override
+  public Flux<Restaurant> findRestaurantsByName(Double latitude, Double longitude,
+      String searchString, LocalTime currentTime, Double servingRadiusInKms) {
+    Flux<RestaurantEntity> candidates = Flux.concat(
+        restaurantRepository.findRestaurantsByNameExact(searchString),
+        restaurantRepository.findRestaurantsByNamePartial(searchString))
+        .distinct(RestaurantEntity::getRestaurantId);
+    return findRestaurantsCloseByAndOpen(candidates, currentTime, latitude, longitude,
+        servingRadiusInKms);
+  }
+
+  @Override
+  public Flux<Restaurant> findRestaurantsByAttributes(Double latitude, Double longitude,
+      String searchString, LocalTime currentTime, Double servingRadiusInKms) {
+    return findRestaurantsCloseByAndOpen(
+        restaurantRepository.findRestaurantsByAttributes(searchString), currentTime,
+        latitude, longitude, servingRadiusInKms);
+  }
+
+  @Override
+  public Flux<Restaurant> findRestaurantsByItemName(Double latitude, Double longitude,
+      String searchString, LocalTime currentTime, Double servingRadiusInKms) {
+    Mono<List<String>> exactItemIds = itemRepository.findItemsByNameExact(searchString)
+        .map(ItemEntity::getItemId).collectList();
+    Mono<List<String>> partialItemIds = itemRepository.findItemsByNameInexact(searchString)
+        .map(ItemEntity::getItemId).collectList();
+
+    // exact matches first, partial matches second
+    Flux<String> restaurantIds = Mono.zip(exactItemIds, partialItemIds)
+        .flatMapMany(itemIds -> {
+          Set<String> partial = new LinkedHashSet<>(itemIds.getT2());
+          partial.removeAll(itemIds.getT1());
+          return Flux.concat(findRestaurantIdsServingItems(itemIds.getT1()),
+              findRestaurantIdsServingItems(partial));
+        });
+    return findRestaurantsByIdsCloseByAndOpen(restaurantIds, latitude, longitude,
+        currentTime, servingRadiusInKms);
+  }
+
+  @Override
+  public Flux<Restaurant> findRestaurantsByItemAttributes(Double latitude, Double longitude,
+      String searchString, LocalTime currentTime, Double servingRadiusInKms) {
+    Flux<String> restaurantIds = itemRepository.findItemsByAttributes(searchString)
+        .map(ItemEntity::getItemId)
+        .collectList()
+        .flatMapMany(this::findRestaurantIdsServingItems);
+    return findRestaurantsByIdsCloseByAndOpen(restaurantIds, latitude, longitude,
+        currentTime, servingRadiusInKms);
+  }
+
+  private Flux<Restaurant> findAllRestaurantsCloseFromDb(Double latitude, Double longitude,
+      LocalTime currentTime, Double servingRadiusInKms) {
+    // The catalog lookup is in memory, so it does not block the event loop.
+    Flux<RestaurantEntity> candidates = restaurantCatalog.isLoaded()
+        ? Flux.fromIterable(restaurantCatalog.findCandidatesWithin(latitude, longitude,
+            servingRadiusInKms))
+        : restaurantRepository.findAllRestaurantCandidates();
+    return findRestaurantsCloseByAndOpen(candidates, currentTime, latitude, longitude,
+        servingRadiusInKms);
+  }
+
+  /**
+   * Keeps the projected candidates that are close by and open, and fetches their full
+   * documents.
+   */
+  private Flux<Restaurant> findRestaurantsCloseByAndOpen(Flux<RestaurantEntity> candidates,
+      LocalTime currentTime, Double latitude, Double longitude, Double servingRadiusInKms) {
+    return candidates
+        .filter(restaurantEntity -> RestaurantRepositoryServiceImpl.isRestaurantCloseByAndOpen(
+            restaurantEntity, currentTime, latitude, longitude, servingRadiusInKms))
+        .map(RestaurantEntity::getRestaurantId)
+        .collectList()
+        .flatMapMany(this::findRestaurantEntitiesByIds)
+        .map(this::toRestaurant);
+  }
+
+  private Flux<Restaurant> findRestaurantsByIdsCloseByAndOpen(Flux<String> restaurantIds,
+      Double latitude, Double longitude, LocalTime currentTime, Double servingRadiusInKms) {
+    return restaurantIds
+        .collectList()
+        .flatMapMany(this::findRestaurantEntitiesByIds)
+        .filter(restaurantEntity -> RestaurantRepositoryServiceImpl.isRestaurantCloseByAndOpen(
+            restaurantEntity, currentTime, latitude, longitude, servingRadiusInKms))
+        .map(this::toRestaurant);
+  }
+
+  private Flux<String> findRestaurantIdsServingItems(Collection<String> itemIds) {
+    if (itemIds.isEmpty()) {
+      return Flux.empty();
+    }
+    return menuRepository.findRestaurantIdsByItemsItemIdIn(itemIds)
+        .map(MenuEntity::getRestaurantId);
+  }
+
+  /**
+   * Full documents of the given restaurants in the given order, queried in chunks that are
+   * all in flight at once.
+   */
+  private Flux<RestaurantEntity> findRestaurantEntitiesByIds(Collection<String> restaurantIds) {
+    List<String> uniqueIds = new ArrayList<>(new LinkedHashSet<>(restaurantIds));
+    if (uniqueIds.isEmpty()) {
+      return Flux.empty();
+    }
+    return Flux.fromIterable(Lists.partition(uniqueIds, RESTAURANT_IDS_PER_QUERY))
+        .flatMap(restaurantRepository::findRestaurantsByRestaurantIdIn)
+        .collectMap(RestaurantEntity::getRestaurantId)
+        .flatMapMany(restaurantEntityById -> Flux.fromIterable(uniqueIds)
+            .filter(restaurantEntityById::containsKey)
+            .map(restaurantEntityById::get));
+  }
+
+  private Restaurant toRestaurant(RestaurantEntity restaurantEntity) {
+    return RestaurantRepositoryServiceImpl.toRestaurant(modelMapperProvider.get(),
+        restaurantEntity);
+  }
+
+  private List<Restaurant> readRestaurants(String json) {
+    try {
+      return objectMapper.readValue(json, RESTAURANT_LIST);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private Mono<List<Restaurant>> storeRestaurants(String geoHashKey,
+      List<Restaurant> restaurants) {
+    String json;
+    try {
+      json = objectMapper.writeValueAsString(restaurants);
+    } catch (IOException e) {
+      log.warn("Could not cache restaurants near {}", geoHashKey, e);
+      return Mono.just(restaurants);
+    }
+    return redisTemplate.opsForValue().set(geoHashKey, json, Duration.ofSeconds(hardTtlSeconds))
+        .onErrorResume(e -> {
+          log.warn("Could not cache restaurants near {}: {}", geoHashKey, e.getMessage());
+          return Mono.just(false);
+        })
+        .thenReturn(restaurants);
+  }
+
+}
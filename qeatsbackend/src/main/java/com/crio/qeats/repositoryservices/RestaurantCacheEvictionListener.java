@@ -0,0 +1,74 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.repositoryservices;
+
+import com.crio.qeats.configs.RedisRing;
+import com.crio.qeats.globals.GlobalConstants;
+import com.crio.qeats.models.RestaurantEntity;
+import com.crio.qeats.utils.GeoUtils;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import redis.clients.jedis.Pipeline;
+
+/**
+ * Drops the cached close by lists that may contain a changed restaurant, i.e. every GeoHash
+ * cell within the largest serving radius of its old and new location.
+ */
+@Component
+@Log4j2
+public class RestaurantCacheEvictionListener implements RestaurantChangeListener {
+
+  private static final int KEYS_PER_DEL = 500;
+
+  @Autowired
+  private RedisRing redisRing;
+
+  @Override
+  public void onRestaurantChanged(RestaurantEntity previous, RestaurantEntity current) {
+    Set<String> geoHashKeys = new LinkedHashSet<>();
+    if (previous != null) {
+      geoHashKeys.addAll(findAffectedGeoHashes(previous));
+    }
+    geoHashKeys.addAll(findAffectedGeoHashes(current));
+    evict(geoHashKeys);
+  }
+
+  @Override
+  public void onRestaurantRemoved(RestaurantEntity previous) {
+    evict(new LinkedHashSet<>(findAffectedGeoHashes(previous)));
+  }
+
+  private List<String> findAffectedGeoHashes(RestaurantEntity restaurantEntity) {
+    return GeoUtils.findGeoHashesWithinKm(restaurantEntity.getLatitude(),
+        restaurantEntity.getLongitude(), GlobalConstants.MAX_SERVING_RADIUS_IN_KMS,
+        GlobalConstants.GEOHASH_PRECISION);
+  }
+
+  private void evict(Set<String> geoHashKeys) {
+    if (geoHashKeys.isEmpty() || !redisRing.isAvailable()) {
+      return;
+    }
+    // One pipeline per redis node holding some of the cells.
+    redisRing.forEachNode(geoHashKeys, (jedis, nodeKeys) -> {
+      String[] keys = nodeKeys.toArray(new String[0]);
+      Pipeline pipeline = jedis.pipelined();
+      for (int from = 0; from < keys.length; from += KEYS_PER_DEL) {
+        int to = Math.min(from + KEYS_PER_DEL, keys.length);
+        String[] batch = new String[to - from];
+        System.arraycopy(keys, from, batch, 0, batch.length);
+        pipeline.del(batch);
+      }
+      pipeline.sync();
+    });
+    log.debug("Evicted {} close by cache cells", geoHashKeys.size());
+  }
+
+}
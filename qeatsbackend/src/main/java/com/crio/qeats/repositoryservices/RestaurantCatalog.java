@@ -0,0 +1,240 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.repositoryservices;
+
+import ch.hsr.geohash.GeoHash;
+import com.crio.qeats.models.RestaurantEntity;
+import com.crio.qeats.repositories.RestaurantRepository;
+import com.crio.qeats.utils.GeoUtils;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-memory copy of the restaurant candidates (id, location and opening hours), split in
+ * shards by region, a ~40km x 20km GeoHash cell: a city or a part of one.
+ * A close by query reads only the shards its serving radius overlaps, instead of every
+ * restaurant on the planet. Every shard is an immutable snapshot; a change to a restaurant
+ * copies the one or two shards it was and is in and swaps the copies in, so readers never
+ * lock and never see a shard half updated.
+ * Loaded once from mongo, then kept up to date by the {@link RestaurantChangeFeed}: it is
+ * not loaded with the feed disabled, and not used while the feed is not live, as it would miss
+ * changes. Queries then go to mongo.
+ */
+@Component
+@Log4j2
+public class RestaurantCatalog implements RestaurantChangeListener {
+
+  public static final int SHARD_GEOHASH_PRECISION = 4;
+
+  private static final RestaurantEntity[] EMPTY = new RestaurantEntity[0];
+
+  @Autowired
+  private RestaurantRepository restaurantRepository;
+
+  @Autowired
+  private RestaurantChangeFeed restaurantChangeFeed;
+
+  @Value("${qeats.catalog.enabled:true}")
+  private boolean enabled = true;
+
+  @Value("${qeats.catalog.load-retry-seconds:30}")
+  private long loadRetrySeconds = 30;
+
+  private final Map<String, RestaurantEntity[]> shards = new ConcurrentHashMap<>();
+  // Written under the catalog's lock only, with the shards.
+  private final Map<String, String> shardByRestaurantId = new HashMap<>();
+  private volatile boolean loaded;
+  private ScheduledExecutorService executor;
+
+  @PostConstruct
+  public void start() {
+    if (!enabled) {
+      return;
+    }
+    if (!restaurantChangeFeed.isEnabled()) {
+      log.warn("Restaurant catalog disabled, the change feed it needs is");
+      return;
+    }
+    executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "restaurant-catalog");
+      thread.setDaemon(true);
+      return thread;
+    });
+    executor.scheduleWithFixedDelay(this::loadIfNeeded, 0, loadRetrySeconds, TimeUnit.SECONDS);
+  }
+
+  @PreDestroy
+  public void stop() {
+    if (executor != null) {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Whether the catalog has been loaded, is being kept up to date, and can answer queries
+   * instead of mongo.
+   */
+  public boolean isLoaded() {
+    return loaded && restaurantChangeFeed.isLive();
+  }
+
+  /**
+   * The candidates of the shards overlapping the circle, a superset of those within it, with
+   * only the fields needed to decide whether they are open and close by.
+   */
+  public List<RestaurantEntity> findCandidatesWithin(double latitude, double longitude,
+      double radiusInKms) {
+    List<RestaurantEntity> candidates = new ArrayList<>();
+    for (String shard : shardsWithin(latitude, longitude, radiusInKms)) {
+      RestaurantEntity[] restaurants = shards.get(shard);
+      if (restaurants != null) {
+        for (RestaurantEntity restaurantEntity : restaurants) {
+          candidates.add(restaurantEntity);
+        }
+      }
+    }
+    return candidates;
+  }
+
+  /**
+   * Number of shards holding restaurants.
+   */
+  public int shardCount() {
+    return shards.size();
+  }
+
+  /**
+   * The shard of a location.
+   */
+  public static String shardOf(double latitude, double longitude) {
+    return GeoHash.withCharacterPrecision(latitude, longitude, SHARD_GEOHASH_PRECISION)
+        .toBase32();
+  }
+
+  /**
+   * The shards that may hold restaurants within radiusInKms of the location.
+   */
+  public static List<String> shardsWithin(double latitude, double longitude,
+      double radiusInKms) {
+    return GeoUtils.findGeoHashesWithinKm(latitude, longitude, radiusInKms,
+        SHARD_GEOHASH_PRECISION);
+  }
+
+  @Override
+  public synchronized void onRestaurantChanged(RestaurantEntity previous,
+      RestaurantEntity current) {
+    if (!loaded) {
+      // The load reads mongo after this write, or is retried until it does.
+      return;
+    }
+    remove(current.getRestaurantId());
+    if (isCandidate(current)) {
+      add(candidateOf(current));
+    }
+  }
+
+  @Override
+  public synchronized void onRestaurantRemoved(RestaurantEntity previous) {
+    if (loaded) {
+      remove(previous.getRestaurantId());
+    }
+  }
+
+  private void loadIfNeeded() {
+    if (loaded) {
+      return;
+    }
+    try {
+      load();
+    } catch (RuntimeException e) {
+      log.warn("Could not load the restaurant catalog, queries go to mongo until it is", e);
+    }
+  }
+
+  // Holds the lock while reading mongo, so no change is applied and then overwritten by an
+  // older copy of the same restaurant.
+  synchronized void load() {
+    long start = System.currentTimeMillis();
+    Map<String, List<RestaurantEntity>> restaurantsByShard = new HashMap<>();
+    shardByRestaurantId.clear();
+    for (RestaurantEntity restaurantEntity : restaurantRepository.findAllRestaurantCandidates()) {
+      if (!isCandidate(restaurantEntity)) {
+        continue;
+      }
+      String shard = shardOf(restaurantEntity.getLatitude(), restaurantEntity.getLongitude());
+      restaurantsByShard.computeIfAbsent(shard, s -> new ArrayList<>()).add(restaurantEntity);
+      shardByRestaurantId.put(restaurantEntity.getRestaurantId(), shard);
+    }
+    shards.clear();
+    restaurantsByShard.forEach((shard, restaurants) ->
+        shards.put(shard, restaurants.toArray(EMPTY)));
+    loaded = true;
+    log.info("Restaurant catalog loaded with {} restaurants in {} shards in {} ms",
+        shardByRestaurantId.size(), shards.size(), System.currentTimeMillis() - start);
+  }
+
+  private void add(RestaurantEntity candidate) {
+    String shard = shardOf(candidate.getLatitude(), candidate.getLongitude());
+    RestaurantEntity[] restaurants = shards.getOrDefault(shard, EMPTY);
+    RestaurantEntity[] copy = new RestaurantEntity[restaurants.length + 1];
+    System.arraycopy(restaurants, 0, copy, 0, restaurants.length);
+    copy[restaurants.length] = candidate;
+    shards.put(shard, copy);
+    shardByRestaurantId.put(candidate.getRestaurantId(), shard);
+  }
+
+  private void remove(String restaurantId) {
+    String shard = shardByRestaurantId.remove(restaurantId);
+    if (shard == null) {
+      return;
+    }
+    RestaurantEntity[] restaurants = shards.get(shard);
+    List<RestaurantEntity> copy = new ArrayList<>(restaurants.length);
+    for (RestaurantEntity restaurantEntity : restaurants) {
+      if (!restaurantEntity.getRestaurantId().equals(restaurantId)) {
+        copy.add(restaurantEntity);
+      }
+    }
+    if (copy.isEmpty()) {
+      shards.remove(shard);
+    } else {
+      shards.put(shard, copy.toArray(EMPTY));
+    }
+  }
+
+  // Restaurants without a location or opening hours are never close by and open.
+  private static boolean isCandidate(RestaurantEntity restaurantEntity) {
+    return restaurantEntity.getRestaurantId() != null
+        && restaurantEntity.getLatitude() != null && restaurantEntity.getLongitude() != null
+        && restaurantEntity.getOpensAt() != null && restaurantEntity.getClosesAt() != null;
+  }
+
+  // Same fields as RestaurantRepository.CANDIDATE_FIELDS.
+  static RestaurantEntity candidateOf(RestaurantEntity restaurantEntity) {
+    RestaurantEntity candidate = new RestaurantEntity();
+    candidate.setRestaurantId(restaurantEntity.getRestaurantId());
+    candidate.setLatitude(restaurantEntity.getLatitude());
+    candidate.setLongitude(restaurantEntity.getLongitude());
+    candidate.setOpensAt(restaurantEntity.getOpensAt());
+    candidate.setClosesAt(restaurantEntity.getClosesAt());
+    candidate.setAttributes(null);
+    return candidate;
+  }
+
+}
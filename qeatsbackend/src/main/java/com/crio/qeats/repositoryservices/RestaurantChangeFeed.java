@@ -0,0 +1,406 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.repositoryservices;
+
+import com.crio.qeats.models.MenuEntity;
+import com.crio.qeats.models.RestaurantEntity;
+import com.mongodb.MongoException;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+/**
+ * Follows writes to the restaurants and menus collections and hands them to every
+ * {@link RestaurantChangeListener}, so in-memory copies and cached entries never need a full
+ * reload.
+ * Mongo change streams are used when the server supports them (replica sets). Otherwise, e.g.
+ * against a standalone or embedded mongo, the feed polls on the indexed {@code updatedAt}
+ * timestamp, and every few polls diffs the set of ids to pick up deletes and inserts made by
+ * writers that do not stamp it. Reading every id costs a collection scan, so those are found
+ * later than updates.
+ */
+@Component
+@Log4j2
+public class RestaurantChangeFeed {
+
+  static final String RESTAURANTS_COLLECTION = "restaurants";
+  static final String MENUS_COLLECTION = "menus";
+  private static final String ID_FIELD = "_id";
+  private static final String UPDATED_AT_FIELD = "updatedAt";
+
+  @Autowired
+  private MongoTemplate mongoTemplate;
+
+  @Autowired(required = false)
+  private List<RestaurantChangeListener> listeners = new ArrayList<>();
+
+  @Value("${qeats.changefeed.enabled:true}")
+  private boolean enabled = true;
+
+  @Value("${qeats.changefeed.poll-interval-ms:5000}")
+  private long pollIntervalMs = 5000;
+
+  @Value("${qeats.changefeed.id-scan-every-polls:12}")
+  private int idScanEveryPolls = 12;
+
+  // Last version seen of every document, keyed on the mongo _id. Only touched by the feed
+  // thread.
+  private final Map<String, RestaurantEntity> restaurantsById = new HashMap<>();
+  // The same restaurants keyed on restaurantId, handed to listeners along with their menus.
+  private final Map<String, RestaurantEntity> restaurantsByRestaurantId = new HashMap<>();
+  private final Map<String, String> restaurantIdsByMenuId = new HashMap<>();
+  private Date restaurantsWatermark = new Date(0);
+  private Date menusWatermark = new Date(0);
+  private boolean seeded;
+  private int pollsSinceIdScan;
+
+  private ScheduledExecutorService executor;
+  private volatile boolean running;
+  // Every write made before this time has been applied, 0 until the feed has caught up once.
+  private volatile long lastSyncMillis;
+
+  @PostConstruct
+  public void start() {
+    if (!enabled) {
+      return;
+    }
+    running = true;
+    executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "restaurant-change-feed");
+      thread.setDaemon(true);
+      return thread;
+    });
+    executor.execute(this::run);
+  }
+
+  @PreDestroy
+  public void stop() {
+    running = false;
+    if (executor != null) {
+      executor.shutdownNow();
+    }
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Whether the feed is following mongo, having caught up within the last three poll
+   * intervals. Copies kept up to date by it only are stale otherwise.
+   */
+  public boolean isLive() {
+    return running && System.currentTimeMillis() - lastSyncMillis <= 3 * pollIntervalMs;
+  }
+
+  private void run() {
+    try {
+      if (followChangeStreams()) {
+        return;
+      }
+      if (!seeded) {
+        seed();
+      }
+      executor.scheduleWithFixedDelay(this::pollSafely, pollIntervalMs, pollIntervalMs,
+          TimeUnit.MILLISECONDS);
+    } catch (RuntimeException e) {
+      running = false;
+      log.error("Restaurant change feed stopped", e);
+    }
+  }
+
+  /**
+   * Consumes change streams until stopped.
+   * @return false if change streams are not supported, or broke, and polling should take over
+   */
+  private boolean followChangeStreams() {
+    MongoCursor<ChangeStreamDocument<Document>> restaurantChanges;
+    MongoCursor<ChangeStreamDocument<Document>> menuChanges;
+    try {
+      restaurantChanges = openChangeStream(RESTAURANTS_COLLECTION);
+      menuChanges = openChangeStream(MENUS_COLLECTION);
+    } catch (MongoException e) {
+      log.info("Change streams unavailable ({}), polling every {} ms", e.getMessage(),
+          pollIntervalMs);
+      return false;
+    }
+
+    // Seed after the streams are open so no write falls in between; replays are idempotent.
+    try (MongoCursor<ChangeStreamDocument<Document>> restaurants = restaurantChanges;
+        MongoCursor<ChangeStreamDocument<Document>> menus = menuChanges) {
+      seed();
+      while (running) {
+        // Each stream is drained before the other is read, so an idle one waiting out
+        // maxAwaitTime costs the busy one at most that long. Once both have come back empty,
+        // every write made before the pass started has been applied.
+        long passStartMillis = System.currentTimeMillis();
+        drain(restaurants, this::applyRestaurantChange);
+        drain(menus, this::applyMenuChange);
+        lastSyncMillis = passStartMillis;
+      }
+      return true;
+    } catch (MongoException e) {
+      log.warn("Change stream failed, falling back to polling", e);
+      return !running;
+    }
+  }
+
+  private void drain(MongoCursor<ChangeStreamDocument<Document>> changes,
+      Consumer<ChangeStreamDocument<Document>> apply) {
+    ChangeStreamDocument<Document> change;
+    while (running && (change = changes.tryNext()) != null) {
+      apply.accept(change);
+    }
+  }
+
+  private MongoCursor<ChangeStreamDocument<Document>> openChangeStream(String collection) {
+    return mongoTemplate.getCollection(collection).watch()
+        .fullDocument(FullDocument.UPDATE_LOOKUP)
+        .maxAwaitTime(500, TimeUnit.MILLISECONDS)
+        .iterator();
+  }
+
+  private void applyRestaurantChange(ChangeStreamDocument<Document> change) {
+    switch (change.getOperationType()) {
+      case INSERT:
+      case UPDATE:
+      case REPLACE:
+        if (change.getFullDocument() != null) {
+          restaurantChanged(mongoTemplate.getConverter()
+              .read(RestaurantEntity.class, change.getFullDocument()));
+        }
+        break;
+      case DELETE:
+        restaurantRemoved(idOf(change.getDocumentKey().get(ID_FIELD)));
+        break;
+      default:
+        break;
+    }
+  }
+
+  private void applyMenuChange(ChangeStreamDocument<Document> change) {
+    switch (change.getOperationType()) {
+      case INSERT:
+      case UPDATE:
+      case REPLACE:
+        if (change.getFullDocument() != null) {
+          menuChanged(mongoTemplate.getConverter()
+              .read(MenuEntity.class, change.getFullDocument()));
+        }
+        break;
+      case DELETE:
+        menuRemoved(idOf(change.getDocumentKey().get(ID_FIELD)));
+        break;
+      default:
+        break;
+    }
+  }
+
+  /**
+   * Loads the current state of both collections without notifying anyone; listeners build
+   * their own initial state.
+   */
+  void seed() {
+    for (RestaurantEntity restaurantEntity : mongoTemplate.findAll(RestaurantEntity.class)) {
+      restaurantsById.put(restaurantEntity.getId(), restaurantEntity);
+      restaurantsByRestaurantId.put(restaurantEntity.getRestaurantId(), restaurantEntity);
+      restaurantsWatermark = latest(restaurantsWatermark, restaurantEntity.getUpdatedAt());
+    }
+    for (MenuEntity menuEntity : mongoTemplate.findAll(MenuEntity.class)) {
+      restaurantIdsByMenuId.put(menuEntity.getId(), menuEntity.getRestaurantId());
+      menusWatermark = latest(menusWatermark, menuEntity.getUpdatedAt());
+    }
+    seeded = true;
+    lastSyncMillis = System.currentTimeMillis();
+  }
+
+  private void pollSafely() {
+    try {
+      long pollStartMillis = System.currentTimeMillis();
+      boolean scanIds = ++pollsSinceIdScan >= idScanEveryPolls;
+      pollOnce(scanIds);
+      if (scanIds) {
+        pollsSinceIdScan = 0;
+      }
+      lastSyncMillis = pollStartMillis;
+    } catch (RuntimeException e) {
+      log.warn("Polling restaurant changes failed, will retry", e);
+    }
+  }
+
+  void pollOnce(boolean scanIds) {
+    Query updatedRestaurants =
+        new Query(Criteria.where(UPDATED_AT_FIELD).gt(restaurantsWatermark));
+    for (RestaurantEntity restaurantEntity
+        : mongoTemplate.find(updatedRestaurants, RestaurantEntity.class)) {
+      restaurantChanged(restaurantEntity);
+    }
+    Query updatedMenus = new Query(Criteria.where(UPDATED_AT_FIELD).gt(menusWatermark));
+    for (MenuEntity menuEntity : mongoTemplate.find(updatedMenus, MenuEntity.class)) {
+      menuChanged(menuEntity);
+    }
+    if (scanIds) {
+      diffIds();
+    }
+  }
+
+  private void diffIds() {
+    Set<String> restaurantIds = findIds(RESTAURANTS_COLLECTION);
+    List<String> unseenRestaurantIds = new ArrayList<>();
+    for (String id : restaurantIds) {
+      if (!restaurantsById.containsKey(id)) {
+        unseenRestaurantIds.add(id);
+      }
+    }
+    if (!unseenRestaurantIds.isEmpty()) {
+      Query query = new Query(Criteria.where(ID_FIELD).in(unseenRestaurantIds));
+      for (RestaurantEntity restaurantEntity : mongoTemplate.find(query, RestaurantEntity.class)) {
+        restaurantChanged(restaurantEntity);
+      }
+    }
+    for (String id : new ArrayList<>(restaurantsById.keySet())) {
+      if (!restaurantIds.contains(id)) {
+        restaurantRemoved(id);
+      }
+    }
+
+    Set<String> menuIds = findIds(MENUS_COLLECTION);
+    List<String> unseenMenuIds = new ArrayList<>();
+    for (String id : menuIds) {
+      if (!restaurantIdsByMenuId.containsKey(id)) {
+        unseenMenuIds.add(id);
+      }
+    }
+    if (!unseenMenuIds.isEmpty()) {
+      Query query = new Query(Criteria.where(ID_FIELD).in(unseenMenuIds));
+      for (MenuEntity menuEntity : mongoTemplate.find(query, MenuEntity.class)) {
+        menuChanged(menuEntity);
+      }
+    }
+    for (String id : new ArrayList<>(restaurantIdsByMenuId.keySet())) {
+      if (!menuIds.contains(id)) {
+        menuRemoved(id);
+      }
+    }
+  }
+
+  private Set<String> findIds(String collection) {
+    Query query = new Query();
+    query.fields().include(ID_FIELD);
+    Set<String> ids = new HashSet<>();
+    for (Document document : mongoTemplate.find(query, Document.class, collection)) {
+      ids.add(idOf(document.get(ID_FIELD)));
+    }
+    return ids;
+  }
+
+  private void restaurantChanged(RestaurantEntity current) {
+    restaurantsWatermark = latest(restaurantsWatermark, current.getUpdatedAt());
+    RestaurantEntity previous = restaurantsById.put(current.getId(), current);
+    if (previous != null) {
+      restaurantsByRestaurantId.remove(previous.getRestaurantId(), previous);
+    }
+    restaurantsByRestaurantId.put(current.getRestaurantId(), current);
+    for (RestaurantChangeListener listener : listeners) {
+      try {
+        listener.onRestaurantChanged(previous, current);
+      } catch (RuntimeException e) {
+        log.warn("{} failed on restaurant {}", listener.getClass().getSimpleName(),
+            current.getRestaurantId(), e);
+      }
+    }
+  }
+
+  private void restaurantRemoved(String id) {
+    RestaurantEntity previous = restaurantsById.remove(id);
+    if (previous == null) {
+      return;
+    }
+    restaurantsByRestaurantId.remove(previous.getRestaurantId(), previous);
+    for (RestaurantChangeListener listener : listeners) {
+      try {
+        listener.onRestaurantRemoved(previous);
+      } catch (RuntimeException e) {
+        log.warn("{} failed on removed restaurant {}", listener.getClass().getSimpleName(),
+            previous.getRestaurantId(), e);
+      }
+    }
+  }
+
+  private void menuChanged(MenuEntity current) {
+    menusWatermark = latest(menusWatermark, current.getUpdatedAt());
+    restaurantIdsByMenuId.put(current.getId(), current.getRestaurantId());
+    RestaurantEntity restaurant = current.getRestaurantId() == null
+        ? null : restaurantsByRestaurantId.get(current.getRestaurantId());
+    for (RestaurantChangeListener listener : listeners) {
+      try {
+        listener.onMenuChanged(current, restaurant);
+      } catch (RuntimeException e) {
+        log.warn("{} failed on menu of restaurant {}", listener.getClass().getSimpleName(),
+            current.getRestaurantId(), e);
+      }
+    }
+  }
+
+  private void menuRemoved(String id) {
+    String restaurantId = restaurantIdsByMenuId.remove(id);
+    if (restaurantId == null) {
+      return;
+    }
+    RestaurantEntity restaurant = restaurantsByRestaurantId.get(restaurantId);
+    for (RestaurantChangeListener listener : listeners) {
+      try {
+        listener.onMenuRemoved(restaurantId, restaurant);
+      } catch (RuntimeException e) {
+        log.warn("{} failed on removed menu of restaurant {}",
+            listener.getClass().getSimpleName(), restaurantId, e);
+      }
+    }
+  }
+
+  private static Date latest(Date watermark, Date updatedAt) {
+    return updatedAt != null && updatedAt.after(watermark) ? updatedAt : watermark;
+  }
+
+  private static String idOf(Object id) {
+    if (id instanceof BsonValue) {
+      BsonValue bsonValue = (BsonValue) id;
+      if (bsonValue.isObjectId()) {
+        return bsonValue.asObjectId().getValue().toHexString();
+      }
+      return bsonValue.isString() ? bsonValue.asString().getValue() : bsonValue.toString();
+    }
+    if (id instanceof ObjectId) {
+      return ((ObjectId) id).toHexString();
+    }
+    return String.valueOf(id);
+  }
+
+}
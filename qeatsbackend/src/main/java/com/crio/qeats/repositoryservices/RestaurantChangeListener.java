@@ -0,0 +1,50 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.repositoryservices;
+
+import com.crio.qeats.models.MenuEntity;
+import com.crio.qeats.models.RestaurantEntity;
+
+/**
+ * Receives the writes observed on the restaurants and menus collections by the
+ * {@link RestaurantChangeFeed}. Anything that keeps a copy of that data in memory or in redis
+ * implements this and is picked up as a bean.
+ * Callbacks run on the change feed thread, one at a time, in the order the writes were seen.
+ */
+public interface RestaurantChangeListener {
+
+  /**
+   * A restaurant was inserted, updated or replaced.
+   * @param previous the last version seen by the feed, null for a new restaurant
+   * @param current the version now stored in mongo
+   */
+  default void onRestaurantChanged(RestaurantEntity previous, RestaurantEntity current) {
+  }
+
+  /**
+   * A restaurant was deleted.
+   * @param previous the last version seen by the feed
+   */
+  default void onRestaurantRemoved(RestaurantEntity previous) {
+  }
+
+  /**
+   * A menu was inserted, updated or replaced.
+   * @param current the version now stored in mongo
+   * @param restaurant the last version seen of its restaurant, null if the feed has none
+   */
+  default void onMenuChanged(MenuEntity current, RestaurantEntity restaurant) {
+  }
+
+  /**
+   * The menu of the given restaurant was deleted.
+   * @param restaurant the last version seen of the restaurant, null if the feed has none
+   */
+  default void onMenuRemoved(String restaurantId, RestaurantEntity restaurant) {
+  }
+
+}
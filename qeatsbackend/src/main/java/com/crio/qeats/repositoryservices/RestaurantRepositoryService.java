@@ -8,6 +8,7 @@ package com.crio.qeats.repositoryservices;
 
 import com.crio.qeats.dto.Restaurant;
 import java.time.LocalTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.concurrent.Future;
 import org.springframework.scheduling.annotation.Async;
@@ -65,5 +66,26 @@ public interface RestaurantRepositoryService {
   List<Restaurant> findRestaurantsByItemAttributes(Double latitude, Double longitude,
       String searchString, LocalTime currentTime, Double servingRadiusInKms);
 
+  /**
+   * Get the list of open restaurants within the specified serving radius whose name,
+   * attributes, item names or item attributes contain every word of the search string,
+   * allowing for a few typos per word.
+   *   - Fewest typos first, then in the precedence of the searches above.
+   *   - Meant for when the exact and partial searches find too few restaurants.
+   * @param searchString Query string, possibly misspelt
+   * @return list of restaurants
+   */
+  List<Restaurant> findRestaurantsByFuzzyMatch(Double latitude, Double longitude,
+      String searchString, LocalTime currentTime, Double servingRadiusInKms);
+
+  /**
+   * Get the restaurants with the given restaurantIds, in the order of the ids.
+   *   - Unknown ids are skipped, duplicates are returned once.
+   *   - Large id lists are split into several $in queries that run concurrently.
+   * @param restaurantIds ids of the restaurants to fetch
+   * @return list of restaurants
+   */
+  List<Restaurant> findRestaurantsByIds(Collection<String> restaurantIds);
+
 }
 
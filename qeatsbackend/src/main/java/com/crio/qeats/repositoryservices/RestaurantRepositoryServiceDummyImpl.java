@@ -8,9 +8,12 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import java.io.IOException;
 import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Locale;
 import java.util.concurrent.Future;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
@@ -75,6 +78,32 @@ public class RestaurantRepositoryServiceDummyImpl implements RestaurantRepositor
     return null;
   }
 
+  @Override
+  public List<Restaurant> findRestaurantsByFuzzyMatch(Double latitude, Double longitude,
+      String searchString, LocalTime currentTime, Double servingRadiusInKms) {
+    String searchFor = searchString.toLowerCase(Locale.ROOT);
+    return loadRestaurantsOrNone().stream()
+        .filter(restaurant -> restaurant.getName().toLowerCase(Locale.ROOT).contains(searchFor)
+            || restaurant.getAttributes() != null && restaurant.getAttributes().stream()
+                .anyMatch(attribute -> attribute.toLowerCase(Locale.ROOT).contains(searchFor)))
+        .collect(Collectors.toList());
+  }
+
+  @Override
+  public List<Restaurant> findRestaurantsByIds(Collection<String> restaurantIds) {
+    return loadRestaurantsOrNone().stream()
+        .filter(restaurant -> restaurantIds.contains(restaurant.getRestaurantId()))
+        .collect(Collectors.toList());
+  }
+
+  private List<Restaurant> loadRestaurantsOrNone() {
+    try {
+      return loadRestaurantsDuringNormalHours();
+    } catch (IOException e) {
+      e.printStackTrace();
+      return new ArrayList<>();
+    }
+  }
 
 
 }
@@ -7,65 +7,142 @@
 package com.crio.qeats.repositoryservices;
 
 import ch.hsr.geohash.GeoHash;
-import com.crio.qeats.configs.RedisConfiguration;
+import com.crio.qeats.admission.AdaptiveConcurrencyLimiter;
+import com.crio.qeats.configs.RedisRing;
 import com.crio.qeats.dto.Restaurant;
+import com.crio.qeats.dto.RestaurantView;
 import com.crio.qeats.globals.GlobalConstants;
+import com.crio.qeats.metrics.RestaurantMetrics;
 import com.crio.qeats.models.ItemEntity;
 import com.crio.qeats.models.MenuEntity;
 import com.crio.qeats.models.RestaurantEntity;
 import com.crio.qeats.repositories.ItemRepository;
 import com.crio.qeats.repositories.MenuRepository;
 import com.crio.qeats.repositories.RestaurantRepository;
+import com.crio.qeats.utils.AsciiSanitizer;
+import com.crio.qeats.utils.DedupUtils;
 import com.crio.qeats.utils.GeoLocation;
 import com.crio.qeats.utils.GeoUtils;
+import com.crio.qeats.utils.StaleList;
 import com.fasterxml.jackson.core.JsonParseException;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.Lists;
 
 import java.io.IOError;
 import java.io.IOException;
 import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
+import javax.annotation.PreDestroy;
 import javax.inject.Provider;
+import lombok.extern.log4j.Log4j2;
 import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.scheduling.annotation.AsyncResult;
 import org.springframework.stereotype.Service;
 import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
 import redis.clients.jedis.exceptions.JedisConnectionException;
 import redis.clients.jedis.exceptions.JedisDataException;
 import redis.clients.jedis.exceptions.JedisException;
 
 @Service
+@Log4j2
 public class RestaurantRepositoryServiceImpl implements RestaurantRepositoryService {
 
+  // Upper bound on the restaurantIds sent in a single $in query.
+  private static final int RESTAURANT_IDS_PER_QUERY = 500;
+
   @Autowired
   private MongoTemplate mongoTemplate;
 
   @Autowired
-  private RedisConfiguration redisConfiguration;
+  private RedisRing redisRing;
 
   @Autowired
   private RestaurantRepository restaurantRepository;
 
+  @Autowired
+  private MenuRepository menuRepository;
+
+  @Autowired
+  private ItemRepository itemRepository;
+
   @Autowired
   private Provider<ModelMapper> modelMapperProvider;
 
-  private boolean isOpenNow(LocalTime time, RestaurantEntity res) {
+  @Autowired
+  private RestaurantMetrics restaurantMetrics;
+
+  @Autowired
+  private AdaptiveConcurrencyLimiter concurrencyLimiter;
+
+  @Autowired
+  private FuzzySearchIndex fuzzySearchIndex;
+
+  @Autowired
+  private RestaurantCatalog restaurantCatalog;
+
+  // Runs the chunks of a bulk id lookup in parallel.
+  private final ExecutorService restaurantLookupExecutor = Executors.newFixedThreadPool(4,
+      runnable -> {
+        Thread thread = new Thread(runnable, "restaurant-lookup");
+        thread.setDaemon(true);
+        return thread;
+      });
+
+  // A cell older than the soft TTL is served stale while it is refreshed in the background,
+  // and keeps being served if Mongo fails the refresh, until redis expires it at the hard TTL.
+  @Value("${qeats.close-by-cache.soft-ttl-seconds:300}")
+  private int softTtlSeconds = 300;
+
+  @Value("${qeats.close-by-cache.hard-ttl-seconds:"
+      + GlobalConstants.REDIS_ENTRY_EXPIRY_IN_SECONDS + "}")
+  private int hardTtlSeconds = GlobalConstants.REDIS_ENTRY_EXPIRY_IN_SECONDS;
+
+  // Refreshes stale cells, each by one of them at a time.
+  private final ExecutorService cellRefreshExecutor = new ThreadPoolExecutor(2, 2, 0L,
+      TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(100), runnable -> {
+        Thread thread = new Thread(runnable, "cell-refresh");
+        thread.setDaemon(true);
+        return thread;
+      });
+  private final Set<String> refreshingCells = ConcurrentHashMap.newKeySet();
+
+  @PreDestroy
+  public void shutdownExecutor() {
+    restaurantLookupExecutor.shutdownNow();
+    cellRefreshExecutor.shutdownNow();
+  }
+
+  private static boolean isOpenNow(LocalTime time, RestaurantEntity res) {
     LocalTime openingTime = LocalTime.parse(res.getOpensAt());
     LocalTime closingTime = LocalTime.parse(res.getClosesAt());
 
@@ -77,7 +154,10 @@ public class RestaurantRepositoryServiceImpl implements RestaurantRepositoryServ
       Double longitude, LocalTime currentTime, Double servingRadiusInKms) {
 
     List<Restaurant> restaurantList = null;
-    if (redisConfiguration.isCacheAvailable()) {
+    long start = restaurantMetrics.start();
+    boolean cacheAvailable = redisRing.isAvailable();
+    restaurantMetrics.record(RestaurantMetrics.CACHE_PROBE, start);
+    if (cacheAvailable) {
       restaurantList = findAllRestaurantsCloseFromCache(
           latitude, longitude, currentTime, servingRadiusInKms);
     } else {
@@ -97,34 +177,32 @@ public class RestaurantRepositoryServiceImpl implements RestaurantRepositoryServ
   public List<Restaurant> findAllRestaurantsCloseFromDb(Double latitude,
       Double longitude, LocalTime currentTime, Double servingRadiusInKms) {
 
-    ModelMapper modelMapper = modelMapperProvider.get();
-
-    List<RestaurantEntity> restaurantEntityList = restaurantRepository.findAll();
-    List<Restaurant> restaurantList = new ArrayList<>();
-
-    for (RestaurantEntity restaurantEntity : restaurantEntityList) {
-      if (isOpenNow(currentTime, restaurantEntity)) {
-        if (isRestaurantCloseByAndOpen(restaurantEntity, currentTime,
-            latitude, longitude, servingRadiusInKms)) {
-
-          // System.out.println(restaurantEntity.getRestaurantId());
-          restaurantList.add(modelMapper.map(restaurantEntity, Restaurant.class));
-          // System.out.println(restaurantList);
-        }
+    // Cache hits never get here, so only the requests that go to Mongo take a permit.
+    long admitted = concurrencyLimiter.acquire();
+    try {
+      // Filter on the projected candidates, then read the full documents of the survivors.
+      // Only the catalog shards around the user are read once it is loaded.
+      long start = restaurantMetrics.start();
+      List<RestaurantEntity> restaurantEntityList;
+      if (restaurantCatalog.isLoaded()) {
+        restaurantEntityList = restaurantCatalog.findCandidatesWithin(latitude, longitude,
+            servingRadiusInKms);
+        restaurantMetrics.record(RestaurantMetrics.CATALOG_LOOKUP, start);
+      } else {
+        restaurantEntityList = restaurantRepository.findAllRestaurantCandidates();
+        restaurantMetrics.record(RestaurantMetrics.MONGO_QUERY, start);
       }
 
+      return findRestaurantsCloseByAndOpen(restaurantEntityList, currentTime,
+          latitude, longitude, servingRadiusInKms);
+    } finally {
+      concurrencyLimiter.release(admitted);
     }
-    // System.out.println(restaurantList);
-    //CHECKSTYLE:OFF
-    //CHECKSTYLE:ON
-    // System.out.println(restaurantList.size());
-    return restaurantList;
   }
 
   public List<Restaurant> findAllRestaurantsCloseFromCache(Double latitude, 
       Double longitude, LocalTime currentTime, Double servingRadiusInKms) {
 
-    redisConfiguration.setRedisPort(6379);
     List<Restaurant> restaurantList = new ArrayList<>();
     ObjectMapper objectMapper = new ObjectMapper();
     ModelMapper modelMapper = modelMapperProvider.get();
@@ -135,23 +213,37 @@ public class RestaurantRepositoryServiceImpl implements RestaurantRepositoryServ
     // Remember, you must ensure that if cache is not present, the queries are
     // directed at the
     // database instead.
-    GeoHash geoHash = GeoHash.withCharacterPrecision(latitude, longitude, 7);
+    GeoHash geoHash = GeoHash.withCharacterPrecision(latitude, longitude,
+        GlobalConstants.GEOHASH_PRECISION);
     String geoHashKey = geoHash.toBase32();
 
-    try (Jedis jedis = redisConfiguration.getJedisPool().getResource()) {
+    // The cell and the cells around it are on one of the redis nodes.
+    try (Jedis jedis = redisRing.getResource(geoHashKey)) {
 
-      // get value for above GeoHash string
-      String geoHashValue = jedis.get(geoHashKey);
+      // get value for above GeoHash string, and how long it has left to live
+      long start = restaurantMetrics.start();
+      Pipeline pipeline = jedis.pipelined();
+      Response<String> cachedValue = pipeline.get(geoHashKey);
+      Response<Long> ttl = pipeline.ttl(geoHashKey);
+      pipeline.sync();
+      String geoHashValue = cachedValue.get();
+      restaurantMetrics.record(RestaurantMetrics.REDIS_GET, start);
 
       //List<RestaurantEntity> restaurantEntityList = new ArrayList<>();
       if (geoHashValue != null) {
         try {
+          start = restaurantMetrics.start();
           restaurantList = objectMapper.readValue(
               geoHashValue, new TypeReference<List<Restaurant>>() {
               });
+          restaurantMetrics.record(RestaurantMetrics.JSON_DECODE, start);
         } catch (IOException e) {
           e.printStackTrace();
         }
+        if (isPastSoftTtl(ttl.get(), cellTtlSeconds(geoHashKey))) {
+          refreshInBackground(geoHashKey, latitude, longitude, currentTime, servingRadiusInKms);
+          restaurantList = StaleList.of(restaurantList);
+        }
       } else {
         try {
           restaurantList = findAllRestaurantsCloseFromDb(
@@ -160,13 +252,58 @@ public class RestaurantRepositoryServiceImpl implements RestaurantRepositoryServ
         } catch (JsonProcessingException e) {
           e.printStackTrace();
         }
-        jedis.set(geoHashKey, geoHashValue);
+        jedis.setex(geoHashKey, cellTtlSeconds(geoHashKey), geoHashValue);
       }
       return restaurantList;
+    } catch (JedisConnectionException e) {
+      // The node failed, or no redis node can be reached.
+      redisRing.reportFailure(geoHashKey, e);
+      return findAllRestaurantsCloseFromDb(latitude, longitude, currentTime,
+          servingRadiusInKms);
+    }
+  }
+
+  // A node standing in for a failed one keeps its cells for the soft TTL only, they are
+  // never served stale.
+  private int cellTtlSeconds(String geoHashKey) {
+    return redisRing.isOnOwnNode(geoHashKey) ? hardTtlSeconds : softTtlSeconds;
+  }
+
+  // Cells without an expiry, e.g. written by hand, are never stale.
+  private boolean isPastSoftTtl(Long ttl, int cellTtlSeconds) {
+    return ttl != null && ttl >= 0 && cellTtlSeconds - ttl >= softTtlSeconds;
+  }
+
+  private void refreshInBackground(String geoHashKey, Double latitude, Double longitude,
+      LocalTime currentTime, Double servingRadiusInKms) {
+    if (!refreshingCells.add(geoHashKey)) {
+      return;
+    }
+    try {
+      cellRefreshExecutor.execute(() -> {
+        try {
+          List<Restaurant> restaurantList = findAllRestaurantsCloseFromDb(
+              latitude, longitude, currentTime, servingRadiusInKms);
+          String geoHashValue = new ObjectMapper().writeValueAsString(restaurantList);
+          try (Jedis jedis = redisRing.getResource(geoHashKey)) {
+            jedis.setex(geoHashKey, cellTtlSeconds(geoHashKey), geoHashValue);
+          } catch (JedisConnectionException e) {
+            redisRing.reportFailure(geoHashKey, e);
+            throw e;
+          }
+        } catch (RuntimeException | JsonProcessingException e) {
+          log.warn("Could not refresh cell {}, serving it stale: {}", geoHashKey,
+              e.getMessage());
+        } finally {
+          refreshingCells.remove(geoHashKey);
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      // Too many refreshes queued, a later request tries again.
+      refreshingCells.remove(geoHashKey);
     }
-    
-    
   }
+
   //catch (JedisConnectionException e) {
   //   restaurantList = findAllRestaurantsCloseByMongo(
   //       latitude, longitude, currentTime, servingRadiusInKms);
@@ -195,8 +332,7 @@ public class RestaurantRepositoryServiceImpl implements RestaurantRepositoryServ
   public List<Restaurant> findRestaurantsByName(Double latitude, Double longitude,
       String searchString, LocalTime currentTime, Double servingRadiusInKms) {
 
-    ModelMapper modelMapper = modelMapperProvider.get();
-    
+    long start = restaurantMetrics.start();
     Optional<List<RestaurantEntity>> restaurantEntityListExactOptional = 
         restaurantRepository.findRestaurantsByNameExact(searchString);
 
@@ -207,35 +343,15 @@ public class RestaurantRepositoryServiceImpl implements RestaurantRepositoryServ
     
     List<RestaurantEntity> restaurantEntityListPartial = 
         restaurantRepository.findRestaurantsByNamePartial(searchString);
+    restaurantMetrics.record(RestaurantMetrics.MONGO_QUERY, start);
 
-    //create set to store unique values in insertion order 
-    Set<RestaurantEntity> set = new LinkedHashSet<>();
-    //add the elements of restaurantEntityListExact to the set 
-    for (RestaurantEntity restaurantEntity : restaurantEntityListExact) {
-      set.add(restaurantEntity);
-    }
-
-    //add the elements of restaurantEntityListPartial to the set 
-    for (RestaurantEntity restaurantEntity : restaurantEntityListPartial) {
-      set.add(restaurantEntity);
-    }
-
-    //create an aggregated list of RestaurantEntity from the set 
-    List<RestaurantEntity> restaurantEntityList = new ArrayList<>(set);
-
-    //create a new Restaurant list to return 
-    List<Restaurant> restaurantList = new ArrayList<>();
-
-    //check if the restaurantEntityList are close by & open, if so add them to restaurantList
-    for (RestaurantEntity restaurantEntity : restaurantEntityList) {
-      if (isRestaurantCloseByAndOpen(restaurantEntity, currentTime,
-          latitude, longitude, servingRadiusInKms)) {
-
-        restaurantList.add(modelMapper.map(restaurantEntity, Restaurant.class));
-      }
+    // Exact matches first, each restaurant once.
+    List<RestaurantEntity> restaurantEntityList = DedupUtils.mergeById(
+        Arrays.asList(restaurantEntityListExact, restaurantEntityListPartial),
+        RestaurantEntity::getRestaurantId);
 
-    }
-    return restaurantList;
+    return findRestaurantsCloseByAndOpen(restaurantEntityList, currentTime,
+        latitude, longitude, servingRadiusInKms);
   }
 
 
@@ -247,23 +363,13 @@ public class RestaurantRepositoryServiceImpl implements RestaurantRepositoryServ
       Double latitude, Double longitude,
       String searchString, LocalTime currentTime, Double servingRadiusInKms) {
 
-    ModelMapper modelMapper = modelMapperProvider.get();
+    long start = restaurantMetrics.start();
     List<RestaurantEntity> restaurantEntityList = 
           restaurantRepository.findRestaurantsByAttributes(searchString);
+    restaurantMetrics.record(RestaurantMetrics.MONGO_QUERY, start);
 
-    //create Restaurant list to return 
-    List<Restaurant> restaurantList = new ArrayList<>();
-
-    //check if the restaurantEntityList are close by & open, if so add them to restaurantList
-    for (RestaurantEntity restaurantEntity : restaurantEntityList) {
-      if (isRestaurantCloseByAndOpen(restaurantEntity, currentTime,
-          latitude, longitude, servingRadiusInKms)) {
-
-        restaurantList.add(modelMapper.map(restaurantEntity, Restaurant.class));
-      }
-
-    }
-    return restaurantList;
+    return findRestaurantsCloseByAndOpen(restaurantEntityList, currentTime,
+        latitude, longitude, servingRadiusInKms);
   }
 
 
@@ -277,12 +383,25 @@ public class RestaurantRepositoryServiceImpl implements RestaurantRepositoryServ
   public List<Restaurant> findRestaurantsByItemName(
       Double latitude, Double longitude,
       String searchString, LocalTime currentTime, Double servingRadiusInKms) {
-    
-    // List<ItemEntity> itemEntityList = 
-    //     ItemRepository.findByName(searchString);
 
-    return null;
+    Set<String> exactItemIds = new LinkedHashSet<>();
+    for (ItemEntity itemEntity : itemRepository.findItemsByNameExact(searchString)) {
+      exactItemIds.add(itemEntity.getItemId());
+    }
+
+    Set<String> partialItemIds = new LinkedHashSet<>();
+    for (ItemEntity itemEntity : itemRepository.findItemsByNameInexact(searchString)) {
+      if (!exactItemIds.contains(itemEntity.getItemId())) {
+        partialItemIds.add(itemEntity.getItemId());
+      }
+    }
 
+    // exact matches first, partial matches second
+    Set<String> restaurantIds = findRestaurantIdsServingItems(exactItemIds);
+    restaurantIds.addAll(findRestaurantIdsServingItems(partialItemIds));
+
+    return findRestaurantsByIdsCloseByAndOpen(restaurantIds, latitude, longitude, currentTime,
+        servingRadiusInKms);
   }
 
   // TODO: CRIO_TASK_MODULE_RESTAURANTSEARCH
@@ -292,7 +411,143 @@ public class RestaurantRepositoryServiceImpl implements RestaurantRepositoryServ
   public List<Restaurant> findRestaurantsByItemAttributes(Double latitude, Double longitude,
       String searchString, LocalTime currentTime, Double servingRadiusInKms) {
 
-    return null;
+    Set<String> itemIds = new LinkedHashSet<>();
+    for (ItemEntity itemEntity : itemRepository.findItemsByAttributes(searchString)) {
+      itemIds.add(itemEntity.getItemId());
+    }
+
+    return findRestaurantsByIdsCloseByAndOpen(findRestaurantIdsServingItems(itemIds),
+        latitude, longitude, currentTime, servingRadiusInKms);
+  }
+
+  // Served from the in-memory FuzzySearchIndex, Mongo is only read for the restaurants that
+  // are open and close by.
+  @Override
+  public List<Restaurant> findRestaurantsByFuzzyMatch(Double latitude, Double longitude,
+      String searchString, LocalTime currentTime, Double servingRadiusInKms) {
+    long start = restaurantMetrics.start();
+    List<RestaurantEntity> restaurantEntityList = fuzzySearchIndex.findCandidates(searchString,
+        latitude, longitude, servingRadiusInKms);
+    restaurantMetrics.record(RestaurantMetrics.FUZZY_MATCH, start);
+
+    return findRestaurantsCloseByAndOpen(restaurantEntityList, currentTime,
+        latitude, longitude, servingRadiusInKms);
+  }
+
+  @Override
+  public List<Restaurant> findRestaurantsByIds(Collection<String> restaurantIds) {
+    long start = restaurantMetrics.start();
+    List<RestaurantEntity> restaurantEntityList = findRestaurantEntitiesByIds(restaurantIds);
+    restaurantMetrics.record(RestaurantMetrics.MONGO_FETCH, start);
+
+    start = restaurantMetrics.start();
+    ModelMapper modelMapper = modelMapperProvider.get();
+    List<Restaurant> restaurantList = new ArrayList<>();
+    for (RestaurantEntity restaurantEntity : restaurantEntityList) {
+      restaurantList.add(toRestaurant(modelMapper, restaurantEntity));
+    }
+    restaurantMetrics.record(RestaurantMetrics.MAPPING, start);
+    return restaurantList;
+  }
+
+  /**
+   * Every Restaurant handed out, and cached, is built here, so names are made ASCII once
+   * instead of on each response. The result is read-only and safe to share.
+   */
+  static Restaurant toRestaurant(ModelMapper modelMapper,
+      RestaurantEntity restaurantEntity) {
+    Restaurant restaurant = modelMapper.map(restaurantEntity, Restaurant.class);
+    restaurant.setName(AsciiSanitizer.toAscii(restaurant.getName()));
+    return RestaurantView.of(restaurant);
+  }
+
+  /**
+   * Resolves the menus holding any of the items to their restaurantIds with one query.
+   */
+  private Set<String> findRestaurantIdsServingItems(Collection<String> itemIds) {
+    Set<String> restaurantIds = new LinkedHashSet<>();
+    if (itemIds.isEmpty()) {
+      return restaurantIds;
+    }
+    for (MenuEntity menuEntity : menuRepository.findRestaurantIdsByItemsItemIdIn(itemIds)) {
+      restaurantIds.add(menuEntity.getRestaurantId());
+    }
+    return restaurantIds;
+  }
+
+  private List<Restaurant> findRestaurantsByIdsCloseByAndOpen(Collection<String> restaurantIds,
+      Double latitude, Double longitude, LocalTime currentTime, Double servingRadiusInKms) {
+    ModelMapper modelMapper = modelMapperProvider.get();
+    List<Restaurant> restaurantList = new ArrayList<>();
+    for (RestaurantEntity restaurantEntity : findRestaurantEntitiesByIds(restaurantIds)) {
+      if (isRestaurantCloseByAndOpen(restaurantEntity, currentTime,
+          latitude, longitude, servingRadiusInKms)) {
+        restaurantList.add(toRestaurant(modelMapper, restaurantEntity));
+      }
+    }
+    return restaurantList;
+  }
+
+  /**
+   * Keeps the projected candidates that are close by and open, and fetches their full
+   * documents.
+   */
+  private List<Restaurant> findRestaurantsCloseByAndOpen(List<RestaurantEntity> candidates,
+      LocalTime currentTime, Double latitude, Double longitude, Double servingRadiusInKms) {
+    long start = restaurantMetrics.start();
+    List<String> restaurantIds = new ArrayList<>();
+    for (RestaurantEntity restaurantEntity : candidates) {
+      if (isRestaurantCloseByAndOpen(restaurantEntity, currentTime,
+          latitude, longitude, servingRadiusInKms)) {
+        restaurantIds.add(restaurantEntity.getRestaurantId());
+      }
+    }
+    restaurantMetrics.record(RestaurantMetrics.GEO_FILTER, start);
+    restaurantMetrics.recordCandidates(candidates.size());
+    return findRestaurantsByIds(restaurantIds);
+  }
+
+  private List<RestaurantEntity> findRestaurantEntitiesByIds(Collection<String> restaurantIds) {
+    List<String> uniqueIds = new ArrayList<>(new LinkedHashSet<>(restaurantIds));
+    if (uniqueIds.isEmpty()) {
+      return new ArrayList<>();
+    }
+
+    List<List<String>> chunks = Lists.partition(uniqueIds, RESTAURANT_IDS_PER_QUERY);
+    Map<String, RestaurantEntity> restaurantEntityById = new HashMap<>();
+    if (chunks.size() == 1) {
+      for (RestaurantEntity restaurantEntity
+          : restaurantRepository.findRestaurantsByRestaurantIdIn(uniqueIds)) {
+        restaurantEntityById.put(restaurantEntity.getRestaurantId(), restaurantEntity);
+      }
+    } else {
+      List<Future<List<RestaurantEntity>>> futures = new ArrayList<>();
+      for (List<String> chunk : chunks) {
+        futures.add(restaurantLookupExecutor.submit(
+            () -> restaurantRepository.findRestaurantsByRestaurantIdIn(chunk)));
+      }
+      try {
+        for (Future<List<RestaurantEntity>> future : futures) {
+          for (RestaurantEntity restaurantEntity : future.get()) {
+            restaurantEntityById.put(restaurantEntity.getRestaurantId(), restaurantEntity);
+          }
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Interrupted while fetching restaurants", e);
+      } catch (ExecutionException e) {
+        throw new IllegalStateException("Failed to fetch restaurants", e.getCause());
+      }
+    }
+
+    List<RestaurantEntity> restaurantEntityList = new ArrayList<>();
+    for (String restaurantId : uniqueIds) {
+      RestaurantEntity restaurantEntity = restaurantEntityById.get(restaurantId);
+      if (restaurantEntity != null) {
+        restaurantEntityList.add(restaurantEntity);
+      }
+    }
+    return restaurantEntityList;
   }
 
 
@@ -303,7 +558,7 @@ public class RestaurantRepositoryServiceImpl implements RestaurantRepositoryServ
    * Utility method to check if a restaurant is within the serving radius at a given time.
    * @return boolean True if restaurant falls within serving radius and is open, false otherwise
    */
-  private boolean isRestaurantCloseByAndOpen(RestaurantEntity restaurantEntity,
+  static boolean isRestaurantCloseByAndOpen(RestaurantEntity restaurantEntity,
       LocalTime currentTime, Double latitude, Double longitude, Double servingRadiusInKms) {
     if (isOpenNow(currentTime, restaurantEntity)) {
       return GeoUtils.findDistanceInKm(latitude, longitude,
@@ -0,0 +1,79 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.services;
+
+import com.crio.qeats.dto.Cart;
+import com.crio.qeats.dto.Order;
+import com.crio.qeats.exceptions.CartNotFoundException;
+import com.crio.qeats.exceptions.EmptyCartException;
+import com.crio.qeats.exceptions.ItemNotFoundInRestaurantMenuException;
+import com.crio.qeats.exceptions.ItemNotFromSameRestaurantException;
+import com.crio.qeats.exceptions.OrderNotAcceptedException;
+import com.crio.qeats.exchanges.CartModifiedResponse;
+import com.crio.qeats.exchanges.GetOrdersRequest;
+import com.crio.qeats.exchanges.GetOrdersResponse;
+
+public interface CartAndOrderService {
+
+  /**
+   * Return the cart of the user, creating an empty one if the user has none.
+   * @param userId id of the user
+   * @return the cart of the user
+   */
+  Cart findOrCreateCart(String userId);
+
+  /**
+   * Add an item of the restaurant's menu to the cart. The price comes from the menu.
+   * @param itemId id of the item
+   * @param cartId id of the cart
+   * @param restaurantId restaurant the item is from
+   * @return CartModifiedResponse holding the updated cart
+   * @throws ItemNotFoundInRestaurantMenuException if the menu of the restaurant has no such item
+   * @throws ItemNotFromSameRestaurantException if the cart holds items of another restaurant
+   * @throws CartNotFoundException if there is no such cart
+   */
+  CartModifiedResponse addItemToCart(String itemId, String cartId, String restaurantId);
+
+  /**
+   * Remove one of the item from the cart.
+   * @param itemId id of the item
+   * @param cartId id of the cart
+   * @param restaurantId restaurant the item is from
+   * @return CartModifiedResponse holding the updated cart
+   * @throws CartNotFoundException if there is no such cart
+   */
+  CartModifiedResponse removeItemFromCart(String itemId, String cartId, String restaurantId);
+
+  /**
+   * Remove all items from the cart.
+   * @param cartId id of the cart
+   * @return CartModifiedResponse holding the emptied cart
+   * @throws CartNotFoundException if there is no such cart
+   */
+  CartModifiedResponse clearCart(String cartId);
+
+  /**
+   * Place an order for the items in the cart and empty it. The order is queued and persisted
+   * in the background, so this returns without waiting on mongo.
+   * @param cartId id of the cart
+   * @return the placed order
+   * @throws CartNotFoundException if there is no such cart
+   * @throws EmptyCartException if the cart has no items
+   * @throws OrderNotAcceptedException if the order could not be queued
+   */
+  Order postOrder(String cartId);
+
+  /**
+   * Return a page of the user's orders, newest first.
+   * @param getOrdersRequest valid request; limit defaults to DEFAULT_ORDERS_PER_PAGE and is
+   *     capped at MAX_ORDERS_PER_PAGE
+   * @return GetOrdersResponse holding the page and the cursor of the next one
+   * @throws IllegalArgumentException if the before cursor is malformed
+   */
+  GetOrdersResponse getOrders(GetOrdersRequest getOrdersRequest);
+
+}
@@ -0,0 +1,131 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.services;
+
+import com.crio.qeats.dto.Cart;
+import com.crio.qeats.dto.Item;
+import com.crio.qeats.dto.Menu;
+import com.crio.qeats.dto.Order;
+import com.crio.qeats.exceptions.ItemNotFoundInRestaurantMenuException;
+import com.crio.qeats.exceptions.OrderNotAcceptedException;
+import com.crio.qeats.exchanges.CartModifiedResponse;
+import com.crio.qeats.exchanges.GetOrdersRequest;
+import com.crio.qeats.exchanges.GetOrdersResponse;
+import com.crio.qeats.globals.GlobalConstants;
+import com.crio.qeats.messaging.OrderBroker;
+import com.crio.qeats.repositoryservices.CartRepositoryService;
+import com.crio.qeats.repositoryservices.MenuRepositoryService;
+import com.crio.qeats.repositoryservices.OrderRepositoryService;
+import java.util.Date;
+import java.util.List;
+import lombok.extern.log4j.Log4j2;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+@Service
+@Log4j2
+public class CartAndOrderServiceImpl implements CartAndOrderService {
+
+  @Autowired
+  private CartRepositoryService cartRepositoryService;
+
+  @Autowired
+  private MenuRepositoryService menuRepositoryService;
+
+  @Autowired
+  private OrderBroker orderBroker;
+
+  @Autowired
+  private OrderRepositoryService orderRepositoryService;
+
+  // Separates createdAt millis and order id in the orders page cursor.
+  private static final char CURSOR_SEPARATOR = ':';
+
+  @Override
+  public Cart findOrCreateCart(String userId) {
+    return cartRepositoryService.findOrCreateCart(userId);
+  }
+
+  @Override
+  public CartModifiedResponse addItemToCart(String itemId, String cartId, String restaurantId) {
+    // Menus are served from the in-process cache, so this normally costs no round trip.
+    Menu menu = menuRepositoryService.findMenu(restaurantId);
+    if (menu != null) {
+      for (Item item : menu.getItems()) {
+        if (item.getItemId().equals(itemId)) {
+          return new CartModifiedResponse(
+              cartRepositoryService.addItem(cartId, restaurantId, item),
+              CartModifiedResponse.SUCCESS);
+        }
+      }
+    }
+    throw new ItemNotFoundInRestaurantMenuException(
+        "Item " + itemId + " not found in the menu of restaurant " + restaurantId);
+  }
+
+  @Override
+  public CartModifiedResponse removeItemFromCart(String itemId, String cartId,
+      String restaurantId) {
+    return new CartModifiedResponse(cartRepositoryService.removeItem(cartId, itemId),
+        CartModifiedResponse.SUCCESS);
+  }
+
+  @Override
+  public CartModifiedResponse clearCart(String cartId) {
+    return new CartModifiedResponse(cartRepositoryService.clearCart(cartId),
+        CartModifiedResponse.SUCCESS);
+  }
+
+  @Override
+  public Order postOrder(String cartId) {
+    // Validates and empties the cart in one atomic step, so a cart can't be ordered twice.
+    Cart cart = cartRepositoryService.checkoutCart(cartId);
+    Order order = new Order(new ObjectId().toHexString(), cart.getRestaurantId(),
+        cart.getUserId(), cart.getItems(), cart.getTotal(), new Date());
+    if (!orderBroker.publish(GlobalConstants.ROUTING_KEY, order)) {
+      // The user gets the cart back to order again, unless they have started a new one.
+      boolean restored = cartRepositoryService.restoreCart(cart);
+      log.error("Order queue refused order {} of cart {}, cart restored: {}", order.getId(),
+          cartId, restored);
+      throw new OrderNotAcceptedException("Order of cart " + cartId + " could not be queued");
+    }
+    orderRepositoryService.evictRecentOrders(order.getUserId());
+    return order;
+  }
+
+  @Override
+  public GetOrdersResponse getOrders(GetOrdersRequest getOrdersRequest) {
+    int limit = getOrdersRequest.getLimit() == null ? GlobalConstants.DEFAULT_ORDERS_PER_PAGE
+        : Math.max(1, Math.min(getOrdersRequest.getLimit(), GlobalConstants.MAX_ORDERS_PER_PAGE));
+
+    Date beforeCreatedAt = null;
+    String beforeId = null;
+    String before = getOrdersRequest.getBefore();
+    if (before != null && !before.isEmpty()) {
+      int separator = before.indexOf(CURSOR_SEPARATOR);
+      if (separator <= 0 || separator == before.length() - 1) {
+        throw new IllegalArgumentException("Malformed cursor " + before);
+      }
+      beforeCreatedAt = new Date(Long.parseLong(before.substring(0, separator)));
+      beforeId = before.substring(separator + 1);
+    }
+
+    // One extra order tells whether there is a next page.
+    List<Order> orders = orderRepositoryService.findOrders(getOrdersRequest.getUserId(),
+        beforeCreatedAt, beforeId, limit + 1);
+    String nextCursor = null;
+    if (orders.size() > limit) {
+      orders = orders.subList(0, limit);
+      Order last = orders.get(limit - 1);
+      nextCursor = last.getCreatedAt().getTime() + String.valueOf(CURSOR_SEPARATOR)
+          + last.getId();
+    }
+    return new GetOrdersResponse(orders, nextCursor);
+  }
+
+}
@@ -0,0 +1,29 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.services;
+
+import com.crio.qeats.exchanges.GetMenuResponse;
+import com.crio.qeats.exchanges.GetMenusRequest;
+import com.crio.qeats.exchanges.GetMenusResponse;
+
+public interface MenuService {
+
+  /**
+   * Return the menu of the given restaurant.
+   * @param restaurantId id of the restaurant
+   * @return GetMenuResponse holding the menu, whose menu is null if the restaurant has none
+   */
+  GetMenuResponse findMenu(String restaurantId);
+
+  /**
+   * Return the menus of all the given restaurants.
+   * @param getMenusRequest valid request holding the restaurant ids
+   * @return GetMenusResponse mapping restaurantId to menu, for the restaurants that have one
+   */
+  GetMenusResponse findMenus(GetMenusRequest getMenusRequest);
+
+}
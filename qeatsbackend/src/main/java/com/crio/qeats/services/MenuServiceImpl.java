@@ -0,0 +1,33 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.services;
+
+import com.crio.qeats.exchanges.GetMenuResponse;
+import com.crio.qeats.exchanges.GetMenusRequest;
+import com.crio.qeats.exchanges.GetMenusResponse;
+import com.crio.qeats.repositoryservices.MenuRepositoryService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+@Service
+public class MenuServiceImpl implements MenuService {
+
+  @Autowired
+  private MenuRepositoryService menuRepositoryService;
+
+  @Override
+  public GetMenuResponse findMenu(String restaurantId) {
+    return new GetMenuResponse(menuRepositoryService.findMenu(restaurantId));
+  }
+
+  @Override
+  public GetMenusResponse findMenus(GetMenusRequest getMenusRequest) {
+    return new GetMenusResponse(
+        menuRepositoryService.findMenus(getMenusRequest.getRestaurantIds()));
+  }
+
+}
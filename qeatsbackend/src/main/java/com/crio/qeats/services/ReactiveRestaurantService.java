@@ -0,0 +1,33 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.services;
+
+import com.crio.qeats.dto.Restaurant;
+import com.crio.qeats.exchanges.GetRestaurantsRequest;
+import java.time.LocalTime;
+import reactor.core.publisher.Flux;
+
+/**
+ * The {@link RestaurantService} contract without blocking: the restaurants are emitted as the
+ * drivers return them, and no thread waits on mongo or redis in between.
+ */
+public interface ReactiveRestaurantService {
+
+  /**
+   * Same results as {@link RestaurantService#findAllRestaurantsCloseBy}.
+   */
+  Flux<Restaurant> findAllRestaurantsCloseBy(GetRestaurantsRequest getRestaurantsRequest,
+      LocalTime currentTime);
+
+  /**
+   * Same results, in the same order, as {@link RestaurantService#findRestaurantsBySearchQuery}.
+   * The four searches run concurrently.
+   */
+  Flux<Restaurant> findRestaurantsBySearchQuery(GetRestaurantsRequest getRestaurantsRequest,
+      LocalTime currentTime);
+
+}
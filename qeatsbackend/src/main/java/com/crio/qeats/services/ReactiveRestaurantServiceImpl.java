@@ -0,0 +1,85 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.services;
+
+import com.crio.qeats.dto.Restaurant;
+import com.crio.qeats.exchanges.GetRestaurantsRequest;
+import com.crio.qeats.metrics.RestaurantMetrics;
+import com.crio.qeats.repositoryservices.ReactiveRestaurantRepositoryService;
+import java.time.LocalTime;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+
+@Service
+@ConditionalOnProperty(name = "qeats.restaurants.reactive", havingValue = "true")
+public class ReactiveRestaurantServiceImpl implements ReactiveRestaurantService {
+
+  @Autowired
+  private ReactiveRestaurantRepositoryService reactiveRestaurantRepositoryService;
+
+  @Autowired
+  private ServingRadiusPolicy servingRadiusPolicy;
+
+  @Autowired
+  private RestaurantMetrics restaurantMetrics;
+
+  @Override
+  public Flux<Restaurant> findAllRestaurantsCloseBy(
+      GetRestaurantsRequest getRestaurantsRequest, LocalTime currentTime) {
+    Double latitude = getRestaurantsRequest.getLatitude();
+    Double longitude = getRestaurantsRequest.getLongitude();
+    Double servingRadius =
+        servingRadiusPolicy.getServingRadius(latitude, longitude, currentTime);
+
+    return recordResultCount(latitude, longitude, reactiveRestaurantRepositoryService
+        .findAllRestaurantsCloseBy(latitude, longitude, currentTime, servingRadius));
+  }
+
+  @Override
+  public Flux<Restaurant> findRestaurantsBySearchQuery(
+      GetRestaurantsRequest getRestaurantsRequest, LocalTime currentTime) {
+    String searchString = getRestaurantsRequest.getSearchFor();
+    if (searchString.isEmpty()) {
+      return Flux.empty();
+    }
+    Double latitude = getRestaurantsRequest.getLatitude();
+    Double longitude = getRestaurantsRequest.getLongitude();
+    Double servingRadius =
+        servingRadiusPolicy.getServingRadius(latitude, longitude, currentTime);
+
+    // All four are subscribed at once; mergeSequential still emits them in this order, and a
+    // restaurant found by several is kept where it was first found.
+    Flux<Restaurant> restaurants = Flux.mergeSequential(
+        reactiveRestaurantRepositoryService.findRestaurantsByName(
+            latitude, longitude, searchString, currentTime, servingRadius),
+        reactiveRestaurantRepositoryService.findRestaurantsByAttributes(
+            latitude, longitude, searchString, currentTime, servingRadius),
+        reactiveRestaurantRepositoryService.findRestaurantsByItemName(
+            latitude, longitude, searchString, currentTime, servingRadius),
+        reactiveRestaurantRepositoryService.findRestaurantsByItemAttributes(
+            latitude, longitude, searchString, currentTime, servingRadius))
+        .distinct(Restaurant::getRestaurantId);
+    return recordResultCount(latitude, longitude, restaurants);
+  }
+
+  private Flux<Restaurant> recordResultCount(Double latitude, Double longitude,
+      Flux<Restaurant> restaurants) {
+    return Flux.defer(() -> {
+      AtomicInteger resultCount = new AtomicInteger();
+      return restaurants
+          .doOnNext(restaurant -> resultCount.incrementAndGet())
+          .doOnComplete(() -> {
+            servingRadiusPolicy.recordResultCount(latitude, longitude, resultCount.get());
+            restaurantMetrics.recordResults(resultCount.get());
+          });
+    });
+  }
+
+}
@@ -0,0 +1,221 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.services;
+
+import com.crio.qeats.dto.Restaurant;
+import com.crio.qeats.repositoryservices.OrderRepositoryService;
+import com.crio.qeats.utils.DedupUtils;
+import com.crio.qeats.utils.GeoUtils;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Orders search results by match tier and, inside a tier, by relevance: how close the
+ * restaurant is within the serving radius, how long it stays open and how popular it is.
+ * Popularity is precomputed in the background from the orders of the last
+ * popularity-window-days, log scaled to [0, 1], so ranking reads it from a map.
+ * Only the best top-k results are ranked, with a heap of k entries, and the rest follow in tier
+ * order: O(n log k) instead of sorting everything for a page of results.
+ */
+@Component
+@Log4j2
+public class RestaurantRanker {
+
+  // Weights of the relevance inside a tier, adding up to 1.
+  private static final double CLOSENESS_WEIGHT = 0.4;
+  private static final double POPULARITY_WEIGHT = 0.4;
+  private static final double OPEN_TIME_WEIGHT = 0.2;
+  // Restaurants staying open longer than this are as good as each other.
+  private static final int OPEN_MINUTES_CAP = 120;
+
+  private static final Comparator<Scored> BEST_FIRST = Comparator
+      .comparingInt((Scored scored) -> scored.tier)
+      .thenComparing(Comparator.comparingDouble((Scored scored) -> scored.relevance).reversed())
+      .thenComparingInt(scored -> scored.position);
+
+  @Autowired
+  private OrderRepositoryService orderRepositoryService;
+
+  @Value("${qeats.search.ranking.enabled:true}")
+  private boolean enabled = true;
+
+  @Value("${qeats.search.ranking.top-k:50}")
+  private int topK = 50;
+
+  @Value("${qeats.search.ranking.popularity-window-days:30}")
+  private int popularityWindowDays = 30;
+
+  @Value("${qeats.search.ranking.popularity-refresh-minutes:10}")
+  private long popularityRefreshMinutes = 10;
+
+  private volatile Map<String, Double> popularityByRestaurantId = Collections.emptyMap();
+  private ScheduledExecutorService executor;
+
+  @PostConstruct
+  public void start() {
+    if (!enabled) {
+      return;
+    }
+    executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "restaurant-popularity");
+      thread.setDaemon(true);
+      return thread;
+    });
+    executor.scheduleWithFixedDelay(() -> {
+      try {
+        refreshPopularity();
+      } catch (RuntimeException e) {
+        log.warn("Could not refresh restaurant popularity, keeping the previous scores", e);
+      }
+    }, 0, popularityRefreshMinutes, TimeUnit.MINUTES);
+  }
+
+  @PreDestroy
+  public void stop() {
+    if (executor != null) {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Merge the tiers, each restaurant kept in the first tier it is found in, and rank them.
+   * @param tiers results in order of precedence, e.g. name matches before attribute matches
+   * @param tiersInMatchOrder indexes of the tiers whose order is kept as given, e.g. when it
+   *     already puts exact matches first
+   * @return the best top-k ranked, then the others in tier order; only merged when disabled
+   */
+  public List<Restaurant> rank(List<? extends List<Restaurant>> tiers,
+      Set<Integer> tiersInMatchOrder, double latitude, double longitude,
+      LocalTime currentTime, double servingRadiusInKms) {
+    List<Restaurant> merged = DedupUtils.mergeById(tiers, Restaurant::getRestaurantId);
+    if (!enabled || topK <= 0 || merged.size() <= 1) {
+      return merged;
+    }
+
+    Map<String, Double> popularity = popularityByRestaurantId;
+    // Worst of the best k on top, so it is the one replaced.
+    PriorityQueue<Scored> best = new PriorityQueue<>(topK + 1, BEST_FIRST.reversed());
+    Set<String> seen = new HashSet<>();
+    int position = 0;
+    for (int tier = 0; tier < tiers.size(); tier++) {
+      List<Restaurant> restaurants = tiers.get(tier);
+      if (restaurants == null) {
+        continue;
+      }
+      for (Restaurant restaurant : restaurants) {
+        if (!seen.add(restaurant.getRestaurantId())) {
+          continue;
+        }
+        // Tiers come in order, so once the heap is full of better tiers nothing else gets in.
+        if (best.size() == topK && best.peek().tier < tier) {
+          break;
+        }
+        Scored scored = new Scored(restaurant, tier, position++,
+            tiersInMatchOrder.contains(tier) ? 0 : relevance(restaurant, popularity,
+                latitude, longitude, currentTime, servingRadiusInKms));
+        if (best.size() < topK) {
+          best.add(scored);
+        } else if (BEST_FIRST.compare(scored, best.peek()) < 0) {
+          best.poll();
+          best.add(scored);
+        }
+      }
+    }
+
+    List<Scored> ranked = new ArrayList<>(best);
+    ranked.sort(BEST_FIRST);
+    List<Restaurant> restaurantList = new ArrayList<>(merged.size());
+    Set<String> rankedIds = new HashSet<>();
+    for (Scored scored : ranked) {
+      restaurantList.add(scored.restaurant);
+      rankedIds.add(scored.restaurant.getRestaurantId());
+    }
+    for (Restaurant restaurant : merged) {
+      if (!rankedIds.contains(restaurant.getRestaurantId())) {
+        restaurantList.add(restaurant);
+      }
+    }
+    return restaurantList;
+  }
+
+  void refreshPopularity() {
+    Date since = new Date(System.currentTimeMillis()
+        - TimeUnit.DAYS.toMillis(popularityWindowDays));
+    Map<String, Long> ordersByRestaurantId =
+        orderRepositoryService.countOrdersByRestaurant(since);
+
+    long maxOrders = 0;
+    for (long orders : ordersByRestaurantId.values()) {
+      maxOrders = Math.max(maxOrders, orders);
+    }
+    Map<String, Double> popularity = new HashMap<>();
+    for (Map.Entry<String, Long> entry : ordersByRestaurantId.entrySet()) {
+      popularity.put(entry.getKey(), Math.log1p(entry.getValue()) / Math.log1p(maxOrders));
+    }
+    popularityByRestaurantId = popularity;
+    log.info("Popularity refreshed for {} restaurants", popularity.size());
+  }
+
+  private static double relevance(Restaurant restaurant, Map<String, Double> popularity,
+      double latitude, double longitude, LocalTime currentTime, double servingRadiusInKms) {
+    double distance = GeoUtils.findDistanceInKm(latitude, longitude,
+        restaurant.getLatitude(), restaurant.getLongitude());
+    double closeness = servingRadiusInKms > 0
+        ? 1 - Math.min(1, distance / servingRadiusInKms) : 0;
+    double openTime = Math.min(OPEN_MINUTES_CAP, minutesUntil(currentTime,
+        restaurant.getClosesAt())) / (double) OPEN_MINUTES_CAP;
+    return CLOSENESS_WEIGHT * closeness
+        + OPEN_TIME_WEIGHT * openTime
+        + POPULARITY_WEIGHT * popularity.getOrDefault(restaurant.getRestaurantId(), 0.0);
+  }
+
+  private static int minutesUntil(LocalTime currentTime, String closesAt) {
+    if (closesAt == null) {
+      return 0;
+    }
+    try {
+      int seconds = LocalTime.parse(closesAt).toSecondOfDay() - currentTime.toSecondOfDay();
+      return Math.max(0, seconds / 60);
+    } catch (DateTimeParseException e) {
+      return 0;
+    }
+  }
+
+  private static final class Scored {
+    private final Restaurant restaurant;
+    private final int tier;
+    private final int position;
+    private final double relevance;
+
+    private Scored(Restaurant restaurant, int tier, int position, double relevance) {
+      this.restaurant = restaurant;
+      this.tier = tier;
+      this.position = position;
+      this.relevance = relevance;
+    }
+  }
+
+}
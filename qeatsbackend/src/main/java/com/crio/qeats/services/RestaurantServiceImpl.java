@@ -7,44 +7,95 @@
 
 package com.crio.qeats.services;
 
+import com.crio.qeats.admission.AdaptiveConcurrencyLimiter;
 import com.crio.qeats.dto.Restaurant;
+import com.crio.qeats.exceptions.ServiceUnavailableException;
 import com.crio.qeats.exchanges.GetRestaurantsRequest;
 import com.crio.qeats.exchanges.GetRestaurantsResponse;
+import com.crio.qeats.metrics.RestaurantMetrics;
 import com.crio.qeats.repositoryservices.RestaurantRepositoryService;
 import com.crio.qeats.repositoryservices.RestaurantRepositoryServiceDummyImpl;
 import com.crio.qeats.repositoryservices.RestaurantRepositoryServiceImpl;
+import com.crio.qeats.utils.AsciiSanitizer;
+import com.crio.qeats.utils.DedupUtils;
+import com.crio.qeats.utils.StaleList;
 
 import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
+import javax.annotation.PreDestroy;
 import lombok.AllArgsConstructor;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
 import org.springframework.stereotype.Service;
 
 @Service
 @Log4j2
 public class RestaurantServiceImpl implements RestaurantService {
 
-  private final Double peakHoursServingRadiusInKms = 3.0;
-  private final Double normalHoursServingRadiusInKms = 5.0;
+  // Position of the item name matches among the search tiers, see searchAllSources.
+  private static final Set<Integer> ITEM_NAME_TIERS = Collections.singleton(3);
+
   @Autowired
   private RestaurantRepositoryService restaurantRepositoryService;
 
+  @Autowired
+  private ServingRadiusPolicy servingRadiusPolicy;
+
+  @Autowired
+  private RestaurantMetrics restaurantMetrics;
+
+  @Autowired
+  private AdaptiveConcurrencyLimiter concurrencyLimiter;
+
+  @Autowired
+  private SearchResultCache searchResultCache;
+
+  @Autowired
+  private RestaurantRanker restaurantRanker;
+
+  // Searches finding fewer restaurants than this also try matching with typos.
+  @Value("${qeats.search.fuzzy.min-results:5}")
+  private int fuzzyMinResults = 5;
+
+  // Shared by every search request, see ThreadingConfiguration.
+  @Autowired
+  @Qualifier("restaurantSearchExecutor")
+  private ExecutorService searchExecutor;
+
+  // Runs the searches refreshing stale results, off the request threads and apart from the
+  // search executor their queries fan out on. A search is refreshed by one of them at a time.
+  private final ExecutorService refreshExecutor = new ThreadPoolExecutor(2, 2, 0L,
+      TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(100), runnable -> {
+        Thread thread = new Thread(runnable, "search-refresh");
+        thread.setDaemon(true);
+        return thread;
+      });
+  private final Set<SearchResultCache.Key> refreshing = ConcurrentHashMap.newKeySet();
+
+  @PreDestroy
+  public void shutdownExecutor() {
+    refreshExecutor.shutdownNow();
+  }
 
   @Override
   public GetRestaurantsResponse findAllRestaurantsCloseBy(
@@ -53,7 +104,8 @@ public class RestaurantServiceImpl implements RestaurantService {
     Double latitude = getRestaurantsRequest.getLatitude();
     Double longitude = getRestaurantsRequest.getLongitude();
     
-    Double servingRadius = getServingRadius(currentTime);
+    Double servingRadius =
+        servingRadiusPolicy.getServingRadius(latitude, longitude, currentTime);
     // LocalTime peakStart1 = LocalTime.parse("07:59:59");
     // LocalTime peakEnd1 = LocalTime.parse("10:00:01");
     
@@ -74,9 +126,22 @@ public class RestaurantServiceImpl implements RestaurantService {
     //   radius = normalHoursServingRadiusInKms;
     // }
 
-    List<Restaurant> restaurantList = restaurantRepositoryService
-        .findAllRestaurantsCloseBy(latitude, longitude, currentTime, servingRadius);
-    
+    List<Restaurant> restaurantList;
+    try {
+      restaurantList = restaurantRepositoryService
+          .findAllRestaurantsCloseBy(latitude, longitude, currentTime, servingRadius);
+    } catch (DataAccessException e) {
+      // Stale cells are served by the repository service, this one was not cached.
+      log.warn("Could not find restaurants close by", e);
+      throw new ServiceUnavailableException("Could not find restaurants close by", e);
+    }
+    if (restaurantList != null) {
+      // A stale list was counted when it was read from mongo.
+      if (!StaleList.isStale(restaurantList)) {
+        servingRadiusPolicy.recordResultCount(latitude, longitude, restaurantList.size());
+      }
+      restaurantMetrics.recordResults(restaurantList.size());
+    }
 
     GetRestaurantsResponse getRestaurantsResponse = 
         new GetRestaurantsResponse(restaurantList);
@@ -101,7 +166,40 @@ public class RestaurantServiceImpl implements RestaurantService {
   public GetRestaurantsResponse findRestaurantsBySearchQuery(
       GetRestaurantsRequest getRestaurantsRequest, LocalTime currentTime) {
 
-    return findRestaurantsBySearchQueryMt(getRestaurantsRequest, currentTime);
+    String searchString = SearchResultCache.normalize(getRestaurantsRequest.getSearchFor());
+    if (searchString.isEmpty()) {
+      return new GetRestaurantsResponse(new ArrayList<>());
+    }
+    Double latitude = getRestaurantsRequest.getLatitude();
+    Double longitude = getRestaurantsRequest.getLongitude();
+    double servingRadius = SearchResultCache.radiusClass(
+        servingRadiusPolicy.getServingRadius(latitude, longitude, currentTime));
+
+    // Popular searches are answered here, without a permit or a Mongo query.
+    SearchResultCache.Key key = searchResultCache.keyOf(
+        searchString, latitude, longitude, servingRadius, currentTime);
+    List<Restaurant> restaurantList = searchResultCache.get(key);
+    if (restaurantList == null) {
+      // Stale while revalidate: the result of an earlier time bucket goes back now, and is
+      // replaced in the background, or kept while the search keeps failing.
+      List<Restaurant> staleList = searchResultCache.getStale(key);
+      if (staleList != null) {
+        refreshInBackground(key, latitude, longitude, searchString, currentTime, servingRadius);
+        restaurantMetrics.recordResults(staleList.size());
+        return new GetRestaurantsResponse(StaleList.of(staleList));
+      }
+      long start = concurrencyLimiter.acquire();
+      try {
+        restaurantList = searchAllSources(
+            latitude, longitude, searchString, currentTime, servingRadius);
+      } finally {
+        concurrencyLimiter.release(start);
+      }
+      searchResultCache.put(key, restaurantList);
+      servingRadiusPolicy.recordResultCount(latitude, longitude, restaurantList.size());
+    }
+    restaurantMetrics.recordResults(restaurantList.size());
+    return new GetRestaurantsResponse(restaurantList);
 
     // String searchString = getRestaurantsRequest.getSearchFor();
     // Double latitude = getRestaurantsRequest.getLatitude();
@@ -136,32 +234,6 @@ public class RestaurantServiceImpl implements RestaurantService {
     // return getRestaurantsResponse;
   }
 
-  //utility function 
-  Double getServingRadius(LocalTime currentTime) {
-    Double radius;
-    LocalTime peakStart1 = LocalTime.parse("07:59:59");
-    LocalTime peakEnd1 = LocalTime.parse("10:00:01");
-    
-    LocalTime peakStart2 = LocalTime.parse("12:59:59");
-    LocalTime peakEnd2 = LocalTime.parse("14:00:01");
-
-    LocalTime peakStart3 = LocalTime.parse("18:59:59");
-    LocalTime peakEnd3 = LocalTime.parse("21:00:01");
-
-    if ((currentTime.isAfter(peakStart1) && currentTime.isBefore(peakEnd1)) 
-        ||
-        (currentTime.isAfter(peakStart2) && currentTime.isBefore(peakEnd2)) 
-        ||
-        (currentTime.isAfter(peakStart3) && currentTime.isBefore(peakEnd3))
-    ) {
-      radius = peakHoursServingRadiusInKms;
-    } else {
-      radius = normalHoursServingRadiusInKms;
-    }
-    return radius;
-  }
-
-
   // TODO: CRIO_TASK_MODULE_MULTITHREADING
   // Implement multi-threaded version of RestaurantSearch.
   // Implement variant of findRestaurantsBySearchQuery which is at least 1.5x time faster than
@@ -175,45 +247,127 @@ public class RestaurantServiceImpl implements RestaurantService {
     String searchString = getRestaurantsRequest.getSearchFor();
     Double latitude = getRestaurantsRequest.getLatitude();
     Double longitude = getRestaurantsRequest.getLongitude();
-    Double servingRadius = getServingRadius(currentTime);
+    Double servingRadius =
+        servingRadiusPolicy.getServingRadius(latitude, longitude, currentTime);
 
     if (!searchString.isEmpty()) {
-      try {
+      List<Restaurant> restaurantListUnique = searchAllSources(
+          latitude, longitude, searchString, currentTime, servingRadius);
+      getRestaurantsResponse = new GetRestaurantsResponse(restaurantListUnique);
+      servingRadiusPolicy.recordResultCount(latitude, longitude, restaurantListUnique.size());
+      restaurantMetrics.recordResults(restaurantListUnique.size());
+    }
+    
 
-        ExecutorService executor = Executors.newFixedThreadPool(4);
-        CallableRestaurantsByName task1 = new CallableRestaurantsByName(
-            latitude, longitude, searchString, currentTime, servingRadius);
+    return getRestaurantsResponse;
+  }
 
-        CallableRestaurantsByAttribute task2 = new CallableRestaurantsByAttribute(
-            latitude, longitude, searchString, currentTime, servingRadius);
+  private void refreshInBackground(SearchResultCache.Key key, Double latitude,
+      Double longitude, String searchString, LocalTime currentTime, double servingRadius) {
+    if (!refreshing.add(key)) {
+      return;
+    }
+    try {
+      refreshExecutor.execute(() -> {
+        try {
+          long start = concurrencyLimiter.acquire();
+          List<Restaurant> restaurantList;
+          try {
+            restaurantList = searchAllSources(
+                latitude, longitude, searchString, currentTime, servingRadius);
+          } finally {
+            concurrencyLimiter.release(start);
+          }
+          searchResultCache.put(key, restaurantList);
+        } catch (RuntimeException e) {
+          log.warn("Could not refresh search {}, serving its stale result: {}", key,
+              e.getMessage());
+        } finally {
+          refreshing.remove(key);
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      // Too many refreshes queued, a later request tries again.
+      refreshing.remove(key);
+    }
+  }
 
-        Future<List<Restaurant>> future1 = executor.submit(task1);
-        Future<List<Restaurant>> future2 = executor.submit(task2);
+  // Runs the four searches in parallel, adds the typo tolerant matches when they found too
+  // little, and ranks the results inside their tier.
+  // Throws ServiceUnavailableException if one of them failed.
+  private List<Restaurant> searchAllSources(Double latitude, Double longitude,
+      String searchString, LocalTime currentTime, Double servingRadius) {
+    List<Future<List<Restaurant>>> futures = new ArrayList<>();
+    try {
 
-        List<Restaurant> restaurantListByName = future1.get();
+      CallableRestaurantsByName task1 = new CallableRestaurantsByName(
+          latitude, longitude, searchString, currentTime, servingRadius);
 
-        List<Restaurant> restaurantListByAttribute = future2.get();
+      CallableRestaurantsByAttribute task2 = new CallableRestaurantsByAttribute(
+          latitude, longitude, searchString, currentTime, servingRadius);
 
-        List<Restaurant> restaurantList = Stream.concat(
-            restaurantListByName.stream(), restaurantListByAttribute.stream())
-            .collect(Collectors.toList());
+      CallableRestaurantsByItemName task3 = new CallableRestaurantsByItemName(
+          latitude, longitude, searchString, currentTime, servingRadius);
 
-        Set<Restaurant> set = new LinkedHashSet<>(restaurantList);
+      CallableRestaurantsByItemAttribute task4 = new CallableRestaurantsByItemAttribute(
+          latitude, longitude, searchString, currentTime, servingRadius);
 
-        //create a list again from above set 
-        List<Restaurant> restaurantListUnique = new ArrayList<>(set);
-        
-        getRestaurantsResponse = new GetRestaurantsResponse(restaurantListUnique);
-      } catch (InterruptedException e) {
-        e.printStackTrace();
-      } catch (ExecutionException e) {
-        e.printStackTrace();
+      Future<List<Restaurant>> future1 = searchExecutor.submit(task1);
+      futures.add(future1);
+      Future<List<Restaurant>> future2 = searchExecutor.submit(task2);
+      futures.add(future2);
+      Future<List<Restaurant>> future3 = searchExecutor.submit(task3);
+      futures.add(future3);
+      Future<List<Restaurant>> future4 = searchExecutor.submit(task4);
+      futures.add(future4);
+
+      List<Restaurant> restaurantListByName = future1.get();
+
+      List<Restaurant> restaurantListByAttribute = future2.get();
+
+      List<Restaurant> restaurantListByItemName = future3.get();
+
+      List<Restaurant> restaurantListByItemAttribute = future4.get();
+
+      // Tiers in order of precedence. Exact name matches stay ahead of partial ones however
+      // the ranking goes, as the API promises; item name matches already come exact first
+      // and keep their order.
+      List<Restaurant> restaurantListByExactName = new ArrayList<>();
+      List<Restaurant> restaurantListByPartialName = new ArrayList<>();
+      String asciiSearchString = AsciiSanitizer.toAscii(searchString);
+      if (restaurantListByName != null) {
+        for (Restaurant restaurant : restaurantListByName) {
+          if (asciiSearchString.equalsIgnoreCase(restaurant.getName())) {
+            restaurantListByExactName.add(restaurant);
+          } else {
+            restaurantListByPartialName.add(restaurant);
+          }
+        }
+      }
+      List<List<Restaurant>> tiers = new ArrayList<>(Arrays.asList(
+          restaurantListByExactName, restaurantListByPartialName, restaurantListByAttribute,
+          restaurantListByItemName, restaurantListByItemAttribute));
+
+      // A restaurant found by several of the searches is kept where it was first found.
+      if (DedupUtils.mergeById(tiers, Restaurant::getRestaurantId).size() < fuzzyMinResults) {
+        tiers.add(restaurantRepositoryService.findRestaurantsByFuzzyMatch(
+            latitude, longitude, searchString, currentTime, servingRadius));
+      }
+      return restaurantRanker.rank(tiers, ITEM_NAME_TIERS, latitude, longitude, currentTime,
+          servingRadius);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ServiceUnavailableException("Interrupted searching for " + searchString, e);
+    } catch (ExecutionException e) {
+      log.warn("Search for {} failed", searchString, e.getCause());
+      throw new ServiceUnavailableException("Search for " + searchString + " failed",
+          e.getCause());
+    } finally {
+      // The searches still running are of no use once one has failed.
+      for (Future<List<Restaurant>> future : futures) {
+        future.cancel(true);
       }
-      
     }
-    
-
-    return getRestaurantsResponse;
   }
 
   @AllArgsConstructor
@@ -253,4 +407,42 @@ public class RestaurantServiceImpl implements RestaurantService {
     }
 
   }
+
+  @AllArgsConstructor
+  private class CallableRestaurantsByItemName implements Callable<List<Restaurant>> { 
+
+    Double latitude;
+    Double longitude;
+    String searchString;
+    LocalTime currentTime;
+    Double servingRadius;
+
+    @Override
+    public List<Restaurant> call() throws Exception {
+
+      return restaurantRepositoryService.findRestaurantsByItemName(
+          latitude, longitude, searchString, currentTime, servingRadius);
+
+    }
+
+  }
+
+  @AllArgsConstructor
+  private class CallableRestaurantsByItemAttribute implements Callable<List<Restaurant>> { 
+
+    Double latitude;
+    Double longitude;
+    String searchString;
+    LocalTime currentTime;
+    Double servingRadius;
+
+    @Override
+    public List<Restaurant> call() throws Exception {
+
+      return restaurantRepositoryService.findRestaurantsByItemAttributes(
+          latitude, longitude, searchString, currentTime, servingRadius);
+
+    }
+
+  }
 }
@@ -0,0 +1,216 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.services;
+
+import ch.hsr.geohash.GeoHash;
+import com.crio.qeats.dto.Restaurant;
+import com.crio.qeats.globals.GlobalConstants;
+import com.crio.qeats.models.MenuEntity;
+import com.crio.qeats.models.RestaurantEntity;
+import com.crio.qeats.repositoryservices.RestaurantChangeListener;
+import com.crio.qeats.utils.GeoUtils;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.google.common.collect.ImmutableList;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.LocalTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Results of restaurant searches, kept in memory so a popular search costs a map lookup
+ * instead of four Mongo queries. An entry is shared by everyone searching the same string from
+ * the same GeoHash cell (the precision of the close by cache) with the same serving radius,
+ * rounded down to a radius class, within the same few minutes of the day, which bounds how
+ * long a restaurant that just opened or closed may be missed.
+ * The cache is bounded and uses Caffeine's W-TinyLFU policy: a new search only displaces an
+ * entry if it has been asked for more often recently, so a burst of one-off searches cannot
+ * push out the popular ones. Entries near a changed restaurant are dropped by the change feed.
+ * The latest result of each search is also kept past its time bucket, up to stale-ttl-minutes,
+ * so it can be served stale while the search is run again, or while Mongo is failing.
+ */
+@Component
+@Log4j2
+public class SearchResultCache implements RestaurantChangeListener {
+
+  public static final String CACHE_NAME = "qeats.search.results";
+
+  private static final double RADIUS_CLASS_IN_KMS = 0.5;
+  private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+  private final boolean enabled;
+  private final int timeBucketMinutes;
+  private final Cache<Key, List<Restaurant>> cache;
+  // The latest result of each search whatever its time bucket, keyed with bucket -1.
+  private final Cache<Key, List<Restaurant>> latest;
+
+  public SearchResultCache() {
+    this(true, 10000, 5, new SimpleMeterRegistry());
+  }
+
+  public SearchResultCache(boolean enabled, long maximumSize, int timeBucketMinutes,
+      MeterRegistry meterRegistry) {
+    this(enabled, maximumSize, timeBucketMinutes, 30, meterRegistry);
+  }
+
+  /**
+   * Builds the cache and publishes its hit rate and size through the registry.
+   */
+  @Autowired
+  public SearchResultCache(
+      @Value("${qeats.search-cache.enabled:true}") boolean enabled,
+      @Value("${qeats.search-cache.maximum-size:10000}") long maximumSize,
+      @Value("${qeats.search-cache.time-bucket-minutes:5}") int timeBucketMinutes,
+      @Value("${qeats.search-cache.stale-ttl-minutes:30}") int staleTtlMinutes,
+      MeterRegistry meterRegistry) {
+    this.enabled = enabled;
+    this.timeBucketMinutes = timeBucketMinutes;
+    // An entry is never read after its time bucket, so it may as well go then.
+    cache = Caffeine.newBuilder()
+        .maximumSize(maximumSize)
+        .expireAfterWrite(timeBucketMinutes, TimeUnit.MINUTES)
+        .recordStats()
+        .build();
+    CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    latest = Caffeine.newBuilder()
+        .maximumSize(maximumSize)
+        .expireAfterWrite(Math.max(staleTtlMinutes, timeBucketMinutes), TimeUnit.MINUTES)
+        .build();
+  }
+
+  /**
+   * The search string as it is looked up and queried: without surrounding or repeated
+   * whitespace. Case is kept, restaurant names and attributes match case sensitively.
+   */
+  public static String normalize(String searchFor) {
+    return searchFor == null ? "" : WHITESPACE.matcher(searchFor.trim()).replaceAll(" ");
+  }
+
+  /**
+   * The serving radius rounded down to its class, so small changes of the radius, e.g. from
+   * ServingRadiusPolicy's area scales, still share entries. Searches use this radius.
+   */
+  public static double radiusClass(double servingRadiusInKms) {
+    if (servingRadiusInKms < RADIUS_CLASS_IN_KMS) {
+      return servingRadiusInKms;
+    }
+    return Math.floor(servingRadiusInKms / RADIUS_CLASS_IN_KMS) * RADIUS_CLASS_IN_KMS;
+  }
+
+  public Key keyOf(String normalizedSearchFor, double latitude, double longitude,
+      double radiusClassInKms, LocalTime currentTime) {
+    String geoHash = GeoHash.withCharacterPrecision(latitude, longitude,
+        GlobalConstants.GEOHASH_PRECISION).toBase32();
+    int minuteOfDay = currentTime.getHour() * 60 + currentTime.getMinute();
+    return new Key(normalizedSearchFor, geoHash, radiusClassInKms, minuteOfDay / timeBucketMinutes);
+  }
+
+  /**
+   * @return the cached restaurants, which can't be modified, or null on a miss
+   */
+  public List<Restaurant> get(Key key) {
+    return enabled ? cache.getIfPresent(key) : null;
+  }
+
+  /**
+   * The latest result of the same search from the same cell and radius class, from an earlier
+   * time bucket, while it is younger than stale-ttl-minutes.
+   * @return the stale restaurants, which can't be modified, or null if there are none
+   */
+  public List<Restaurant> getStale(Key key) {
+    return enabled ? latest.getIfPresent(latestKeyOf(key)) : null;
+  }
+
+  public void put(Key key, List<Restaurant> restaurants) {
+    if (enabled && restaurants != null) {
+      List<Restaurant> copy = ImmutableList.copyOf(restaurants);
+      cache.put(key, copy);
+      latest.put(latestKeyOf(key), copy);
+    }
+  }
+
+  @Override
+  public void onRestaurantChanged(RestaurantEntity previous, RestaurantEntity current) {
+    Set<String> geoHashes = new HashSet<>();
+    if (previous != null) {
+      geoHashes.addAll(findAffectedGeoHashes(previous));
+    }
+    geoHashes.addAll(findAffectedGeoHashes(current));
+    evict(geoHashes);
+  }
+
+  @Override
+  public void onRestaurantRemoved(RestaurantEntity previous) {
+    evict(new HashSet<>(findAffectedGeoHashes(previous)));
+  }
+
+  // A menu may add its restaurant to, or drop it from, any item search within the serving
+  // radius of the restaurant. The menu carries no location, the feed's copy of the restaurant
+  // does.
+  @Override
+  public void onMenuChanged(MenuEntity current, RestaurantEntity restaurant) {
+    evictAround(restaurant);
+  }
+
+  @Override
+  public void onMenuRemoved(String restaurantId, RestaurantEntity restaurant) {
+    evictAround(restaurant);
+  }
+
+  // Runs pending evictions now, they are otherwise done in the background.
+  void cleanUp() {
+    cache.cleanUp();
+    latest.cleanUp();
+  }
+
+  // Everything goes when the restaurant cannot be located.
+  private void evictAround(RestaurantEntity restaurantEntity) {
+    if (restaurantEntity == null || restaurantEntity.getLatitude() == null
+        || restaurantEntity.getLongitude() == null) {
+      cache.invalidateAll();
+      latest.invalidateAll();
+    } else {
+      evict(new HashSet<>(findAffectedGeoHashes(restaurantEntity)));
+    }
+  }
+
+  // Stale copies go too: serving one would undo the change until the search is run again.
+  private void evict(Set<String> geoHashes) {
+    int before = cache.asMap().size();
+    cache.asMap().keySet().removeIf(key -> geoHashes.contains(key.getGeoHash()));
+    latest.asMap().keySet().removeIf(key -> geoHashes.contains(key.getGeoHash()));
+    log.debug("Evicted {} cached searches", before - cache.asMap().size());
+  }
+
+  private static Key latestKeyOf(Key key) {
+    return new Key(key.getSearchFor(), key.getGeoHash(), key.getRadiusClassInKms(), -1);
+  }
+
+  private static List<String> findAffectedGeoHashes(RestaurantEntity restaurantEntity) {
+    return GeoUtils.findGeoHashesWithinKm(restaurantEntity.getLatitude(),
+        restaurantEntity.getLongitude(), GlobalConstants.MAX_SERVING_RADIUS_IN_KMS,
+        GlobalConstants.GEOHASH_PRECISION);
+  }
+
+  @lombok.Value
+  public static class Key {
+    String searchFor;
+    String geoHash;
+    double radiusClassInKms;
+    int timeBucket;
+  }
+
+}
@@ -0,0 +1,198 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.services;
+
+import ch.hsr.geohash.GeoHash;
+import com.crio.qeats.globals.GlobalConstants;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+/**
+ * Decides how far from the user restaurants are looked for.
+ * The peak/normal schedule is parsed once into a radius per minute of the day, so a lookup is
+ * an array read. A window runs from a second before its start to a second after its end, as
+ * the schedule always has. On top of that each area (a ~5km geohash cell) carries a scale
+ * that shrinks while its searches return more than max-results-per-area restaurants and grows
+ * back once they don't, changing at most once per adjust interval so a burst of requests
+ * counts once. Operators can shrink every radius at once through the JMX attribute
+ * {@code GlobalScale} to shed work during a spike.
+ */
+@Component
+@Log4j2
+@ManagedResource(objectName = "qeats:name=servingRadiusPolicy")
+public class ServingRadiusPolicy {
+
+  private static final int MINUTES_PER_DAY = 24 * 60;
+  private static final int AREA_GEOHASH_PRECISION = 5;
+
+  // Area scales shrink multiplicatively on overload and recover additively, down to the floor.
+  private static final double AREA_SCALE_DECREASE = 0.8;
+  private static final double AREA_SCALE_INCREASE = 0.05;
+  private static final double MIN_AREA_SCALE = 0.4;
+
+  private static final String DEFAULT_PEAK_WINDOWS = "08:00-10:00,13:00-14:00,19:00-21:00";
+
+  // Radius within each minute, and the exceptions at its first second and after its last
+  // second starts.
+  private final double[] radiusByMinute;
+  private final double[] radiusAtMinuteStart;
+  private final double[] radiusAtMinuteEnd;
+  private final int maxResultsPerArea;
+  private final long areaAdjustIntervalMs;
+  private final ConcurrentMap<String, AreaScale> areaScales = new ConcurrentHashMap<>();
+  private volatile double globalScale = 1.0;
+
+  public ServingRadiusPolicy() {
+    this(DEFAULT_PEAK_WINDOWS, 3.0, 5.0, 200, 1000);
+  }
+
+  /**
+   * Builds the per-minute radius table.
+   * @param peakWindows comma separated HH:mm-HH:mm windows, both ends included
+   */
+  @Autowired
+  public ServingRadiusPolicy(
+      @Value("${qeats.serving-radius.peak-windows:" + DEFAULT_PEAK_WINDOWS + "}")
+          String peakWindows,
+      @Value("${qeats.serving-radius.peak-kms:3.0}") double peakRadiusInKms,
+      @Value("${qeats.serving-radius.normal-kms:5.0}") double normalRadiusInKms,
+      @Value("${qeats.serving-radius.max-results-per-area:200}") int maxResultsPerArea,
+      @Value("${qeats.serving-radius.area-adjust-interval-ms:1000}") long areaAdjustIntervalMs) {
+    radiusByMinute = new double[MINUTES_PER_DAY];
+    radiusAtMinuteStart = new double[MINUTES_PER_DAY];
+    radiusAtMinuteEnd = new double[MINUTES_PER_DAY];
+    Arrays.fill(radiusByMinute, capped(normalRadiusInKms));
+    Arrays.fill(radiusAtMinuteStart, capped(normalRadiusInKms));
+    Arrays.fill(radiusAtMinuteEnd, capped(normalRadiusInKms));
+    for (String window : peakWindows.split(",")) {
+      if (window.trim().isEmpty()) {
+        continue;
+      }
+      String[] bounds = window.trim().split("-");
+      int start = minuteOfDay(LocalTime.parse(bounds[0].trim()));
+      int end = minuteOfDay(LocalTime.parse(bounds[1].trim()));
+      // A window may wrap around midnight. It takes the minutes from its start up to its end,
+      // the first second of its end minute and the last second before its start.
+      int length = (end - start + MINUTES_PER_DAY) % MINUTES_PER_DAY;
+      for (int i = 0; i < length; i++) {
+        int minute = (start + i) % MINUTES_PER_DAY;
+        radiusByMinute[minute] = capped(peakRadiusInKms);
+        radiusAtMinuteStart[minute] = capped(peakRadiusInKms);
+        radiusAtMinuteEnd[minute] = capped(peakRadiusInKms);
+      }
+      radiusAtMinuteStart[end] = capped(peakRadiusInKms);
+      radiusAtMinuteEnd[(start - 1 + MINUTES_PER_DAY) % MINUTES_PER_DAY] =
+          capped(peakRadiusInKms);
+    }
+    this.maxResultsPerArea = maxResultsPerArea;
+    this.areaAdjustIntervalMs = areaAdjustIntervalMs;
+  }
+
+  /**
+   * Get the serving radius for a user at the given place and time.
+   * @return radius in kms, never more than MAX_SERVING_RADIUS_IN_KMS
+   */
+  public double getServingRadius(double latitude, double longitude, LocalTime currentTime) {
+    double radius = radiusOf(currentTime) * globalScale;
+    if (areaScales.isEmpty()) {
+      return radius;
+    }
+    AreaScale areaScale = areaScales.get(areaOf(latitude, longitude));
+    return areaScale == null ? radius : radius * areaScale.scale;
+  }
+
+  /**
+   * Feed back how many restaurants a search around the given place returned, so busy areas
+   * get a smaller radius. Only results read from mongo should be fed back.
+   */
+  public void recordResultCount(double latitude, double longitude, int resultCount) {
+    String area = areaOf(latitude, longitude);
+    long now = System.currentTimeMillis();
+    if (resultCount > maxResultsPerArea) {
+      areaScales.compute(area, (key, current) -> {
+        if (current == null) {
+          return new AreaScale(AREA_SCALE_DECREASE, now);
+        }
+        return now - current.adjustedAtMillis < areaAdjustIntervalMs ? current
+            : new AreaScale(Math.max(MIN_AREA_SCALE, current.scale * AREA_SCALE_DECREASE), now);
+      });
+    } else if (areaScales.containsKey(area)) {
+      // Back at full size the area drops out of the map, keeping the common lookup a miss.
+      areaScales.computeIfPresent(area, (key, current) -> {
+        if (now - current.adjustedAtMillis < areaAdjustIntervalMs) {
+          return current;
+        }
+        double scale = current.scale + AREA_SCALE_INCREASE;
+        return scale >= 1.0 ? null : new AreaScale(scale, now);
+      });
+    }
+  }
+
+  @ManagedAttribute(description = "Scale applied to every serving radius, 1.0 is normal")
+  public double getGlobalScale() {
+    return globalScale;
+  }
+
+  @ManagedAttribute(description = "Set below 1.0 to shrink every serving radius and shed load")
+  public void setGlobalScale(double globalScale) {
+    if (globalScale <= 0 || globalScale > 1.0) {
+      throw new IllegalArgumentException("Global scale must be in (0, 1], got " + globalScale);
+    }
+    log.info("Serving radius global scale set to {}", globalScale);
+    this.globalScale = globalScale;
+  }
+
+  private static double capped(double radiusInKms) {
+    // Cached close-by results are only evicted within the largest radius, see
+    // RestaurantCacheEvictionListener.
+    if (radiusInKms > GlobalConstants.MAX_SERVING_RADIUS_IN_KMS) {
+      log.warn("Serving radius {} km capped to {} km", radiusInKms,
+          GlobalConstants.MAX_SERVING_RADIUS_IN_KMS);
+      return GlobalConstants.MAX_SERVING_RADIUS_IN_KMS;
+    }
+    return radiusInKms;
+  }
+
+  private double radiusOf(LocalTime time) {
+    int minute = minuteOfDay(time);
+    if (time.getSecond() == 0) {
+      return radiusAtMinuteStart[minute];
+    }
+    if (time.getSecond() == 59 && time.getNano() > 0) {
+      return radiusAtMinuteEnd[minute];
+    }
+    return radiusByMinute[minute];
+  }
+
+  private static int minuteOfDay(LocalTime time) {
+    return time.getHour() * 60 + time.getMinute();
+  }
+
+  private static String areaOf(double latitude, double longitude) {
+    return GeoHash.withCharacterPrecision(latitude, longitude, AREA_GEOHASH_PRECISION)
+        .toBase32();
+  }
+
+  private static final class AreaScale {
+    private final double scale;
+    private final long adjustedAtMillis;
+
+    private AreaScale(double scale, long adjustedAtMillis) {
+      this.scale = scale;
+      this.adjustedAtMillis = adjustedAtMillis;
+    }
+  }
+
+}
@@ -0,0 +1,31 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.services;
+
+import com.crio.qeats.exchanges.GetSuggestionsRequest;
+import com.crio.qeats.exchanges.GetSuggestionsResponse;
+
+public interface SuggestionService {
+
+  /**
+   * Get search suggestions for what the user has typed so far.
+   *   - Suggestions are restaurant names, restaurant attributes (cuisines) and item names of
+   *     restaurants in the user's area, matched on the start of any of their words, ignoring
+   *     case.
+   *   - The ones offered by most restaurants and searched for most nearby come first.
+   * @param getSuggestionsRequest valid lat/long and a non-empty prefix
+   * @return GetSuggestionsResponse with at most limit suggestions, possibly none
+   */
+  GetSuggestionsResponse getSuggestions(GetSuggestionsRequest getSuggestionsRequest);
+
+  /**
+   * Count a search that found restaurants, so what is searched for in an area is suggested
+   * there first.
+   */
+  void recordSearch(double latitude, double longitude, String searchFor);
+
+}
@@ -0,0 +1,299 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.services;
+
+import ch.hsr.geohash.GeoHash;
+import com.crio.qeats.dto.Item;
+import com.crio.qeats.exchanges.GetSuggestionsRequest;
+import com.crio.qeats.exchanges.GetSuggestionsResponse;
+import com.crio.qeats.models.MenuEntity;
+import com.crio.qeats.models.RestaurantEntity;
+import com.crio.qeats.repositories.MenuRepository;
+import com.crio.qeats.repositories.RestaurantRepository;
+import com.crio.qeats.repositoryservices.RestaurantChangeListener;
+import com.crio.qeats.utils.PrefixTrie;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Typeahead over an in-memory {@link PrefixTrie} per area, a ~5km GeoHash cell. A user gets
+ * the suggestions of their cell and the eight around it, so nothing is suggested that has no
+ * restaurant nearby, and a keystroke costs nine trie walks.
+ * A suggestion's score in an area is the number of restaurants there offering it, plus a
+ * tenth of the searches for it made there that found restaurants. The tries are rebuilt in
+ * the background, once a rebuild interval has passed with restaurants, menus or searches
+ * changed, and swapped in whole; searches then count half as much as before. Only a change of
+ * restaurants or menus reads them from mongo again, searches re-rank what was last read.
+ */
+@Service
+@Log4j2
+public class SuggestionServiceImpl implements SuggestionService, RestaurantChangeListener {
+
+  static final int AREA_GEOHASH_PRECISION = 5;
+  static final int MAX_SUGGESTIONS = 20;
+  private static final int DEFAULT_SUGGESTIONS = 10;
+  private static final double SCORE_PER_SEARCH = 0.1;
+  // Bounds the memory taken by searches that match nothing indexed, between rebuilds.
+  private static final int MAX_TRACKED_SEARCHES = 100000;
+
+  @Autowired
+  private RestaurantRepository restaurantRepository;
+
+  @Autowired
+  private MenuRepository menuRepository;
+
+  @Value("${qeats.suggestions.enabled:true}")
+  private boolean enabled = true;
+
+  @Value("${qeats.suggestions.rebuild-interval-seconds:60}")
+  private long rebuildIntervalSeconds = 60;
+
+  private volatile Map<String, PrefixTrie> triesByArea = Collections.emptyMap();
+  // Per area, every suggestion with the number of restaurants offering it, as last read from
+  // mongo. Only touched by the rebuilds.
+  private Map<String, Map<String, Suggestion>> suggestionsByArea = Collections.emptyMap();
+  // Keyed on area and normalized search string.
+  private final ConcurrentMap<String, LongAdder> searchCounts = new ConcurrentHashMap<>();
+  private volatile boolean catalogDirty = true;
+  private volatile boolean searchesDirty;
+  private ScheduledExecutorService executor;
+
+  @PostConstruct
+  public void start() {
+    if (!enabled) {
+      return;
+    }
+    executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "suggestion-index");
+      thread.setDaemon(true);
+      return thread;
+    });
+    executor.scheduleWithFixedDelay(this::rebuildIfDirty, 0, rebuildIntervalSeconds,
+        TimeUnit.SECONDS);
+  }
+
+  @PreDestroy
+  public void stop() {
+    if (executor != null) {
+      executor.shutdownNow();
+    }
+  }
+
+  @Override
+  public GetSuggestionsResponse getSuggestions(GetSuggestionsRequest getSuggestionsRequest) {
+    String prefix = normalize(getSuggestionsRequest.getPrefix());
+    Integer limit = getSuggestionsRequest.getLimit();
+    limit = limit == null ? DEFAULT_SUGGESTIONS : Math.max(1, Math.min(MAX_SUGGESTIONS, limit));
+    if (prefix.isEmpty()) {
+      return new GetSuggestionsResponse(new ArrayList<>());
+    }
+
+    Map<String, PrefixTrie> tries = triesByArea;
+    GeoHash center = GeoHash.withCharacterPrecision(getSuggestionsRequest.getLatitude(),
+        getSuggestionsRequest.getLongitude(), AREA_GEOHASH_PRECISION);
+    List<GeoHash> areas = new ArrayList<>(9);
+    areas.add(center);
+    Collections.addAll(areas, center.getAdjacent());
+
+    Map<String, Double> scores = new HashMap<>();
+    for (GeoHash area : areas) {
+      PrefixTrie trie = tries.get(area.toBase32());
+      if (trie != null) {
+        for (PrefixTrie.Completion completion : trie.complete(prefix, MAX_SUGGESTIONS)) {
+          scores.merge(completion.getText(), completion.getScore(), Double::sum);
+        }
+      }
+    }
+
+    List<String> suggestions = new ArrayList<>(scores.keySet());
+    suggestions.sort((a, b) -> {
+      int byScore = Double.compare(scores.get(b), scores.get(a));
+      return byScore != 0 ? byScore : a.compareTo(b);
+    });
+    return new GetSuggestionsResponse(
+        new ArrayList<>(suggestions.subList(0, Math.min(limit, suggestions.size()))));
+  }
+
+  @Override
+  public void recordSearch(double latitude, double longitude, String searchFor) {
+    String key = searchKey(areaOf(latitude, longitude), normalize(searchFor));
+    LongAdder count = searchCounts.get(key);
+    if (count == null) {
+      if (searchCounts.size() >= MAX_TRACKED_SEARCHES) {
+        return;
+      }
+      count = searchCounts.computeIfAbsent(key, k -> new LongAdder());
+    }
+    count.increment();
+    searchesDirty = true;
+  }
+
+  @Override
+  public void onRestaurantChanged(RestaurantEntity previous, RestaurantEntity current) {
+    catalogDirty = true;
+  }
+
+  @Override
+  public void onRestaurantRemoved(RestaurantEntity previous) {
+    catalogDirty = true;
+  }
+
+  @Override
+  public void onMenuChanged(MenuEntity current, RestaurantEntity restaurant) {
+    catalogDirty = true;
+  }
+
+  @Override
+  public void onMenuRemoved(String restaurantId, RestaurantEntity restaurant) {
+    catalogDirty = true;
+  }
+
+  void rebuildIfDirty() {
+    try {
+      if (catalogDirty) {
+        rebuild();
+      } else if (searchesDirty) {
+        rerank();
+      }
+    } catch (RuntimeException e) {
+      catalogDirty = true;
+      log.warn("Could not rebuild the suggestion index, keeping the previous one", e);
+    }
+  }
+
+  // Reads restaurants and menus from mongo, then builds the tries.
+  void rebuild() {
+    catalogDirty = false;
+    long start = System.currentTimeMillis();
+    Map<String, MenuEntity> menusByRestaurantId = new HashMap<>();
+    for (MenuEntity menuEntity : menuRepository.findAll()) {
+      menusByRestaurantId.put(menuEntity.getRestaurantId(), menuEntity);
+    }
+
+    Map<String, Map<String, Suggestion>> suggestionsRead = new HashMap<>();
+    for (RestaurantEntity restaurantEntity : restaurantRepository.findAll()) {
+      if (restaurantEntity.getLatitude() == null || restaurantEntity.getLongitude() == null) {
+        continue;
+      }
+      Map<String, Suggestion> suggestions = suggestionsRead.computeIfAbsent(
+          areaOf(restaurantEntity.getLatitude(), restaurantEntity.getLongitude()),
+          area -> new HashMap<>());
+      for (Map.Entry<String, String> text : textsOf(restaurantEntity,
+          menusByRestaurantId.get(restaurantEntity.getRestaurantId())).entrySet()) {
+        suggestions.computeIfAbsent(text.getKey(), key -> new Suggestion(text.getValue()))
+            .restaurants++;
+      }
+    }
+    suggestionsByArea = suggestionsRead;
+    log.info("Suggestions of {} areas read in {} ms", suggestionsRead.size(),
+        System.currentTimeMillis() - start);
+    rerank();
+  }
+
+  // Builds the tries from the suggestions last read and the searches counted since.
+  void rerank() {
+    searchesDirty = false;
+    long start = System.currentTimeMillis();
+    Map<String, PrefixTrie> tries = new HashMap<>();
+    for (Map.Entry<String, Map<String, Suggestion>> area : suggestionsByArea.entrySet()) {
+      PrefixTrie.Builder builder = PrefixTrie.builder();
+      for (Map.Entry<String, Suggestion> entry : area.getValue().entrySet()) {
+        String key = entry.getKey();
+        LongAdder searches = searchCounts.get(searchKey(area.getKey(), key));
+        double score = entry.getValue().restaurants
+            + (searches == null ? 0 : searches.sum() * SCORE_PER_SEARCH);
+        String text = entry.getValue().text;
+        builder.add(key, text, score);
+        // Also complete from the start of every later word, "bir" finds "Paradise Biryani".
+        for (int i = 1; i < key.length(); i++) {
+          if (key.charAt(i - 1) == ' ') {
+            builder.add(key.substring(i), text, score);
+          }
+        }
+      }
+      tries.put(area.getKey(), builder.build(MAX_SUGGESTIONS));
+    }
+    triesByArea = tries;
+    decaySearchCounts();
+    log.debug("Suggestion index rebuilt for {} areas in {} ms", tries.size(),
+        System.currentTimeMillis() - start);
+  }
+
+  private void decaySearchCounts() {
+    searchCounts.entrySet().removeIf(entry -> {
+      long half = entry.getValue().sumThenReset() / 2;
+      entry.getValue().add(half);
+      return half == 0;
+    });
+  }
+
+  // Keyed on the lower-cased text, which a restaurant counts once for however many of its
+  // items share it.
+  private static Map<String, String> textsOf(RestaurantEntity restaurantEntity,
+      MenuEntity menuEntity) {
+    Map<String, String> texts = new LinkedHashMap<>();
+    addText(texts, restaurantEntity.getName());
+    if (restaurantEntity.getAttributes() != null) {
+      for (String attribute : restaurantEntity.getAttributes()) {
+        addText(texts, attribute);
+      }
+    }
+    if (menuEntity != null && menuEntity.getItems() != null) {
+      for (Item item : menuEntity.getItems()) {
+        addText(texts, item.getName());
+      }
+    }
+    return texts;
+  }
+
+  private static void addText(Map<String, String> texts, String text) {
+    String normalized = SearchResultCache.normalize(text);
+    if (!normalized.isEmpty()) {
+      texts.putIfAbsent(normalized.toLowerCase(Locale.ROOT), normalized);
+    }
+  }
+
+  private static String normalize(String text) {
+    return SearchResultCache.normalize(text).toLowerCase(Locale.ROOT);
+  }
+
+  private static String areaOf(double latitude, double longitude) {
+    return GeoHash.withCharacterPrecision(latitude, longitude, AREA_GEOHASH_PRECISION)
+        .toBase32();
+  }
+
+  private static String searchKey(String area, String normalizedSearchFor) {
+    return area + ':' + normalizedSearchFor;
+  }
+
+  private static final class Suggestion {
+    private final String text;
+    private int restaurants;
+
+    private Suggestion(String text) {
+      this.text = text;
+    }
+  }
+
+}
@@ -0,0 +1,52 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.utils;
+
+public final class AsciiSanitizer {
+
+  private static final char REPLACEMENT = '?';
+
+  private AsciiSanitizer() {
+  }
+
+  /**
+   * Replaces every non-ASCII character with '?', the same as
+   * {@code s.replaceAll("[^\\x00-\\x7F]", "?")}: a surrogate pair counts as one character.
+   * @return s itself when it is already ASCII (or null)
+   */
+  public static String toAscii(String s) {
+    if (s == null) {
+      return null;
+    }
+    int length = s.length();
+    int first = 0;
+    while (first < length && s.charAt(first) < 0x80) {
+      first++;
+    }
+    if (first == length) {
+      return s;
+    }
+
+    char[] chars = new char[length];
+    s.getChars(0, first, chars, 0);
+    int count = first;
+    for (int i = first; i < length; i++) {
+      char c = s.charAt(i);
+      if (c < 0x80) {
+        chars[count++] = c;
+        continue;
+      }
+      chars[count++] = REPLACEMENT;
+      if (Character.isHighSurrogate(c) && i + 1 < length
+          && Character.isLowSurrogate(s.charAt(i + 1))) {
+        i++;
+      }
+    }
+    return new String(chars, 0, count);
+  }
+
+}
@@ -0,0 +1,118 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.utils;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Immutable consistent hash ring: every node is placed at many points (virtual nodes) of a
+ * 64 bit circle, and a key belongs to the first node clockwise from its own hash. Adding or
+ * removing one of n nodes moves about 1/n of the keys, and the virtual nodes spread them
+ * evenly. When a key's node cannot be used the next distinct node clockwise takes over, so
+ * the keys of a failed node are spread over the others instead of all landing on one.
+ */
+public final class ConsistentHashRing<T> {
+
+  private static final HashFunction HASH = Hashing.murmur3_128();
+
+  private final List<T> nodes;
+  // Points of the circle, sorted, and the index in nodes of the one at each point.
+  private final long[] points;
+  private final int[] owners;
+
+  private ConsistentHashRing(List<T> nodes, long[] points, int[] owners) {
+    this.nodes = nodes;
+    this.points = points;
+    this.owners = owners;
+  }
+
+  /**
+   * @param nameOf a name unique to each node, e.g. host:port, that places it on the circle
+   * @param virtualNodes points per node
+   */
+  public static <T> ConsistentHashRing<T> of(List<T> nodes, Function<T, String> nameOf,
+      int virtualNodes) {
+    if (nodes.isEmpty() || virtualNodes <= 0) {
+      throw new IllegalArgumentException("A ring needs nodes and virtual nodes");
+    }
+    TreeMap<Long, Integer> ownersByPoint = new TreeMap<>();
+    for (int node = 0; node < nodes.size(); node++) {
+      String name = nameOf.apply(nodes.get(node));
+      for (int i = 0; i < virtualNodes; i++) {
+        // On the rare collision the first node keeps the point.
+        ownersByPoint.putIfAbsent(hash(name + '#' + i), node);
+      }
+    }
+
+    long[] points = new long[ownersByPoint.size()];
+    int[] owners = new int[points.length];
+    int i = 0;
+    for (Map.Entry<Long, Integer> entry : ownersByPoint.entrySet()) {
+      points[i] = entry.getKey();
+      owners[i] = entry.getValue();
+      i++;
+    }
+    return new ConsistentHashRing<>(Collections.unmodifiableList(new ArrayList<>(nodes)),
+        points, owners);
+  }
+
+  /**
+   * The node the key belongs to.
+   */
+  public T nodeFor(String key) {
+    return nodeFor(key, node -> true);
+  }
+
+  /**
+   * The first node clockwise from the key that can be used, null when none can.
+   */
+  public T nodeFor(String key, Predicate<T> usable) {
+    int start = firstPointAtOrAfter(hash(key));
+    boolean[] tried = new boolean[nodes.size()];
+    int triedCount = 0;
+    for (int i = 0; i < points.length && triedCount < tried.length; i++) {
+      int owner = owners[(start + i) % points.length];
+      if (tried[owner]) {
+        continue;
+      }
+      tried[owner] = true;
+      triedCount++;
+      if (usable.test(nodes.get(owner))) {
+        return nodes.get(owner);
+      }
+    }
+    return null;
+  }
+
+  public List<T> getNodes() {
+    return nodes;
+  }
+
+  private int firstPointAtOrAfter(long hash) {
+    int index = Arrays.binarySearch(points, hash);
+    if (index < 0) {
+      index = -index - 1;
+    }
+    // Past the last point the circle wraps around to the first.
+    return index == points.length ? 0 : index;
+  }
+
+  private static long hash(String value) {
+    return HASH.hashString(value, StandardCharsets.UTF_8).asLong();
+  }
+
+}
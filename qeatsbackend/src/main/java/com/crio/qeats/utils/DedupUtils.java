@@ -0,0 +1,56 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.utils;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Concatenates result lists keeping only the first occurrence of each restaurant, in order.
+ * Restaurants are told apart by their id alone, never by comparing every field.
+ */
+public final class DedupUtils {
+
+  private DedupUtils() {
+  }
+
+  /**
+   * Merge by a string id, e.g. restaurantId. Ids are hashed once each (String caches its
+   * hash), so the merge is linear in the total size. Null lists are skipped.
+   */
+  public static <T> List<T> mergeById(List<? extends List<? extends T>> lists,
+      Function<? super T, String> id) {
+    int total = totalSize(lists);
+    List<T> merged = new ArrayList<>(total);
+    Set<String> seen = new HashSet<>(Math.max(16, total * 4 / 3 + 1));
+    for (List<? extends T> list : lists) {
+      if (list == null) {
+        continue;
+      }
+      for (T element : list) {
+        if (seen.add(id.apply(element))) {
+          merged.add(element);
+        }
+      }
+    }
+    return merged;
+  }
+
+  private static int totalSize(List<? extends List<?>> lists) {
+    int total = 0;
+    for (List<?> list : lists) {
+      if (list != null) {
+        total += list.size();
+      }
+    }
+    return total;
+  }
+
+}
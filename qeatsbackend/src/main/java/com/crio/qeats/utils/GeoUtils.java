@@ -7,6 +7,12 @@
 
 package com.crio.qeats.utils;
 
+import ch.hsr.geohash.BoundingBox;
+import ch.hsr.geohash.GeoHash;
+import ch.hsr.geohash.util.BoundingBoxGeoHashIterator;
+import ch.hsr.geohash.util.TwoGeoHashBoundingBox;
+import java.util.ArrayList;
+import java.util.List;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 
@@ -19,6 +25,36 @@ public class GeoUtils {
     return distance(srcLatitude, dstLatitude, srcLongitude, dstLongitude, 0, 0);
   }
 
+  /**
+   * Lists the GeoHash cells of the given precision whose area may lie within radiusInKms of
+   * the point. The cells cover the bounding box of the circle, so the result is a superset.
+   *
+   * @return base32 GeoHash strings of the covering cells
+   */
+  public static List<String> findGeoHashesWithinKm(double latitude, double longitude,
+      double radiusInKms, int characterPrecision) {
+    final double kmsPerDegree = 111.32;
+    double latitudeDelta = radiusInKms / kmsPerDegree;
+    double longitudeDelta = radiusInKms
+        / (kmsPerDegree * Math.max(Math.cos(Math.toRadians(latitude)), 0.01));
+
+    BoundingBox boundingBox = new BoundingBox(
+        Math.max(latitude - latitudeDelta, -90.0),
+        Math.min(latitude + latitudeDelta, 90.0),
+        Math.max(longitude - longitudeDelta, -180.0),
+        Math.min(longitude + longitudeDelta, 180.0));
+
+    BoundingBoxGeoHashIterator iterator = new BoundingBoxGeoHashIterator(
+        TwoGeoHashBoundingBox.withCharacterPrecision(boundingBox, characterPrecision));
+
+    List<String> geoHashes = new ArrayList<>();
+    while (iterator.hasNext()) {
+      GeoHash geoHash = iterator.next();
+      geoHashes.add(geoHash.toBase32());
+    }
+    return geoHashes;
+  }
+
   /**
    * THIS IS BORROWED CODE. Calculate distance between two points in latitude and longitude taking
    * into account height difference. If you are not interested in height difference pass 0.0. Uses
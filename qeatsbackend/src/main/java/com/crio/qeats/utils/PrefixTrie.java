@@ -0,0 +1,177 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import lombok.Value;
+
+/**
+ * Immutable compact (radix) trie answering "the best completions of this prefix". Chains of
+ * single-child nodes are merged into one edge, and every node holds its best completions
+ * already ranked, so a lookup is a walk down at most prefix-length edges with no search of
+ * the subtree.
+ * Keys are matched as given; callers normalize them (e.g. lower case) on both sides.
+ */
+public final class PrefixTrie {
+
+  private static final Comparator<Completion> BEST_FIRST = Comparator
+      .comparingDouble(Completion::getScore).reversed()
+      .thenComparing(Completion::getText);
+
+  private final Node root;
+  private final int size;
+
+  private PrefixTrie(Node root, int size) {
+    this.root = root;
+    this.size = size;
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * The completions of keys starting with the prefix, best first.
+   * @param limit at most this many, no more than the topK the trie was built with
+   */
+  public List<Completion> complete(String prefix, int limit) {
+    Node node = root;
+    int matched = 0;
+    while (matched < prefix.length()) {
+      node = node.child(prefix.charAt(matched));
+      if (node == null) {
+        return Collections.emptyList();
+      }
+      int length = Math.min(node.label.length(), prefix.length() - matched);
+      if (!node.label.regionMatches(0, prefix, matched, length)) {
+        return Collections.emptyList();
+      }
+      matched += length;
+    }
+    Completion[] best = node.best;
+    return Arrays.asList(best).subList(0, Math.min(limit, best.length));
+  }
+
+  /**
+   * Number of keys.
+   */
+  public int size() {
+    return size;
+  }
+
+  @Value
+  public static class Completion {
+    String text;
+    double score;
+  }
+
+  private static final class Node {
+    private final String label;
+    private final char[] firstChars;
+    private final Node[] children;
+    private final Completion[] best;
+
+    private Node(String label, char[] firstChars, Node[] children, Completion[] best) {
+      this.label = label;
+      this.firstChars = firstChars;
+      this.children = children;
+      this.best = best;
+    }
+
+    private Node child(char c) {
+      int index = Arrays.binarySearch(firstChars, c);
+      return index < 0 ? null : children[index];
+    }
+  }
+
+  public static final class Builder {
+
+    // Sorted, so the trie can be built from contiguous ranges of keys.
+    private final TreeMap<String, Map<String, Double>> completionsByKey = new TreeMap<>();
+
+    private Builder() {
+    }
+
+    /**
+     * Make text a completion of every prefix of key. A text added under several keys, e.g.
+     * every word of a name, is still returned once per lookup, with its highest score.
+     */
+    public Builder add(String key, String text, double score) {
+      completionsByKey.computeIfAbsent(key, k -> new HashMap<>(2)).merge(text, score, Math::max);
+      return this;
+    }
+
+    /**
+     * @param topK how many completions every node keeps
+     */
+    public PrefixTrie build(int topK) {
+      String[] keys = completionsByKey.keySet().toArray(new String[0]);
+      return new PrefixTrie(build("", keys, 0, keys.length, 0, topK), keys.length);
+    }
+
+    // Builds the node for keys[from, to), which share their first depth chars; the node's edge
+    // is label, the part of those chars below its parent.
+    private Node build(String label, String[] keys, int from, int to, int depth, int topK) {
+      List<Completion> candidates = new ArrayList<>();
+      int start = from;
+      if (start < to && keys[start].length() == depth) {
+        completionsByKey.get(keys[start]).forEach(
+            (text, score) -> candidates.add(new Completion(text, score)));
+        start++;
+      }
+
+      List<Node> children = new ArrayList<>();
+      while (start < to) {
+        char first = keys[start].charAt(depth);
+        int end = start + 1;
+        while (end < to && keys[end].charAt(depth) == first) {
+          end++;
+        }
+        // The keys share everything up to where the first and last of them (sorted) differ.
+        int common = commonPrefixLength(keys[start], keys[end - 1], depth);
+        Node child = build(keys[start].substring(depth, common), keys, start, end, common, topK);
+        children.add(child);
+        candidates.addAll(Arrays.asList(child.best));
+        start = end;
+      }
+
+      char[] firstChars = new char[children.size()];
+      for (int i = 0; i < firstChars.length; i++) {
+        firstChars[i] = children.get(i).label.charAt(0);
+      }
+      return new Node(label, firstChars, children.toArray(new Node[0]), best(candidates, topK));
+    }
+
+    private static int commonPrefixLength(String first, String last, int from) {
+      int max = Math.min(first.length(), last.length());
+      int length = from;
+      while (length < max && first.charAt(length) == last.charAt(length)) {
+        length++;
+      }
+      return length;
+    }
+
+    private static Completion[] best(List<Completion> candidates, int topK) {
+      Map<String, Completion> byText = new HashMap<>();
+      for (Completion candidate : candidates) {
+        byText.merge(candidate.getText(), candidate,
+            (a, b) -> a.getScore() >= b.getScore() ? a : b);
+      }
+      List<Completion> best = new ArrayList<>(byText.values());
+      best.sort(BEST_FIRST);
+      return best.subList(0, Math.min(topK, best.size())).toArray(new Completion[0]);
+    }
+  }
+
+}
@@ -0,0 +1,44 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.utils;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Read only view of restaurants served from a cache entry past its soft TTL, while it is being
+ * refreshed or because it could not be. It travels up through the services like any list and
+ * the controller tells the client the response is stale.
+ */
+public final class StaleList<E> extends AbstractList<E> implements RandomAccess {
+
+  private final List<E> elements;
+
+  private StaleList(List<E> elements) {
+    this.elements = elements;
+  }
+
+  public static <E> List<E> of(List<E> elements) {
+    return elements instanceof StaleList ? elements : new StaleList<>(elements);
+  }
+
+  public static boolean isStale(List<?> list) {
+    return list instanceof StaleList;
+  }
+
+  @Override
+  public E get(int index) {
+    return elements.get(index);
+  }
+
+  @Override
+  public int size() {
+    return elements.size();
+  }
+
+}
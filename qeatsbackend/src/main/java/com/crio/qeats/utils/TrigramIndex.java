@@ -0,0 +1,162 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.utils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import lombok.Value;
+
+/**
+ * Immutable index of words by their trigrams, answering "the words within k edits of this
+ * one" without comparing against the whole vocabulary.
+ * A word within k edits of the query keeps all but at most 3k of the query's trigrams, so
+ * only the words sharing enough trigrams with it are compared, with an edit distance that
+ * gives up past k.
+ */
+public final class TrigramIndex {
+
+  // Words are padded so their first and last letters get trigrams of their own.
+  private static final String PADDING = "$$";
+
+  private final String[] words;
+  private final Map<String, Integer> idsByWord;
+  private final Map<String, int[]> wordIdsByTrigram;
+
+  private TrigramIndex(String[] words, Map<String, Integer> idsByWord,
+      Map<String, int[]> wordIdsByTrigram) {
+    this.words = words;
+    this.idsByWord = idsByWord;
+    this.wordIdsByTrigram = wordIdsByTrigram;
+  }
+
+  /**
+   * Index the words as given; callers normalize them (e.g. lower case) on both sides.
+   */
+  public static TrigramIndex of(Collection<String> words) {
+    String[] distinctWords = new LinkedHashSet<>(words).toArray(new String[0]);
+    Map<String, Integer> idsByWord = new HashMap<>();
+    Map<String, List<Integer>> idLists = new HashMap<>();
+    for (int id = 0; id < distinctWords.length; id++) {
+      idsByWord.put(distinctWords[id], id);
+      for (String trigram : trigramsOf(distinctWords[id])) {
+        idLists.computeIfAbsent(trigram, t -> new ArrayList<>()).add(id);
+      }
+    }
+
+    Map<String, int[]> wordIdsByTrigram = new HashMap<>();
+    idLists.forEach((trigram, ids) ->
+        wordIdsByTrigram.put(trigram, ids.stream().mapToInt(Integer::intValue).toArray()));
+    return new TrigramIndex(distinctWords, idsByWord, wordIdsByTrigram);
+  }
+
+  /**
+   * The indexed words at most maxEdits insertions, deletions or substitutions away from word,
+   * in no particular order.
+   */
+  public List<Match> find(String word, int maxEdits) {
+    List<Match> matches = new ArrayList<>();
+    if (maxEdits <= 0) {
+      if (idsByWord.containsKey(word)) {
+        matches.add(new Match(word, 0));
+      }
+      return matches;
+    }
+
+    Set<String> trigrams = trigramsOf(word);
+    int minShared = trigrams.size() - 3 * maxEdits;
+    if (minShared <= 0) {
+      // Too short, or too repetitive, for trigrams to tell anything apart.
+      for (String candidate : words) {
+        addIfClose(matches, word, candidate, maxEdits);
+      }
+      return matches;
+    }
+
+    Map<Integer, Integer> sharedById = new HashMap<>();
+    for (String trigram : trigrams) {
+      int[] ids = wordIdsByTrigram.get(trigram);
+      if (ids != null) {
+        for (int id : ids) {
+          sharedById.merge(id, 1, Integer::sum);
+        }
+      }
+    }
+    sharedById.forEach((id, shared) -> {
+      if (shared >= minShared) {
+        addIfClose(matches, word, words[id], maxEdits);
+      }
+    });
+    return matches;
+  }
+
+  /**
+   * Number of distinct words.
+   */
+  public int size() {
+    return words.length;
+  }
+
+  /**
+   * Levenshtein distance between a and b, or maxEdits + 1 as soon as it is known to be more
+   * than maxEdits.
+   */
+  public static int editDistance(String a, String b, int maxEdits) {
+    if (Math.abs(a.length() - b.length()) > maxEdits) {
+      return maxEdits + 1;
+    }
+    int[] previous = new int[b.length() + 1];
+    int[] current = new int[b.length() + 1];
+    for (int j = 0; j <= b.length(); j++) {
+      previous[j] = j;
+    }
+    for (int i = 1; i <= a.length(); i++) {
+      current[0] = i;
+      int rowMin = i;
+      for (int j = 1; j <= b.length(); j++) {
+        int substitution = previous[j - 1] + (a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1);
+        current[j] = Math.min(substitution, Math.min(previous[j], current[j - 1]) + 1);
+        rowMin = Math.min(rowMin, current[j]);
+      }
+      if (rowMin > maxEdits) {
+        return maxEdits + 1;
+      }
+      int[] swap = previous;
+      previous = current;
+      current = swap;
+    }
+    return Math.min(previous[b.length()], maxEdits + 1);
+  }
+
+  @Value
+  public static class Match {
+    String word;
+    int edits;
+  }
+
+  private static void addIfClose(List<Match> matches, String word, String candidate,
+      int maxEdits) {
+    int edits = editDistance(word, candidate, maxEdits);
+    if (edits <= maxEdits) {
+      matches.add(new Match(candidate, edits));
+    }
+  }
+
+  private static Set<String> trigramsOf(String word) {
+    String padded = PADDING + word + PADDING;
+    Set<String> trigrams = new LinkedHashSet<>();
+    for (int i = 0; i + 3 <= padded.length(); i++) {
+      trigrams.add(padded.substring(i, i + 3));
+    }
+    return trigrams;
+  }
+
+}
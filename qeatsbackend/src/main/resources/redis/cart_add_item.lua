@@ -0,0 +1,20 @@
+-- Adds one of an item to a cart.
+-- KEYS[1] cart key
+-- ARGV[1] restaurantId, ARGV[2] itemId, ARGV[3] item json, ARGV[4] price,
+-- ARGV[5] expiry in seconds
+-- Returns {-1} if there is no such cart, {-2} if the cart holds items of another restaurant,
+-- else {0, cart fields}.
+if redis.call('EXISTS', KEYS[1]) == 0 then
+  return {-1}
+end
+local restaurantId = redis.call('HGET', KEYS[1], 'restaurantId')
+if restaurantId ~= '' and restaurantId ~= ARGV[1] then
+  return {-2}
+end
+redis.call('HMSET', KEYS[1], 'restaurantId', ARGV[1],
+    'item:' .. ARGV[2], ARGV[3], 'price:' .. ARGV[2], ARGV[4])
+redis.call('HINCRBY', KEYS[1], 'qty:' .. ARGV[2], 1)
+redis.call('HINCRBY', KEYS[1], 'count', 1)
+redis.call('HINCRBY', KEYS[1], 'total', ARGV[4])
+redis.call('EXPIRE', KEYS[1], ARGV[5])
+return {0, redis.call('HGETALL', KEYS[1])}
@@ -0,0 +1,21 @@
+-- Empties a cart, keeping its owner. When ARGV[2] is 'checkout' an empty cart is refused and
+-- the cart is returned as it was before clearing.
+-- KEYS[1] cart key
+-- ARGV[1] expiry in seconds, ARGV[2] 'checkout' or 'clear'
+-- Returns {-1} if there is no such cart, {-3} on checkout of an empty cart,
+-- else {0, cart fields}.
+if redis.call('EXISTS', KEYS[1]) == 0 then
+  return {-1}
+end
+local cart = redis.call('HGETALL', KEYS[1])
+if ARGV[2] == 'checkout' and tonumber(redis.call('HGET', KEYS[1], 'count')) == 0 then
+  return {-3}
+end
+local userId = redis.call('HGET', KEYS[1], 'userId')
+redis.call('DEL', KEYS[1])
+redis.call('HMSET', KEYS[1], 'userId', userId, 'restaurantId', '', 'total', 0, 'count', 0)
+redis.call('EXPIRE', KEYS[1], ARGV[1])
+if ARGV[2] == 'checkout' then
+  return {0, cart}
+end
+return {0, redis.call('HGETALL', KEYS[1])}
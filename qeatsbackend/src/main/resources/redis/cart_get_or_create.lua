@@ -0,0 +1,13 @@
+-- Returns the cart of a user, creating an empty one when the user has none.
+-- KEYS[1] user -> cartId key, KEYS[2] key of the cart to create if needed
+-- ARGV[1] id of the cart to create, ARGV[2] userId, ARGV[3] expiry in seconds,
+-- ARGV[4] prefix of cart keys
+local cartId = redis.call('GET', KEYS[1])
+local cartKey = cartId and (ARGV[4] .. cartId) or KEYS[2]
+if not cartId or redis.call('EXISTS', cartKey) == 0 then
+  cartId = cartId or ARGV[1]
+  redis.call('HMSET', cartKey, 'userId', ARGV[2], 'restaurantId', '', 'total', 0, 'count', 0)
+end
+redis.call('SET', KEYS[1], cartId, 'EX', ARGV[3])
+redis.call('EXPIRE', cartKey, ARGV[3])
+return {cartId, redis.call('HGETALL', cartKey)}
@@ -0,0 +1,22 @@
+-- Removes one of an item from a cart; removing an item the cart does not hold is a no-op.
+-- KEYS[1] cart key
+-- ARGV[1] itemId, ARGV[2] expiry in seconds
+-- Returns {-1} if there is no such cart, else {0, cart fields}.
+if redis.call('EXISTS', KEYS[1]) == 0 then
+  return {-1}
+end
+local qty = tonumber(redis.call('HGET', KEYS[1], 'qty:' .. ARGV[1]) or '0')
+if qty > 0 then
+  local price = tonumber(redis.call('HGET', KEYS[1], 'price:' .. ARGV[1]))
+  if qty == 1 then
+    redis.call('HDEL', KEYS[1], 'qty:' .. ARGV[1], 'item:' .. ARGV[1], 'price:' .. ARGV[1])
+  else
+    redis.call('HINCRBY', KEYS[1], 'qty:' .. ARGV[1], -1)
+  end
+  redis.call('HINCRBY', KEYS[1], 'total', -price)
+  if redis.call('HINCRBY', KEYS[1], 'count', -1) == 0 then
+    redis.call('HSET', KEYS[1], 'restaurantId', '')
+  end
+end
+redis.call('EXPIRE', KEYS[1], ARGV[2])
+return {0, redis.call('HGETALL', KEYS[1])}
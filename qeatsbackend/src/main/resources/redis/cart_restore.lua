@@ -0,0 +1,15 @@
+-- Puts a checked out cart back when its order could not be queued, unless items were added to
+-- the cart since, which the user would lose.
+-- KEYS[1] cart key
+-- ARGV[1] expiry in seconds, ARGV[2..] the cart fields as checked out
+-- Returns {-1} if there is no such cart, {-3} if it is no longer empty, else {0, cart fields}.
+if redis.call('EXISTS', KEYS[1]) == 0 then
+  return {-1}
+end
+if tonumber(redis.call('HGET', KEYS[1], 'count')) ~= 0 then
+  return {-3}
+end
+redis.call('DEL', KEYS[1])
+redis.call('HMSET', KEYS[1], unpack(ARGV, 2))
+redis.call('EXPIRE', KEYS[1], ARGV[1])
+return {0, redis.call('HGETALL', KEYS[1])}
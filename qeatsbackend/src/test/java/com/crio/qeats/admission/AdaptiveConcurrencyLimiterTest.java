@@ -0,0 +1,91 @@
+package com.crio.qeats.admission;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.crio.qeats.exceptions.ServiceOverloadedException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+class AdaptiveConcurrencyLimiterTest {
+
+  private final AtomicLong clock = new AtomicLong();
+
+  @Test
+  void requestsOverTheLimitAreRefusedUntilAPermitIsReturned() {
+    AdaptiveConcurrencyLimiter limiter =
+        new AdaptiveConcurrencyLimiter(true, 2, 1, 10, 2.0, clock::get);
+
+    long first = limiter.acquire();
+    limiter.acquire();
+    assertThrows(ServiceOverloadedException.class, limiter::acquire);
+    assertEquals(1, limiter.getRejected());
+
+    clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(10));
+    limiter.release(first);
+    limiter.acquire();
+    assertEquals(2, limiter.getInFlight());
+  }
+
+  @Test
+  void limitGrowsWhileLatencyIsFlatAndShrinksWhenItRises() {
+    AdaptiveConcurrencyLimiter limiter =
+        new AdaptiveConcurrencyLimiter(true, 10, 4, 50, 2.0, clock::get);
+
+    for (int i = 0; i < 50; i++) {
+      runFullyLoaded(limiter, 10);
+    }
+    assertEquals(50, limiter.getLimit());
+
+    // Mongo slows down: latency far above twice its usual.
+    for (int i = 0; i < 20; i++) {
+      runFullyLoaded(limiter, 100);
+    }
+    assertTrue(limiter.getLimit() < 10, "limit " + limiter.getLimit());
+    assertTrue(limiter.getLimit() >= 4);
+
+    for (int i = 0; i < 50; i++) {
+      runFullyLoaded(limiter, 10);
+    }
+    assertEquals(50, limiter.getLimit());
+  }
+
+  @Test
+  void idlePermitsDoNotGrowTheLimit() {
+    AdaptiveConcurrencyLimiter limiter =
+        new AdaptiveConcurrencyLimiter(true, 10, 4, 50, 2.0, clock::get);
+
+    for (int i = 0; i < 100; i++) {
+      long start = limiter.acquire();
+      clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(10));
+      limiter.release(start);
+    }
+    assertEquals(10, limiter.getLimit());
+  }
+
+  @Test
+  void disabledLimiterAdmitsEverything() {
+    AdaptiveConcurrencyLimiter limiter =
+        new AdaptiveConcurrencyLimiter(false, 1, 1, 1, 2.0, clock::get);
+
+    limiter.acquire();
+    limiter.acquire();
+    assertEquals(0, limiter.getRejected());
+  }
+
+  // Takes every permit, lets the requests run for the given time, then returns them.
+  private void runFullyLoaded(AdaptiveConcurrencyLimiter limiter, long rttMillis) {
+    int permits = limiter.getLimit();
+    long[] starts = new long[permits];
+    for (int i = 0; i < permits; i++) {
+      starts[i] = limiter.acquire();
+    }
+    clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(rttMillis));
+    for (long start : starts) {
+      limiter.release(start);
+    }
+  }
+
+}
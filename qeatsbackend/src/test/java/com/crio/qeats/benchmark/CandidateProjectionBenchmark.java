@@ -0,0 +1,110 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.benchmark;
+
+import com.crio.qeats.models.RestaurantEntity;
+import com.crio.qeats.repositories.RestaurantRepository;
+import com.mongodb.MongoClient;
+import com.mongodb.MongoClientURI;
+import com.mongodb.client.MongoCollection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.BasicQuery;
+
+/**
+ * Compares reading whole restaurant documents, as the close by path did, with reading the
+ * candidate projection of RestaurantRepository.findAllRestaurantCandidates. It fills a
+ * scratch database with synthetic restaurants, the fields of RestaurantEntity plus a phone
+ * number and a description, then prints the BSON bytes each read returns and how long
+ * reading and mapping them to RestaurantEntity takes, e.g.
+ *   ./gradlew :qeatsbackend:projectionBenchmark -Prestaurants=20000 -Prounds=10
+ * The database named in the URI is dropped first, never point it at real data.
+ */
+public class CandidateProjectionBenchmark {
+
+  private static final String COLLECTION = "restaurants";
+  private static final String[] ATTRIBUTES = {"Tamil", "South Indian", "North Indian",
+      "Chinese", "Mughlai", "Cafe", "Bakery", "Desserts"};
+
+  public static void main(String[] args) {
+    String uri = args.length > 0 ? args[0] : "mongodb://localhost:27017/qeats-benchmark";
+    int restaurants = args.length > 1 ? Integer.parseInt(args[1]) : 20000;
+    int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+
+    MongoClientURI clientUri = new MongoClientURI(uri);
+    MongoClient mongoClient = new MongoClient(clientUri);
+    try {
+      MongoTemplate mongoTemplate = new MongoTemplate(mongoClient, clientUri.getDatabase());
+      mongoTemplate.getDb().drop();
+      insertRestaurants(mongoTemplate, restaurants);
+
+      BsonDocument candidateFields = BsonDocument.parse(RestaurantRepository.CANDIDATE_FIELDS);
+      // Once each first, so both runs find the documents in memory and the classes loaded.
+      measure(mongoTemplate, new BsonDocument(), 1);
+      measure(mongoTemplate, candidateFields, 1);
+
+      System.out.printf("restaurants=%d rounds=%d%n", restaurants, rounds);
+      System.out.println("full documents: " + measure(mongoTemplate, new BsonDocument(), rounds));
+      System.out.println("candidates:     " + measure(mongoTemplate, candidateFields, rounds));
+      mongoTemplate.getDb().drop();
+    } finally {
+      mongoClient.close();
+    }
+  }
+
+  private static void insertRestaurants(MongoTemplate mongoTemplate, int restaurants) {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    List<Document> documents = new ArrayList<>(restaurants);
+    for (int i = 0; i < restaurants; i++) {
+      String restaurantId = String.valueOf(i);
+      documents.add(new Document("restaurantId", restaurantId)
+          .append("name", "Restaurant " + restaurantId)
+          .append("city", "Bangalore")
+          .append("imageUrl", "https://images.qeats.example/restaurants/" + restaurantId + ".jpg")
+          .append("latitude", 12.9 + random.nextDouble() * 0.1)
+          .append("longitude", 77.55 + random.nextDouble() * 0.1)
+          .append("opensAt", String.format("%02d:00", 6 + random.nextInt(6)))
+          .append("closesAt", String.format("%02d:00", 18 + random.nextInt(6)))
+          .append("attributes", Arrays.asList(ATTRIBUTES[random.nextInt(ATTRIBUTES.length)],
+              ATTRIBUTES[random.nextInt(ATTRIBUTES.length)]))
+          .append("phone", "+91 80 " + (10000000 + random.nextInt(90000000)))
+          .append("description", "Serving " + ATTRIBUTES[random.nextInt(ATTRIBUTES.length)]
+              + " food to the neighbourhood since " + (1950 + random.nextInt(70))
+              + ", with seating for families and quick takeaway."));
+    }
+    mongoTemplate.getCollection(COLLECTION).insertMany(documents);
+  }
+
+  // An empty projection reads whole documents.
+  private static String measure(MongoTemplate mongoTemplate, BsonDocument fields, int rounds) {
+    MongoCollection<RawBsonDocument> collection =
+        mongoTemplate.getDb().getCollection(COLLECTION, RawBsonDocument.class);
+    long bytes = 0;
+    for (RawBsonDocument document : collection.find().projection(fields)) {
+      bytes += document.getByteBuffer().remaining();
+    }
+
+    BasicQuery query = new BasicQuery(new Document(), Document.parse(fields.toJson()));
+    long[] nanos = new long[rounds];
+    int found = 0;
+    for (int round = 0; round < rounds; round++) {
+      long start = System.nanoTime();
+      found = mongoTemplate.find(query, RestaurantEntity.class, COLLECTION).size();
+      nanos[round] = System.nanoTime() - start;
+    }
+    Arrays.sort(nanos);
+    return String.format("documents=%d bytes=%.1fMB read+map p50=%.1fms min=%.1fms", found,
+        bytes / 1e6, nanos[rounds / 2] / 1e6, nanos[0] / 1e6);
+  }
+
+}
@@ -0,0 +1,138 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closed-loop load against a running server: each of the clients sends GET /restaurants
+ * searches back to back for the given time, then throughput and latency percentiles are
+ * printed. Start the server once with qeats.threads.virtual=false and once with true and
+ * compare, e.g.
+ *   ./gradlew :qeatsbackend:bootRun -PrunJavaHome=/opt/jdk-21 --args=--qeats.threads.virtual=true
+ *   ./gradlew :qeatsbackend:loadBenchmark -Pclients=2000 -PdurationSeconds=60
+ * Run client, server and Mongo on separate machines, on a shared one the CPU is the limit and
+ * both modes measure the same.
+ */
+public class RestaurantsLoadBenchmark {
+
+  private static final String[] SEARCHES = {"", "A2B", "Biryani", "South Indian", "Naan"};
+
+  public static void main(String[] args) throws Exception {
+    String baseUrl = args.length > 0 ? args[0] : "http://localhost:8081/qeats/v1/restaurants";
+    int clients = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+    int durationSeconds = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+
+    // Java 8 URL connections keep-alive up to http.maxConnections per host.
+    System.setProperty("http.maxConnections", String.valueOf(clients));
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(durationSeconds);
+    List<long[]> latenciesPerClient = new ArrayList<>();
+    AtomicLong errors = new AtomicLong();
+    CountDownLatch done = new CountDownLatch(clients);
+    ExecutorService executor = Executors.newFixedThreadPool(clients);
+
+    for (int i = 0; i < clients; i++) {
+      long[] latencies = new long[1 << 16];
+      latenciesPerClient.add(latencies);
+      executor.execute(() -> {
+        try {
+          int count = 0;
+          while (System.nanoTime() < deadline) {
+            long start = System.nanoTime();
+            if (!get(randomSearch(baseUrl))) {
+              errors.incrementAndGet();
+            }
+            if (count + 1 < latencies.length) {
+              latencies[++count] = System.nanoTime() - start;
+            }
+          }
+          // The first slot holds how many latencies the client recorded.
+          latencies[0] = count;
+        } finally {
+          done.countDown();
+        }
+      });
+    }
+    done.await();
+    executor.shutdown();
+    report(latenciesPerClient, errors.get(), clients, durationSeconds);
+  }
+
+  private static String randomSearch(String baseUrl) {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    // Around central Bangalore, where the initial data set has its restaurants.
+    double latitude = 12.9 + random.nextDouble() * 0.1;
+    double longitude = 77.55 + random.nextDouble() * 0.1;
+    String search = SEARCHES[random.nextInt(SEARCHES.length)];
+    return baseUrl + "?latitude=" + latitude + "&longitude=" + longitude
+        + (search.isEmpty() ? "" : "&searchFor=" + search.replace(" ", "%20"));
+  }
+
+  private static boolean get(String url) {
+    try {
+      HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+      connection.setConnectTimeout(10000);
+      connection.setReadTimeout(30000);
+      int status = connection.getResponseCode();
+      InputStream body = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+      if (body != null) {
+        // Read to the end so the connection goes back to the keep-alive cache.
+        byte[] buffer = new byte[8192];
+        while (body.read(buffer) != -1) {
+          continue;
+        }
+        body.close();
+      }
+      return status == 200;
+    } catch (IOException e) {
+      return false;
+    }
+  }
+
+  private static void report(List<long[]> latenciesPerClient, long errors, int clients,
+      int durationSeconds) {
+    int total = 0;
+    for (long[] latencies : latenciesPerClient) {
+      total += (int) latencies[0];
+    }
+    long[] all = new long[total];
+    int position = 0;
+    for (long[] latencies : latenciesPerClient) {
+      int count = (int) latencies[0];
+      System.arraycopy(latencies, 1, all, position, count);
+      position += count;
+    }
+    Arrays.sort(all);
+
+    System.out.printf("clients=%d duration=%ds requests=%d errors=%d%n",
+        clients, durationSeconds, total, errors);
+    System.out.printf("throughput=%.1f req/s%n", total / (double) durationSeconds);
+    System.out.printf("p50=%.1fms p99=%.1fms max=%.1fms%n",
+        percentile(all, 0.50), percentile(all, 0.99), percentile(all, 1.0));
+  }
+
+  private static double percentile(long[] sorted, double percentile) {
+    if (sorted.length == 0) {
+      return 0;
+    }
+    int index = (int) Math.ceil(percentile * sorted.length) - 1;
+    return sorted[Math.max(0, index)] / 1e6;
+  }
+
+}
@@ -0,0 +1,186 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.configs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import ch.hsr.geohash.GeoHash;
+import com.crio.qeats.globals.GlobalConstants;
+import com.crio.qeats.utils.GeoUtils;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+import redis.embedded.RedisServer;
+
+class RedisRingTest {
+
+  private static final int[] PORTS = {6391, 6392, 6393};
+
+  private final Map<String, RedisServer> servers = new HashMap<>();
+  private RedisRing redisRing;
+
+  @BeforeEach
+  void setup() throws IOException {
+    StringBuilder nodes = new StringBuilder();
+    for (int port : PORTS) {
+      RedisServer server = new RedisServer(port);
+      server.start();
+      servers.put("localhost:" + port, server);
+      nodes.append(nodes.length() == 0 ? "" : ",").append("localhost:").append(port);
+    }
+    redisRing = new RedisRing();
+    ReflectionTestUtils.setField(redisRing, "nodeAddresses", nodes.toString());
+    // Recovery is run by the tests.
+    ReflectionTestUtils.setField(redisRing, "retryIntervalMs", 3600000L);
+    redisRing.start();
+  }
+
+  @AfterEach
+  void teardown() {
+    redisRing.stop();
+    for (RedisServer server : servers.values()) {
+      server.stop();
+    }
+  }
+
+  @Test
+  void reactiveModeCannotUseTheNodes() {
+    RedisRing reactiveRing = new RedisRing();
+    ReflectionTestUtils.setField(reactiveRing, "nodeAddresses", "localhost:" + PORTS[0]);
+    ReflectionTestUtils.setField(reactiveRing, "reactive", true);
+
+    assertThrows(IllegalStateException.class, reactiveRing::start);
+  }
+
+  @Test
+  void neighbouringCellsAreOnOneNodeAndAreasOnAllOfThem() {
+    String cell = GeoHash.withCharacterPrecision(12.97, 77.59, 7).toBase32();
+    Set<String> nodes = new HashSet<>();
+    for (String neighbour : GeoUtils.findGeoHashesWithinKm(12.97, 77.59, 0.3,
+        GlobalConstants.GEOHASH_PRECISION)) {
+      if (neighbour.startsWith(cell.substring(0, 5))) {
+        nodes.add(redisRing.nodeOf(neighbour));
+      }
+    }
+    assertEquals(1, nodes.size());
+
+    Set<String> allNodes = new HashSet<>();
+    for (double latitude = 10; latitude < 30; latitude += 0.5) {
+      allNodes.add(redisRing.nodeOf(GeoHash.withCharacterPrecision(latitude, 77.0, 7)
+          .toBase32()));
+    }
+    assertEquals(servers.keySet(), allNodes);
+
+    // Written to and read from the node of the cell.
+    try (Jedis jedis = redisRing.getResource(cell)) {
+      jedis.set(cell, "[]");
+    }
+    try (Jedis jedis = new Jedis("localhost", portOf(redisRing.nodeOf(cell)))) {
+      assertEquals("[]", jedis.get(cell));
+    }
+  }
+
+  @Test
+  void cellsOfAFailedNodeGoToAnotherUntilItIsBackWithoutItsStaleCells() throws IOException {
+    String cell = GeoHash.withCharacterPrecision(12.97, 77.59, 7).toBase32();
+    String owner = redisRing.nodeOf(cell);
+    servers.get(owner).stop();
+
+    try (Jedis jedis = redisRing.getResource(cell)) {
+      jedis.set(cell, "[\"new\"]");
+    }
+    String standIn = redisRing.nodeOf(cell);
+    assertNotEquals(owner, standIn);
+    assertTrue(redisRing.isAvailable());
+
+    // Back, still holding what it had cached before it failed.
+    RedisServer server = new RedisServer(portOf(owner));
+    server.start();
+    servers.put(owner, server);
+    try (Jedis jedis = new Jedis("localhost", portOf(owner))) {
+      jedis.set(cell, "[\"stale\"]");
+      jedis.set("menu:1", "{}");
+    }
+    redisRing.recoverNodes();
+
+    assertEquals(owner, redisRing.nodeOf(cell));
+    try (Jedis jedis = new Jedis("localhost", portOf(owner))) {
+      assertNull(jedis.get(cell));
+      assertEquals("{}", jedis.get("menu:1"));
+    }
+    try (Jedis jedis = new Jedis("localhost", portOf(standIn))) {
+      assertNull(jedis.get(cell));
+    }
+  }
+
+  @Test
+  void nodeFailingACommandIsTakenOutAndItsCellsAreStoodInFor() {
+    String cell = GeoHash.withCharacterPrecision(12.97, 77.59, 7).toBase32();
+    String owner = redisRing.nodeOf(cell);
+    assertTrue(redisRing.isOnOwnNode(cell));
+
+    try (Jedis jedis = redisRing.getResource(cell)) {
+      servers.get(owner).stop();
+      JedisConnectionException e = assertThrows(JedisConnectionException.class,
+          () -> jedis.get(cell));
+      redisRing.reportFailure(cell, e);
+    }
+
+    assertNotEquals(owner, redisRing.nodeOf(cell));
+    assertFalse(redisRing.isOnOwnNode(cell));
+  }
+
+  @Test
+  void evictionsReachEveryNodeHoldingSomeOfTheCells() {
+    List<String> cells = GeoUtils.findGeoHashesWithinKm(12.97, 77.59, 5.0,
+        GlobalConstants.GEOHASH_PRECISION);
+    for (String cell : cells) {
+      try (Jedis jedis = redisRing.getResource(cell)) {
+        jedis.set(cell, "[]");
+      }
+    }
+    Map<String, Integer> cellsByNode = new HashMap<>();
+    redisRing.forEachNode(cells, (jedis, nodeCells) -> {
+      cellsByNode.merge(jedis.getClient().getHost() + ":" + jedis.getClient().getPort(),
+          nodeCells.size(), Integer::sum);
+      jedis.del(nodeCells.toArray(new String[0]));
+    });
+
+    assertEquals(cells.size(), cellsByNode.values().stream().mapToInt(Integer::intValue).sum());
+    // Thousands of cells, but only the nodes of their few routing prefixes.
+    Set<String> prefixes = new HashSet<>();
+    for (String cell : cells) {
+      prefixes.add(cell.substring(0, 5));
+    }
+    assertTrue(cells.size() > 100 * prefixes.size());
+    assertTrue(cellsByNode.size() <= prefixes.size());
+    for (String cell : cells) {
+      try (Jedis jedis = new Jedis("localhost", portOf(redisRing.nodeOf(cell)))) {
+        assertNull(jedis.get(cell));
+      }
+    }
+  }
+
+  private static int portOf(String address) {
+    return Integer.parseInt(address.substring(address.lastIndexOf(':') + 1));
+  }
+
+}
@@ -0,0 +1,71 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.controller;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import com.crio.qeats.dto.Restaurant;
+import com.crio.qeats.exchanges.GetRestaurantsResponse;
+import com.crio.qeats.metrics.RestaurantMetrics;
+import com.crio.qeats.utils.FixtureHelpers;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+class GetRestaurantsResponseWriterTest {
+
+  private static final String FIXTURES = "fixtures/exchanges";
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+  private final RestaurantJsonFragments restaurantJsonFragments =
+      new RestaurantJsonFragments(objectMapper);
+  private final GetRestaurantsResponseWriter writer = new GetRestaurantsResponseWriter(
+      restaurantJsonFragments, new RestaurantMetrics(new SimpleMeterRegistry()));
+
+  @Test
+  void writesTheSameBytesAsJackson() throws IOException {
+    GetRestaurantsResponse response = loadSampleResponseList();
+
+    // Twice, the second time every restaurant comes from the fragment cache.
+    assertArrayEquals(objectMapper.writeValueAsBytes(response), write(response));
+    assertArrayEquals(objectMapper.writeValueAsBytes(response), write(response));
+    assertArrayEquals(objectMapper.writeValueAsBytes(new GetRestaurantsResponse()),
+        write(new GetRestaurantsResponse()));
+  }
+
+  @Test
+  void changedRestaurantIsSerializedAgain() throws IOException {
+    Restaurant restaurant = loadSampleResponseList().getRestaurants().get(0);
+    byte[] json = restaurantJsonFragments.toJson(restaurant);
+    assertSame(json, restaurantJsonFragments.toJson(restaurant));
+
+    restaurant.setName("Senior Kuppanna");
+
+    assertArrayEquals(objectMapper.writeValueAsBytes(restaurant),
+        restaurantJsonFragments.toJson(restaurant));
+  }
+
+  private byte[] write(GetRestaurantsResponse response) throws IOException {
+    MockHttpOutputMessage outputMessage = new MockHttpOutputMessage();
+    writer.write(response, MediaType.APPLICATION_JSON, outputMessage);
+    assertEquals("application/json;charset=UTF-8",
+        outputMessage.getHeaders().getContentType().toString());
+    return outputMessage.getBodyAsBytes();
+  }
+
+  private GetRestaurantsResponse loadSampleResponseList() throws IOException {
+    String fixture =
+        FixtureHelpers.fixture(FIXTURES + "/list_restaurant_response.json");
+
+    return objectMapper.readValue(fixture, GetRestaurantsResponse.class);
+  }
+}
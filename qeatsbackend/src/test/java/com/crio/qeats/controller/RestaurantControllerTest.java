@@ -11,14 +11,21 @@ import static com.crio.qeats.controller.RestaurantController.CART_API;
 import static com.crio.qeats.controller.RestaurantController.CART_CLEAR_API;
 import static com.crio.qeats.controller.RestaurantController.CART_ITEM_API;
 import static com.crio.qeats.controller.RestaurantController.GET_ORDERS_API;
+import static com.crio.qeats.controller.RestaurantController.MENUS_API;
 import static com.crio.qeats.controller.RestaurantController.MENU_API;
 import static com.crio.qeats.controller.RestaurantController.POST_ORDER_API;
 import static com.crio.qeats.controller.RestaurantController.RESTAURANTS_API;
 import static com.crio.qeats.controller.RestaurantController.RESTAURANT_API_ENDPOINT;
+import static com.crio.qeats.controller.RestaurantController.SUGGESTIONS_API;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -30,15 +37,35 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import com.crio.qeats.QEatsApplication;
+import com.crio.qeats.dto.Cart;
+import com.crio.qeats.dto.Order;
+import com.crio.qeats.exceptions.EmptyCartException;
+import com.crio.qeats.exceptions.ItemNotFromSameRestaurantException;
+import com.crio.qeats.exceptions.ServiceOverloadedException;
+import com.crio.qeats.exceptions.ServiceUnavailableException;
+import com.crio.qeats.exchanges.CartModifiedResponse;
+import com.crio.qeats.exchanges.GetMenuResponse;
+import com.crio.qeats.exchanges.GetMenusRequest;
+import com.crio.qeats.exchanges.GetMenusResponse;
 import com.crio.qeats.exchanges.GetRestaurantsRequest;
 import com.crio.qeats.exchanges.GetRestaurantsResponse;
+import com.crio.qeats.exchanges.GetSuggestionsRequest;
+import com.crio.qeats.exchanges.GetSuggestionsResponse;
+import com.crio.qeats.globals.GlobalConstants;
+import com.crio.qeats.services.CartAndOrderService;
+import com.crio.qeats.services.MenuService;
 import com.crio.qeats.services.RestaurantService;
+import com.crio.qeats.services.SuggestionService;
 import com.crio.qeats.utils.FixtureHelpers;
+import com.crio.qeats.utils.StaleList;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.io.IOException;
 import java.net.URI;
 import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
 import java.util.List;
 import java.util.NoSuchElementException;
 import org.junit.jupiter.api.BeforeEach;
@@ -51,10 +78,12 @@ import org.mockito.quality.Strictness;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.ResultActions;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
@@ -69,11 +98,13 @@ public class RestaurantControllerTest {
 
   private static final String RESTAURANT_API_URI = RESTAURANT_API_ENDPOINT + RESTAURANTS_API;
   private static final String MENU_API_URI = RESTAURANT_API_ENDPOINT + MENU_API;
+  private static final String MENUS_API_URI = RESTAURANT_API_ENDPOINT + MENUS_API;
   private static final String CART_API_URI = RESTAURANT_API_ENDPOINT + CART_API;
   private static final String ADD_REMOVE_CART_API_URI = RESTAURANT_API_ENDPOINT + CART_ITEM_API;
   private static final String CLEAR_CART_API_URI = RESTAURANT_API_ENDPOINT + CART_CLEAR_API;
   private static final String POST_ORDER_API_URI = RESTAURANT_API_ENDPOINT + POST_ORDER_API;
   private static final String LIST_ORDERS_API_URI = RESTAURANT_API_ENDPOINT + GET_ORDERS_API;
+  private static final String SUGGESTIONS_API_URI = RESTAURANT_API_ENDPOINT + SUGGESTIONS_API;
 
   private static final String FIXTURES = "fixtures/exchanges";
   private ObjectMapper objectMapper;
@@ -83,6 +114,15 @@ public class RestaurantControllerTest {
   @MockBean
   private RestaurantService restaurantService;
 
+  @MockBean
+  private MenuService menuService;
+
+  @MockBean
+  private CartAndOrderService cartAndOrderService;
+
+  @MockBean
+  private SuggestionService suggestionService;
+
 
   @InjectMocks
   private RestaurantController restaurantController;
@@ -170,6 +210,125 @@ public class RestaurantControllerTest {
 
   }
 
+  @Test
+  public void searchOverTheConcurrencyLimitIsRefusedWithServiceUnavailable() throws Exception {
+    when(restaurantService
+        .findRestaurantsBySearchQuery(any(GetRestaurantsRequest.class), any(LocalTime.class)))
+        .thenThrow(new ServiceOverloadedException("Over the limit"));
+
+    MockHttpServletResponse response = mvc.perform(
+        get(RESTAURANT_API_URI + "?latitude=20.21&longitude=30.31&searchFor=Briyani")
+            .accept(APPLICATION_JSON_UTF8)
+    ).andReturn().getResponse();
+
+    assertEquals(HttpStatus.SERVICE_UNAVAILABLE.value(), response.getStatus());
+    assertEquals("1", response.getHeader(HttpHeaders.RETRY_AFTER));
+  }
+
+  @Test
+  public void searchFailingInMongoIsAnsweredWithServiceUnavailable() throws Exception {
+    when(restaurantService
+        .findRestaurantsBySearchQuery(any(GetRestaurantsRequest.class), any(LocalTime.class)))
+        .thenThrow(new ServiceUnavailableException("Search failed", null));
+
+    MockHttpServletResponse response = mvc.perform(
+        get(RESTAURANT_API_URI + "?latitude=20.21&longitude=30.31&searchFor=Briyani")
+            .accept(APPLICATION_JSON_UTF8)
+    ).andReturn().getResponse();
+
+    assertEquals(HttpStatus.SERVICE_UNAVAILABLE.value(), response.getStatus());
+  }
+
+  @Test
+  public void sampleRateOfZeroLogsEveryRequest() throws Exception {
+    ReflectionTestUtils.setField(restaurantController, "requestLogSampleRate", 0);
+    when(restaurantService
+        .findAllRestaurantsCloseBy(any(GetRestaurantsRequest.class), any(LocalTime.class)))
+        .thenReturn(loadSampleResponseList());
+
+    MockHttpServletResponse response = mvc.perform(
+        get(RESTAURANT_API_URI + "?latitude=20.21&longitude=30.31")
+            .accept(APPLICATION_JSON_UTF8)
+    ).andReturn().getResponse();
+
+    assertEquals(HttpStatus.OK.value(), response.getStatus());
+  }
+
+  @Test
+  public void searchesThatFindRestaurantsAreRecordedForSuggestions() throws Exception {
+    when(restaurantService
+        .findRestaurantsBySearchQuery(any(GetRestaurantsRequest.class), any(LocalTime.class)))
+        .thenReturn(loadSampleResponseList(),
+            new GetRestaurantsResponse(Collections.emptyList()));
+
+    mvc.perform(get(RESTAURANT_API_URI + "?latitude=20.21&longitude=30.31&searchFor=Briyani")
+        .accept(APPLICATION_JSON_UTF8));
+    mvc.perform(get(RESTAURANT_API_URI + "?latitude=20.21&longitude=30.31&searchFor=Pizza")
+        .accept(APPLICATION_JSON_UTF8));
+
+    verify(suggestionService, times(1)).recordSearch(20.21, 30.31, "Briyani");
+    verify(suggestionService, never()).recordSearch(anyDouble(), anyDouble(), eq("Pizza"));
+  }
+
+  @Test
+  public void staleRestaurantsAreServedWithAWarning() throws Exception {
+    GetRestaurantsResponse sampleResponse = loadSampleResponseList();
+    when(restaurantService
+        .findAllRestaurantsCloseBy(any(GetRestaurantsRequest.class), any(LocalTime.class)))
+        .thenReturn(new GetRestaurantsResponse(StaleList.of(sampleResponse.getRestaurants())),
+            sampleResponse);
+
+    MockHttpServletResponse response = mvc.perform(
+        get(RESTAURANT_API_URI + "?latitude=20.21&longitude=30.31").accept(APPLICATION_JSON_UTF8)
+    ).andReturn().getResponse();
+
+    assertEquals(HttpStatus.OK.value(), response.getStatus());
+    assertEquals("110 - \"Response is Stale\"", response.getHeader(HttpHeaders.WARNING));
+    assertEquals(sampleResponse.getRestaurants().size(), objectMapper
+        .readValue(response.getContentAsString(), GetRestaurantsResponse.class)
+        .getRestaurants().size());
+
+    response = mvc.perform(
+        get(RESTAURANT_API_URI + "?latitude=20.21&longitude=30.31").accept(APPLICATION_JSON_UTF8)
+    ).andReturn().getResponse();
+    assertNull(response.getHeader(HttpHeaders.WARNING));
+  }
+
+  @Test
+  public void suggestionsAreReturnedForAPrefixAndLocation() throws Exception {
+    when(suggestionService.getSuggestions(any(GetSuggestionsRequest.class)))
+        .thenReturn(new GetSuggestionsResponse(Arrays.asList("Biryani", "Paradise Biryani")));
+    ArgumentCaptor<GetSuggestionsRequest> argumentCaptor = ArgumentCaptor
+        .forClass(GetSuggestionsRequest.class);
+
+    MockHttpServletResponse response = mvc.perform(
+        get(SUGGESTIONS_API_URI + "?latitude=20.21&longitude=30.31&prefix=bir&limit=5")
+            .accept(APPLICATION_JSON_UTF8)
+    ).andReturn().getResponse();
+
+    assertEquals(HttpStatus.OK.value(), response.getStatus());
+    assertEquals(Arrays.asList("Biryani", "Paradise Biryani"), objectMapper
+        .readValue(response.getContentAsString(), GetSuggestionsResponse.class)
+        .getSuggestions());
+    verify(suggestionService, times(1)).getSuggestions(argumentCaptor.capture());
+    assertEquals("bir", argumentCaptor.getValue().getPrefix());
+    assertEquals(5, argumentCaptor.getValue().getLimit().intValue());
+  }
+
+  @Test
+  public void suggestionsWithoutPrefixOrLocationResultInBadHttpRequest() throws Exception {
+    for (String query : Arrays.asList("?latitude=20.21&longitude=30.31",
+        "?latitude=20.21&longitude=30.31&prefix={prefix}",
+        "?latitude=91&longitude=30.31&prefix=bir", "?longitude=30.31&prefix=bir")) {
+      MockHttpServletResponse response = mvc.perform(
+          get(SUGGESTIONS_API_URI + query, "  ").accept(APPLICATION_JSON_UTF8)
+      ).andReturn().getResponse();
+
+      assertEquals(HttpStatus.BAD_REQUEST.value(), response.getStatus(), query);
+    }
+    verify(suggestionService, never()).getSuggestions(any(GetSuggestionsRequest.class));
+  }
+
   @Test
   public void invalidLatitudeResultsInBadHttpRequest() throws Exception {
     URI uri = UriComponentsBuilder
@@ -325,6 +484,226 @@ public class RestaurantControllerTest {
 
 
 
+  @Test
+  public void menuIsReturnedWithItsVersionAsEtag() throws Exception {
+    GetMenuResponse sampleResponse = loadSampleMenuResponse();
+    sampleResponse.getMenu().setVersion("v1");
+    when(menuService.findMenu("11")).thenReturn(sampleResponse);
+
+    MockHttpServletResponse response = mvc.perform(
+        get(MENU_API_URI + "?restaurantId=11").accept(APPLICATION_JSON_UTF8)
+    ).andReturn().getResponse();
+
+    assertEquals(HttpStatus.OK.value(), response.getStatus());
+    assertEquals("\"v1\"", response.getHeader(HttpHeaders.ETAG));
+    GetMenuResponse menuResponse =
+        objectMapper.readValue(response.getContentAsString(), GetMenuResponse.class);
+    assertEquals("11", menuResponse.getMenu().getRestaurantId());
+    assertEquals(1, menuResponse.getMenu().getItems().size());
+  }
+
+  @Test
+  public void unchangedMenuReturnsNotModifiedWithoutBody() throws Exception {
+    GetMenuResponse sampleResponse = loadSampleMenuResponse();
+    sampleResponse.getMenu().setVersion("v1");
+    when(menuService.findMenu("11")).thenReturn(sampleResponse);
+
+    MockHttpServletResponse response = mvc.perform(
+        get(MENU_API_URI + "?restaurantId=11").accept(APPLICATION_JSON_UTF8)
+            .header(HttpHeaders.IF_NONE_MATCH, "\"v1\"")
+    ).andReturn().getResponse();
+
+    assertEquals(HttpStatus.NOT_MODIFIED.value(), response.getStatus());
+    assertTrue(response.getContentAsString().isEmpty());
+
+    response = mvc.perform(
+        get(MENU_API_URI + "?restaurantId=11").accept(APPLICATION_JSON_UTF8)
+            .header(HttpHeaders.IF_NONE_MATCH, "\"v0\"")
+    ).andReturn().getResponse();
+
+    assertEquals(HttpStatus.OK.value(), response.getStatus());
+  }
+
+  @Test
+  public void menuOfUnknownRestaurantIsNotFound() throws Exception {
+    when(menuService.findMenu("99")).thenReturn(new GetMenuResponse(null));
+
+    MockHttpServletResponse response = mvc.perform(
+        get(MENU_API_URI + "?restaurantId=99").accept(APPLICATION_JSON_UTF8)
+    ).andReturn().getResponse();
+
+    assertEquals(HttpStatus.NOT_FOUND.value(), response.getStatus());
+  }
+
+  @Test
+  public void missingRestaurantIdForMenuResultsInBadHttpRequest() throws Exception {
+    MockHttpServletResponse response = mvc.perform(
+        get(MENU_API_URI).accept(APPLICATION_JSON_UTF8)
+    ).andReturn().getResponse();
+
+    assertEquals(HttpStatus.BAD_REQUEST.value(), response.getStatus());
+  }
+
+  @Test
+  public void menusOfManyRestaurantsAreReturnedInOneCall() throws Exception {
+    GetMenuResponse sampleResponse = loadSampleMenuResponse();
+    when(menuService.findMenus(any(GetMenusRequest.class))).thenReturn(new GetMenusResponse(
+        Collections.singletonMap("11", sampleResponse.getMenu())));
+
+    MockHttpServletResponse response = mvc.perform(
+        post(MENUS_API_URI).contentType(APPLICATION_JSON_UTF8).accept(APPLICATION_JSON_UTF8)
+            .content("{\"restaurantIds\": [\"11\", \"99\"]}")
+    ).andReturn().getResponse();
+
+    assertEquals(HttpStatus.OK.value(), response.getStatus());
+    ArgumentCaptor<GetMenusRequest> argumentCaptor = ArgumentCaptor
+        .forClass(GetMenusRequest.class);
+    verify(menuService, times(1)).findMenus(argumentCaptor.capture());
+    assertEquals(Arrays.asList("11", "99"), argumentCaptor.getValue().getRestaurantIds());
+    GetMenusResponse menusResponse =
+        objectMapper.readValue(response.getContentAsString(), GetMenusResponse.class);
+    assertEquals(1, menusResponse.getMenus().size());
+    assertEquals("11", menusResponse.getMenus().get("11").getRestaurantId());
+  }
+
+  @Test
+  public void emptyOrOversizedMenusRequestResultsInBadHttpRequest() throws Exception {
+    MockHttpServletResponse response = mvc.perform(
+        post(MENUS_API_URI).contentType(APPLICATION_JSON_UTF8)
+            .content("{\"restaurantIds\": []}")
+    ).andReturn().getResponse();
+
+    assertEquals(HttpStatus.BAD_REQUEST.value(), response.getStatus());
+
+    String[] restaurantIds = new String[GlobalConstants.MAX_MENUS_PER_REQUEST + 1];
+    Arrays.fill(restaurantIds, "11");
+    response = mvc.perform(
+        post(MENUS_API_URI).contentType(APPLICATION_JSON_UTF8)
+            .content(objectMapper.writeValueAsString(
+                new GetMenusRequest(Arrays.asList(restaurantIds))))
+    ).andReturn().getResponse();
+
+    assertEquals(HttpStatus.BAD_REQUEST.value(), response.getStatus());
+  }
+
+  @Test
+  public void cartOfUserIsReturned() throws Exception {
+    Cart sampleCart = loadSampleCart();
+    when(cartAndOrderService.findOrCreateCart("Bunny")).thenReturn(sampleCart);
+
+    MockHttpServletResponse response = mvc.perform(
+        get(CART_API_URI + "?userId=Bunny").accept(APPLICATION_JSON_UTF8)
+    ).andReturn().getResponse();
+
+    assertEquals(HttpStatus.OK.value(), response.getStatus());
+    assertEquals(sampleCart, objectMapper.readValue(response.getContentAsString(), Cart.class));
+
+    response = mvc.perform(
+        get(CART_API_URI).accept(APPLICATION_JSON_UTF8)
+    ).andReturn().getResponse();
+
+    assertEquals(HttpStatus.BAD_REQUEST.value(), response.getStatus());
+  }
+
+  @Test
+  public void addingAndRemovingItemsGoToTheCartService() throws Exception {
+    String body = FixtureHelpers.fixture(FIXTURES + "/cart_add_or_remove_item_body.json");
+    CartModifiedResponse cartModifiedResponse =
+        new CartModifiedResponse(loadSampleCart(), CartModifiedResponse.SUCCESS);
+    when(cartAndOrderService.addItemToCart("1", "1", "10")).thenReturn(cartModifiedResponse);
+    when(cartAndOrderService.removeItemFromCart("1", "1", "10"))
+        .thenReturn(cartModifiedResponse);
+
+    MockHttpServletResponse response = mvc.perform(
+        post(ADD_REMOVE_CART_API_URI).contentType(APPLICATION_JSON_UTF8).content(body)
+    ).andReturn().getResponse();
+    assertEquals(HttpStatus.OK.value(), response.getStatus());
+
+    response = mvc.perform(
+        delete(ADD_REMOVE_CART_API_URI).contentType(APPLICATION_JSON_UTF8).content(body)
+    ).andReturn().getResponse();
+    assertEquals(HttpStatus.OK.value(), response.getStatus());
+
+    verify(cartAndOrderService, times(1)).addItemToCart("1", "1", "10");
+    verify(cartAndOrderService, times(1)).removeItemFromCart("1", "1", "10");
+  }
+
+  @Test
+  public void refusedCartChangeReturnsItsErrorType() throws Exception {
+    String body = FixtureHelpers.fixture(FIXTURES + "/cart_add_or_remove_item_body.json");
+    when(cartAndOrderService.addItemToCart("1", "1", "10"))
+        .thenThrow(new ItemNotFromSameRestaurantException());
+
+    MockHttpServletResponse response = mvc.perform(
+        post(ADD_REMOVE_CART_API_URI).contentType(APPLICATION_JSON_UTF8).content(body)
+    ).andReturn().getResponse();
+
+    assertEquals(HttpStatus.BAD_REQUEST.value(), response.getStatus());
+    CartModifiedResponse cartModifiedResponse =
+        objectMapper.readValue(response.getContentAsString(), CartModifiedResponse.class);
+    assertEquals(102, cartModifiedResponse.getCartResponseType());
+  }
+
+  @Test
+  public void clearingCartGoesToTheCartService() throws Exception {
+    String body = FixtureHelpers.fixture(FIXTURES + "/post_order_or_clear_cart_body.json");
+    when(cartAndOrderService.clearCart("1"))
+        .thenReturn(new CartModifiedResponse(new Cart(), CartModifiedResponse.SUCCESS));
+
+    MockHttpServletResponse response = mvc.perform(
+        put(CLEAR_CART_API_URI).contentType(APPLICATION_JSON_UTF8).content(body)
+    ).andReturn().getResponse();
+
+    assertEquals(HttpStatus.OK.value(), response.getStatus());
+    verify(cartAndOrderService, times(1)).clearCart("1");
+  }
+
+  @Test
+  public void orderIsAcceptedWithoutWaitingForPersistence() throws Exception {
+    String body = FixtureHelpers.fixture(FIXTURES + "/post_order_or_clear_cart_body.json");
+    Cart cart = loadSampleCart();
+    when(cartAndOrderService.postOrder("1")).thenReturn(new Order("2", cart.getRestaurantId(),
+        cart.getUserId(), cart.getItems(), cart.getTotal(), new Date()));
+
+    MockHttpServletResponse response = mvc.perform(
+        post(POST_ORDER_API_URI).contentType(APPLICATION_JSON_UTF8).content(body)
+    ).andReturn().getResponse();
+
+    assertEquals(HttpStatus.ACCEPTED.value(), response.getStatus());
+    Order order = objectMapper.readValue(response.getContentAsString(), Order.class);
+    assertEquals("2", order.getId());
+    assertEquals(cart.getTotal(), order.getTotal());
+  }
+
+  @Test
+  public void orderOfEmptyCartResultsInBadHttpRequest() throws Exception {
+    String body = FixtureHelpers.fixture(FIXTURES + "/post_order_or_clear_cart_body.json");
+    when(cartAndOrderService.postOrder("1")).thenThrow(new EmptyCartException());
+
+    MockHttpServletResponse response = mvc.perform(
+        post(POST_ORDER_API_URI).contentType(APPLICATION_JSON_UTF8).content(body)
+    ).andReturn().getResponse();
+
+    assertEquals(HttpStatus.BAD_REQUEST.value(), response.getStatus());
+    assertEquals(100, objectMapper.readValue(response.getContentAsString(),
+        CartModifiedResponse.class).getCartResponseType());
+  }
+
+  private Cart loadSampleCart() throws IOException {
+    String fixture =
+        FixtureHelpers.fixture(FIXTURES + "/get_cart_response.json");
+
+    return objectMapper.readValue(fixture, Cart.class);
+  }
+
+  private GetMenuResponse loadSampleMenuResponse() throws IOException {
+    String fixture =
+        FixtureHelpers.fixture(FIXTURES + "/get_menu_response.json");
+
+    return objectMapper.readValue(fixture, GetMenuResponse.class);
+  }
+
+
   private GetRestaurantsResponse loadSampleResponseList() throws IOException {
     String fixture =
         FixtureHelpers.fixture(FIXTURES + "/list_restaurant_response.json");
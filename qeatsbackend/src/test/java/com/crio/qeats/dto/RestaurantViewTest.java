@@ -0,0 +1,66 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.dto;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import org.json.JSONException;
+import org.junit.jupiter.api.Test;
+import org.skyscreamer.jsonassert.JSONAssert;
+
+class RestaurantViewTest {
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  @Test
+  void viewSerializesLikeTheRestaurant() throws IOException, JSONException {
+    Restaurant restaurant = restaurant("10");
+
+    RestaurantView view = RestaurantView.of(restaurant);
+
+    JSONAssert.assertEquals(objectMapper.writeValueAsString(restaurant),
+        objectMapper.writeValueAsString(view), true);
+    assertEquals(restaurant, view);
+    assertEquals(view, restaurant);
+    assertEquals(restaurant.hashCode(), view.hashCode());
+  }
+
+  @Test
+  void viewCannotBeChanged() {
+    RestaurantView view = RestaurantView.of(restaurant("10"));
+
+    assertThrows(UnsupportedOperationException.class, () -> view.setName("A2B Express"));
+    assertThrows(UnsupportedOperationException.class, () -> view.setLatitude(20.0));
+    assertThrows(UnsupportedOperationException.class, () -> view.getAttributes().add("Veg"));
+    assertSame(view, RestaurantView.of(view));
+
+    Restaurant copy = view.toRestaurant();
+    copy.setName("A2B Express");
+    assertEquals("A2B", view.getName());
+  }
+
+  @Test
+  void equalAttributeListsAreShared() {
+    RestaurantView first = RestaurantView.of(restaurant("10"));
+    RestaurantView second = RestaurantView.of(restaurant("11"));
+
+    assertNotSame(first, second);
+    assertSame(first.getAttributes(), second.getAttributes());
+  }
+
+  private static Restaurant restaurant(String restaurantId) {
+    return new Restaurant(restaurantId, "A2B", "Hsr Layout", "www.google.com", 20.027, 30.0,
+        "18:00", "23:00", new ArrayList<>(Arrays.asList("Tamil", "South Indian")));
+  }
+}
@@ -0,0 +1,129 @@
+package com.crio.qeats.messaging;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.crio.qeats.dto.Order;
+import com.crio.qeats.globals.GlobalConstants;
+import com.crio.qeats.models.OrderEntity;
+import com.crio.qeats.repositoryservices.OrderRepositoryService;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(MockitoExtension.class)
+class OrderBatchConsumerTest {
+
+  @Spy
+  private OrderBroker orderBroker = new InMemoryOrderBroker(1000);
+
+  @Mock
+  private MongoTemplate mongoTemplate;
+
+  @Mock
+  private OrderRepositoryService orderRepositoryService;
+
+  @InjectMocks
+  private OrderBatchConsumer orderBatchConsumer;
+
+  @AfterEach
+  void teardown() throws InterruptedException {
+    orderBatchConsumer.stop();
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void queuedOrdersArePersistedInBatches() {
+    for (int i = 0; i < 250; i++) {
+      assertTrue(orderBroker.publish(GlobalConstants.ROUTING_KEY, order(i)));
+    }
+
+    orderBatchConsumer.start();
+
+    ArgumentCaptor<Collection<OrderEntity>> argumentCaptor =
+        ArgumentCaptor.forClass(Collection.class);
+    verify(mongoTemplate, timeout(2000).times(3))
+        .insert(argumentCaptor.capture(), eq(OrderEntity.class));
+    List<Integer> batchSizes = new ArrayList<>();
+    for (Collection<OrderEntity> batch : argumentCaptor.getAllValues()) {
+      batchSizes.add(batch.size());
+    }
+    assertEquals(100, (int) batchSizes.get(0));
+    assertEquals(250, batchSizes.stream().mapToInt(Integer::intValue).sum());
+    verify(orderRepositoryService, timeout(2000).times(250)).evictRecentOrders("Bunny");
+  }
+
+  @Test
+  void failedBatchIsRetriedOrderByOrder() {
+    doThrow(new DataAccessResourceFailureException("primary stepped down"))
+        .when(mongoTemplate).insert(any(Collection.class), eq(OrderEntity.class));
+
+    orderBatchConsumer.persist(Collections.nCopies(3, order(1)));
+
+    verify(mongoTemplate, times(3)).save(any(OrderEntity.class));
+  }
+
+  @Test
+  void orderThatCannotBeWrittenIsDeadLetteredWithoutRetries() {
+    doThrow(new DataIntegrityViolationException("document too large"))
+        .when(mongoTemplate).insert(any(Collection.class), eq(OrderEntity.class));
+    doThrow(new DataIntegrityViolationException("document too large"))
+        .when(mongoTemplate).save(any(OrderEntity.class));
+
+    orderBatchConsumer.persist(Collections.singletonList(order(1)));
+
+    verify(mongoTemplate, times(1)).save(any(OrderEntity.class));
+    verify(mongoTemplate, times(1))
+        .save(any(OrderEntity.class), eq(OrderBatchConsumer.DEAD_LETTER_COLLECTION));
+    verify(orderRepositoryService, times(1)).evictRecentOrders("Bunny");
+  }
+
+  @Test
+  void transientFailuresAreRetriedAFewTimes() {
+    ReflectionTestUtils.setField(orderBatchConsumer, "maxSaveAttempts", 2);
+    doThrow(new DataAccessResourceFailureException("primary stepped down"))
+        .when(mongoTemplate).insert(any(Collection.class), eq(OrderEntity.class));
+    doThrow(new QueryTimeoutException("timed out"))
+        .when(mongoTemplate).save(any(OrderEntity.class));
+
+    orderBatchConsumer.persist(Collections.singletonList(order(1)));
+
+    verify(mongoTemplate, times(2)).save(any(OrderEntity.class));
+    verify(mongoTemplate, times(1))
+        .save(any(OrderEntity.class), eq(OrderBatchConsumer.DEAD_LETTER_COLLECTION));
+  }
+
+  @Test
+  void ordersOnUnboundRoutingKeyAreRefused() throws InterruptedException {
+    assertFalse(orderBroker.publish("qeats.unknown", order(1)));
+    assertTrue(orderBroker.poll(GlobalConstants.QUEUE_NAME, 10, 1, TimeUnit.MILLISECONDS)
+        .isEmpty());
+  }
+
+  private static Order order(int i) {
+    return new Order(String.valueOf(i), "10", "Bunny", new ArrayList<>(), 225, new Date());
+  }
+}
@@ -0,0 +1,43 @@
+package com.crio.qeats.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class RestaurantMetricsTest {
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final RestaurantMetrics restaurantMetrics = new RestaurantMetrics(meterRegistry);
+
+  @Test
+  void stagesAreTimedSeparately() {
+    restaurantMetrics.record(RestaurantMetrics.REDIS_GET, restaurantMetrics.start());
+    restaurantMetrics.record(RestaurantMetrics.REDIS_GET, restaurantMetrics.start());
+    restaurantMetrics.record(RestaurantMetrics.GEO_FILTER, restaurantMetrics.start());
+
+    Timer redisGet = meterRegistry.get(RestaurantMetrics.STAGE_TIMER)
+        .tag("stage", RestaurantMetrics.REDIS_GET).timer();
+    Timer geoFilter = meterRegistry.get(RestaurantMetrics.STAGE_TIMER)
+        .tag("stage", RestaurantMetrics.GEO_FILTER).timer();
+    assertEquals(2, redisGet.count());
+    assertEquals(1, geoFilter.count());
+    assertTrue(redisGet.totalTime(TimeUnit.NANOSECONDS) >= 0);
+  }
+
+  @Test
+  void candidateAndResultCountsAreSummarized() {
+    restaurantMetrics.recordCandidates(120);
+    restaurantMetrics.recordCandidates(80);
+    restaurantMetrics.recordResults(7);
+
+    assertEquals(200, meterRegistry.get(RestaurantMetrics.CANDIDATES_SUMMARY)
+        .summary().totalAmount());
+    assertEquals(2, meterRegistry.get(RestaurantMetrics.CANDIDATES_SUMMARY).summary().count());
+    assertEquals(7, meterRegistry.get(RestaurantMetrics.RESULTS_SUMMARY)
+        .summary().totalAmount());
+  }
+}
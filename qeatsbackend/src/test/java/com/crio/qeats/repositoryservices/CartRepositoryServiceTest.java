@@ -0,0 +1,156 @@
+package com.crio.qeats.repositoryservices;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+import com.crio.qeats.QEatsApplication;
+import com.crio.qeats.configs.RedisConfiguration;
+import com.crio.qeats.dto.Cart;
+import com.crio.qeats.dto.Item;
+import com.crio.qeats.exceptions.CartNotFoundException;
+import com.crio.qeats.exceptions.EmptyCartException;
+import com.crio.qeats.exceptions.ItemNotFromSameRestaurantException;
+import com.crio.qeats.models.CartEntity;
+import com.crio.qeats.repositories.CartRepository;
+import java.util.Collections;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+@SpringBootTest(classes = {QEatsApplication.class})
+@DirtiesContext
+@ActiveProfiles("test")
+class CartRepositoryServiceTest {
+
+  @Autowired
+  private CartRepositoryService cartRepositoryService;
+  @Autowired
+  private RedisConfiguration redisConfiguration;
+
+  @MockBean
+  private CartRepository mockCartRepository;
+
+  @AfterEach
+  void teardown() {
+    redisConfiguration.destroyCache();
+  }
+
+  @Test
+  void userGetsTheSameCartUntilItExpires() {
+    Cart cart = cartRepositoryService.findOrCreateCart("Bunny");
+
+    assertEquals("Bunny", cart.getUserId());
+    assertEquals("", cart.getRestaurantId());
+    assertTrue(cart.getItems().isEmpty());
+    assertEquals(cart.getId(), cartRepositoryService.findOrCreateCart("Bunny").getId());
+  }
+
+  @Test
+  void addingAndRemovingItemsKeepsTheTotal() {
+    String cartId = cartRepositoryService.findOrCreateCart("Bunny").getId();
+
+    cartRepositoryService.addItem(cartId, "10", item("1", 225));
+    cartRepositoryService.addItem(cartId, "10", item("2", 100));
+    Cart cart = cartRepositoryService.addItem(cartId, "10", item("1", 225));
+
+    assertEquals("10", cart.getRestaurantId());
+    assertEquals(3, cart.getItems().size());
+    assertEquals(550, cart.getTotal());
+
+    cart = cartRepositoryService.removeItem(cartId, "1");
+    assertEquals(2, cart.getItems().size());
+    assertEquals(325, cart.getTotal());
+
+    // Removing an item the cart doesn't hold changes nothing.
+    cart = cartRepositoryService.removeItem(cartId, "3");
+    assertEquals(325, cart.getTotal());
+
+    cartRepositoryService.removeItem(cartId, "1");
+    cart = cartRepositoryService.removeItem(cartId, "2");
+    assertEquals(0, cart.getTotal());
+    assertEquals("", cart.getRestaurantId());
+  }
+
+  @Test
+  void itemsOfAnotherRestaurantAreRefused() {
+    String cartId = cartRepositoryService.findOrCreateCart("Bunny").getId();
+    cartRepositoryService.addItem(cartId, "10", item("1", 225));
+
+    assertThrows(ItemNotFromSameRestaurantException.class,
+        () -> cartRepositoryService.addItem(cartId, "11", item("1", 225)));
+
+    Cart cart = cartRepositoryService.clearCart(cartId);
+    assertEquals("Bunny", cart.getUserId());
+    assertTrue(cart.getItems().isEmpty());
+    assertEquals(0, cart.getTotal());
+
+    cart = cartRepositoryService.addItem(cartId, "11", item("1", 225));
+    assertEquals("11", cart.getRestaurantId());
+  }
+
+  @Test
+  void checkoutEmptiesTheCartAndWritesItToMongo() {
+    String cartId = cartRepositoryService.findOrCreateCart("Bunny").getId();
+    assertThrows(EmptyCartException.class, () -> cartRepositoryService.checkoutCart(cartId));
+
+    cartRepositoryService.addItem(cartId, "10", item("1", 225));
+    Cart cart = cartRepositoryService.checkoutCart(cartId);
+
+    assertEquals(225, cart.getTotal());
+    assertEquals(1, cart.getItems().size());
+    assertEquals(0, cartRepositoryService.findOrCreateCart("Bunny").getTotal());
+    ArgumentCaptor<CartEntity> argumentCaptor = ArgumentCaptor.forClass(CartEntity.class);
+    verify(mockCartRepository, timeout(1000)).save(argumentCaptor.capture());
+    assertEquals(cartId, argumentCaptor.getValue().getId());
+    assertEquals(CartEntity.STATUS_CHECKED_OUT, argumentCaptor.getValue().getStatus());
+    assertEquals(225, argumentCaptor.getValue().getTotal());
+  }
+
+  @Test
+  void checkedOutCartIsPutBackOnlyWhileStillEmpty() {
+    String cartId = cartRepositoryService.findOrCreateCart("Bunny").getId();
+    cartRepositoryService.addItem(cartId, "10", item("1", 225));
+    cartRepositoryService.addItem(cartId, "10", item("2", 100));
+    cartRepositoryService.addItem(cartId, "10", item("1", 225));
+    Cart checkedOut = cartRepositoryService.checkoutCart(cartId);
+
+    assertTrue(cartRepositoryService.restoreCart(checkedOut));
+    Cart cart = cartRepositoryService.findOrCreateCart("Bunny");
+    assertEquals("10", cart.getRestaurantId());
+    assertEquals(3, cart.getItems().size());
+    assertEquals(550, cart.getTotal());
+    // It works like any other cart.
+    cart = cartRepositoryService.removeItem(cartId, "1");
+    assertEquals(325, cart.getTotal());
+
+    checkedOut = cartRepositoryService.checkoutCart(cartId);
+    cartRepositoryService.addItem(cartId, "11", item("3", 50));
+    assertFalse(cartRepositoryService.restoreCart(checkedOut));
+    assertEquals(50, cartRepositoryService.findOrCreateCart("Bunny").getTotal());
+  }
+
+  @Test
+  void unknownCartIsNotFound() {
+    assertThrows(CartNotFoundException.class,
+        () -> cartRepositoryService.addItem("unknown", "10", item("1", 225)));
+    assertThrows(CartNotFoundException.class,
+        () -> cartRepositoryService.removeItem("unknown", "1"));
+    assertThrows(CartNotFoundException.class,
+        () -> cartRepositoryService.clearCart("unknown"));
+  }
+
+  private static Item item(String itemId, int price) {
+    return new Item(itemId, itemId, "Item " + itemId, "www.google.com",
+        Collections.singletonList("Mughal"), price);
+  }
+}
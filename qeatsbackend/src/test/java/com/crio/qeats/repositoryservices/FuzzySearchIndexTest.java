@@ -0,0 +1,163 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.repositoryservices;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.Mockito.when;
+
+import com.crio.qeats.dto.Item;
+import com.crio.qeats.models.MenuEntity;
+import com.crio.qeats.models.RestaurantEntity;
+import com.crio.qeats.repositories.MenuRepository;
+import com.crio.qeats.repositories.RestaurantRepository;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class FuzzySearchIndexTest {
+
+  @InjectMocks
+  private FuzzySearchIndex fuzzySearchIndex;
+
+  @Mock
+  private RestaurantRepository restaurantRepository;
+
+  @Mock
+  private MenuRepository menuRepository;
+
+  private final List<RestaurantEntity> restaurants = new ArrayList<>();
+  private final List<MenuEntity> menus = new ArrayList<>();
+
+  @BeforeEach
+  void setup() {
+    when(restaurantRepository.findAll()).thenReturn(restaurants);
+    when(menuRepository.findAll()).thenReturn(menus);
+  }
+
+  @Test
+  void misspeltWordsFindRestaurantsByNameBeforeAttributesAndItems() {
+    addRestaurant("1", "Dosa Corner", "South Indian");
+    addMenu("1", "Chicken Biryani", "Spicy");
+    addRestaurant("2", "Biryani Blues", "Mughlai");
+    addRestaurant("3", "Spice Route", "Biryani");
+    addRestaurant("4", "Pizza Place", "Italian");
+    fuzzySearchIndex.rebuild();
+
+    assertEquals(Arrays.asList("2", "3", "1"), candidates("biriyani"));
+    assertEquals(Arrays.asList("2", "3", "1"), candidates("BIRYANI"));
+    // One edit from the name "Spice Route" and the item attribute "Spicy".
+    assertEquals(Arrays.asList("3", "1"), candidates("spicey"));
+    assertEquals(Arrays.asList("4"), candidates("piza"));
+  }
+
+  @Test
+  void fewerEditsComeFirstAndEveryWordMustMatch() {
+    addRestaurant("1", "Biriyani Bowl", "Hyderabadi");
+    addRestaurant("2", "Biryani Blues", "Mughlai");
+    addMenu("2", "Paneer Tikka");
+    addRestaurant("3", "Tikka Town", "Mughlai");
+    fuzzySearchIndex.rebuild();
+
+    // Two edits from "biriyani", one from "biryani".
+    assertEquals(Arrays.asList("2", "1"), candidates("biryaani"));
+    assertEquals(Arrays.asList("2"), candidates("biryani tika"));
+    assertEquals(Arrays.asList("3", "2"), candidates("tikka"));
+    assertTrue(candidates("biryani pizza").isEmpty());
+    assertTrue(candidates("  ").isEmpty());
+  }
+
+  @Test
+  void shortWordsMustBeSpeltRight() {
+    addRestaurant("1", "Dal Delight", "Punjabi");
+    addRestaurant("2", "Dam Cafe", "Cafe");
+    fuzzySearchIndex.rebuild();
+
+    assertEquals(Arrays.asList("1"), candidates("dal"));
+    assertTrue(candidates("dak").isEmpty());
+  }
+
+  @Test
+  void candidatesOnlyCarryWhatTheGeoFilterNeeds() {
+    addRestaurant("1", "Biryani Blues", "Mughlai");
+    fuzzySearchIndex.rebuild();
+
+    RestaurantEntity candidate =
+        fuzzySearchIndex.findCandidates("biryani", 20.0, 30.0, 5.0).get(0);
+    assertEquals("1", candidate.getRestaurantId());
+    assertEquals(20.0, candidate.getLatitude().doubleValue());
+    assertEquals("10:00", candidate.getOpensAt());
+    assertNull(candidate.getName());
+  }
+
+  @Test
+  void searchesOnlyLookInTheirRegionAndChangesOnlyRebuildTheirs() {
+    addRestaurant("1", "Biryani Blues", "Mughlai");
+    RestaurantEntity bengaluru = addRestaurant("2", "Biryani Bowl", "Hyderabadi");
+    bengaluru.setLatitude(12.97);
+    bengaluru.setLongitude(77.59);
+    fuzzySearchIndex.rebuild();
+
+    assertEquals(Arrays.asList("1"), candidates("biryani"));
+    assertEquals(Arrays.asList("2"), fuzzySearchIndex.findCandidates("biryani", 12.97, 77.59, 5.0)
+        .stream().map(RestaurantEntity::getRestaurantId).collect(Collectors.toList()));
+
+    // Renamed, its region is read back from mongo on its own.
+    RestaurantEntity renamed = addRestaurant("1", "Dosa Corner", "South Indian");
+    when(restaurantRepository.findRestaurantsByLocationWithin(anyDouble(), anyDouble(),
+        anyDouble(), anyDouble())).thenReturn(Arrays.asList(renamed));
+    when(menuRepository.findMenusByRestaurantIdIn(Arrays.asList("1")))
+        .thenReturn(new ArrayList<>());
+    fuzzySearchIndex.rebuild(RestaurantCatalog.shardOf(20.0, 30.0));
+
+    assertTrue(candidates("biryani").isEmpty());
+    assertEquals(Arrays.asList("1"), candidates("dossa"));
+    assertEquals(1, fuzzySearchIndex.findCandidates("biryani", 12.97, 77.59, 5.0).size());
+  }
+
+  private List<String> candidates(String searchString) {
+    return fuzzySearchIndex.findCandidates(searchString, 20.0, 30.0, 5.0).stream()
+        .map(RestaurantEntity::getRestaurantId)
+        .collect(Collectors.toList());
+  }
+
+  private RestaurantEntity addRestaurant(String restaurantId, String name,
+      String... attributes) {
+    RestaurantEntity restaurantEntity = new RestaurantEntity();
+    restaurantEntity.setRestaurantId(restaurantId);
+    restaurantEntity.setName(name);
+    restaurantEntity.setLatitude(20.0);
+    restaurantEntity.setLongitude(30.0);
+    restaurantEntity.setOpensAt("10:00");
+    restaurantEntity.setClosesAt("23:00");
+    restaurantEntity.setAttributes(Arrays.asList(attributes));
+    restaurants.add(restaurantEntity);
+    return restaurantEntity;
+  }
+
+  // One item with the given name and attributes.
+  private void addMenu(String restaurantId, String itemName, String... itemAttributes) {
+    Item item = new Item();
+    item.setName(itemName);
+    item.setAttributes(Arrays.asList(itemAttributes));
+    MenuEntity menuEntity = new MenuEntity();
+    menuEntity.setRestaurantId(restaurantId);
+    menuEntity.setItems(new ArrayList<>(Arrays.asList(item)));
+    menus.add(menuEntity);
+  }
+
+}
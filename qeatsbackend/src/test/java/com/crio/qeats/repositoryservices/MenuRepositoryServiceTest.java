@@ -0,0 +1,147 @@
+package com.crio.qeats.repositoryservices;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.crio.qeats.QEatsApplication;
+import com.crio.qeats.configs.RedisConfiguration;
+import com.crio.qeats.dto.Menu;
+import com.crio.qeats.models.MenuEntity;
+import com.crio.qeats.repositories.MenuRepository;
+import com.crio.qeats.utils.FixtureHelpers;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import redis.clients.jedis.Jedis;
+
+@SpringBootTest(classes = {QEatsApplication.class})
+@DirtiesContext
+@ActiveProfiles("test")
+class MenuRepositoryServiceTest {
+
+  private static final String FIXTURES = "fixtures/exchanges";
+
+  @Autowired
+  private MenuRepositoryServiceImpl menuRepositoryService;
+  @Autowired
+  private RedisConfiguration redisConfiguration;
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  @MockBean
+  private MenuRepository mockMenuRepository;
+
+  @AfterEach
+  void teardown() {
+    menuRepositoryService.onMenuRemoved("11", null);
+    menuRepositoryService.onMenuRemoved("12", null);
+    menuRepositoryService.onMenuRemoved("99", null);
+    redisConfiguration.destroyCache();
+  }
+
+  @Test
+  void repeatedMenuReadsAreServedFromCache() throws IOException {
+    MenuEntity menuEntity = listOfMenus().get(0);
+    when(mockMenuRepository.findMenuByRestaurantId("11")).thenReturn(Optional.of(menuEntity));
+
+    Menu menu = menuRepositoryService.findMenu("11");
+    Menu cachedMenu = menuRepositoryService.findMenu("11");
+
+    verify(mockMenuRepository, times(1)).findMenuByRestaurantId("11");
+    assertEquals("11", menu.getRestaurantId());
+    assertEquals(menu.getItems(), cachedMenu.getItems());
+    assertNotNull(menu.getVersion());
+    assertEquals(menu.getVersion(), cachedMenu.getVersion());
+
+    try (Jedis jedis = redisConfiguration.getJedisPool().getResource()) {
+      assertNotNull(jedis.get(MenuRepositoryServiceImpl.MENU_KEY_PREFIX + "11"));
+    }
+  }
+
+  @Test
+  void changedMenuIsReadAgainWithNewVersion() throws IOException {
+    MenuEntity menuEntity = listOfMenus().get(0);
+    when(mockMenuRepository.findMenuByRestaurantId("11")).thenReturn(Optional.of(menuEntity));
+    String version = menuRepositoryService.findMenu("11").getVersion();
+
+    menuEntity.getItems().get(0).setPrice(250);
+    menuRepositoryService.onMenuChanged(menuEntity, null);
+    Menu menu = menuRepositoryService.findMenu("11");
+
+    verify(mockMenuRepository, times(2)).findMenuByRestaurantId("11");
+    assertEquals(250, menu.getItems().get(0).getPrice());
+    assertEquals(false, version.equals(menu.getVersion()));
+  }
+
+  @Test
+  void menusOfManyRestaurantsAreReadInBulk() throws IOException {
+    List<MenuEntity> menuEntities = listOfMenus();
+    when(mockMenuRepository.findMenuByRestaurantId("11"))
+        .thenReturn(Optional.of(menuEntities.get(0)));
+    when(mockMenuRepository.findMenusByRestaurantIdIn(any()))
+        .thenReturn(menuEntities.subList(1, 2));
+    String version = menuRepositoryService.findMenu("11").getVersion();
+
+    Map<String, Menu> menus = menuRepositoryService.findMenus(Arrays.asList("12", "99", "11"));
+
+    verify(mockMenuRepository, times(1)).findMenusByRestaurantIdIn(Arrays.asList("12", "99"));
+    assertEquals(Arrays.asList("12", "11"), new ArrayList<>(menus.keySet()));
+    assertEquals(version, menus.get("11").getVersion());
+
+    // Now every menu, including the missing one, comes from the cache.
+    menus = menuRepositoryService.findMenus(Arrays.asList("11", "12", "99"));
+    verify(mockMenuRepository, times(1)).findMenusByRestaurantIdIn(any());
+    assertEquals(2, menus.size());
+    assertEquals(menus.get("12").getVersion(), menuRepositoryService.findMenu("12").getVersion());
+  }
+
+  @Test
+  void menuChangedWhileBeingReadIsNotCached() throws IOException {
+    List<MenuEntity> menuEntities = listOfMenus();
+    // The menu changes after mongo returned it, before it reaches the caches.
+    when(mockMenuRepository.findMenusByRestaurantIdIn(any())).thenAnswer(invocation -> {
+      menuRepositoryService.onMenuChanged(menuEntities.get(1), null);
+      return menuEntities.subList(1, 2);
+    });
+
+    menuRepositoryService.findMenus(Arrays.asList("12"));
+    try (Jedis jedis = redisConfiguration.getJedisPool().getResource()) {
+      assertNull(jedis.get(MenuRepositoryServiceImpl.MENU_KEY_PREFIX + "12"));
+    }
+    menuRepositoryService.findMenus(Arrays.asList("12"));
+
+    verify(mockMenuRepository, times(2)).findMenusByRestaurantIdIn(Arrays.asList("12"));
+  }
+
+  @Test
+  void missingMenuIsNull() {
+    when(mockMenuRepository.findMenuByRestaurantId("99")).thenReturn(Optional.empty());
+
+    assertNull(menuRepositoryService.findMenu("99"));
+  }
+
+  private List<MenuEntity> listOfMenus() throws IOException {
+    String fixture =
+        FixtureHelpers.fixture(FIXTURES + "/initial_data_set_menus.json");
+
+    return objectMapper.readValue(fixture, new TypeReference<List<MenuEntity>>() {
+    });
+  }
+}
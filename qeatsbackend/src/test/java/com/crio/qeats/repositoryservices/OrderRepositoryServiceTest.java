@@ -0,0 +1,136 @@
+package com.crio.qeats.repositoryservices;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.crio.qeats.QEatsApplication;
+import com.crio.qeats.dto.Order;
+import com.crio.qeats.exchanges.GetOrdersRequest;
+import com.crio.qeats.exchanges.GetOrdersResponse;
+import com.crio.qeats.models.OrderEntity;
+import com.crio.qeats.services.CartAndOrderService;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+@SpringBootTest(classes = {QEatsApplication.class})
+@DirtiesContext
+@ActiveProfiles("test")
+class OrderRepositoryServiceTest {
+
+  @Autowired
+  private OrderRepositoryService orderRepositoryService;
+  @Autowired
+  private CartAndOrderService cartAndOrderService;
+  @Autowired
+  private MongoTemplate mongoTemplate;
+
+  @AfterEach
+  void teardown() {
+    // Dropping the collection would drop its indexes too.
+    mongoTemplate.remove(new Query(), OrderEntity.class);
+    orderRepositoryService.evictRecentOrders("Bunny");
+  }
+
+  @Test
+  void ordersOfUserAreIndexed() {
+    Set<String> indexNames = new HashSet<>();
+    for (IndexInfo indexInfo : mongoTemplate.indexOps(OrderEntity.class).getIndexInfo()) {
+      indexNames.add(indexInfo.getName());
+    }
+    assertTrue(indexNames.contains("userId_createdAt_id"));
+  }
+
+  @Test
+  void pagesCoverTheHistoryNewestFirstWithoutGapsOrRepeats() {
+    // Pairs of orders share a createdAt, so the cursor has to break ties on the id.
+    List<String> expectedIds = new ArrayList<>();
+    for (int i = 0; i < 25; i++) {
+      OrderEntity orderEntity = orderEntity("Bunny", new Date(1000000L - (i / 2) * 1000));
+      mongoTemplate.insert(orderEntity);
+      expectedIds.add(orderEntity.getId());
+    }
+    mongoTemplate.insert(orderEntity("Bugs", new Date(2000000L)));
+
+    List<String> pagedIds = new ArrayList<>();
+    String cursor = null;
+    int pages = 0;
+    do {
+      GetOrdersResponse response =
+          cartAndOrderService.getOrders(new GetOrdersRequest("Bunny", 10, cursor));
+      for (Order order : response.getOrders()) {
+        pagedIds.add(order.getId());
+      }
+      cursor = response.getNextCursor();
+      pages++;
+    } while (cursor != null);
+
+    assertEquals(3, pages);
+    assertEquals(25, pagedIds.size());
+    assertEquals(new HashSet<>(expectedIds), new HashSet<>(pagedIds));
+    for (int i = 1; i < pagedIds.size(); i++) {
+      Order previous = findOrder(pagedIds.get(i - 1));
+      Order current = findOrder(pagedIds.get(i));
+      assertTrue(!previous.getCreatedAt().before(current.getCreatedAt()));
+    }
+  }
+
+  @Test
+  void newestOrdersAreCachedUntilEvicted() {
+    mongoTemplate.insert(orderEntity("Bunny", new Date(1000000L)));
+    assertEquals(1, orderRepositoryService.findOrders("Bunny", null, null, 10).size());
+
+    mongoTemplate.insert(orderEntity("Bunny", new Date(2000000L)));
+    assertEquals(1, orderRepositoryService.findOrders("Bunny", null, null, 10).size());
+
+    orderRepositoryService.evictRecentOrders("Bunny");
+    List<Order> orders = orderRepositoryService.findOrders("Bunny", null, null, 10);
+    assertEquals(2, orders.size());
+    assertEquals(2000000L, orders.get(0).getCreatedAt().getTime());
+    GetOrdersResponse response =
+        cartAndOrderService.getOrders(new GetOrdersRequest("Bunny", null, null));
+    assertNull(response.getNextCursor());
+  }
+
+  @Test
+  void ordersAreCountedPerRestaurantSinceTheGivenTime() {
+    mongoTemplate.insert(orderEntity("Bunny", new Date(1000000L)));
+    mongoTemplate.insert(orderEntity("Bugs", new Date(2000000L)));
+    OrderEntity elsewhere = orderEntity("Bugs", new Date(3000000L));
+    elsewhere.setRestaurantId("11");
+    mongoTemplate.insert(elsewhere);
+
+    Map<String, Long> ordersByRestaurantId =
+        orderRepositoryService.countOrdersByRestaurant(new Date(1500000L));
+
+    assertEquals(2, ordersByRestaurantId.size());
+    assertEquals(1L, ordersByRestaurantId.get("10").longValue());
+    assertEquals(1L, ordersByRestaurantId.get("11").longValue());
+  }
+
+  private Order findOrder(String id) {
+    OrderEntity orderEntity = mongoTemplate.findById(id, OrderEntity.class);
+    return new Order(orderEntity.getId(), orderEntity.getRestaurantId(),
+        orderEntity.getUserId(), orderEntity.getItems(), orderEntity.getTotal(),
+        orderEntity.getCreatedAt());
+  }
+
+  private static OrderEntity orderEntity(String userId, Date createdAt) {
+    return new OrderEntity(new ObjectId().toHexString(), "10", userId, new ArrayList<>(), 225,
+        createdAt);
+  }
+}
@@ -0,0 +1,139 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.repositoryservices;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import ch.hsr.geohash.GeoHash;
+import com.crio.qeats.QEatsApplication;
+import com.crio.qeats.configs.RedisConfiguration;
+import com.crio.qeats.dto.Restaurant;
+import com.crio.qeats.globals.GlobalConstants;
+import com.crio.qeats.models.ItemEntity;
+import com.crio.qeats.models.MenuEntity;
+import com.crio.qeats.models.RestaurantEntity;
+import com.crio.qeats.utils.FixtureHelpers;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import redis.clients.jedis.Jedis;
+
+@SpringBootTest(classes = {QEatsApplication.class},
+    properties = "qeats.restaurants.reactive=true")
+@DirtiesContext
+@ActiveProfiles("test")
+class ReactiveRestaurantRepositoryServiceTest {
+
+  private static final String FIXTURES = "fixtures/exchanges";
+
+  @Autowired
+  private ReactiveRestaurantRepositoryService reactiveRestaurantRepositoryService;
+  @Autowired
+  private MongoTemplate mongoTemplate;
+  @Autowired
+  private ObjectMapper objectMapper;
+  @Autowired
+  private RedisConfiguration redisConfiguration;
+
+  @BeforeEach
+  void setup() throws IOException {
+    for (RestaurantEntity restaurantEntity : load("initial_data_set_restaurants.json",
+        new TypeReference<List<RestaurantEntity>>() {
+        })) {
+      mongoTemplate.save(restaurantEntity, "restaurants");
+    }
+    for (MenuEntity menuEntity : load("initial_data_set_menus.json",
+        new TypeReference<List<MenuEntity>>() {
+        })) {
+      mongoTemplate.save(menuEntity, "menus");
+    }
+    ItemEntity itemEntity = new ItemEntity();
+    itemEntity.setItemId("1");
+    itemEntity.setName("Chicken Briyani");
+    itemEntity.setImageUrl("www.google.com");
+    itemEntity.setPrice(225.0);
+    mongoTemplate.save(itemEntity, "items");
+  }
+
+  @AfterEach
+  void teardown() {
+    mongoTemplate.dropCollection("restaurants");
+    mongoTemplate.dropCollection("items");
+    mongoTemplate.dropCollection("menus");
+    redisConfiguration.destroyCache();
+  }
+
+  @Test
+  void restaurantsCloseByAreReadThroughTheCache() {
+    List<Restaurant> restaurants = reactiveRestaurantRepositoryService
+        .findAllRestaurantsCloseBy(20.0, 30.0, LocalTime.of(18, 1), 3.0)
+        .collectList().block();
+
+    assertEquals(Arrays.asList("11", "12"), ids(restaurants));
+    String geoHashKey = GeoHash.withCharacterPrecision(20.0, 30.0,
+        GlobalConstants.GEOHASH_PRECISION).toBase32();
+    try (Jedis jedis = redisConfiguration.getJedisPool().getResource()) {
+      assertNotNull(jedis.get(geoHashKey));
+      assertTrue(jedis.ttl(geoHashKey) > 0);
+    }
+
+    // Served from redis even once mongo no longer has them.
+    mongoTemplate.dropCollection("restaurants");
+    restaurants = reactiveRestaurantRepositoryService
+        .findAllRestaurantsCloseBy(20.0, 30.0, LocalTime.of(18, 1), 3.0)
+        .collectList().block();
+    assertEquals(Arrays.asList("11", "12"), ids(restaurants));
+  }
+
+  @Test
+  void closedRestaurantsAreNotFound() {
+    assertTrue(reactiveRestaurantRepositoryService
+        .findAllRestaurantsCloseBy(20.0, 30.0, LocalTime.of(17, 59), 3.0)
+        .collectList().block().isEmpty());
+  }
+
+  @Test
+  void restaurantsServingTheItemAreFound() {
+    List<Restaurant> restaurants = reactiveRestaurantRepositoryService
+        .findRestaurantsByItemName(20.0, 30.0, "Briyani", LocalTime.of(18, 1), 3.0)
+        .collectList().block();
+
+    assertEquals(Arrays.asList("11", "12"), ids(restaurants));
+  }
+
+  @Test
+  void exactNameMatchesComeFirst() {
+    List<Restaurant> restaurants = reactiveRestaurantRepositoryService
+        .findRestaurantsByName(20.8, 30.1, "A2B", LocalTime.of(20, 0), 5.0)
+        .collectList().block();
+
+    assertEquals(Arrays.asList("13", "14"), ids(restaurants));
+    assertEquals("A2B Adyar Ananda Bhavan", restaurants.get(1).getName());
+  }
+
+  private static List<String> ids(List<Restaurant> restaurants) {
+    return restaurants.stream().map(Restaurant::getRestaurantId).collect(Collectors.toList());
+  }
+
+  private <T> T load(String fileName, TypeReference<T> type) throws IOException {
+    return objectMapper.readValue(FixtureHelpers.fixture(FIXTURES + "/" + fileName), type);
+  }
+}
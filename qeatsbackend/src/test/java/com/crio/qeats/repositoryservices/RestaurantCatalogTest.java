@@ -0,0 +1,132 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.repositoryservices;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+import com.crio.qeats.models.RestaurantEntity;
+import com.crio.qeats.repositories.RestaurantRepository;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class RestaurantCatalogTest {
+
+  @InjectMocks
+  private RestaurantCatalog restaurantCatalog;
+
+  @Mock
+  private RestaurantRepository restaurantRepository;
+
+  @Mock
+  private RestaurantChangeFeed restaurantChangeFeed;
+
+  @Test
+  void queriesOnlyReadTheShardsTheirRadiusOverlaps() {
+    when(restaurantRepository.findAllRestaurantCandidates()).thenReturn(Arrays.asList(
+        restaurant("1", 20.0, 30.0),
+        restaurant("2", 20.01, 30.01),
+        restaurant("3", 12.97, 77.59),
+        restaurant("4", 28.61, 77.21)));
+    assertFalse(restaurantCatalog.isLoaded());
+    when(restaurantChangeFeed.isLive()).thenReturn(true);
+    restaurantCatalog.load();
+
+    assertTrue(restaurantCatalog.isLoaded());
+    assertEquals(3, restaurantCatalog.shardCount());
+    assertEquals(Arrays.asList("1", "2"), candidates(20.0, 30.0, 5.0));
+    assertEquals(Arrays.asList("3"), candidates(12.97, 77.59, 5.0));
+    assertTrue(candidates(40.0, 40.0, 5.0).isEmpty());
+  }
+
+  @Test
+  void radiusAcrossAShardEdgeReadsBothShards() {
+    // 20.0390625 is the edge between two shards.
+    when(restaurantRepository.findAllRestaurantCandidates()).thenReturn(Arrays.asList(
+        restaurant("1", 20.03, 30.0),
+        restaurant("2", 20.05, 30.0)));
+    restaurantCatalog.load();
+
+    assertEquals(2, restaurantCatalog.shardCount());
+    assertEquals(Arrays.asList("1", "2"), candidates(20.04, 30.0, 3.0).stream().sorted()
+        .collect(Collectors.toList()));
+  }
+
+  @Test
+  void changesCopyTheirShardsAndLeaveReadersWithTheOldOnes() {
+    when(restaurantRepository.findAllRestaurantCandidates()).thenReturn(new ArrayList<>(
+        Arrays.asList(restaurant("1", 20.0, 30.0), restaurant("2", 20.01, 30.01))));
+    restaurantCatalog.load();
+    List<RestaurantEntity> before = restaurantCatalog.findCandidatesWithin(20.0, 30.0, 5.0);
+
+    // Moves to another city, and a new restaurant opens where it was.
+    RestaurantEntity moved = restaurant("1", 12.97, 77.59);
+    moved.setName("A2B");
+    restaurantCatalog.onRestaurantChanged(restaurant("1", 20.0, 30.0), moved);
+    restaurantCatalog.onRestaurantChanged(null, restaurant("5", 20.02, 30.0));
+
+    assertEquals(2, before.size());
+    assertEquals(Arrays.asList("2", "5"), candidates(20.0, 30.0, 5.0));
+    assertEquals(Arrays.asList("1"), candidates(12.97, 77.59, 5.0));
+    // Only what the geo filter needs is kept.
+    assertNull(restaurantCatalog.findCandidatesWithin(12.97, 77.59, 5.0).get(0).getName());
+
+    restaurantCatalog.onRestaurantRemoved(moved);
+    assertTrue(candidates(12.97, 77.59, 5.0).isEmpty());
+    assertEquals(1, restaurantCatalog.shardCount());
+  }
+
+  @Test
+  void notUsedOnceTheChangeFeedStopsFollowingMongo() {
+    when(restaurantRepository.findAllRestaurantCandidates())
+        .thenReturn(Arrays.asList(restaurant("1", 20.0, 30.0)));
+    when(restaurantChangeFeed.isLive()).thenReturn(true, false);
+    restaurantCatalog.load();
+
+    assertTrue(restaurantCatalog.isLoaded());
+    assertFalse(restaurantCatalog.isLoaded());
+  }
+
+  @Test
+  void changesBeforeTheLoadAreLeftToIt() {
+    restaurantCatalog.onRestaurantChanged(null, restaurant("1", 20.0, 30.0));
+    when(restaurantRepository.findAllRestaurantCandidates())
+        .thenReturn(Arrays.asList(restaurant("2", 20.0, 30.0)));
+    restaurantCatalog.load();
+
+    assertEquals(Arrays.asList("2"), candidates(20.0, 30.0, 5.0));
+  }
+
+  private List<String> candidates(double latitude, double longitude, double radiusInKms) {
+    return restaurantCatalog.findCandidatesWithin(latitude, longitude, radiusInKms).stream()
+        .map(RestaurantEntity::getRestaurantId)
+        .collect(Collectors.toList());
+  }
+
+  private static RestaurantEntity restaurant(String restaurantId, double latitude,
+      double longitude) {
+    RestaurantEntity restaurantEntity = new RestaurantEntity();
+    restaurantEntity.setRestaurantId(restaurantId);
+    restaurantEntity.setLatitude(latitude);
+    restaurantEntity.setLongitude(longitude);
+    restaurantEntity.setOpensAt("10:00");
+    restaurantEntity.setClosesAt("23:00");
+    return restaurantEntity;
+  }
+
+}
@@ -0,0 +1,194 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.repositoryservices;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+import com.crio.qeats.models.MenuEntity;
+import com.crio.qeats.models.RestaurantEntity;
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.BsonTimestamp;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(MockitoExtension.class)
+class RestaurantChangeFeedTest {
+
+  @InjectMocks
+  private RestaurantChangeFeed restaurantChangeFeed;
+
+  @Mock
+  private MongoTemplate mongoTemplate;
+
+  @Mock
+  private RestaurantChangeListener restaurantChangeListener;
+
+  @BeforeEach
+  void setup() {
+    ReflectionTestUtils.setField(restaurantChangeFeed, "listeners",
+        Collections.singletonList(restaurantChangeListener));
+  }
+
+  @Test
+  void pollingReportsUpdatesInsertsAndDeletes() {
+    RestaurantEntity restaurant10 = restaurant("10", 20.0, new Date(1000));
+    RestaurantEntity restaurant11 = restaurant("11", 20.0, new Date(2000));
+    doReturn(Arrays.asList(restaurant10, restaurant11))
+        .when(mongoTemplate).findAll(RestaurantEntity.class);
+    doReturn(Collections.emptyList()).when(mongoTemplate).findAll(MenuEntity.class);
+    restaurantChangeFeed.seed();
+
+    RestaurantEntity movedRestaurant11 = restaurant("11", 21.0, new Date(3000));
+    // Written by a tool that does not stamp updatedAt, only the id diff can find it.
+    RestaurantEntity restaurant12 = restaurant("12", 20.0, null);
+    doReturn(Collections.singletonList(movedRestaurant11),
+        Collections.singletonList(restaurant12))
+        .when(mongoTemplate).find(any(Query.class), eq(RestaurantEntity.class));
+    doReturn(Arrays.asList(new Document("_id", "11"), new Document("_id", "12")))
+        .when(mongoTemplate).find(any(Query.class), eq(Document.class), eq("restaurants"));
+    doReturn(Collections.emptyList())
+        .when(mongoTemplate).find(any(Query.class), eq(MenuEntity.class));
+    doReturn(Collections.emptyList())
+        .when(mongoTemplate).find(any(Query.class), eq(Document.class), eq("menus"));
+
+    restaurantChangeFeed.pollOnce(true);
+
+    verify(restaurantChangeListener, times(1))
+        .onRestaurantChanged(restaurant11, movedRestaurant11);
+    verify(restaurantChangeListener, times(1)).onRestaurantChanged(null, restaurant12);
+    verify(restaurantChangeListener, times(1)).onRestaurantRemoved(restaurant10);
+    verifyNoMoreInteractions(restaurantChangeListener);
+  }
+
+  @Test
+  void pollsBetweenIdScansOnlyReadUpdates() {
+    doReturn(Collections.singletonList(restaurant("10", 20.0, new Date(1000))))
+        .when(mongoTemplate).findAll(RestaurantEntity.class);
+    doReturn(Collections.emptyList()).when(mongoTemplate).findAll(MenuEntity.class);
+    restaurantChangeFeed.seed();
+    doReturn(Collections.emptyList())
+        .when(mongoTemplate).find(any(Query.class), eq(RestaurantEntity.class));
+    doReturn(Collections.emptyList())
+        .when(mongoTemplate).find(any(Query.class), eq(MenuEntity.class));
+
+    restaurantChangeFeed.pollOnce(false);
+
+    verify(mongoTemplate, never()).find(any(Query.class), eq(Document.class), anyString());
+    verifyNoMoreInteractions(restaurantChangeListener);
+  }
+
+  @Test
+  void changedMenuComesWithItsRestaurant() {
+    RestaurantEntity restaurant10 = restaurant("10", 20.0, new Date(1000));
+    doReturn(Collections.singletonList(restaurant10))
+        .when(mongoTemplate).findAll(RestaurantEntity.class);
+    doReturn(Collections.emptyList()).when(mongoTemplate).findAll(MenuEntity.class);
+    restaurantChangeFeed.seed();
+    MenuEntity menu10 = new MenuEntity("m10", "10", Collections.emptyList(), new Date(2000));
+    doReturn(Collections.emptyList())
+        .when(mongoTemplate).find(any(Query.class), eq(RestaurantEntity.class));
+    doReturn(Collections.singletonList(menu10))
+        .when(mongoTemplate).find(any(Query.class), eq(MenuEntity.class));
+
+    restaurantChangeFeed.pollOnce(false);
+
+    verify(restaurantChangeListener, times(1)).onMenuChanged(menu10, restaurant10);
+    verifyNoMoreInteractions(restaurantChangeListener);
+  }
+
+  @Test
+  void changeStreamsAreDrainedBeforeTheOtherIsRead() {
+    doReturn(Collections.emptyList()).when(mongoTemplate).findAll(RestaurantEntity.class);
+    doReturn(Collections.emptyList()).when(mongoTemplate).findAll(MenuEntity.class);
+    MongoConverter mongoConverter = mock(MongoConverter.class);
+    doReturn(mongoConverter).when(mongoTemplate).getConverter();
+    Document restaurantDocument = new Document("_id", "10");
+    RestaurantEntity restaurant10 = restaurant("10", 20.0, new Date(1000));
+    doReturn(restaurant10).when(mongoConverter).read(RestaurantEntity.class, restaurantDocument);
+
+    MongoCursor<ChangeStreamDocument<Document>> restaurantChanges =
+        openChangeStream("restaurants");
+    MongoCursor<ChangeStreamDocument<Document>> menuChanges = openChangeStream("menus");
+    ChangeStreamDocument<Document> insert = new ChangeStreamDocument<>(new BsonDocument(),
+        new BsonDocument("db", new BsonString("qeats"))
+            .append("coll", new BsonString("restaurants")),
+        restaurantDocument, new BsonDocument("_id", new BsonString("10")), new BsonTimestamp(),
+        OperationType.INSERT, null);
+    // A burst of three writes to restaurants while menus stays idle.
+    doReturn(insert, insert, insert, null).when(restaurantChanges).tryNext();
+    doAnswer(invocation -> {
+      restaurantChangeFeed.stop();
+      return null;
+    }).when(menuChanges).tryNext();
+    ReflectionTestUtils.setField(restaurantChangeFeed, "running", true);
+    ReflectionTestUtils.setField(restaurantChangeFeed, "lastSyncMillis", 0L);
+
+    long before = System.currentTimeMillis();
+    Boolean followed = ReflectionTestUtils.invokeMethod(restaurantChangeFeed,
+        "followChangeStreams");
+
+    assertThat(followed).isTrue();
+    verify(restaurantChangeListener, times(3)).onRestaurantChanged(any(), eq(restaurant10));
+    verify(menuChanges, times(1)).tryNext();
+    long lastSyncMillis =
+        (long) ReflectionTestUtils.getField(restaurantChangeFeed, "lastSyncMillis");
+    assertThat(lastSyncMillis).isGreaterThanOrEqualTo(before);
+  }
+
+  @SuppressWarnings("unchecked")
+  private MongoCursor<ChangeStreamDocument<Document>> openChangeStream(String collection) {
+    MongoCollection<Document> mongoCollection = mock(MongoCollection.class);
+    ChangeStreamIterable<Document> changeStream = mock(ChangeStreamIterable.class);
+    MongoCursor<ChangeStreamDocument<Document>> cursor = mock(MongoCursor.class);
+    doReturn(mongoCollection).when(mongoTemplate).getCollection(collection);
+    doReturn(changeStream).when(mongoCollection).watch();
+    doReturn(changeStream).when(changeStream).fullDocument(any());
+    doReturn(changeStream).when(changeStream).maxAwaitTime(500, TimeUnit.MILLISECONDS);
+    doReturn(cursor).when(changeStream).iterator();
+    return cursor;
+  }
+
+  private RestaurantEntity restaurant(String id, double latitude, Date updatedAt) {
+    RestaurantEntity restaurantEntity = new RestaurantEntity();
+    restaurantEntity.setId(id);
+    restaurantEntity.setRestaurantId(id);
+    restaurantEntity.setName("A2B");
+    restaurantEntity.setLatitude(latitude);
+    restaurantEntity.setLongitude(30.0);
+    restaurantEntity.setUpdatedAt(updatedAt);
+    return restaurantEntity;
+  }
+}
@@ -1,7 +1,11 @@
 package com.crio.qeats.repositoryservices;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -13,10 +17,12 @@ import com.crio.qeats.dto.Restaurant;
 import com.crio.qeats.models.RestaurantEntity;
 import com.crio.qeats.repositories.RestaurantRepository;
 import com.crio.qeats.utils.FixtureHelpers;
+import com.crio.qeats.utils.StaleList;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.io.IOException;
 import java.time.LocalTime;
+import java.util.Collections;
 import java.util.List;
 import javax.inject.Provider;
 import org.junit.jupiter.api.AfterEach;
@@ -70,7 +76,10 @@ class RestaurantRepositoryServiceCacheTest {
     assertNotNull(mongoTemplate);
     assertNotNull(restaurantRepositoryService);
 
-    when(mockRestaurantRepository.findAll()).thenReturn(listOfRestaurants());
+    List<RestaurantEntity> restaurantEntityList = listOfRestaurants();
+    when(mockRestaurantRepository.findAllRestaurantCandidates()).thenReturn(restaurantEntityList);
+    when(mockRestaurantRepository.findRestaurantsByRestaurantIdIn(any()))
+        .thenReturn(restaurantEntityList);
 
     Jedis jedis = redisConfiguration.getJedisPool().getResource();
 
@@ -81,11 +90,35 @@ class RestaurantRepositoryServiceCacheTest {
         .findAllRestaurantsCloseBy(20.0, 30.0, LocalTime.of(18, 1), 3.0);
     GeoHash geoHash = GeoHash.withCharacterPrecision(20.0, 30.0, 7);
 
-    verify(mockRestaurantRepository, times(1)).findAll();
+    verify(mockRestaurantRepository, times(1)).findAllRestaurantCandidates();
     assertNotNull(jedis.get(geoHash.toBase32()));
     assertEquals(2, allRestaurantsCloseBy.size());
     assertEquals("11", allRestaurantsCloseBy.get(0).getRestaurantId());
     assertEquals("12", allRestaurantsCloseBy.get(1).getRestaurantId());
+    assertFalse(StaleList.isStale(allRestaurantsCloseBy));
+    assertTrue(jedis.ttl(geoHash.toBase32()) > 0);
+  }
+
+  @Test
+  void cellPastItsSoftTtlIsServedStaleWhileMongoFailsItsRefresh() throws IOException {
+    when(mockRestaurantRepository.findAllRestaurantCandidates())
+        .thenThrow(new IllegalStateException("Mongo is down"));
+    Restaurant restaurant = new Restaurant();
+    restaurant.setRestaurantId("11");
+    String cell = GeoHash.withCharacterPrecision(20.0, 30.0, 7).toBase32();
+    String cachedValue = objectMapper.writeValueAsString(Collections.singletonList(restaurant));
+
+    Jedis jedis = redisConfiguration.getJedisPool().getResource();
+    // Written ten minutes ago, past the five minute soft TTL.
+    jedis.setex(cell, 3600 - 600, cachedValue);
+
+    List<Restaurant> allRestaurantsCloseBy = restaurantRepositoryService
+        .findAllRestaurantsCloseBy(20.0, 30.0, LocalTime.of(18, 1), 3.0);
+
+    assertTrue(StaleList.isStale(allRestaurantsCloseBy));
+    assertEquals("11", allRestaurantsCloseBy.get(0).getRestaurantId());
+    verify(mockRestaurantRepository, timeout(5000)).findAllRestaurantCandidates();
+    assertEquals(cachedValue, jedis.get(cell));
   }
 
   private List<RestaurantEntity> listOfRestaurants() throws IOException {
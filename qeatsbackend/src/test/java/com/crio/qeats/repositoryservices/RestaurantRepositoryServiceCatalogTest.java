@@ -0,0 +1,80 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.repositoryservices;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.crio.qeats.QEatsApplication;
+import com.crio.qeats.configs.RedisConfiguration;
+import com.crio.qeats.dto.Restaurant;
+import com.crio.qeats.models.RestaurantEntity;
+import com.crio.qeats.utils.FixtureHelpers;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+// Close by queries as they run in production, with the catalog the test profile turns off.
+@SpringBootTest(classes = {QEatsApplication.class}, properties = "qeats.catalog.enabled=true")
+@DirtiesContext
+@ActiveProfiles("test")
+class RestaurantRepositoryServiceCatalogTest {
+
+  private static final String FIXTURES = "fixtures/exchanges";
+
+  @Autowired
+  private RestaurantRepositoryService restaurantRepositoryService;
+  @Autowired
+  private RestaurantCatalog restaurantCatalog;
+  @Autowired
+  private MongoTemplate mongoTemplate;
+  @Autowired
+  private ObjectMapper objectMapper;
+  @Autowired
+  private RedisConfiguration redisConfiguration;
+
+  @BeforeEach
+  void setup() throws IOException {
+    String fixture = FixtureHelpers.fixture(FIXTURES + "/initial_data_set_restaurants.json");
+    List<RestaurantEntity> restaurantEntities = objectMapper.readValue(fixture,
+        new TypeReference<List<RestaurantEntity>>() {
+        });
+    for (RestaurantEntity restaurantEntity : restaurantEntities) {
+      mongoTemplate.save(restaurantEntity, "restaurants");
+    }
+  }
+
+  @AfterEach
+  void teardown() {
+    mongoTemplate.dropCollection("restaurants");
+    redisConfiguration.destroyCache();
+  }
+
+  @Test
+  void closeByRestaurantsAreFoundInTheLoadedCatalog() {
+    restaurantCatalog.load();
+    assertTrue(restaurantCatalog.isLoaded());
+
+    List<Restaurant> allRestaurantsCloseBy = restaurantRepositoryService
+        .findAllRestaurantsCloseBy(20.0, 30.0, LocalTime.of(18, 1), 3.0);
+
+    assertEquals("11,12", allRestaurantsCloseBy.stream().map(Restaurant::getRestaurantId)
+        .sorted().collect(Collectors.joining(",")));
+  }
+
+}
@@ -18,6 +18,8 @@ import static org.mockito.Mockito.when;
 import com.crio.qeats.QEatsApplication;
 import com.crio.qeats.configs.RedisConfiguration;
 import com.crio.qeats.dto.Restaurant;
+import com.crio.qeats.models.ItemEntity;
+import com.crio.qeats.models.MenuEntity;
 import com.crio.qeats.models.RestaurantEntity;
 import com.crio.qeats.repositories.RestaurantRepository;
 import com.crio.qeats.utils.FixtureHelpers;
@@ -26,8 +28,11 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import java.io.IOException;
 import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
 import javax.inject.Provider;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -82,12 +87,22 @@ public class RestaurantRepositoryServiceTest {
     for (RestaurantEntity restaurantEntity : allRestaurants) {
       mongoTemplate.save(restaurantEntity, "restaurants");
     }
-    when(restaurantRepository.findAll()).thenReturn(allRestaurants);
+    when(restaurantRepository.findAllRestaurantCandidates()).thenReturn(allRestaurants);
+    when(restaurantRepository.findRestaurantsByRestaurantIdIn(any()))
+        .thenAnswer(invocation -> {
+          Collection<String> restaurantIds = invocation.getArgument(0);
+          return allRestaurants.stream()
+              .filter(restaurantEntity -> restaurantIds.contains(
+                  restaurantEntity.getRestaurantId()))
+              .collect(Collectors.toList());
+        });
   }
 
   @AfterEach
   void teardown() {
     mongoTemplate.dropCollection("restaurants");
+    mongoTemplate.dropCollection("items");
+    mongoTemplate.dropCollection("menus");
     redisConfiguration.destroyCache();
   }
 
@@ -95,12 +110,13 @@ public class RestaurantRepositoryServiceTest {
   void restaurantsCloseByAndOpenNow() {
     assertNotNull(restaurantRepositoryService);
 
-    when(restaurantRepository.findAll()).thenReturn(allRestaurants);
+    when(restaurantRepository.findAllRestaurantCandidates()).thenReturn(allRestaurants);
 
     List<Restaurant> allRestaurantsCloseBy = restaurantRepositoryService
         .findAllRestaurantsCloseBy(20.0, 30.0, LocalTime.of(18, 1), 3.0);
 
-    verify(restaurantRepository, times(1)).findAll();
+    verify(restaurantRepository, times(1)).findAllRestaurantCandidates();
+    verify(restaurantRepository, times(1)).findRestaurantsByRestaurantIdIn(any());
     assertEquals(2, allRestaurantsCloseBy.size());
     assertEquals("11", allRestaurantsCloseBy.get(0).getRestaurantId());
     assertEquals("12", allRestaurantsCloseBy.get(1).getRestaurantId());
@@ -177,6 +193,51 @@ public class RestaurantRepositoryServiceTest {
   }
 
 
+  @Test
+  void findRestaurantsByIdsKeepsRequestedOrder() {
+    doReturn(allRestaurants)
+        .when(restaurantRepository).findRestaurantsByRestaurantIdIn(any());
+
+    List<Restaurant> foundRestaurantsList = restaurantRepositoryService
+        .findRestaurantsByIds(Arrays.asList("12", "10", "99", "12"));
+
+    assertEquals(2, foundRestaurantsList.size());
+    assertEquals("12", foundRestaurantsList.get(0).getRestaurantId());
+    assertEquals("10", foundRestaurantsList.get(1).getRestaurantId());
+  }
+
+  @Test
+  void findRestaurantsByIdsSplitsLargeIdLists() {
+    List<String> restaurantIds = new ArrayList<>();
+    for (int i = 0; i < 1200; i++) {
+      restaurantIds.add(String.valueOf(i));
+    }
+
+    restaurantRepositoryService.findRestaurantsByIds(restaurantIds);
+
+    verify(restaurantRepository, times(3)).findRestaurantsByRestaurantIdIn(any());
+  }
+
+  @Test
+  void findRestaurantsByItemNameResolvesMenusInBulk() throws IOException {
+    ItemEntity itemEntity = new ItemEntity();
+    itemEntity.setItemId("1");
+    itemEntity.setName("Chicken Briyani");
+    itemEntity.setImageUrl("www.google.com");
+    itemEntity.setPrice(225.0);
+    mongoTemplate.save(itemEntity, "items");
+    for (MenuEntity menuEntity : listOfMenus()) {
+      mongoTemplate.save(menuEntity, "menus");
+    }
+
+    List<Restaurant> foundRestaurantsList = restaurantRepositoryService
+        .findRestaurantsByItemName(20.0, 30.0, "Briyani", LocalTime.of(18, 1), 3.0);
+
+    verify(restaurantRepository, times(1)).findRestaurantsByRestaurantIdIn(any());
+    assertEquals(2, foundRestaurantsList.size());
+    assertEquals("11", foundRestaurantsList.get(0).getRestaurantId());
+    assertEquals("12", foundRestaurantsList.get(1).getRestaurantId());
+  }
 
   void searchedAttributesIsSubsetOfRetrievedRestaurantAttributes() {
   }
@@ -191,4 +252,12 @@ public class RestaurantRepositoryServiceTest {
     return objectMapper.readValue(fixture, new TypeReference<List<RestaurantEntity>>() {
     });
   }
+
+  private List<MenuEntity> listOfMenus() throws IOException {
+    String fixture =
+        FixtureHelpers.fixture(FIXTURES + "/initial_data_set_menus.json");
+
+    return objectMapper.readValue(fixture, new TypeReference<List<MenuEntity>>() {
+    });
+  }
 }
\ No newline at end of file
@@ -0,0 +1,75 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+import com.crio.qeats.QEatsApplication;
+import com.crio.qeats.configs.RedisConfiguration;
+import com.crio.qeats.dto.Cart;
+import com.crio.qeats.dto.Item;
+import com.crio.qeats.exceptions.OrderNotAcceptedException;
+import com.crio.qeats.messaging.OrderBroker;
+import com.crio.qeats.repositories.CartRepository;
+import com.crio.qeats.repositoryservices.CartRepositoryService;
+import java.util.Collections;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+@SpringBootTest(classes = {QEatsApplication.class})
+@DirtiesContext
+@ActiveProfiles("test")
+class CartAndOrderServiceTest {
+
+  @Autowired
+  private CartAndOrderService cartAndOrderService;
+  @Autowired
+  private CartRepositoryService cartRepositoryService;
+  @Autowired
+  private RedisConfiguration redisConfiguration;
+
+  @MockBean
+  private OrderBroker mockOrderBroker;
+  @MockBean
+  private CartRepository mockCartRepository;
+
+  @AfterEach
+  void teardown() {
+    redisConfiguration.destroyCache();
+  }
+
+  @Test
+  void cartIsKeptWhenTheOrderQueueRefusesTheOrder() {
+    when(mockOrderBroker.publish(anyString(), any())).thenReturn(false);
+    String cartId = cartRepositoryService.findOrCreateCart("Bunny").getId();
+    cartRepositoryService.addItem(cartId, "10", item("1", 225));
+    cartRepositoryService.addItem(cartId, "10", item("2", 100));
+
+    assertThrows(OrderNotAcceptedException.class, () -> cartAndOrderService.postOrder(cartId));
+
+    Cart cart = cartAndOrderService.findOrCreateCart("Bunny");
+    assertEquals(cartId, cart.getId());
+    assertEquals("10", cart.getRestaurantId());
+    assertEquals(2, cart.getItems().size());
+    assertEquals(325, cart.getTotal());
+  }
+
+  private static Item item(String itemId, int price) {
+    return new Item(itemId, itemId, "Item " + itemId, "www.google.com",
+        Collections.singletonList("Mughal"), price);
+  }
+
+}
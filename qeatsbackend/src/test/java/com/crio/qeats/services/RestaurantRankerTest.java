@@ -0,0 +1,112 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+import com.crio.qeats.dto.Restaurant;
+import com.crio.qeats.repositoryservices.OrderRepositoryService;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(MockitoExtension.class)
+class RestaurantRankerTest {
+
+  private static final LocalTime NOON = LocalTime.of(12, 0);
+
+  @InjectMocks
+  private RestaurantRanker restaurantRanker;
+
+  @Mock
+  private OrderRepositoryService orderRepositoryService;
+
+  @Test
+  void tiersComeFirstThenTheNearest() {
+    List<Restaurant> byName = Arrays.asList(restaurant("far", 0.03, "23:00"),
+        restaurant("near", 0.01, "23:00"));
+    List<Restaurant> byAttribute = Arrays.asList(restaurant("nearest", 0.0, "23:00"),
+        restaurant("near", 0.01, "23:00"));
+
+    assertEquals(Arrays.asList("near", "far", "nearest"),
+        ids(rank(Arrays.asList(byName, byAttribute))));
+  }
+
+  @Test
+  void popularAndLongerOpenRestaurantsRankHigher() {
+    Map<String, Long> orders = new HashMap<>();
+    orders.put("popular", 1000L);
+    orders.put("unknown", 1L);
+    when(orderRepositoryService.countOrdersByRestaurant(any(Date.class))).thenReturn(orders);
+    restaurantRanker.refreshPopularity();
+
+    // About 1.1km and 2.2km away within 5km: closeness 0.78 and 0.56.
+    List<Restaurant> restaurants = Arrays.asList(restaurant("unknown", 0.01, "23:00"),
+        restaurant("popular", 0.02, "23:00"), restaurant("closing", 0.0, "12:10"));
+
+    assertEquals(Arrays.asList("popular", "unknown", "closing"),
+        ids(rank(Collections.singletonList(restaurants))));
+  }
+
+  @Test
+  void onlyTheTopKAreRankedAndTheRestKeepTheirOrder() {
+    ReflectionTestUtils.setField(restaurantRanker, "topK", 2);
+    List<Restaurant> byName = Arrays.asList(restaurant("a", 0.04, "23:00"),
+        restaurant("b", 0.03, "23:00"), restaurant("c", 0.02, "23:00"),
+        restaurant("d", 0.01, "23:00"));
+    List<Restaurant> byAttribute = Arrays.asList(restaurant("e", 0.0, "23:00"));
+
+    assertEquals(Arrays.asList("d", "c", "a", "b", "e"),
+        ids(rank(Arrays.asList(byName, byAttribute))));
+  }
+
+  @Test
+  void tiersInMatchOrderAreNotReordered() {
+    List<Restaurant> byName = Arrays.asList(restaurant("far", 0.03, "23:00"),
+        restaurant("near", 0.01, "23:00"));
+    List<Restaurant> byItemName = Arrays.asList(restaurant("exact", 0.04, "23:00"),
+        restaurant("partial", 0.0, "23:00"));
+
+    assertEquals(Arrays.asList("near", "far", "exact", "partial"),
+        ids(restaurantRanker.rank(Arrays.asList(byName, byItemName),
+            Collections.singleton(1), 20.0, 30.0, NOON, 5.0)));
+  }
+
+  private List<Restaurant> rank(List<List<Restaurant>> tiers) {
+    return restaurantRanker.rank(tiers, Collections.emptySet(), 20.0, 30.0, NOON, 5.0);
+  }
+
+  private static List<String> ids(List<Restaurant> restaurants) {
+    return restaurants.stream().map(Restaurant::getRestaurantId).collect(Collectors.toList());
+  }
+
+  // A restaurant north of the user by the given degrees of latitude, ~111km each.
+  private static Restaurant restaurant(String restaurantId, double north, String closesAt) {
+    Restaurant restaurant = new Restaurant();
+    restaurant.setRestaurantId(restaurantId);
+    restaurant.setName(restaurantId);
+    restaurant.setLatitude(20.0 + north);
+    restaurant.setLongitude(30.0);
+    restaurant.setOpensAt("10:00");
+    restaurant.setClosesAt(closesAt);
+    return restaurant;
+  }
+
+}
@@ -12,10 +12,12 @@ import static org.mockito.Mockito.when;
 import com.crio.qeats.dto.Restaurant;
 import com.crio.qeats.exchanges.GetRestaurantsRequest;
 import com.crio.qeats.exchanges.GetRestaurantsResponse;
+import com.crio.qeats.metrics.RestaurantMetrics;
 import com.crio.qeats.repositoryservices.RestaurantRepositoryService;
 import com.crio.qeats.utils.FixtureHelpers;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.io.IOException;
 import java.time.LocalTime;
 import java.util.Arrays;
@@ -29,6 +31,7 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.util.ReflectionTestUtils;
 
 @ExtendWith(MockitoExtension.class)
 public class RestaurantServiceMockitoTestStub {
@@ -53,7 +56,10 @@ public class RestaurantServiceMockitoTestStub {
   @BeforeEach
   void setup() {
     MockitoAnnotations.initMocks(this);
-
+    ReflectionTestUtils.setField(restaurantService, "servingRadiusPolicy",
+        new ServingRadiusPolicy());
+    ReflectionTestUtils.setField(restaurantService, "restaurantMetrics",
+        new RestaurantMetrics(new SimpleMeterRegistry()));
   }
 
   @BeforeEach
@@ -8,22 +8,37 @@
 package com.crio.qeats.services;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.crio.qeats.QEatsApplication;
+import com.crio.qeats.admission.AdaptiveConcurrencyLimiter;
 import com.crio.qeats.dto.Restaurant;
+import com.crio.qeats.exceptions.ServiceUnavailableException;
 import com.crio.qeats.exchanges.GetRestaurantsRequest;
 import com.crio.qeats.exchanges.GetRestaurantsResponse;
+import com.crio.qeats.metrics.RestaurantMetrics;
 import com.crio.qeats.repositoryservices.RestaurantRepositoryService;
 import com.crio.qeats.utils.FixtureHelpers;
+import com.crio.qeats.utils.StaleList;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.io.IOException;
 import java.time.LocalTime;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
@@ -33,8 +48,10 @@ import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataAccessResourceFailureException;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
 
 
 @SpringBootTest(classes = {QEatsApplication.class})
@@ -49,14 +66,34 @@ class RestaurantServiceTest {
   @MockBean
   private RestaurantRepositoryService restaurantRepositoryServiceMock;
   private ObjectMapper objectMapper;
+  private ExecutorService searchExecutor;
 
   @BeforeEach
   void setup() {
     MockitoAnnotations.initMocks(this);
+    searchExecutor = Executors.newFixedThreadPool(4);
+    ReflectionTestUtils.setField(restaurantService, "servingRadiusPolicy",
+        new ServingRadiusPolicy());
+    ReflectionTestUtils.setField(restaurantService, "restaurantMetrics",
+        new RestaurantMetrics(new SimpleMeterRegistry()));
+    ReflectionTestUtils.setField(restaurantService, "concurrencyLimiter",
+        new AdaptiveConcurrencyLimiter());
+    ReflectionTestUtils.setField(restaurantService, "searchResultCache",
+        new SearchResultCache());
+    ReflectionTestUtils.setField(restaurantService, "restaurantRanker", new RestaurantRanker());
+    ReflectionTestUtils.setField(restaurantService, "searchExecutor", searchExecutor);
 
     objectMapper = new ObjectMapper();
   }
 
+  // Lets searches still running in the background finish before the next test's stubs.
+  @AfterEach
+  void teardown() throws InterruptedException {
+    restaurantService.shutdownExecutor();
+    searchExecutor.shutdown();
+    searchExecutor.awaitTermination(5, TimeUnit.SECONDS);
+  }
+
   private String getServingRadius(List<Restaurant> restaurants, LocalTime timeOfService) {
     when(restaurantRepositoryServiceMock
         .findAllRestaurantsCloseBy(any(Double.class), any(Double.class), any(LocalTime.class),
@@ -148,9 +185,10 @@ class RestaurantServiceTest {
         .findRestaurantsByAttributes(any(Double.class), any(Double.class), any(String.class),
             any(LocalTime.class), any(Double.class));
     assertEquals(4, allRestaurantsSearchResults.getRestaurants().size());
-    assertEquals("10", allRestaurantsSearchResults.getRestaurants().get(0).getRestaurantId());
+    // Name matches first, the nearest of them first.
+    assertEquals("12", allRestaurantsSearchResults.getRestaurants().get(0).getRestaurantId());
     assertEquals("11", allRestaurantsSearchResults.getRestaurants().get(1).getRestaurantId());
-    assertEquals("12", allRestaurantsSearchResults.getRestaurants().get(2).getRestaurantId());
+    assertEquals("10", allRestaurantsSearchResults.getRestaurants().get(2).getRestaurantId());
     assertEquals("abcdc864835e31495d621234",
         allRestaurantsSearchResults.getRestaurants().get(3).getRestaurantId());
 
@@ -188,8 +226,9 @@ class RestaurantServiceTest {
         .findRestaurantsByAttributes(any(Double.class), any(Double.class), any(String.class),
             any(LocalTime.class), any(Double.class));
     assertEquals(3, allRestaurantsSearchResults.getRestaurants().size());
-    assertEquals("11", allRestaurantsSearchResults.getRestaurants().get(0).getRestaurantId());
-    assertEquals("12", allRestaurantsSearchResults.getRestaurants().get(1).getRestaurantId());
+    // Name matches first, the nearest of them first.
+    assertEquals("12", allRestaurantsSearchResults.getRestaurants().get(0).getRestaurantId());
+    assertEquals("11", allRestaurantsSearchResults.getRestaurants().get(1).getRestaurantId());
     assertEquals("abcdc864835e31495d621234",
         allRestaurantsSearchResults.getRestaurants().get(2).getRestaurantId());
 
@@ -206,6 +245,108 @@ class RestaurantServiceTest {
     assertEquals(servingRadiusInKms.getValue().toString(), "3.0");
   }
 
+  @Test
+  void repeatedSearchIsServedFromTheCache() throws IOException {
+    when(restaurantRepositoryServiceMock.findRestaurantsByName(any(Double.class),
+        any(Double.class), any(String.class), any(LocalTime.class), any(Double.class)))
+        .thenReturn(loadRestaurantsDuringNormalHours());
+
+    GetRestaurantsRequest getRestaurantsRequest = new GetRestaurantsRequest(20.0, 30.0);
+    getRestaurantsRequest.setSearchFor("Test");
+    GetRestaurantsResponse firstResults = restaurantService
+        .findRestaurantsBySearchQuery(getRestaurantsRequest, LocalTime.of(22, 0));
+
+    // Another user in the same cell a minute later, with sloppier spacing.
+    getRestaurantsRequest = new GetRestaurantsRequest(20.0001, 30.0001);
+    getRestaurantsRequest.setSearchFor(" Test ");
+    GetRestaurantsResponse cachedResults = restaurantService
+        .findRestaurantsBySearchQuery(getRestaurantsRequest, LocalTime.of(22, 1));
+
+    verify(restaurantRepositoryServiceMock, times(1))
+        .findRestaurantsByName(any(Double.class), any(Double.class), eq("Test"),
+            any(LocalTime.class), any(Double.class));
+    assertEquals(firstResults.getRestaurants(), cachedResults.getRestaurants());
+  }
+
+  @Test
+  void failedSearchIsReportedInsteadOfFindingNothing() {
+    // The last of the four searches fails, so none is left running into the next test.
+    when(restaurantRepositoryServiceMock.findRestaurantsByItemAttributes(any(Double.class),
+        any(Double.class), any(String.class), any(LocalTime.class), any(Double.class)))
+        .thenThrow(new IllegalStateException("Mongo is down"));
+
+    GetRestaurantsRequest getRestaurantsRequest = new GetRestaurantsRequest(20.0, 30.0);
+    getRestaurantsRequest.setSearchFor("Test");
+    assertThrows(ServiceUnavailableException.class, () -> restaurantService
+        .findRestaurantsBySearchQuery(getRestaurantsRequest, LocalTime.of(22, 0)));
+  }
+
+  @Test
+  void closeByRestaurantsFailingInMongoAreReportedAsUnavailable() {
+    when(restaurantRepositoryServiceMock.findAllRestaurantsCloseBy(any(Double.class),
+        any(Double.class), any(LocalTime.class), any(Double.class)))
+        .thenThrow(new DataAccessResourceFailureException("Mongo is down"));
+
+    assertThrows(ServiceUnavailableException.class, () -> restaurantService
+        .findAllRestaurantsCloseBy(new GetRestaurantsRequest(20.0, 30.0), LocalTime.of(22, 0)));
+  }
+
+  @Test
+  void lastResultIsServedStaleWhileMongoFailsItsRefresh() throws IOException {
+    when(restaurantRepositoryServiceMock.findRestaurantsByItemAttributes(any(Double.class),
+        any(Double.class), any(String.class), any(LocalTime.class), any(Double.class)))
+        .thenReturn(loadRestaurantsDuringNormalHours())
+        .thenThrow(new IllegalStateException("Mongo is down"));
+
+    GetRestaurantsRequest getRestaurantsRequest = new GetRestaurantsRequest(20.0, 30.0);
+    getRestaurantsRequest.setSearchFor("Test");
+    GetRestaurantsResponse firstResults = restaurantService
+        .findRestaurantsBySearchQuery(getRestaurantsRequest, LocalTime.of(22, 0));
+    assertFalse(StaleList.isStale(firstResults.getRestaurants()));
+
+    // Past the time bucket, the search fails in the background.
+    GetRestaurantsResponse staleResults = restaurantService
+        .findRestaurantsBySearchQuery(getRestaurantsRequest, LocalTime.of(22, 10));
+    verify(restaurantRepositoryServiceMock, timeout(5000).times(2))
+        .findRestaurantsByItemAttributes(any(Double.class), any(Double.class), eq("Test"),
+            any(LocalTime.class), any(Double.class));
+
+    assertTrue(StaleList.isStale(staleResults.getRestaurants()));
+    assertEquals(firstResults.getRestaurants(), staleResults.getRestaurants());
+  }
+
+  @Test
+  void typoTolerantMatchesFollowTheOthersOnlyWhenTheyFindTooFew() throws IOException {
+    List<Restaurant> restaurants = loadRestaurantsDuringNormalHours();
+    ReflectionTestUtils.setField(restaurantService, "fuzzyMinResults", 3);
+    when(restaurantRepositoryServiceMock.findRestaurantsByName(any(Double.class),
+        any(Double.class), eq("Biriyani"), any(LocalTime.class), any(Double.class)))
+        .thenReturn(restaurants.subList(0, 1));
+    when(restaurantRepositoryServiceMock.findRestaurantsByFuzzyMatch(any(Double.class),
+        any(Double.class), eq("Biriyani"), any(LocalTime.class), any(Double.class)))
+        .thenReturn(Arrays.asList(restaurants.get(2), restaurants.get(0)));
+    when(restaurantRepositoryServiceMock.findRestaurantsByName(any(Double.class),
+        any(Double.class), eq("Biryani"), any(LocalTime.class), any(Double.class)))
+        .thenReturn(restaurants);
+
+    GetRestaurantsRequest getRestaurantsRequest = new GetRestaurantsRequest(20.0, 30.0);
+    getRestaurantsRequest.setSearchFor("Biriyani");
+    List<Restaurant> found = restaurantService
+        .findRestaurantsBySearchQuery(getRestaurantsRequest, LocalTime.of(22, 0))
+        .getRestaurants();
+    assertEquals(Arrays.asList(restaurants.get(0), restaurants.get(2)), found);
+
+    getRestaurantsRequest.setSearchFor("Biryani");
+    found = restaurantService
+        .findRestaurantsBySearchQuery(getRestaurantsRequest, LocalTime.of(22, 0))
+        .getRestaurants();
+    assertEquals(Arrays.asList(restaurants.get(2), restaurants.get(1), restaurants.get(0)),
+        found);
+    verify(restaurantRepositoryServiceMock, times(0))
+        .findRestaurantsByFuzzyMatch(any(Double.class), any(Double.class), eq("Biryani"),
+            any(LocalTime.class), any(Double.class));
+  }
+
   @Test
   void findRestaurantsSearchQueryIsEmpty() {
     GetRestaurantsRequest getRestaurantsRequest = new GetRestaurantsRequest(20.0, 30.0);
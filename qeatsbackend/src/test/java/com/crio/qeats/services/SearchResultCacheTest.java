@@ -0,0 +1,153 @@
+package com.crio.qeats.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.crio.qeats.dto.Restaurant;
+import com.crio.qeats.models.MenuEntity;
+import com.crio.qeats.models.RestaurantEntity;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.LocalTime;
+import java.util.Collections;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class SearchResultCacheTest {
+
+  private static final LocalTime NOON = LocalTime.of(12, 0);
+
+  private final SearchResultCache searchResultCache =
+      new SearchResultCache(true, 1000, 5, new SimpleMeterRegistry());
+
+  @Test
+  void searchStringsAndRadiiAreNormalized() {
+    assertEquals("South Indian", SearchResultCache.normalize("  South \t Indian "));
+    assertEquals("", SearchResultCache.normalize(null));
+    assertEquals(3.0, SearchResultCache.radiusClass(3.4));
+    assertEquals(2.5, SearchResultCache.radiusClass(2.9));
+    assertEquals(0.3, SearchResultCache.radiusClass(0.3));
+  }
+
+  @Test
+  void nearbyUsersShareEntriesWithinATimeBucket() {
+    SearchResultCache.Key key = searchResultCache.keyOf("Biryani", 20.0, 30.0, 5.0, NOON);
+
+    assertEquals(key, searchResultCache.keyOf("Biryani", 20.0001, 30.0001, 5.0,
+        LocalTime.of(12, 4)));
+    assertNotEquals(key, searchResultCache.keyOf("Biryani", 20.0, 30.0, 5.0,
+        LocalTime.of(12, 5)));
+    assertNotEquals(key, searchResultCache.keyOf("Biryani", 20.01, 30.0, 5.0, NOON));
+    assertNotEquals(key, searchResultCache.keyOf("Biryani", 20.0, 30.0, 3.0, NOON));
+    assertNotEquals(key, searchResultCache.keyOf("biryani", 20.0, 30.0, 5.0, NOON));
+  }
+
+  @Test
+  void changedRestaurantEvictsOnlyNearbySearches() {
+    SearchResultCache.Key near = searchResultCache.keyOf("Biryani", 20.0, 30.0, 5.0, NOON);
+    SearchResultCache.Key far = searchResultCache.keyOf("Biryani", 21.0, 30.0, 5.0, NOON);
+    searchResultCache.put(near, restaurants("10"));
+    searchResultCache.put(far, restaurants("11"));
+
+    searchResultCache.onRestaurantChanged(null, restaurantEntity(20.01, 30.01));
+
+    assertNull(searchResultCache.get(near));
+    assertEquals("11", searchResultCache.get(far).get(0).getRestaurantId());
+
+    searchResultCache.onMenuChanged(new MenuEntity(), null);
+    assertNull(searchResultCache.get(far));
+  }
+
+  @Test
+  void changedMenuEvictsOnlySearchesAroundItsRestaurant() {
+    SearchResultCache.Key near = searchResultCache.keyOf("Biryani", 20.0, 30.0, 5.0, NOON);
+    SearchResultCache.Key far = searchResultCache.keyOf("Biryani", 21.0, 30.0, 5.0, NOON);
+    searchResultCache.put(near, restaurants("11"));
+    searchResultCache.put(far, restaurants("12"));
+
+    MenuEntity menuEntity = new MenuEntity();
+    menuEntity.setRestaurantId("10");
+    searchResultCache.onMenuChanged(menuEntity, restaurantEntity(20.01, 30.01));
+
+    assertNull(searchResultCache.get(near));
+    assertNull(searchResultCache.getStale(near));
+    assertEquals("12", searchResultCache.get(far).get(0).getRestaurantId());
+
+    // A restaurant that can't be located may be anywhere.
+    searchResultCache.onMenuRemoved("99", null);
+    assertNull(searchResultCache.get(far));
+  }
+
+  @Test
+  void latestResultIsKeptStaleAfterItsTimeBucket() {
+    SearchResultCache.Key noon = searchResultCache.keyOf("Biryani", 20.0, 30.0, 5.0, NOON);
+    SearchResultCache.Key later = searchResultCache.keyOf("Biryani", 20.0, 30.0, 5.0,
+        LocalTime.of(12, 20));
+    assertNull(searchResultCache.getStale(later));
+    searchResultCache.put(noon, restaurants("10"));
+
+    assertNull(searchResultCache.get(later));
+    assertEquals("10", searchResultCache.getStale(later).get(0).getRestaurantId());
+    assertNull(searchResultCache.getStale(
+        searchResultCache.keyOf("Biryani", 20.0, 30.0, 3.0, NOON)));
+
+    // Not served once a restaurant around has changed.
+    searchResultCache.onRestaurantChanged(null, restaurantEntity(20.01, 30.01));
+    assertNull(searchResultCache.getStale(later));
+  }
+
+  @Test
+  void oneOffSearchesDoNotEvictPopularOnes() {
+    // Caffeine starts counting how often keys are used once the cache is half full.
+    SearchResultCache smallCache = new SearchResultCache(true, 100, 5, new SimpleMeterRegistry());
+    for (int i = 0; i < 60; i++) {
+      smallCache.put(smallCache.keyOf("popular " + i, 20.0, 30.0, 5.0, NOON), restaurants("10"));
+    }
+    for (int round = 0; round < 5; round++) {
+      for (int i = 0; i < 60; i++) {
+        smallCache.get(smallCache.keyOf("popular " + i, 20.0, 30.0, 5.0, NOON));
+        // Reads are sampled through a small buffer, let every one count here.
+        smallCache.cleanUp();
+      }
+    }
+
+    for (int i = 0; i < 2000; i++) {
+      smallCache.put(smallCache.keyOf("rare " + i, 20.0, 30.0, 5.0, NOON), restaurants("11"));
+      smallCache.cleanUp();
+    }
+
+    int popularLeft = 0;
+    for (int i = 0; i < 60; i++) {
+      if (smallCache.get(smallCache.keyOf("popular " + i, 20.0, 30.0, 5.0, NOON)) != null) {
+        popularLeft++;
+      }
+    }
+    assertTrue(popularLeft >= 54, popularLeft + " popular searches left");
+  }
+
+  @Test
+  void disabledCacheNeverHits() {
+    SearchResultCache disabled = new SearchResultCache(false, 100, 5, new SimpleMeterRegistry());
+    SearchResultCache.Key key = disabled.keyOf("Biryani", 20.0, 30.0, 5.0, NOON);
+    disabled.put(key, restaurants("10"));
+
+    assertNull(disabled.get(key));
+    assertNull(disabled.getStale(key));
+  }
+
+  private static List<Restaurant> restaurants(String restaurantId) {
+    Restaurant restaurant = new Restaurant();
+    restaurant.setRestaurantId(restaurantId);
+    return Collections.singletonList(restaurant);
+  }
+
+  private static RestaurantEntity restaurantEntity(double latitude, double longitude) {
+    RestaurantEntity restaurantEntity = new RestaurantEntity();
+    restaurantEntity.setRestaurantId("10");
+    restaurantEntity.setLatitude(latitude);
+    restaurantEntity.setLongitude(longitude);
+    return restaurantEntity;
+  }
+
+}
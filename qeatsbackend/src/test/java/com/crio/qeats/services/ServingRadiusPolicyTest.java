@@ -0,0 +1,85 @@
+package com.crio.qeats.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalTime;
+import org.junit.jupiter.api.Test;
+
+class ServingRadiusPolicyTest {
+
+  @Test
+  void defaultScheduleMatchesPeakHours() {
+    ServingRadiusPolicy servingRadiusPolicy = new ServingRadiusPolicy();
+
+    assertEquals(5.0, servingRadiusPolicy.getServingRadius(20.0, 30.0, LocalTime.of(7, 59)));
+    assertEquals(3.0, servingRadiusPolicy.getServingRadius(20.0, 30.0, LocalTime.of(8, 0)));
+    assertEquals(3.0, servingRadiusPolicy.getServingRadius(20.0, 30.0, LocalTime.of(10, 0)));
+    assertEquals(5.0, servingRadiusPolicy.getServingRadius(20.0, 30.0, LocalTime.of(10, 0, 1)));
+    assertEquals(5.0, servingRadiusPolicy.getServingRadius(20.0, 30.0, LocalTime.of(7, 59, 59)));
+    assertEquals(3.0,
+        servingRadiusPolicy.getServingRadius(20.0, 30.0, LocalTime.of(7, 59, 59, 1000)));
+    assertEquals(5.0, servingRadiusPolicy.getServingRadius(20.0, 30.0, LocalTime.of(10, 1)));
+    assertEquals(3.0, servingRadiusPolicy.getServingRadius(20.0, 30.0, LocalTime.of(13, 30)));
+    assertEquals(3.0, servingRadiusPolicy.getServingRadius(20.0, 30.0, LocalTime.of(19, 0)));
+    assertEquals(5.0, servingRadiusPolicy.getServingRadius(20.0, 30.0, LocalTime.of(22, 0)));
+  }
+
+  @Test
+  void windowsMayWrapAroundMidnightAndRadiiAreCapped() {
+    ServingRadiusPolicy servingRadiusPolicy =
+        new ServingRadiusPolicy("23:00-01:00", 2.0, 8.0, 200, 1000);
+
+    assertEquals(2.0, servingRadiusPolicy.getServingRadius(20.0, 30.0, LocalTime.of(23, 30)));
+    assertEquals(2.0, servingRadiusPolicy.getServingRadius(20.0, 30.0, LocalTime.of(0, 30)));
+    assertEquals(5.0, servingRadiusPolicy.getServingRadius(20.0, 30.0, LocalTime.of(12, 0)));
+  }
+
+  @Test
+  void busyAreaShrinksAndRecoversWithoutAffectingOthers() {
+    ServingRadiusPolicy servingRadiusPolicy = new ServingRadiusPolicy(
+        "08:00-10:00,13:00-14:00,19:00-21:00", 3.0, 5.0, 200, 0);
+    LocalTime noon = LocalTime.of(12, 0);
+
+    for (int i = 0; i < 3; i++) {
+      servingRadiusPolicy.recordResultCount(20.0, 30.0, 500);
+    }
+    double shrunk = servingRadiusPolicy.getServingRadius(20.0, 30.0, noon);
+    assertEquals(5.0 * 0.8 * 0.8 * 0.8, shrunk, 1e-9);
+    assertEquals(5.0, servingRadiusPolicy.getServingRadius(28.0, 77.0, noon));
+
+    for (int i = 0; i < 100; i++) {
+      servingRadiusPolicy.recordResultCount(20.0, 30.0, 50);
+    }
+    assertEquals(5.0, servingRadiusPolicy.getServingRadius(20.0, 30.0, noon));
+
+    for (int i = 0; i < 100; i++) {
+      servingRadiusPolicy.recordResultCount(20.0, 30.0, 500);
+    }
+    assertTrue(servingRadiusPolicy.getServingRadius(20.0, 30.0, noon) >= 5.0 * 0.4 - 1e-9);
+  }
+
+  @Test
+  void areaScaleChangesOncePerAdjustInterval() {
+    ServingRadiusPolicy servingRadiusPolicy = new ServingRadiusPolicy();
+
+    for (int i = 0; i < 10; i++) {
+      servingRadiusPolicy.recordResultCount(20.0, 30.0, 500);
+    }
+
+    assertEquals(5.0 * 0.8,
+        servingRadiusPolicy.getServingRadius(20.0, 30.0, LocalTime.of(12, 0)), 1e-9);
+  }
+
+  @Test
+  void globalScaleShedsLoadEverywhere() {
+    ServingRadiusPolicy servingRadiusPolicy = new ServingRadiusPolicy();
+
+    servingRadiusPolicy.setGlobalScale(0.5);
+
+    assertEquals(1.5, servingRadiusPolicy.getServingRadius(20.0, 30.0, LocalTime.of(19, 0)));
+    assertEquals(2.5, servingRadiusPolicy.getServingRadius(28.0, 77.0, LocalTime.of(12, 0)));
+    assertThrows(IllegalArgumentException.class, () -> servingRadiusPolicy.setGlobalScale(2.0));
+  }
+}
@@ -0,0 +1,160 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.crio.qeats.dto.Item;
+import com.crio.qeats.exchanges.GetSuggestionsRequest;
+import com.crio.qeats.models.MenuEntity;
+import com.crio.qeats.models.RestaurantEntity;
+import com.crio.qeats.repositories.MenuRepository;
+import com.crio.qeats.repositories.RestaurantRepository;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class SuggestionServiceTest {
+
+  @InjectMocks
+  private SuggestionServiceImpl suggestionService;
+
+  @Mock
+  private RestaurantRepository restaurantRepository;
+
+  @Mock
+  private MenuRepository menuRepository;
+
+  private final List<RestaurantEntity> restaurants = new ArrayList<>();
+  private final List<MenuEntity> menus = new ArrayList<>();
+
+  @BeforeEach
+  void setup() {
+    when(restaurantRepository.findAll()).thenReturn(restaurants);
+    when(menuRepository.findAll()).thenReturn(menus);
+  }
+
+  @Test
+  void namesAttributesAndDishesAreCompletedFromAnyWord() {
+    addRestaurant("1", "Paradise Biryani", 20.0, 30.0, "Hyderabadi");
+    addMenu("1", "Chicken Biryani", "Mutton Biryani", "chicken biryani");
+    suggestionService.rebuild();
+
+    assertEquals(Arrays.asList("Chicken Biryani", "Mutton Biryani", "Paradise Biryani"),
+        suggest("BIR", 20.0, 30.0, null));
+    assertEquals(Arrays.asList("Chicken Biryani"), suggest("  chicken  b", 20.0, 30.0, null));
+    assertEquals(Arrays.asList("Hyderabadi"), suggest("hyd", 20.0, 30.0, null));
+    assertTrue(suggest("iryani", 20.0, 30.0, null).isEmpty());
+  }
+
+  @Test
+  void onlyNearbyAreasAreSuggestedAndRankedByHowManyOfferIt() {
+    addRestaurant("1", "Biryani Point", 20.0, 30.0);
+    addMenu("1", "Biryani");
+    // The neighbouring area, about 5km away.
+    addRestaurant("2", "Biryani Blues", 20.045, 30.0);
+    addMenu("2", "Biryani");
+    // Far away.
+    addRestaurant("3", "Biryani Palace", 21.0, 30.0);
+    addMenu("3", "Biryani");
+    suggestionService.rebuild();
+
+    assertEquals(Arrays.asList("Biryani", "Biryani Blues", "Biryani Point"),
+        suggest("bir", 20.0, 30.0, null));
+    assertEquals(Arrays.asList("Biryani", "Biryani Palace"), suggest("bir", 21.0, 30.0, null));
+    assertEquals(Arrays.asList("Biryani"), suggest("bir", 20.0, 30.0, 1));
+    assertTrue(suggest("bir", 25.0, 30.0, null).isEmpty());
+  }
+
+  @Test
+  void frequentSearchesRankHigherAndFadeAfterEachRebuild() {
+    addRestaurant("1", "Biryani Point", 20.0, 30.0);
+    addRestaurant("2", "Bisi Bele Bath", 20.0, 30.0, "Biryani Point");
+    suggestionService.rebuild();
+    assertEquals(Arrays.asList("Biryani Point", "Bisi Bele Bath"),
+        suggest("bi", 20.0, 30.0, null));
+
+    for (int i = 0; i < 20; i++) {
+      suggestionService.recordSearch(20.0, 30.0, " bisi bele BATH");
+    }
+    // Searches far away change nothing here.
+    for (int i = 0; i < 100; i++) {
+      suggestionService.recordSearch(25.0, 30.0, "Biryani Point");
+    }
+    suggestionService.rebuild();
+    assertEquals(Arrays.asList("Bisi Bele Bath", "Biryani Point"),
+        suggest("bi", 20.0, 30.0, null));
+
+    // 20 searches are worth 2 restaurants, then 1, then 0.5.
+    suggestionService.rebuild();
+    suggestionService.rebuild();
+    assertEquals(Arrays.asList("Biryani Point", "Bisi Bele Bath"),
+        suggest("bi", 20.0, 30.0, null));
+  }
+
+  @Test
+  void searchesReRankWithoutReadingMongoAgain() {
+    addRestaurant("1", "Biryani Point", 20.0, 30.0);
+    addRestaurant("2", "Bisi Bele Bath", 20.0, 30.0);
+    suggestionService.rebuildIfDirty();
+    // Nothing changed.
+    suggestionService.rebuildIfDirty();
+
+    for (int i = 0; i < 20; i++) {
+      suggestionService.recordSearch(20.0, 30.0, "Bisi Bele Bath");
+    }
+    suggestionService.rebuildIfDirty();
+    assertEquals(Arrays.asList("Bisi Bele Bath", "Biryani Point"),
+        suggest("bi", 20.0, 30.0, null));
+    verify(restaurantRepository, times(1)).findAll();
+
+    suggestionService.onMenuChanged(new MenuEntity(), null);
+    suggestionService.rebuildIfDirty();
+    verify(menuRepository, times(2)).findAll();
+  }
+
+  private List<String> suggest(String prefix, double latitude, double longitude, Integer limit) {
+    return suggestionService.getSuggestions(
+        new GetSuggestionsRequest(latitude, longitude, prefix, limit)).getSuggestions();
+  }
+
+  private void addRestaurant(String restaurantId, String name, double latitude,
+      double longitude, String... attributes) {
+    RestaurantEntity restaurantEntity = new RestaurantEntity();
+    restaurantEntity.setRestaurantId(restaurantId);
+    restaurantEntity.setName(name);
+    restaurantEntity.setLatitude(latitude);
+    restaurantEntity.setLongitude(longitude);
+    restaurantEntity.setAttributes(Arrays.asList(attributes));
+    restaurants.add(restaurantEntity);
+  }
+
+  private void addMenu(String restaurantId, String... itemNames) {
+    List<Item> items = new ArrayList<>();
+    for (String itemName : itemNames) {
+      Item item = new Item();
+      item.setName(itemName);
+      items.add(item);
+    }
+    MenuEntity menuEntity = new MenuEntity();
+    menuEntity.setRestaurantId(restaurantId);
+    menuEntity.setItems(items);
+    menus.add(menuEntity);
+  }
+
+}
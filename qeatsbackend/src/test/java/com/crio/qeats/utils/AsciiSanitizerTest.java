@@ -0,0 +1,31 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.jupiter.api.Test;
+
+class AsciiSanitizerTest {
+
+  @Test
+  void asciiNameIsReturnedAsIs() {
+    String name = "Udupi Bhavan";
+    assertSame(name, AsciiSanitizer.toAscii(name));
+    assertNull(AsciiSanitizer.toAscii(null));
+  }
+
+  @Test
+  void nonAsciiCharactersAreReplacedLikeTheRegex() {
+    String[] names = {"Café Coffee Day", "éé", "Dosa 🍛 Corner", "\uD83C", "ಉಡುಪಿ 1"};
+    for (String name : names) {
+      assertEquals(name.replaceAll("[^\\x00-\\x7F]", "?"), AsciiSanitizer.toAscii(name));
+    }
+  }
+}
@@ -0,0 +1,82 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import org.junit.jupiter.api.Test;
+
+class ConsistentHashRingTest {
+
+  private static final int KEYS = 30000;
+
+  @Test
+  void keysAreSpreadEvenlyOverTheNodes() {
+    ConsistentHashRing<String> ring = ring("a:6379", "b:6379", "c:6379");
+
+    Map<String, Integer> keysByNode = new HashMap<>();
+    for (int i = 0; i < KEYS; i++) {
+      keysByNode.merge(ring.nodeFor("key" + i), 1, Integer::sum);
+    }
+    assertEquals(3, keysByNode.size());
+    for (int keys : keysByNode.values()) {
+      assertTrue(keys > KEYS / 3 * 0.8 && keys < KEYS / 3 * 1.2, keysByNode.toString());
+    }
+  }
+
+  @Test
+  void aNewNodeOnlyTakesItsShareOfTheKeys() {
+    ConsistentHashRing<String> before = ring("a:6379", "b:6379", "c:6379");
+    ConsistentHashRing<String> after = ring("a:6379", "b:6379", "c:6379", "d:6379");
+
+    int moved = 0;
+    for (int i = 0; i < KEYS; i++) {
+      String node = after.nodeFor("key" + i);
+      if (!node.equals(before.nodeFor("key" + i))) {
+        assertEquals("d:6379", node);
+        moved++;
+      }
+    }
+    assertTrue(moved > KEYS / 4 * 0.8 && moved < KEYS / 4 * 1.2, "moved " + moved);
+  }
+
+  @Test
+  void keysOfAFailedNodeAreSpreadOverTheOthers() {
+    ConsistentHashRing<String> ring = ring("a:6379", "b:6379", "c:6379");
+
+    Set<String> takenOverBy = new HashSet<>();
+    for (int i = 0; i < 1000; i++) {
+      String owner = ring.nodeFor("key" + i);
+      String node = ring.nodeFor("key" + i, candidate -> !candidate.equals("a:6379"));
+      assertNotEquals("a:6379", node);
+      if (owner.equals("a:6379")) {
+        takenOverBy.add(node);
+      } else {
+        // Keys of the nodes still up stay where they are.
+        assertEquals(owner, node);
+      }
+    }
+    assertEquals(2, takenOverBy.size());
+    assertNull(ring.nodeFor("key", candidate -> false));
+  }
+
+  private static ConsistentHashRing<String> ring(String... nodes) {
+    List<String> nodeList = Arrays.asList(nodes);
+    return ConsistentHashRing.of(nodeList, Function.identity(), 160);
+  }
+
+}
@@ -0,0 +1,45 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.crio.qeats.dto.Restaurant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+
+class DedupUtilsTest {
+
+  @Test
+  void restaurantsAreKeptOnceInFirstSeenOrder() {
+    Restaurant a2b = restaurant("10", "A2B");
+    // Same restaurant, read at another time with a changed name.
+    Restaurant a2bRenamed = restaurant("10", "A2B Express");
+    Restaurant shantiSagar = restaurant("11", "Shanti Sagar");
+
+    List<Restaurant> merged = DedupUtils.mergeById(Arrays.asList(
+        Arrays.asList(shantiSagar, a2b), null, Collections.singletonList(a2bRenamed),
+        Arrays.asList(a2b, shantiSagar)), Restaurant::getRestaurantId);
+
+    assertEquals(Arrays.asList("11", "10"), ids(merged));
+    assertEquals("A2B", merged.get(1).getName());
+  }
+
+  private static List<String> ids(List<Restaurant> restaurants) {
+    return restaurants.stream().map(Restaurant::getRestaurantId).collect(Collectors.toList());
+  }
+
+  private static Restaurant restaurant(String restaurantId, String name) {
+    Restaurant restaurant = new Restaurant();
+    restaurant.setRestaurantId(restaurantId);
+    restaurant.setName(name);
+    return restaurant;
+  }
+}
@@ -10,7 +10,10 @@
 package com.crio.qeats.utils;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import ch.hsr.geohash.GeoHash;
+import java.util.List;
 import org.junit.jupiter.api.Test;
 
 class GeoUtilsTest {
@@ -29,4 +32,15 @@ class GeoUtilsTest {
     assertEquals(3.04, distanceBetweenA2bHsrAndA2bBtm, 0.1);
   }
 
+  @Test
+  public void geoHashesWithinKmCoverTheCircle() {
+    List<String> geoHashes = GeoUtils.findGeoHashesWithinKm(12.9168585, 77.6072902, 5.0, 7);
+
+    assertTrue(geoHashes.contains(
+        GeoHash.geoHashStringWithCharacterPrecision(12.9168585, 77.6072902, 7)));
+    assertTrue(geoHashes.contains(
+        GeoHash.geoHashStringWithCharacterPrecision(12.9138172, 77.63517, 7)));
+    assertEquals(geoHashes.size(), geoHashes.stream().distinct().count());
+  }
+
 }
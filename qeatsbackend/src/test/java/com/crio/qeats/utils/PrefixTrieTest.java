@@ -0,0 +1,83 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+
+class PrefixTrieTest {
+
+  @Test
+  void completionsAreRankedByScore() {
+    PrefixTrie trie = PrefixTrie.builder()
+        .add("biryani", "Biryani", 5)
+        .add("biryani house", "Biryani House", 2)
+        .add("bisi bele bath", "Bisi Bele Bath", 3)
+        .add("dosa", "Dosa", 9)
+        .build(10);
+
+    assertEquals(Arrays.asList("Biryani", "Bisi Bele Bath", "Biryani House"),
+        texts(trie.complete("bi", 10)));
+    assertEquals(Arrays.asList("Biryani", "Biryani House"), texts(trie.complete("biry", 10)));
+    assertEquals(Arrays.asList("Biryani House"), texts(trie.complete("biryani ", 10)));
+    assertEquals(Arrays.asList("Dosa"), texts(trie.complete("dosa", 10)));
+    assertEquals(Arrays.asList("Dosa", "Biryani"), texts(trie.complete("", 2)));
+    assertEquals(4, trie.size());
+  }
+
+  @Test
+  void prefixesOutsideTheTrieHaveNoCompletions() {
+    PrefixTrie trie = PrefixTrie.builder()
+        .add("biryani", "Biryani", 5)
+        .add("biryani house", "Biryani House", 2)
+        .build(10);
+
+    assertTrue(trie.complete("bx", 10).isEmpty());
+    assertTrue(trie.complete("biryanis", 10).isEmpty());
+    assertTrue(trie.complete("c", 10).isEmpty());
+    assertTrue(PrefixTrie.builder().build(10).complete("b", 10).isEmpty());
+  }
+
+  @Test
+  void textUnderSeveralKeysIsReturnedOnceWithItsBestScore() {
+    PrefixTrie trie = PrefixTrie.builder()
+        .add("paradise biryani", "Paradise Biryani", 4)
+        .add("biryani", "Paradise Biryani", 4)
+        .add("biryani", "Biryani", 1)
+        .add("biryani", "Biryani", 3)
+        .build(10);
+
+    List<PrefixTrie.Completion> completions = trie.complete("b", 10);
+    assertEquals(Arrays.asList("Paradise Biryani", "Biryani"), texts(completions));
+    assertEquals(3.0, completions.get(1).getScore());
+  }
+
+  @Test
+  void nodesKeepOnlyTheTopK() {
+    PrefixTrie.Builder builder = PrefixTrie.builder();
+    for (int i = 0; i < 100; i++) {
+      builder.add("item " + i, "Item " + i, i);
+    }
+    PrefixTrie trie = builder.build(3);
+
+    assertEquals(Arrays.asList("Item 99", "Item 98", "Item 97"),
+        texts(trie.complete("item", 10)));
+    assertEquals(Arrays.asList("Item 19", "Item 18", "Item 17"),
+        texts(trie.complete("item 1", 10)));
+    assertEquals(Arrays.asList("Item 99", "Item 98"), texts(trie.complete("item", 2)));
+  }
+
+  private static List<String> texts(List<PrefixTrie.Completion> completions) {
+    return completions.stream().map(PrefixTrie.Completion::getText).collect(Collectors.toList());
+  }
+
+}
@@ -0,0 +1,62 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+
+class TrigramIndexTest {
+
+  private final TrigramIndex index = TrigramIndex.of(Arrays.asList(
+      "biryani", "briyani", "biscuit", "paneer", "pancake", "dosa", "aaaa", "biryani"));
+
+  @Test
+  void editDistanceGivesUpPastTheLimit() {
+    assertEquals(0, TrigramIndex.editDistance("biryani", "biryani", 2));
+    assertEquals(1, TrigramIndex.editDistance("biriyani", "biryani", 2));
+    assertEquals(2, TrigramIndex.editDistance("briyani", "biryani", 2));
+    assertEquals(1, TrigramIndex.editDistance("panner", "paneer", 2));
+    assertEquals(3, TrigramIndex.editDistance("pizza", "paneer", 2));
+    assertEquals(2, TrigramIndex.editDistance("dosa", "dosa masala", 1));
+    assertEquals(3, TrigramIndex.editDistance("", "abc", 5));
+  }
+
+  @Test
+  void wordsWithinTheEditBudgetAreFound() {
+    assertEquals(Arrays.asList("biryani:1", "briyani:1"), matches("biriyani", 1));
+    assertEquals(Arrays.asList("biryani:0", "briyani:2"), matches("biryani", 2));
+    assertEquals(Arrays.asList("paneer:1"), matches("panner", 1));
+    assertEquals(Arrays.asList("dosa:0"), matches("dosa", 1));
+    assertTrue(matches("pizza", 2).isEmpty());
+    assertEquals(7, index.size());
+  }
+
+  @Test
+  void noEditsMeansAnExactMatch() {
+    assertEquals(Arrays.asList("dosa:0"), matches("dosa", 0));
+    assertTrue(matches("dos", 0).isEmpty());
+  }
+
+  @Test
+  void wordsTooShortOrRepetitiveForTrigramsAreStillFound() {
+    assertEquals(Arrays.asList("dosa:1"), matches("dsa", 1));
+    assertEquals(Arrays.asList("aaaa:1"), matches("aaa", 2));
+  }
+
+  private List<String> matches(String word, int maxEdits) {
+    return index.find(word, maxEdits).stream()
+        .map(match -> match.getWord() + ":" + match.getEdits())
+        .sorted()
+        .collect(Collectors.toList());
+  }
+
+}
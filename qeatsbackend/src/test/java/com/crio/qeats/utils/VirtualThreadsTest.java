@@ -0,0 +1,47 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+
+class VirtualThreadsTest {
+
+  @Test
+  void virtualThreadsAreUsedOnlyWhereTheJdkHasThem() throws Exception {
+    boolean jdkHasVirtualThreads = hasMethod(Thread.class, "isVirtual");
+    assertEquals(jdkHasVirtualThreads, VirtualThreads.isSupported());
+
+    if (!jdkHasVirtualThreads) {
+      assertThrows(UnsupportedOperationException.class,
+          VirtualThreads::newVirtualThreadPerTaskExecutor);
+      return;
+    }
+    ExecutorService executor = VirtualThreads.newVirtualThreadPerTaskExecutor();
+    try {
+      Future<Object> isVirtual = executor.submit(
+          () -> Thread.class.getMethod("isVirtual").invoke(Thread.currentThread()));
+      assertEquals(Boolean.TRUE, isVirtual.get());
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  private static boolean hasMethod(Class<?> type, String name) {
+    try {
+      type.getMethod(name);
+      return true;
+    } catch (NoSuchMethodException e) {
+      return false;
+    }
+  }
+
+}